@@ -109,6 +109,12 @@ public class XmlConfigurationLoader implements ConfigurationLoader {
         dst.setLowPort(src.getInt("lowPort", MediaConfiguration.LOW_PORT));
         dst.setHighPort(src.getInt("highPort", MediaConfiguration.HIGH_PORT));
         dst.setJitterBufferSize(src.getInt("jitterBuffer[@size]", MediaConfiguration.JITTER_BUFFER_SIZE));
+        dst.setMediaLoops(src.getInt("scheduler[@mediaLoops]", MediaConfiguration.MEDIA_LOOPS));
+        dst.setPtime(src.getInt("ptime", MediaConfiguration.PTIME));
+        dst.setTimer(src.getString("scheduler[@timer]", MediaConfiguration.TIMER.name()));
+        dst.setActiveSpeakers(src.getInt("mixer[@activeSpeakers]", MediaConfiguration.ACTIVE_SPEAKERS));
+        dst.setMixerSampleRate(src.getInt("mixer[@sampleRate]", MediaConfiguration.MIXER_SAMPLE_RATE));
+        dst.setVoiceActivityDetection(src.getBoolean("mixer[@vad]", MediaConfiguration.VOICE_ACTIVITY_DETECTION));
 
         // Iterate over codec configuration
         List<HierarchicalConfiguration<ImmutableNode>> codecs = src.childConfigurationsAt("codecs");
@@ -23,6 +23,8 @@ package org.restcomm.media.bootstrap.ioc.provider;
 
 import java.util.Iterator;
 
+import org.restcomm.media.codec.g711.AlawToUlawTranscoder;
+import org.restcomm.media.codec.g711.UlawToAlawTranscoder;
 import org.restcomm.media.component.dsp.DspFactoryImpl;
 import org.restcomm.media.core.configuration.CodecType;
 import org.restcomm.media.core.configuration.MediaServerConfiguration;
@@ -46,14 +48,24 @@ public class DspProvider implements Provider<DspFactoryImpl> {
     @Override
     public DspFactoryImpl get() {
         DspFactoryImpl dsp = new DspFactoryImpl();
+        boolean alaw = false;
+        boolean ulaw = false;
         Iterator<String> codecs = this.config.getMediaConfiguration().getCodecs();
         while (codecs.hasNext()) {
             CodecType codec = CodecType.fromName(codecs.next());
             if(codec != null && !codec.getEncoder().isEmpty() && !codec.getDecoder().isEmpty()) {
                 dsp.addCodec(codec.getDecoder());
                 dsp.addCodec(codec.getEncoder());
+                alaw |= codec == CodecType.PCMA;
+                ulaw |= codec == CodecType.PCMU;
             }
         }
+
+        // bridge both G.711 laws without going through linear audio
+        if (alaw && ulaw) {
+            dsp.addCodec(AlawToUlawTranscoder.class.getName());
+            dsp.addCodec(UlawToAlawTranscoder.class.getName());
+        }
         return dsp;
     }
 
@@ -21,6 +21,8 @@
 
 package org.restcomm.media.bootstrap.ioc.provider;
 
+import org.restcomm.media.core.configuration.MediaConfiguration;
+import org.restcomm.media.core.configuration.MediaServerConfiguration;
 import org.restcomm.media.scheduler.Clock;
 import org.restcomm.media.scheduler.PriorityQueueScheduler;
 
@@ -34,15 +36,18 @@ import com.google.inject.Provider;
 public class MediaSchedulerProvider implements Provider<PriorityQueueScheduler> {
 
     private final Clock clock;
+    private final MediaServerConfiguration config;
     
     @Inject
-    public MediaSchedulerProvider(Clock clock) {
+    public MediaSchedulerProvider(MediaServerConfiguration config, Clock clock) {
+        this.config = config;
         this.clock = clock;
     }
     
     @Override
     public PriorityQueueScheduler get() {
-        return new PriorityQueueScheduler(this.clock);
+        final MediaConfiguration media = this.config.getMediaConfiguration();
+        return new PriorityQueueScheduler(this.clock, media.getMediaLoops(), media.getPtime());
     }
 
 }
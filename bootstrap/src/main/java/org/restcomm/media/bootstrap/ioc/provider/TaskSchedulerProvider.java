@@ -21,8 +21,12 @@
         
 package org.restcomm.media.bootstrap.ioc.provider;
 
+import org.restcomm.media.core.configuration.MediaServerConfiguration;
 import org.restcomm.media.scheduler.Clock;
+import org.restcomm.media.scheduler.HashedWheelScheduler;
+import org.restcomm.media.scheduler.Scheduler;
 import org.restcomm.media.scheduler.ServiceScheduler;
+import org.restcomm.media.scheduler.TimerType;
 
 import com.google.inject.Inject;
 import com.google.inject.Provider;
@@ -31,18 +35,27 @@ import com.google.inject.Provider;
  * @author Henrique Rosa (henrique.rosa@telestax.com)
  *
  */
-public class TaskSchedulerProvider implements Provider<ServiceScheduler>{
+public class TaskSchedulerProvider implements Provider<Scheduler>{
 
     private final Clock clock;
+    private final MediaServerConfiguration config;
     
     @Inject
-    public TaskSchedulerProvider(Clock clock) {
+    public TaskSchedulerProvider(MediaServerConfiguration config, Clock clock) {
+        this.config = config;
         this.clock = clock;
     }
     
     @Override
-    public ServiceScheduler get() {
-        return new ServiceScheduler(this.clock);
+    public Scheduler get() {
+        final TimerType timer = this.config.getMediaConfiguration().getTimer();
+        switch (timer) {
+            case WHEEL:
+                return new HashedWheelScheduler(this.clock);
+
+            default:
+                return new ServiceScheduler(this.clock);
+        }
     }
 
 }
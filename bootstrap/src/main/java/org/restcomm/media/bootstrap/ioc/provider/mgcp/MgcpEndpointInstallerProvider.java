@@ -65,6 +65,9 @@ public class MgcpEndpointInstallerProvider implements Provider<List<MgcpEndpoint
         final Iterator<MgcpEndpointConfiguration> iterator = controller.getEndpoints();
         final List<MgcpEndpointProvider<? extends MgcpEndpoint>> providers = new ArrayList<>(controller.countEndpoints());
         final String domain = this.configuration.getControllerConfiguration().getAddress() + ":" + this.configuration.getControllerConfiguration().getPort();
+        final int activeSpeakers = this.configuration.getMediaConfiguration().getActiveSpeakers();
+        final int mixerSampleRate = this.configuration.getMediaConfiguration().getMixerSampleRate();
+        final boolean voiceActivityDetection = this.configuration.getMediaConfiguration().isVoiceActivityDetection();
         
         while (iterator.hasNext()) {
             final MgcpEndpointConfiguration endpoint = iterator.next();
@@ -73,7 +76,7 @@ public class MgcpEndpointInstallerProvider implements Provider<List<MgcpEndpoint
 
             switch (endpoint.getRelayType()) {
                 case MIXER:
-                    provider = new MgcpMixerEndpointProvider(namespace, domain, this.mediaScheduler, this.connectionProvider, this.MediaGroupProvider);
+                    provider = new MgcpMixerEndpointProvider(namespace, domain, this.mediaScheduler, this.connectionProvider, this.MediaGroupProvider, activeSpeakers, mixerSampleRate, voiceActivityDetection);
                     break;
 
                 case SPLITTER:
@@ -21,9 +21,13 @@
 
 package org.restcomm.media.bootstrap.main;
 
+import java.lang.management.ManagementFactory;
 import java.util.HashMap;
 import java.util.Map;
 
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
 import org.apache.log4j.Logger;
 import org.restcomm.media.network.deprecated.UdpManager;
 import org.restcomm.media.scheduler.PriorityQueueScheduler;
@@ -32,6 +36,7 @@ import org.restcomm.media.scheduler.Task;
 import org.restcomm.media.spi.ControlProtocol;
 import org.restcomm.media.spi.MediaServer;
 import org.restcomm.media.spi.ServerManager;
+import org.restcomm.media.spi.memory.Memory;
 
 import com.google.inject.Inject;
 
@@ -42,6 +47,8 @@ import com.google.inject.Inject;
 public class RestCommMediaServer implements MediaServer {
 
     private static final Logger log = Logger.getLogger(RestCommMediaServer.class);
+    private static final String SCHEDULER_STATISTICS_MBEAN = "org.restcomm.media:type=SchedulerStatistics,name=mediaScheduler";
+    private static final String MEMORY_STATISTICS_MBEAN = "org.restcomm.media:type=MemoryStatistics,name=framePool";
 
     // Media Server State
     private boolean started;
@@ -102,6 +109,7 @@ public class RestCommMediaServer implements MediaServer {
         this.started = true;
         this.heartbeat.restart();
         this.mediaScheduler.start();
+        registerStatistics();
         this.taskScheduler.start();
         this.udpManager.start();
         for (ServerManager controller : this.controllers.values()) {
@@ -123,6 +131,7 @@ public class RestCommMediaServer implements MediaServer {
         this.udpManager.stop();
         this.taskScheduler.stop();
         this.mediaScheduler.stop();
+        unregisterStatistics();
         this.heartbeat.cancel();
         for (ServerManager controller : this.controllers.values()) {
             controller.deactivate();
@@ -137,6 +146,40 @@ public class RestCommMediaServer implements MediaServer {
         return this.started;
     }
 
+    private void registerStatistics() {
+        registerMBean(SCHEDULER_STATISTICS_MBEAN, this.mediaScheduler.getStatistics(), "media scheduler statistics");
+        registerMBean(MEMORY_STATISTICS_MBEAN, Memory.getStatistics(), "frame pool statistics");
+    }
+
+    private void unregisterStatistics() {
+        unregisterMBean(SCHEDULER_STATISTICS_MBEAN, "media scheduler statistics");
+        unregisterMBean(MEMORY_STATISTICS_MBEAN, "frame pool statistics");
+    }
+
+    private void registerMBean(String objectName, Object mbean, String description) {
+        try {
+            final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            final ObjectName name = new ObjectName(objectName);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(mbean, name);
+            }
+        } catch (Exception e) {
+            log.warn("Could not register " + description + " in JMX", e);
+        }
+    }
+
+    private void unregisterMBean(String objectName, String description) {
+        try {
+            final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            final ObjectName name = new ObjectName(objectName);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        } catch (Exception e) {
+            log.warn("Could not unregister " + description + " from JMX", e);
+        }
+    }
+
     private final class HeartBeat extends Task {
 
         public HeartBeat() {
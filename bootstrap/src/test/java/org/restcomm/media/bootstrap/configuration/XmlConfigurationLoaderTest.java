@@ -27,6 +27,7 @@ import org.bouncycastle.crypto.tls.SignatureAlgorithm;
 import org.junit.Assert;
 import org.junit.Test;
 import org.restcomm.media.core.configuration.*;
+import org.restcomm.media.scheduler.TimerType;
 import org.restcomm.media.spi.RelayType;
 
 import java.util.Collection;
@@ -77,6 +78,12 @@ public class XmlConfigurationLoaderTest {
         Assert.assertEquals(54534, media.getLowPort());
         Assert.assertEquals(64534, media.getHighPort());
         Assert.assertEquals(60, media.getJitterBufferSize());
+        Assert.assertEquals(4, media.getMediaLoops());
+        Assert.assertEquals(30, media.getPtime());
+        Assert.assertEquals(TimerType.WHEEL, media.getTimer());
+        Assert.assertEquals(3, media.getActiveSpeakers());
+        Assert.assertEquals(48000, media.getMixerSampleRate());
+        Assert.assertFalse(media.isVoiceActivityDetection());
         Assert.assertTrue(media.hasCodec("l16"));
         Assert.assertTrue(media.hasCodec("PCMU"));
         Assert.assertTrue(media.hasCodec("pcma"));
@@ -162,6 +169,12 @@ public class XmlConfigurationLoaderTest {
         Assert.assertEquals(MediaConfiguration.LOW_PORT, media.getLowPort());
         Assert.assertEquals(MediaConfiguration.HIGH_PORT, media.getHighPort());
         Assert.assertEquals(MediaConfiguration.JITTER_BUFFER_SIZE, media.getJitterBufferSize());
+        Assert.assertEquals(MediaConfiguration.MEDIA_LOOPS, media.getMediaLoops());
+        Assert.assertEquals(MediaConfiguration.PTIME, media.getPtime());
+        Assert.assertEquals(MediaConfiguration.TIMER, media.getTimer());
+        Assert.assertEquals(MediaConfiguration.ACTIVE_SPEAKERS, media.getActiveSpeakers());
+        Assert.assertEquals(MediaConfiguration.MIXER_SAMPLE_RATE, media.getMixerSampleRate());
+        Assert.assertEquals(MediaConfiguration.VOICE_ACTIVITY_DETECTION, media.isVoiceActivityDetection());
         Assert.assertEquals(0, media.countCodecs());
 
         ResourcesConfiguration resources = config.getResourcesConfiguration();
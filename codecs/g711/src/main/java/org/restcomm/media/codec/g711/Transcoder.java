@@ -0,0 +1,122 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2017, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.restcomm.media.codec.g711;
+
+import org.restcomm.media.spi.dsp.Codec;
+import org.restcomm.media.spi.format.Format;
+import org.restcomm.media.spi.format.FormatFactory;
+import org.restcomm.media.spi.memory.Frame;
+import org.restcomm.media.spi.memory.Memory;
+
+/**
+ * Converts directly between both G.711 laws.
+ * <p>
+ * Every code of one law maps to a single code of the other, so one table lookup per sample replaces decoding to linear
+ * audio and encoding again. The payload is rewritten in place unless it is shared with other frames.
+ * </p>
+ */
+abstract class Transcoder implements Codec {
+
+    protected final static Format alaw = FormatFactory.createAudioFormat("pcma", 8000, 8, 1);
+    protected final static Format ulaw = FormatFactory.createAudioFormat("pcmu", 8000, 8, 1);
+
+    private final Format input;
+    private final Format output;
+    private final byte[] table;
+
+    protected Transcoder(Format input, Format output, byte[] table) {
+        this.input = input;
+        this.output = output;
+        this.table = table;
+    }
+
+    /**
+     * Builds the table of a conversion by running every code through a decoder and an encoder.
+     * 
+     * @param decoder The decoder of the source law
+     * @param encoder The encoder of the destination law
+     * @return the code of the destination law for each code of the source law
+     */
+    protected static byte[] table(Codec decoder, Codec encoder) {
+        final Frame codes = Memory.allocate(256);
+        final byte[] data = codes.getData();
+        for (int i = 0; i < 256; i++) {
+            data[i] = (byte) i;
+        }
+        codes.setOffset(0);
+        codes.setLength(256);
+
+        final Frame linear = decoder.process(codes);
+        final Frame converted = encoder.process(linear);
+        final byte[] table = new byte[256];
+        System.arraycopy(converted.getData(), converted.getOffset(), table, 0, 256);
+
+        codes.recycle();
+        linear.recycle();
+        converted.recycle();
+        return table;
+    }
+
+    @Override
+    public Format getSupportedInputFormat() {
+        return input;
+    }
+
+    @Override
+    public Format getSupportedOutputFormat() {
+        return output;
+    }
+
+    @Override
+    public Frame process(Frame frame) {
+        final byte[] table = this.table;
+        final byte[] data = frame.getData();
+        final int offset = frame.getOffset();
+        final int length = frame.getLength();
+
+        if (!frame.isShared()) {
+            for (int i = offset; i < offset + length; i++) {
+                data[i] = table[data[i] & 0xff];
+            }
+            frame.setFormat(output);
+            return frame;
+        }
+
+        // other holders still read the payload
+        final Frame res = Memory.allocate(length);
+        final byte[] resData = res.getData();
+        for (int i = 0; i < length; i++) {
+            resData[i] = table[data[offset + i] & 0xff];
+        }
+        res.setOffset(0);
+        res.setLength(length);
+        res.setTimestamp(frame.getTimestamp());
+        res.setDuration(frame.getDuration());
+        res.setSequenceNumber(frame.getSequenceNumber());
+        res.setEOM(frame.isEOM());
+        res.setFormat(output);
+        res.setHeader(frame.getHeader());
+        return res;
+    }
+
+}
@@ -38,6 +38,15 @@ public class Encoder implements Codec {
     private final static Format alaw = FormatFactory.createAudioFormat("pcma", 8000, 8, 1);
     private final static Format linear = FormatFactory.createAudioFormat("linear", 8000, 16, 1);
 
+    /** A-law codes of every group of 16 samples, see {@link #index(int)} */
+    private final static byte[] CODES = new byte[8192];
+
+    static {
+        for (int sample = Short.MIN_VALUE; sample <= Short.MAX_VALUE; sample++) {
+            CODES[index(sample)] = compress(sample);
+        }
+    }
+
     private int i,j,count;
     /**
      * (Non Java-doc)
@@ -69,8 +78,9 @@ public class Encoder implements Codec {
         byte[] data=frame.getData();
         byte[] resData=res.getData();
         
-        for (i = 0,j = 0; i < count; i++,j++)
-        	resData[i]=EncoderData.aLawCompressTable[data[j+1] & 0xff][data[j++] & 0xff];        	
+        for (i = 0, j = 0; i < count; i++, j += 2) {
+            resData[i] = encode((data[j + 1] << 8) | (data[j] & 0xff));
+        }
         
         res.setOffset(0);
         res.setLength(count);
@@ -81,5 +91,42 @@ public class Encoder implements Codec {
         res.setSequenceNumber(frame.getSequenceNumber());
 
         return res;
-    }    
+    }
+
+    /**
+     * Compresses a 16 bit linear sample into an A-law code.
+     * 
+     * @param sample the linear sample, in the range of a short
+     * @return the A-law code
+     */
+    public static byte encode(int sample) {
+        return CODES[index(sample)];
+    }
+
+    /**
+     * Computes the position of the code of a sample in the table.
+     * <p>
+     * The code only depends on the sign of the sample and on its magnitude shifted right by four bits. Negative samples
+     * are moved up by one so that the groups of their magnitudes line up with the groups of the shift, which keeps the
+     * table at 8 KB instead of one entry per sample.
+     * </p>
+     */
+    private static int index(int sample) {
+        return ((sample + (sample >> 31)) >> 4) & 0x1FFF;
+    }
+
+    /**
+     * Computes the A-law code of a sample from its segment.
+     * <p>
+     * The magnitude is taken in 16 bit arithmetic, so -32768 gets the smallest negative code just like the former table
+     * of every sample value did.
+     * </p>
+     */
+    private static byte compress(int sample) {
+        int sign = sample >> 31;
+        int pcm = ((sample ^ sign) - sign) & 0x7FFF;
+        int seg = 24 - Integer.numberOfLeadingZeros(pcm | 0xFF);
+        int aval = (seg << 4) | ((pcm >> (Math.max(seg, 1) + 3)) & 0x0F);
+        return (byte) (aval ^ 0xD5 ^ (sign & 0x80));
+    }
 }
@@ -37,6 +37,17 @@ public class Encoder implements Codec {
     private final static Format ulaw = FormatFactory.createAudioFormat("pcmu", 8000, 8, 1);
     private final static Format linear = FormatFactory.createAudioFormat("linear", 8000, 16, 1);
 
+    private final static int BIAS = 0x84;
+
+    /** U-law codes of every group of 8 samples, see {@link #index(int)} */
+    private final static byte[] CODES = new byte[8192];
+
+    static {
+        for (int sample = Short.MIN_VALUE; sample <= Short.MAX_VALUE; sample++) {
+            CODES[index(sample)] = compress(sample);
+        }
+    }
+
     private int i,j,count;
     
     public Format getSupportedInputFormat() {
@@ -59,8 +70,9 @@ public class Encoder implements Codec {
         byte[] data=frame.getData();
         byte[] resData=res.getData();
         
-        for (i = 0,j = 0; i < count; i++,j++)
-        	resData[i]=EncoderData.muLawCompressTable[data[j+1] & 0xff][data[j++] & 0xff];        	
+        for (i = 0, j = 0; i < count; i++, j += 2) {
+            resData[i] = encode((data[j + 1] << 8) | (data[j] & 0xff));
+        }
         
         res.setOffset(0);
         res.setLength(count);
@@ -72,4 +84,43 @@ public class Encoder implements Codec {
 
         return res;               
     }
-}
\ No newline at end of file
+
+    /**
+     * Compresses a 16 bit linear sample into an U-law code.
+     * 
+     * @param sample the linear sample, in the range of a short
+     * @return the U-law code
+     */
+    public static byte encode(int sample) {
+        return CODES[index(sample)];
+    }
+
+    /**
+     * Computes the position of the code of a sample in the table.
+     * <p>
+     * The code only depends on the sign of the sample and on its biased magnitude shifted right by three bits. The
+     * offset lines up the groups of the shift with the groups of the biased magnitude for both signs, and each sign gets
+     * its own half of the 8 KB table. The groups that wrap around at the ends of the range have the same codes as the
+     * groups next to zero, as the bias overflows 16 bits there.
+     * </p>
+     */
+    private static int index(int sample) {
+        int sign = sample >> 31;
+        return (((sample + 4 + sign) >> 3) & 0x0FFF) | (sign & 0x1000);
+    }
+
+    /**
+     * Computes the U-law code of a sample from its segment.
+     * <p>
+     * The bias is added in 16 bit arithmetic without clipping, which keeps the codes of the extreme samples identical
+     * to the former table of every sample value.
+     * </p>
+     */
+    private static byte compress(int sample) {
+        int sign = sample >> 31;
+        int pcm = (((sample ^ sign) - sign) + BIAS) & 0x7FFF;
+        int seg = 24 - Integer.numberOfLeadingZeros(pcm | 0xFF);
+        int uval = (seg << 4) | ((pcm >> (seg + 3)) & 0x0F);
+        return (byte) (uval ^ 0xFF ^ (sign & 0x80));
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2017, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.restcomm.media.codec.g711;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Ignore;
+import org.junit.Test;
+import org.restcomm.media.spi.dsp.Codec;
+import org.restcomm.media.spi.memory.Frame;
+import org.restcomm.media.spi.memory.Memory;
+
+public class TranscoderTest {
+
+    private static Frame codes(int offset) {
+        final Frame frame = Memory.allocate(offset + 256);
+        final byte[] data = frame.getData();
+        for (int i = 0; i < 256; i++) {
+            data[offset + i] = (byte) i;
+        }
+        frame.setOffset(offset);
+        frame.setLength(256);
+        return frame;
+    }
+
+    /**
+     * Converts every code through linear audio.
+     */
+    private static byte[] twoHops(Codec decoder, Codec encoder) {
+        final Frame linear = decoder.process(codes(0));
+        final Frame converted = encoder.process(linear);
+        final byte[] result = new byte[256];
+        System.arraycopy(converted.getData(), converted.getOffset(), result, 0, 256);
+        return result;
+    }
+
+    private static void check(Codec transcoder, byte[] expected) {
+        final Frame frame = codes(0);
+        final Frame converted = transcoder.process(frame);
+        assertSame(frame, converted);
+        assertTrue(transcoder.getSupportedOutputFormat().matches(converted.getFormat()));
+        for (int i = 0; i < 256; i++) {
+            assertEquals(expected[i], converted.getData()[i]);
+        }
+        converted.recycle();
+    }
+
+    @Test
+    public void testAlawToUlaw() {
+        check(new AlawToUlawTranscoder(),
+                twoHops(new org.restcomm.media.codec.g711.alaw.Decoder(), new org.restcomm.media.codec.g711.ulaw.Encoder()));
+    }
+
+    @Test
+    public void testUlawToAlaw() {
+        check(new UlawToAlawTranscoder(),
+                twoHops(new org.restcomm.media.codec.g711.ulaw.Decoder(), new org.restcomm.media.codec.g711.alaw.Encoder()));
+    }
+
+    @Test
+    public void testSharedPayload() {
+        final Frame frame = codes(12);
+        frame.setTimestamp(1234L);
+        final Frame view = frame.share();
+
+        final Frame converted = new AlawToUlawTranscoder().process(view);
+        assertNotSame(view, converted);
+        assertEquals(256, converted.getLength());
+        assertEquals(1234L, converted.getTimestamp());
+
+        // the shared payload is left untouched
+        for (int i = 0; i < 256; i++) {
+            assertEquals((byte) i, frame.getData()[12 + i]);
+        }
+        view.recycle();
+        frame.recycle();
+        converted.recycle();
+    }
+
+    @Ignore
+    @Test
+    public void testSpeed() {
+        final int rounds = 200000;
+        final Codec decoder = new org.restcomm.media.codec.g711.alaw.Decoder();
+        final Codec encoder = new org.restcomm.media.codec.g711.ulaw.Encoder();
+        final Codec transcoder = new AlawToUlawTranscoder();
+        final Frame frame = Memory.allocate(160);
+        frame.setOffset(0);
+        frame.setLength(160);
+
+        for (int r = 0; r < rounds; r++) {
+            Frame linear = decoder.process(frame);
+            encoder.process(linear).recycle();
+            linear.recycle();
+            transcoder.process(frame);
+        }
+
+        long s = System.nanoTime();
+        for (int r = 0; r < rounds; r++) {
+            Frame linear = decoder.process(frame);
+            encoder.process(linear).recycle();
+            linear.recycle();
+        }
+        final long linear = System.nanoTime() - s;
+
+        s = System.nanoTime();
+        for (int r = 0; r < rounds; r++) {
+            transcoder.process(frame);
+        }
+        final long direct = System.nanoTime() - s;
+
+        System.out.println("A-law to mu-law: through linear " + (linear / rounds) + " ns, direct " + (direct / rounds)
+                + " ns per 20ms frame");
+    }
+
+}
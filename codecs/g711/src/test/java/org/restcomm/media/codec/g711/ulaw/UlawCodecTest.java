@@ -30,6 +30,7 @@ import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
 import org.junit.BeforeClass;
+import org.junit.Ignore;
 import org.junit.Test;
 import static org.junit.Assert.*;
 
@@ -127,4 +128,79 @@ public class UlawCodecTest  {
             }
         }
     }
+
+    /**
+     * Compares the computed compression with the former lookup table for every 16 bit sample.
+     */
+    @Test
+    public void testEncodeAllSamples() {
+        for (int sample = Short.MIN_VALUE; sample <= Short.MAX_VALUE; sample++) {
+            byte expected = EncoderData.muLawCompressTable[(sample >> 8) & 0xff][sample & 0xff];
+            assertEquals("sample " + sample, expected, Encoder.encode(sample));
+        }
+    }
+
+    /**
+     * Encodes 20ms frames of many channels in turn, once back to back and once with other per channel work in between
+     * that evicts the encoder tables from the cache, like the rest of the media path does in a real server.
+     */
+    @Ignore
+    @Test
+    public void testSpeed() {
+        final int channels = 256;
+        final int rounds = 50;
+        final byte[][] frames = new byte[channels][320];
+        final java.util.Random random = new java.util.Random(7);
+        for (int c = 0; c < channels; c++) {
+            double amplitude = 500 + random.nextInt(20000);
+            double step = 2 * Math.PI * (200 + random.nextInt(3000)) / 8000;
+            for (int i = 0; i < 160; i++) {
+                int sample = (int) (amplitude * Math.sin(step * i)) + random.nextInt(200) - 100;
+                frames[c][2 * i] = (byte) sample;
+                frames[c][2 * i + 1] = (byte) (sample >> 8);
+            }
+        }
+        final int[] work = new int[1 << 18];
+
+        for (int pass = 0; pass < 3; pass++) {
+            for (int w = 0; w < 2; w++) {
+                final int[] other = w == 0 ? null : work;
+                long table = 0;
+                long segments = 0;
+                for (int r = 0; r < rounds; r++) {
+                    table += encode(frames, other, true);
+                    segments += encode(frames, other, false);
+                }
+
+                final int frameCount = channels * rounds;
+                System.out.println("U-law encoding of " + channels + " channels" + (other == null ? "" : " with other work")
+                        + ": table " + (table / frameCount) + " ns, segments " + (segments / frameCount) + " ns per 20ms frame");
+            }
+        }
+    }
+
+    private static long encode(byte[][] frames, int[] other, boolean table) {
+        final byte[] out = new byte[160];
+        long duration = 0;
+        for (byte[] data : frames) {
+            if (other != null) {
+                for (int k = 0; k < other.length; k += 16) {
+                    other[k]++;
+                }
+            }
+
+            long s = System.nanoTime();
+            if (table) {
+                for (int i = 0, j = 0; i < 160; i++, j += 2) {
+                    out[i] = EncoderData.muLawCompressTable[data[j + 1] & 0xff][data[j] & 0xff];
+                }
+            } else {
+                for (int i = 0, j = 0; i < 160; i++, j += 2) {
+                    out[i] = Encoder.encode((data[j + 1] << 8) | (data[j] & 0xff));
+                }
+            }
+            duration += System.nanoTime() - s;
+        }
+        return duration;
+    }
 }
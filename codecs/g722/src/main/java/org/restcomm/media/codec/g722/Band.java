@@ -0,0 +1,191 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2017, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.restcomm.media.codec.g722;
+
+/**
+ * State of one sub-band of the SB-ADPCM algorithm of ITU-T G.722.
+ * <p>
+ * Holds the adaptive pole-zero predictor and the quantizer scale factor of either the lower or the higher band. The
+ * encoder and the decoder run the very same blocks on the quantized difference signal, so both sides stay in lock step
+ * without any side information.
+ * </p>
+ */
+final class Band {
+
+    /* Coefficients of the transmit and receive QMF, even taps only as the filter is symmetric */
+    static final int[] QMF = { 3, -11, 12, 32, -210, 951, 3876, -805, 362, -156, 53, -11 };
+
+    /* Lower band, 4 bit inverse quantizer used for prediction (INVQAL) */
+    static final int[] QM4 = { 0, -20456, -12896, -8968, -6288, -4240, -2584, -1200, 20456, 12896, 8968, 6288, 4240, 2584,
+            1200, 0 };
+
+    /* Lower band, logarithmic scale factor multipliers (LOGSCL) */
+    static final int[] RL42 = { 0, 7, 6, 5, 4, 3, 2, 1, 7, 6, 5, 4, 3, 2, 1, 0 };
+    static final int[] WL = { -60, -30, 58, 172, 334, 538, 1198, 3042 };
+
+    /* Higher band, 2 bit inverse quantizer (INVQAH) */
+    static final int[] QM2 = { -7408, -1616, 7408, 1616 };
+
+    /* Higher band, logarithmic scale factor multipliers (LOGSCH) */
+    static final int[] RH2 = { 2, 1, 2, 1 };
+    static final int[] WH = { 0, -214, 798 };
+
+    /* Inverse logarithmic table of the scale factor (SCALEL, SCALEH) */
+    private static final int[] ILB = { 2048, 2093, 2139, 2186, 2233, 2282, 2332, 2383, 2435, 2489, 2543, 2599, 2656, 2714,
+            2774, 2834, 2896, 2960, 3025, 3091, 3158, 3228, 3298, 3371, 3444, 3520, 3597, 3676, 3756, 3838, 3922, 4008 };
+
+    /* Limit and shift of the scale factor of the lower band */
+    static final int LOW_LIMIT = 18432;
+    static final int LOW_SHIFT = 8;
+
+    /* Limit and shift of the scale factor of the higher band */
+    static final int HIGH_LIMIT = 22528;
+    static final int HIGH_SHIFT = 10;
+
+    /* Initial quantizer scale factors */
+    static final int LOW_DET = 32;
+    static final int HIGH_DET = 8;
+
+    // signal estimate and its zero part
+    int s;
+    private int sz;
+
+    // quantizer scale factor
+    int det;
+    private int nb;
+
+    // pole section: reconstructed signals, partially reconstructed signals and coefficients
+    private int r1, r2;
+    private int p1, p2;
+    private int a1, a2;
+
+    // zero section: quantized difference signals and coefficients, indexes 1 to 6
+    private final int[] d = new int[7];
+    private final int[] b = new int[7];
+
+    Band(int det) {
+        this.det = det;
+    }
+
+    static int saturate(int amp) {
+        if (amp > Short.MAX_VALUE) {
+            return Short.MAX_VALUE;
+        }
+        if (amp < Short.MIN_VALUE) {
+            return Short.MIN_VALUE;
+        }
+        return amp;
+    }
+
+    /**
+     * Adapts the quantizer scale factor (blocks LOGSCL/LOGSCH and SCALEL/SCALEH).
+     * 
+     * @param weight The logarithmic multiplier of the last quantized sample
+     * @param limit The upper limit of the logarithmic scale factor
+     * @param shift The shift that brings the scale factor to the domain of the band
+     */
+    void adapt(int weight, int limit, int shift) {
+        int wd = ((this.nb * 127) >> 7) + weight;
+        if (wd < 0) {
+            wd = 0;
+        } else if (wd > limit) {
+            wd = limit;
+        }
+        this.nb = wd;
+
+        final int wd1 = (wd >> 6) & 31;
+        final int wd2 = shift - (wd >> 11);
+        final int wd3 = wd2 < 0 ? ILB[wd1] << -wd2 : ILB[wd1] >> wd2;
+        this.det = wd3 << 2;
+    }
+
+    /**
+     * Updates the predictor with the quantized difference signal and computes the next signal estimate (block 4).
+     * 
+     * @param dq The quantized difference signal
+     */
+    void predict(int dq) {
+        // RECONS and PARREC
+        final int r0 = saturate(this.s + dq);
+        final int p0 = saturate(this.sz + dq);
+
+        // UPPOL2
+        final int sg0 = p0 >> 15;
+        final int sg1 = this.p1 >> 15;
+        final int sg2 = this.p2 >> 15;
+        int wd1 = saturate(this.a1 << 2);
+        int wd2 = sg0 == sg1 ? -wd1 : wd1;
+        if (wd2 > 32767) {
+            wd2 = 32767;
+        }
+        int wd3 = (wd2 >> 7) + (sg0 == sg2 ? 128 : -128) + ((this.a2 * 32512) >> 15);
+        if (wd3 > 12288) {
+            wd3 = 12288;
+        } else if (wd3 < -12288) {
+            wd3 = -12288;
+        }
+        final int ap2 = wd3;
+
+        // UPPOL1
+        int ap1 = saturate((sg0 == sg1 ? 192 : -192) + ((this.a1 * 32640) >> 15));
+        wd3 = saturate(15360 - ap2);
+        if (ap1 > wd3) {
+            ap1 = wd3;
+        } else if (ap1 < -wd3) {
+            ap1 = -wd3;
+        }
+
+        // UPZERO, DELAYZ and FILTEZ in a single pass over the zero section
+        wd1 = dq == 0 ? 0 : 128;
+        final int sgd = dq >> 15;
+        final int[] d = this.d;
+        final int[] b = this.b;
+        int zero = 0;
+        for (int i = 6; i > 1; i--) {
+            b[i] = saturate(((d[i] >> 15) == sgd ? wd1 : -wd1) + ((b[i] * 32640) >> 15));
+            d[i] = d[i - 1];
+            zero += (b[i] * saturate(d[i] << 1)) >> 15;
+        }
+        b[1] = saturate(((d[1] >> 15) == sgd ? wd1 : -wd1) + ((b[1] * 32640) >> 15));
+        d[1] = dq;
+        zero += (b[1] * saturate(dq << 1)) >> 15;
+        this.sz = saturate(zero);
+
+        // DELAYA
+        this.r2 = this.r1;
+        this.r1 = r0;
+        this.p2 = this.p1;
+        this.p1 = p0;
+        this.a2 = ap2;
+        this.a1 = ap1;
+
+        // FILTEP
+        wd1 = (this.a1 * saturate(this.r1 + this.r1)) >> 15;
+        wd2 = (this.a2 * saturate(this.r2 + this.r2)) >> 15;
+        final int sp = saturate(wd1 + wd2);
+
+        // PREDIC
+        this.s = saturate(sp + this.sz);
+    }
+
+}
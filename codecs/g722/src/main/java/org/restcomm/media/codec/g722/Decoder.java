@@ -0,0 +1,153 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2017, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.restcomm.media.codec.g722;
+
+import java.util.Arrays;
+
+import org.restcomm.media.spi.dsp.Codec;
+import org.restcomm.media.spi.format.Format;
+import org.restcomm.media.spi.format.FormatFactory;
+import org.restcomm.media.spi.memory.Frame;
+import org.restcomm.media.spi.memory.Memory;
+
+/**
+ * Decodes G.722 at 64 kbit/s into 16kHz linear audio.
+ * <p>
+ * Every byte carries one lower and one higher band sample, which the receive QMF merges back into two output samples. The
+ * codec keeps the state of the stream between frames, so one instance must be used per stream.
+ * </p>
+ */
+public class Decoder implements Codec {
+
+    private final static Format g722 = FormatFactory.createAudioFormat("g722", 16000);
+    private final static Format linear = FormatFactory.createAudioFormat("linear", 16000, 16, 1);
+
+    /* Lower band, 6 bit inverse quantizer (INVQBL) */
+    private static final int[] QM6 = { -136, -136, -136, -136, -24808, -21904, -19008, -16704, -14984, -13512, -12280, -11192,
+            -10232, -9360, -8576, -7856, -7192, -6576, -6000, -5456, -4944, -4464, -4008, -3576, -3168, -2776, -2400, -2032,
+            -1688, -1360, -1040, -728, 24808, 21904, 19008, 16704, 14984, 13512, 12280, 11192, 10232, 9360, 8576, 7856, 7192,
+            6576, 6000, 5456, 4944, 4464, 4008, 3576, 3168, 2776, 2400, 2032, 1688, 1360, 1040, 728, 432, 136, -432, -136 };
+
+    /* Number of past samples needed by the 24 taps QMF */
+    private static final int HISTORY = 22;
+
+    private final Band low = new Band(Band.LOW_DET);
+    private final Band high = new Band(Band.HIGH_DET);
+
+    // input of the QMF: the last samples of the previous frame followed by the current frame
+    private int[] signal = new int[HISTORY + 320];
+
+    public Format getSupportedInputFormat() {
+        return g722;
+    }
+
+    public Format getSupportedOutputFormat() {
+        return linear;
+    }
+
+    public Frame process(Frame frame) {
+        final int length = frame.getLength();
+        final int samples = length * 2;
+        if (this.signal.length < HISTORY + samples) {
+            this.signal = Arrays.copyOf(this.signal, HISTORY + samples);
+        }
+
+        final int[] x = this.signal;
+        final byte[] data = frame.getData();
+        final int offset = frame.getOffset();
+        for (int i = 0; i < length; i++) {
+            decode(data[offset + i] & 0xff, x, HISTORY + (i << 1));
+        }
+
+        // receive QMF
+        final Frame res = Memory.allocate(samples * 2);
+        final byte[] resData = res.getData();
+        int xout1, xout2;
+        for (int i = 0, j = 0; i < samples; i += 2) {
+            xout1 = 0;
+            xout2 = 0;
+            for (int k = 0; k < 12; k++) {
+                xout2 += x[i + 2 * k] * Band.QMF[k];
+                xout1 += x[i + 2 * k + 1] * Band.QMF[11 - k];
+            }
+            xout1 = Band.saturate(xout1 >> 11);
+            xout2 = Band.saturate(xout2 >> 11);
+            resData[j++] = (byte) xout1;
+            resData[j++] = (byte) (xout1 >> 8);
+            resData[j++] = (byte) xout2;
+            resData[j++] = (byte) (xout2 >> 8);
+        }
+        System.arraycopy(x, samples, x, 0, HISTORY);
+
+        res.setOffset(0);
+        res.setLength(samples * 2);
+        res.setTimestamp(frame.getTimestamp());
+        res.setDuration(frame.getDuration());
+        res.setSequenceNumber(frame.getSequenceNumber());
+        res.setEOM(frame.isEOM());
+        res.setFormat(linear);
+        return res;
+    }
+
+    /**
+     * Decodes the lower and higher band samples of one code.
+     * 
+     * @param code The G.722 code
+     * @param x The input of the QMF
+     * @param offset The position of the pair of QMF inputs to fill
+     */
+    private void decode(int code, int[] x, int offset) {
+        final int ilow = code & 0x3f;
+        final int ihigh = code >> 6;
+
+        // lower band: INVQBL, RECONS, LIMIT, then INVQAL, LOGSCL, SCALEL and block 4 with the 4 bit code
+        final Band low = this.low;
+        int rlow = low.s + ((low.det * QM6[ilow]) >> 15);
+        if (rlow > 16383) {
+            rlow = 16383;
+        } else if (rlow < -16384) {
+            rlow = -16384;
+        }
+
+        final int ril = ilow >> 2;
+        final int dlow = (low.det * Band.QM4[ril]) >> 15;
+        low.adapt(Band.WL[Band.RL42[ril]], Band.LOW_LIMIT, Band.LOW_SHIFT);
+        low.predict(dlow);
+
+        // higher band: INVQAH, RECONS, LIMIT, LOGSCH, SCALEH and block 4
+        final Band high = this.high;
+        final int dhigh = (high.det * Band.QM2[ihigh]) >> 15;
+        int rhigh = high.s + dhigh;
+        if (rhigh > 16383) {
+            rhigh = 16383;
+        } else if (rhigh < -16384) {
+            rhigh = -16384;
+        }
+        high.adapt(Band.WH[Band.RH2[ihigh]], Band.HIGH_LIMIT, Band.HIGH_SHIFT);
+        high.predict(dhigh);
+
+        x[offset] = rlow + rhigh;
+        x[offset + 1] = rlow - rhigh;
+    }
+
+}
@@ -0,0 +1,152 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2017, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.restcomm.media.codec.g722;
+
+import java.util.Arrays;
+
+import org.restcomm.media.spi.dsp.Codec;
+import org.restcomm.media.spi.format.Format;
+import org.restcomm.media.spi.format.FormatFactory;
+import org.restcomm.media.spi.memory.Frame;
+import org.restcomm.media.spi.memory.Memory;
+
+/**
+ * Encodes 16kHz linear audio into G.722 at 64 kbit/s.
+ * <p>
+ * The transmit QMF splits every pair of input samples into a lower and a higher band sample, which are coded with 6 and 2
+ * bits respectively and packed into one byte. The codec keeps the state of the stream between frames, so one instance
+ * must be used per stream.
+ * </p>
+ */
+public class Encoder implements Codec {
+
+    private final static Format g722 = FormatFactory.createAudioFormat("g722", 16000);
+    private final static Format linear = FormatFactory.createAudioFormat("linear", 16000, 16, 1);
+
+    /* Lower band, 6 bit quantizer decision levels and codes of negative and positive samples (QUANTL) */
+    private static final int[] Q6 = { 0, 35, 72, 110, 150, 190, 233, 276, 323, 370, 422, 473, 530, 587, 650, 714, 786, 858,
+            940, 1023, 1121, 1219, 1339, 1458, 1612, 1765, 1980, 2195, 2557, 2919, 0, 0 };
+    private static final int[] ILN = { 0, 63, 62, 31, 30, 29, 28, 27, 26, 25, 24, 23, 22, 21, 20, 19, 18, 17, 16, 15, 14, 13,
+            12, 11, 10, 9, 8, 7, 6, 5, 4, 0 };
+    private static final int[] ILP = { 0, 61, 60, 59, 58, 57, 56, 55, 54, 53, 52, 51, 50, 49, 48, 47, 46, 45, 44, 43, 42, 41,
+            40, 39, 38, 37, 36, 35, 34, 33, 32, 0 };
+
+    /* Higher band, codes of negative and positive samples (QUANTH) */
+    private static final int[] IHN = { 0, 1, 0 };
+    private static final int[] IHP = { 0, 3, 2 };
+
+    /* Number of past samples needed by the 24 taps QMF */
+    private static final int HISTORY = 22;
+
+    private final Band low = new Band(Band.LOW_DET);
+    private final Band high = new Band(Band.HIGH_DET);
+
+    // input of the QMF: the last samples of the previous frame followed by the current frame
+    private int[] signal = new int[HISTORY + 320];
+
+    public Format getSupportedInputFormat() {
+        return linear;
+    }
+
+    public Format getSupportedOutputFormat() {
+        return g722;
+    }
+
+    public Frame process(Frame frame) {
+        final int samples = frame.getLength() / 2;
+        final int length = samples / 2;
+        if (this.signal.length < HISTORY + samples) {
+            this.signal = Arrays.copyOf(this.signal, HISTORY + samples);
+        }
+
+        final int[] x = this.signal;
+        final byte[] data = frame.getData();
+        for (int i = 0, j = frame.getOffset(); i < samples; i++, j += 2) {
+            x[HISTORY + i] = (short) ((data[j + 1] << 8) | (data[j] & 0xff));
+        }
+
+        final Frame res = Memory.allocate(length);
+        final byte[] resData = res.getData();
+        for (int i = 0; i < length; i++) {
+            resData[i] = (byte) encode(x, i << 1);
+        }
+        System.arraycopy(x, length << 1, x, 0, HISTORY);
+
+        res.setOffset(0);
+        res.setLength(length);
+        res.setTimestamp(frame.getTimestamp());
+        res.setDuration(frame.getDuration());
+        res.setSequenceNumber(frame.getSequenceNumber());
+        res.setEOM(frame.isEOM());
+        res.setFormat(g722);
+        return res;
+    }
+
+    /**
+     * Encodes one pair of samples.
+     * 
+     * @param x The input of the QMF
+     * @param offset The position of the oldest sample within the window of the QMF
+     * @return The G.722 code of the pair
+     */
+    private int encode(int[] x, int offset) {
+        // transmit QMF, discarding every other output
+        int sumOdd = 0;
+        int sumEven = 0;
+        for (int i = 0; i < 12; i++) {
+            sumOdd += x[offset + 2 * i] * Band.QMF[i];
+            sumEven += x[offset + 2 * i + 1] * Band.QMF[11 - i];
+        }
+        final int xlow = (sumEven + sumOdd) >> 14;
+        final int xhigh = (sumEven - sumOdd) >> 14;
+
+        // lower band: SUBTRA, QUANTL, INVQAL, LOGSCL, SCALEL and block 4
+        final Band low = this.low;
+        final int el = Band.saturate(xlow - low.s);
+        int wd = el >= 0 ? el : -(el + 1);
+        int i = 1;
+        while (i < 30 && wd >= (Q6[i] * low.det) >> 12) {
+            i++;
+        }
+        final int ilow = el < 0 ? ILN[i] : ILP[i];
+
+        final int ril = ilow >> 2;
+        final int dlow = (low.det * Band.QM4[ril]) >> 15;
+        low.adapt(Band.WL[Band.RL42[ril]], Band.LOW_LIMIT, Band.LOW_SHIFT);
+        low.predict(dlow);
+
+        // higher band: SUBTRA, QUANTH, INVQAH, LOGSCH, SCALEH and block 4
+        final Band high = this.high;
+        final int eh = Band.saturate(xhigh - high.s);
+        wd = eh >= 0 ? eh : -(eh + 1);
+        final int mih = wd >= (564 * high.det) >> 12 ? 2 : 1;
+        final int ihigh = eh < 0 ? IHN[mih] : IHP[mih];
+
+        final int dhigh = (high.det * Band.QM2[ihigh]) >> 15;
+        high.adapt(Band.WH[Band.RH2[ihigh]], Band.HIGH_LIMIT, Band.HIGH_SHIFT);
+        high.predict(dhigh);
+
+        return (ihigh << 6) | ilow;
+    }
+
+}
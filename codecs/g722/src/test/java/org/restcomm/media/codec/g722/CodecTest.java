@@ -0,0 +1,253 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2017, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.restcomm.media.codec.g722;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Random;
+import java.util.zip.CRC32;
+
+import org.junit.Ignore;
+import org.junit.Test;
+import org.restcomm.media.spi.format.AudioFormat;
+import org.restcomm.media.spi.memory.Frame;
+import org.restcomm.media.spi.memory.Memory;
+
+public class CodecTest {
+
+    /* 20ms of 16kHz linear audio */
+    private static final int SAMPLES = 320;
+
+    /* Delay of the transmit and receive QMF, in samples */
+    private static final int DELAY = 22;
+
+    private static short[] tone(double frequency, double amplitude, int samples) {
+        final short[] signal = new short[samples];
+        for (int i = 0; i < samples; i++) {
+            signal[i] = (short) (amplitude * StrictMath.sin(2 * Math.PI * frequency * i / 16000));
+        }
+        return signal;
+    }
+
+    /**
+     * Builds a wideband test signal: a chirp sweeping the whole band over seeded random noise.
+     */
+    private static short[] sweep(int samples) {
+        final Random random = new Random(722);
+        final short[] signal = new short[samples];
+        double phase = 0;
+        for (int i = 0; i < samples; i++) {
+            phase += 2 * Math.PI * (50 + 7900.0 * i / samples) / 16000;
+            signal[i] = (short) (8000 * StrictMath.sin(phase) + random.nextGaussian() * 500);
+        }
+        return signal;
+    }
+
+    private static Frame toFrame(short[] signal, int offset, int samples) {
+        final Frame frame = Memory.allocate(samples * 2);
+        final byte[] data = frame.getData();
+        for (int i = 0; i < samples; i++) {
+            data[2 * i] = (byte) signal[offset + i];
+            data[2 * i + 1] = (byte) (signal[offset + i] >> 8);
+        }
+        frame.setOffset(0);
+        frame.setLength(samples * 2);
+        return frame;
+    }
+
+    private static byte[] encode(short[] signal, int frameSize) {
+        final Encoder encoder = new Encoder();
+        final byte[] codes = new byte[signal.length / 2];
+        for (int offset = 0; offset < signal.length; offset += frameSize) {
+            final Frame encoded = encoder.process(toFrame(signal, offset, frameSize));
+            System.arraycopy(encoded.getData(), encoded.getOffset(), codes, offset / 2, encoded.getLength());
+            encoded.recycle();
+        }
+        return codes;
+    }
+
+    private static short[] decode(byte[] codes, int frameSize) {
+        final Decoder decoder = new Decoder();
+        final short[] signal = new short[codes.length * 2];
+        for (int offset = 0; offset < codes.length; offset += frameSize) {
+            final Frame frame = Memory.allocate(frameSize);
+            System.arraycopy(codes, offset, frame.getData(), 0, frameSize);
+            frame.setOffset(0);
+            frame.setLength(frameSize);
+
+            final Frame decoded = decoder.process(frame);
+            final byte[] data = decoded.getData();
+            for (int i = 0; i < frameSize * 2; i++) {
+                signal[offset * 2 + i] = (short) ((data[2 * i + 1] << 8) | (data[2 * i] & 0xff));
+            }
+            decoded.recycle();
+        }
+        return signal;
+    }
+
+    /**
+     * Computes the signal to noise ratio of the decoded signal, once aligned on the input.
+     */
+    private static double snr(short[] input, short[] output) {
+        double signal = 0;
+        double noise = 0;
+        // skip the first 100ms while the adaptive quantizers settle
+        for (int i = 1600; i < input.length - DELAY; i++) {
+            final double error = input[i] - output[i + DELAY];
+            signal += (double) input[i] * input[i];
+            noise += error * error;
+        }
+        return 10 * Math.log10(signal / noise);
+    }
+
+    @Test
+    public void testFormats() {
+        final Encoder encoder = new Encoder();
+        final Decoder decoder = new Decoder();
+
+        assertEquals("g722", encoder.getSupportedOutputFormat().getName().toString());
+        assertEquals(16000, ((AudioFormat) encoder.getSupportedInputFormat()).getSampleRate());
+        assertTrue(encoder.getSupportedOutputFormat().matches(decoder.getSupportedInputFormat()));
+        assertTrue(decoder.getSupportedOutputFormat().matches(encoder.getSupportedInputFormat()));
+    }
+
+    @Test
+    public void testFrameLength() {
+        final Frame frame = toFrame(tone(1000, 10000, SAMPLES), 0, SAMPLES);
+        frame.setTimestamp(20000000L);
+        frame.setDuration(20000000L);
+        frame.setSequenceNumber(7);
+
+        final Frame encoded = new Encoder().process(frame);
+        assertEquals(160, encoded.getLength());
+        assertEquals(20000000L, encoded.getTimestamp());
+        assertEquals(20000000L, encoded.getDuration());
+        assertEquals(7, encoded.getSequenceNumber());
+
+        final Frame decoded = new Decoder().process(encoded);
+        assertEquals(640, decoded.getLength());
+        assertEquals(20000000L, decoded.getTimestamp());
+        assertEquals(20000000L, decoded.getDuration());
+        assertEquals(7, decoded.getSequenceNumber());
+    }
+
+    @Test
+    public void testLowerBand() {
+        final short[] input = tone(1000, 10000, 16000);
+        assertTrue(snr(input, decode(encode(input, SAMPLES), 160)) > 40);
+    }
+
+    @Test
+    public void testHigherBand() {
+        // out of reach of narrowband codecs
+        final short[] input = tone(6500, 10000, 16000);
+        assertTrue(snr(input, decode(encode(input, SAMPLES), 160)) > 20);
+    }
+
+    @Test
+    public void testStreamState() {
+        final short[] input = sweep(16000);
+
+        // the state of the stream is carried over frames, whatever their size
+        final byte[] codes = encode(input, SAMPLES);
+        assertArrayEquals(codes, encode(input, SAMPLES / 2));
+        assertArrayEquals(decode(codes, 160), decode(codes, 80));
+    }
+
+    /**
+     * Known answer test on a wideband signal covering the whole band of both quantizers.
+     */
+    @Test
+    public void testKnownAnswer() {
+        final short[] input = sweep(16000);
+        final byte[] codes = encode(input, SAMPLES);
+        final short[] output = decode(codes, 160);
+        assertTrue(snr(input, output) > 20);
+
+        final CRC32 crc = new CRC32();
+        crc.update(codes);
+        assertEquals(0x2ee85f24L, crc.getValue());
+
+        crc.reset();
+        for (short sample : output) {
+            crc.update(sample & 0xff);
+            crc.update((sample >> 8) & 0xff);
+        }
+        assertEquals(0xaaec1b38L, crc.getValue());
+    }
+
+    /**
+     * Measures how many full duplex G.722 channels a single core sustains, that is one 20ms frame encoded and one decoded
+     * per channel every 20ms.
+     */
+    @Ignore
+    @Test
+    public void testSpeed() {
+        final short[] speech = sweep(16000);
+        final int channels = 256;
+        final int rounds = 100;
+        final int frames = speech.length / SAMPLES;
+
+        final Encoder[] encoders = new Encoder[channels];
+        final Decoder[] decoders = new Decoder[channels];
+        for (int c = 0; c < channels; c++) {
+            encoders[c] = new Encoder();
+            decoders[c] = new Decoder();
+        }
+        final Frame[] input = new Frame[frames];
+        for (int f = 0; f < frames; f++) {
+            input[f] = toFrame(speech, f * SAMPLES, SAMPLES);
+        }
+
+        final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        final com.sun.management.ThreadMXBean allocations = threads instanceof com.sun.management.ThreadMXBean
+                ? (com.sun.management.ThreadMXBean) threads : null;
+        final long thread = Thread.currentThread().getId();
+
+        for (int pass = 0; pass < 10; pass++) {
+            long allocated = allocations == null ? 0 : allocations.getThreadAllocatedBytes(thread);
+            long duration = 0;
+            for (int r = 0; r < rounds; r++) {
+                for (int c = 0; c < channels; c++) {
+                    long s = System.nanoTime();
+                    Frame encoded = encoders[c].process(input[(r + c) % frames]);
+                    Frame decoded = decoders[c].process(encoded);
+                    duration += System.nanoTime() - s;
+
+                    encoded.recycle();
+                    decoded.recycle();
+                }
+            }
+            allocated = allocations == null ? 0 : allocations.getThreadAllocatedBytes(thread) - allocated;
+
+            final long perFrame = duration / (channels * rounds);
+            System.out.println("G.722 encode + decode of " + channels + " channels: " + perFrame + " ns per 20ms frame, "
+                    + (20000000L / perFrame) + " channels per core, " + (allocated / (channels * rounds)) + " bytes allocated per frame");
+        }
+    }
+
+}
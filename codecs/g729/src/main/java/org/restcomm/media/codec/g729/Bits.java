@@ -54,20 +54,92 @@ public class Bits {
 			                                    bits[1] = 80 */
 			)
 			{
-        dst[0] = (byte)(anau[0] & 255);
-        dst[1] = (byte)((anau[1] & 0x3ff) >> 2);
-        dst[2] = (byte)(((anau[1] & 3) << 6) | ((anau[2]>>2)&0x3f));
-        dst[3] = (byte)(((anau[2] & 3) << 6) | ((anau[3] & 1) << 5) | ((anau[4] & 8191) >> 8));
-        dst[4] = (byte)(anau[4] & 255);
-        dst[5] = (byte)(((anau[5] & 15)<<4) | ((anau[6] & 127) >> 3));
-        dst[6] = (byte)(((anau[6] & 7)<< 5) | (anau[7] & 31));
-        dst[7] = (byte)((anau[8] & 8191) >> 5);
-        dst[8] = (byte)(((anau[8] & 31) << 3) | ((anau[9] & 15) >> 1));
-        dst[9] = (byte)(((anau[9] & 1) << 7) | (anau[10] & 127));
-
-			   return;
+        prm2bits_ld8k_b(anau, dst, 0);
 			}
+
+	/*----------------------------------------------------------------------------
+	 * prm2bits_ld8k_b - packs the encoder parameters into the 10 octets of a
+	 *                   frame, most significant bit first, starting at dst[ds]
+	 *----------------------------------------------------------------------------
+	 */
+	public static void prm2bits_ld8k_b(
+	 int   anau[],         /* input : encoded parameters  (PRM_SIZE parameters)  */
+	 byte  dst[], int ds   /* output: packed frame (10 octets)                   */
+	)
+	{
+        dst[ds+0] = (byte)(anau[0] & 255);
+        dst[ds+1] = (byte)((anau[1] & 0x3ff) >> 2);
+        dst[ds+2] = (byte)(((anau[1] & 3) << 6) | ((anau[2]>>2)&0x3f));
+        dst[ds+3] = (byte)(((anau[2] & 3) << 6) | ((anau[3] & 1) << 5) | ((anau[4] & 8191) >> 8));
+        dst[ds+4] = (byte)(anau[4] & 255);
+        dst[ds+5] = (byte)(((anau[5] & 15)<<4) | ((anau[6] & 127) >> 3));
+        dst[ds+6] = (byte)(((anau[6] & 7)<< 5) | (anau[7] & 31));
+        dst[ds+7] = (byte)((anau[8] & 8191) >> 5);
+        dst[ds+8] = (byte)(((anau[8] & 31) << 3) | ((anau[9] & 15) >> 1));
+        dst[ds+9] = (byte)(((anau[9] & 1) << 7) | (anau[10] & 127));
+
+	   return;
+	}
+
+	/*----------------------------------------------------------------------------
+	 * bits2prm_ld8k_b - unpacks the 10 octets of a frame starting at src[ss]
+	 *                   into the decoder parameter vector
+	 *----------------------------------------------------------------------------
+	 */
+	public static void bits2prm_ld8k_b(
+	 byte  src[], int ss,  /* input : packed frame (10 octets)                   */
+	 int   prm[], int ps   /* output: decoded parameters (11 parameters)         */
+	)
+	{
+        prm[ps+0] = src[ss+0] & 255;
+        prm[ps+1] = ((src[ss+1] & 255) << 2) | ((src[ss+2] & 255) >> 6);
+        prm[ps+2] = ((src[ss+2] & 0x3f) << 2) | ((src[ss+3] & 255) >> 6);
+        prm[ps+3] = (src[ss+3] >> 5) & 1;
+        prm[ps+4] = ((src[ss+3] & 31) << 8) | (src[ss+4] & 255);
+        prm[ps+5] = (src[ss+5] >> 4) & 15;
+        prm[ps+6] = ((src[ss+5] & 15) << 3) | ((src[ss+6] & 255) >> 5);
+        prm[ps+7] = src[ss+6] & 31;
+        prm[ps+8] = ((src[ss+7] & 255) << 5) | ((src[ss+8] & 255) >> 3);
+        prm[ps+9] = ((src[ss+8] & 7) << 1) | ((src[ss+9] & 255) >> 7);
+        prm[ps+10] = src[ss+9] & 127;
+
+	   return;
+	}
 	
+	/*----------------------------------------------------------------------------
+	 * prm2bits_sid_b - packs the parameters of a SID frame into 2 octets:
+	 *                  MA mode 1 bit, 1st stage LSF 5 bits, 2nd stage LSF
+	 *                  4 bits, energy 5 bits and one zero bit
+	 *----------------------------------------------------------------------------
+	 */
+	public static void prm2bits_sid_b(
+	 int   anau[], int as, /* input : SID parameters (SID_PRM_SIZE parameters)   */
+	 byte  dst[], int ds   /* output: packed frame (2 octets)                    */
+	)
+	{
+        dst[ds+0] = (byte)(((anau[as+0] & 1) << 7) | ((anau[as+1] & 31) << 2) | ((anau[as+2] & 15) >> 2));
+        dst[ds+1] = (byte)(((anau[as+2] & 3) << 6) | ((anau[as+3] & 31) << 1));
+
+	   return;
+	}
+
+	/*----------------------------------------------------------------------------
+	 * bits2prm_sid_b - unpacks the 2 octets of a SID frame starting at src[ss]
+	 *----------------------------------------------------------------------------
+	 */
+	public static void bits2prm_sid_b(
+	 byte  src[], int ss,  /* input : packed frame (2 octets)                    */
+	 int   prm[], int ps   /* output: SID parameters (SID_PRM_SIZE parameters)   */
+	)
+	{
+        prm[ps+0] = (src[ss+0] >> 7) & 1;
+        prm[ps+1] = (src[ss+0] >> 2) & 31;
+        prm[ps+2] = ((src[ss+0] & 3) << 2) | ((src[ss+1] >> 6) & 3);
+        prm[ps+3] = (src[ss+1] >> 1) & 31;
+
+	   return;
+	}
+
 	public static void prm2bits_ld8k(
 	 int   prm[],         /* input : encoded parameters  (PRM_SIZE parameters)  */
 	  short bits[]           /* output: serial bits (SERIAL_SIZE ) bits[0] = bfi
@@ -0,0 +1,134 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2017, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.restcomm.media.codec.g729;
+
+public class CalcExc {
+
+	/* Random generator state */
+	int seed = LD8KConstants.INIT_SEED;
+
+	/* Working memory */
+	float gauss[] = new float[LD8KConstants.L_SUBFR];
+	int pos[] = new int[4];
+	float sign[] = new float[4];
+
+	/*----------------------------------------------------------------------------
+	 * random - 16 bit linear congruential generator
+	 *----------------------------------------------------------------------------
+	 */
+	short random()
+	{
+	   seed = (short)(seed * 31821 + 13849);
+	   return (short)seed;
+	}
+
+	/*----------------------------------------------------------------------------
+	 * calc_exc_rand - computes the comfort noise excitation of a frame
+	 *
+	 * Each subframe mixes a random adaptive codebook contribution, a gaussian
+	 * excitation and four random pulses, whose gain is chosen so the energy of
+	 * the subframe matches cur_gain.
+	 *----------------------------------------------------------------------------
+	 */
+	public void calc_exc_rand(
+	 float  cur_gain,            /* input : target rms of the excitation        */
+	 float  exc[], int excs,     /* in/out: excitation, exc[excs:excs+L_FRAME-1] */
+	 Taming taming               /* in/out: taming memory of the encoder, null  */
+	)
+	{
+	   int   i, k, i_subfr, t0, frac;
+	   float gp, ener, fact, b, c, delta, x1, x2;
+
+	   if (cur_gain == (float)0.) {
+	     for (i = 0; i < LD8KConstants.L_FRAME; i++)
+	       exc[excs+i] = (float)0.;
+	     if (taming != null) {
+	       taming.update_exc_err((float)0., LD8KConstants.L_SUBFR+1);
+	       taming.update_exc_err((float)0., LD8KConstants.L_SUBFR+1);
+	     }
+	     return;
+	   }
+
+	   for (i_subfr = 0; i_subfr < LD8KConstants.L_FRAME; i_subfr += LD8KConstants.L_SUBFR) {
+
+	     /* random adaptive codebook parameters */
+	     frac = (random() & 3) - 1;
+	     if (frac == 2) frac = 0;
+	     t0 = (random() & 63) + 40;
+	     gp = (float)(random() & 0x1fff) / (float)8192. * LD8KConstants.G_MAX_CNG;
+
+	     /* one random pulse in each of the first four tracks */
+	     for (k = 0; k < 4; k++) {
+	       pos[k] = k + 5 * (random() & 7);
+	       sign[k] = ((random() & 1) == 0) ? (float)-1. : (float)1.;
+	     }
+
+	     /* gaussian excitation */
+	     ener = (float)0.;
+	     for (i = 0; i < LD8KConstants.L_SUBFR; i++) {
+	       x1 = (float)0.;
+	       for (k = 0; k < 12; k++)
+	         x1 += (float)random();
+	       gauss[i] = x1;
+	       ener += x1 * x1;
+	     }
+	     if (ener < (float)1.) ener = (float)1.;
+	     fact = cur_gain * (float)Math.sqrt(LD8KConstants.L_SUBFR / ener);
+
+	     /* adaptive and gaussian contributions */
+	     PredLt.pred_lt_3(exc, excs+i_subfr, t0, frac, LD8KConstants.L_SUBFR);
+
+	     ener = (float)0.;
+	     for (i = 0; i < LD8KConstants.L_SUBFR; i++) {
+	       exc[excs+i_subfr+i] = gp * exc[excs+i_subfr+i] + LD8KConstants.ALPHA_CNG * fact * gauss[i];
+	       ener += exc[excs+i_subfr+i] * exc[excs+i_subfr+i];
+	     }
+
+	     /* gain x of the pulses: 4x^2 + 2bx + c = 0 */
+	     b = (float)0.;
+	     for (k = 0; k < 4; k++)
+	       b += sign[k] * exc[excs+i_subfr+pos[k]];
+	     c = ener - cur_gain * cur_gain * LD8KConstants.L_SUBFR;
+	     delta = b * b - (float)4. * c;
+
+	     if (delta < (float)0.) {
+	       /* adaptive contribution too strong, use the gaussian excitation alone */
+	       gp = (float)0.;
+	       for (i = 0; i < LD8KConstants.L_SUBFR; i++)
+	         exc[excs+i_subfr+i] = fact * gauss[i];
+	     } else {
+	       delta = (float)Math.sqrt(delta);
+	       x1 = (-b + delta) / (float)4.;
+	       x2 = (-b - delta) / (float)4.;
+	       if (Math.abs(x2) < Math.abs(x1)) x1 = x2;
+	       for (k = 0; k < 4; k++)
+	         exc[excs+i_subfr+pos[k]] += x1 * sign[k];
+	     }
+
+	     if (taming != null)
+	       taming.update_exc_err(gp, t0);
+	   }
+	   return;
+	}
+
+}
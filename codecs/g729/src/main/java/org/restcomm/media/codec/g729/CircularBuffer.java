@@ -42,15 +42,19 @@ public class CircularBuffer {
 	}
 	
 	public void addData(byte[] data) {
+		addData(data, 0, data.length);
+	}
+	
+	public void addData(byte[] data, int offset, int length) {
 		synchronized(LOCK) {
 			boolean zeros = false;
 			//for(int q=0; q<data.length; q++) if(data[q]!=0) zeros = false;
 			if(!zeros) {
-				for(int q=0; q<data.length; q++) {
-					buffer[(writeCursor+q)%buffer.length] = data[q];
+				for(int q=0; q<length; q++) {
+					buffer[(writeCursor+q)%buffer.length] = data[offset+q];
 				}
-				writeCursor = (writeCursor + data.length)%buffer.length;
-				availableData += data.length;
+				writeCursor = (writeCursor + length)%buffer.length;
+				availableData += length;
 				if(availableData > buffer.length) 
 				{
 					readCursor=(readCursor + availableData - buffer.length)%buffer.length;
@@ -60,17 +64,32 @@ public class CircularBuffer {
 		}
 	}
 	
+	public int getAvailableData() {
+		synchronized(LOCK) {
+			return availableData;
+		}
+	}
+	
 	public byte[] getData(int size) {
+		byte[] data = new byte[size];
+		return getData(data, size) ? data : null;
+	}
+	
+	/**
+	 * Reads the oldest <code>size</code> bytes into the beginning of the given array.
+	 * 
+	 * @return false, leaving the array untouched, if less data is available
+	 */
+	public boolean getData(byte[] data, int size) {
 		synchronized(LOCK) {
-			if(availableData<size) return null;
+			if(availableData<size) return false;
 		
-			byte[] data = new byte[size];
-			for(int q=0; q<size; q++) {
-				data[q] = buffer[(readCursor+q)%buffer.length];
-			}
-			readCursor = (readCursor + data.length)%buffer.length;
+			int first = Math.min(size, buffer.length - readCursor);
+			System.arraycopy(buffer, readCursor, data, 0, first);
+			System.arraycopy(buffer, 0, data, first, size - first);
+			readCursor = (readCursor + size)%buffer.length;
 			availableData -= size;
-			return data;
+			return true;
 		}
 	}
 
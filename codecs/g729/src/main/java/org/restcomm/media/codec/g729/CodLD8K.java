@@ -82,13 +82,59 @@ public class CodLD8K {
 	int error;
 
 	float sharp;
-	
+
+	int past_ftyp;           /* type of the previous frame (Annex B) */
+
+	        /* Working memory of coder_ld8k() */
+
+	/* LPC coefficients */
+	float[] r = new float[LD8KConstants.NP+1];               /* Autocorrelations low and hi          */
+	float[] A_t = new float[(LD8KConstants.MP1)*2];          /* A(z) unquantized for the 2 subframes */
+	float[] Aq_t = new float[(LD8KConstants.MP1)*2];         /* A(z)   quantized for the 2 subframes */
+	float[] Ap1 = new float[LD8KConstants.MP1];              /* A(z) with spectral expansion         */
+	float[] Ap2 = new float[LD8KConstants.MP1];              /* A(z) with spectral expansion         */
+
+	/* LSP coefficients */
+	float[] lsp_new = new float[LD8KConstants.M];
+	float[] lsp_new_q = new float[LD8KConstants.M]; /* LSPs at 2th subframe                 */
+	float[] lsf_int = new float[LD8KConstants.M];               /* Interpolated LSF 1st subframe.       */
+	float[] lsf_new = new float[LD8KConstants.M];
+	float[] lsf_vad = new float[LD8KConstants.M];               /* LSFs for the VAD                     */
+
+	/* Variable added for adaptive gamma1 and gamma2 of the PWF */
+	float[] rc = new float[LD8KConstants.M];                        /* Reflection coefficients */
+	float[] gamma1 = new float[2];             /* Gamma1 for 1st and 2nd subframes */
+	float[] gamma2 = new float[2];             /* Gamma2 for 1st and 2nd subframes */
+
+	/* Other vectors */
+	float[] synth = new float[LD8KConstants.L_FRAME];        /* Buffer for synthesis speech        */
+	float[] h1 = new float[LD8KConstants.L_SUBFR];           /* Impulse response h1[]              */
+	float[] xn = new float[LD8KConstants.L_SUBFR];           /* Target vector for pitch search     */
+	float[] xn2 = new float[LD8KConstants.L_SUBFR];          /* Target vector for codebook search  */
+	float[] code = new float[LD8KConstants.L_SUBFR];         /* Fixed codebook excitation          */
+	float[] y1 = new float[LD8KConstants.L_SUBFR];           /* Filtered adaptive excitation       */
+	float[] y2 = new float[LD8KConstants.L_SUBFR];           /* Filtered fixed codebook excitation */
+	float[] g_coeff = new float[5];            /* Correlations between xn, y1, & y2:
+	                                  <y1,y1>, <xn,y1>, <y2,y2>, <xn,y2>,<y1,y2>*/
+
+	IntegerPointer t0_frac = new IntegerPointer();
+	IntegerPointer t0_min = new IntegerPointer();
+	IntegerPointer t0_max = new IntegerPointer();
+	IntegerPointer sign = new IntegerPointer();
+	FloatPointer gain_pit_q = new FloatPointer();         /* quantized pitch gain    */
+	FloatPointer gain_code_q = new FloatPointer();        /* quantized codebook gain */
+
 	Lpc lpc = new Lpc();
+	LpcFunc lpcFunc = new LpcFunc();
+	Filter filter = new Filter();
+	Pitch pitch = new Pitch();
 	QuaLsp quaLsp = new QuaLsp();
 	Pwf pwf = new Pwf();
 	Taming tamingFunc = new Taming();
 	CelpCo acelp = new CelpCo();
 	QuaGain quaGain = new QuaGain();
+	Vad vad = new Vad();
+	Dtx dtx = new Dtx();
 
 	/*----------------------------------------------------------------------------
 	 * init_coder_ld8k - initialization of variables for the encoder
@@ -142,6 +188,10 @@ public class CodLD8K {
 	  quaLsp.lsp_encw_reset();
 	  tamingFunc.init_exc_err();
 
+	  vad.vad_init();
+	  dtx.init_cod_cng();
+	  past_ftyp = LD8KConstants.FT_SPEECH;
+
 	 return;
 	}
 	
@@ -160,45 +210,27 @@ public class CodLD8K {
 	 int[] ana_array, int ana             /* output: analysis parameters */
 	)
 	{
-	  
-	  /* LPC coefficients */
-	  float[] r = new float[LD8KConstants.MP1];                /* Autocorrelations low and hi          */
-	  float[] A_t = new float[(LD8KConstants.MP1)*2];          /* A(z) unquantized for the 2 subframes */
-	  float[] Aq_t = new float[(LD8KConstants.MP1)*2];         /* A(z)   quantized for the 2 subframes */
-	  float[] Ap1 = new float[LD8KConstants.MP1];              /* A(z) with spectral expansion         */
-	  float[] Ap2 = new float[LD8KConstants.MP1];              /* A(z) with spectral expansion         */
-	  int A, Aq;               /* Pointer on A_t and Aq_t              */
+	  coder_ld8k(ana_array, ana, 0, 0);
+	}
 
-	  /* LSP coefficients */
-	  float[] lsp_new = new float[LD8KConstants.M];
-	  float[] lsp_new_q = new float[LD8KConstants.M]; /* LSPs at 2th subframe                 */
-	  float[] lsf_int = new float[LD8KConstants.M];               /* Interpolated LSF 1st subframe.       */
-	  float[] lsf_new = new float[LD8KConstants.M];
-
-	  /* Variable added for adaptive gamma1 and gamma2 of the PWF */
-
-	  float[] rc = new float[LD8KConstants.M];                        /* Reflection coefficients */
-	  float[] gamma1 = new float[2];             /* Gamma1 for 1st and 2nd subframes */
-	  float[] gamma2 = new float[2];             /* Gamma2 for 1st and 2nd subframes */
-
-	  /* Other vectors */
-	  float[] synth = new float[LD8KConstants.L_FRAME];        /* Buffer for synthesis speech        */
-	  float[] h1 = new float[LD8KConstants.L_SUBFR];           /* Impulse response h1[]              */
-	  float[] xn = new float[LD8KConstants.L_SUBFR];           /* Target vector for pitch search     */
-	  float[] xn2 = new float[LD8KConstants.L_SUBFR];          /* Target vector for codebook search  */
-	  float[] code = new float[LD8KConstants.L_SUBFR];         /* Fixed codebook excitation          */
-	  float[] y1 = new float[LD8KConstants.L_SUBFR];           /* Filtered adaptive excitation       */
-	  float[] y2 = new float[LD8KConstants.L_SUBFR];           /* Filtered fixed codebook excitation */
-	  float[] g_coeff = new float[5];            /* Correlations between xn, y1, & y2:
-	                                  <y1,y1>, <xn,y1>, <y2,y2>, <xn,y2>,<y1,y2>*/
+	/*----------------------------------------------------------------------------
+	 * coder_ld8k - encoder routine with voice activity detection and
+	 *              discontinuous transmission (Annex B)
+	 *----------------------------------------------------------------------------
+	 */
+	public int coder_ld8k(       /* output: frame type                             */
+	 int[] ana_array, int ana,   /* output: analysis parameters, PRM_SIZE for a
+	                                        speech frame, SID_PRM_SIZE for a SID */
+	 int dtx_enable,             /* input : 1 to leave out noise frames            */
+	 int sid_enable              /* input : 0 if no SID may be sent in this frame  */
+	)
+	{
+	  int A, Aq;               /* Pointer on A_t and Aq_t              */
 
 	  /* Scalars */
 
 	  int   i, j, i_gamma, i_subfr;
 	  int   T_op, t0;
-	  IntegerPointer t0_frac = new IntegerPointer();
-	  IntegerPointer t0_min = new IntegerPointer();
-	  IntegerPointer t0_max = new IntegerPointer();
 	  int   index, taming;
 	  float gain_pit, gain_code=0;
 
@@ -214,15 +246,31 @@ public class CodLD8K {
 
 	  /* LP analysis */
 
-	  lpc.autocorr(ArrayUtils.subArray(old_speech_array, p_window), LD8KConstants.M, r);                     /* Autocorrelations */
+	  lpc.autocorr(old_speech_array, p_window, LD8KConstants.NP, r);                    /* Autocorrelations */
 	  lpc.lag_window(LD8KConstants.M, r);                             /* Lag windowing    */
-	  
-	  float[] tmp = ArrayUtils.subArray(A_t, LD8KConstants.MP1);
-	  lpc.levinson(r, tmp, rc);                   /* Levinson Durbin  */
-	  ArrayUtils.replace(A_t, LD8KConstants.MP1, tmp); 
-	  
-	  lpc.az_lsp(tmp, lsp_new, lsp_old);          /* From A(z) to lsp */
-	  ArrayUtils.replace(A_t, LD8KConstants.MP1, tmp); 
+
+	  lpc.levinson(r, A_t, LD8KConstants.MP1, rc);                   /* Levinson Durbin  */
+
+	  lpc.az_lsp(A_t, LD8KConstants.MP1, lsp_new, lsp_old);          /* From A(z) to lsp */
+
+	  /* Voice activity detection, noise frames are coded by the DTX. The first
+	     noise frame needs a SID, it is coded as speech when none may be sent */
+
+	  if (dtx_enable != 0)
+	  {
+	    LpcFunc.lsp_lsf(lsp_new, lsf_vad, LD8KConstants.M);
+	    i = vad.vad(r, lsf_vad, old_speech_array, speech);
+	    dtx.update_cng(r);
+
+	    if (i == 0 && (past_ftyp != LD8KConstants.FT_SPEECH || sid_enable != 0))
+	    {
+	      past_ftyp = dtx.cod_cng(past_ftyp, sid_enable, old_exc_array, exc, lsp_old_q, Aq_t,
+	                              ana_array, ana, quaLsp.freq_prev, tamingFunc);
+	      update_noise();
+	      return past_ftyp;
+	    }
+	  }
+
 	  /* LSP quantization */
 
 	  quaLsp.qua_lsp(lsp_new, lsp_new_q, ana_array);
@@ -235,8 +283,8 @@ public class CodLD8K {
 	   * and the quantized interpolated parameters are in array Aq_t[]      *
 	   *--------------------------------------------------------------------*/
 
-	  LpcFunc.int_lpc(lsp_old, lsp_new, lsf_int, lsf_new,  A_t);
-	  LpcFunc.int_qlpc(lsp_old_q, lsp_new_q, Aq_t);
+	  lpcFunc.int_lpc(lsp_old, lsp_new, lsf_int, lsf_new,  A_t);
+	  lpcFunc.int_qlpc(lsp_old_q, lsp_new_q, Aq_t);
 
 	  /* update the LSPs for the next frame */
 
@@ -263,16 +311,16 @@ public class CodLD8K {
 	  LpcFunc.weight_az(A_t, 0, gamma2[0], LD8KConstants.M, Ap2, 0);
 	  
 	  Filter.residu(Ap1, 0, old_speech_array, speech, old_wsp_array, wsp, LD8KConstants.L_SUBFR);
-	  Filter.syn_filt(Ap2, 0, old_wsp_array, wsp, old_wsp_array, wsp, LD8KConstants.L_SUBFR, mem_w, 0, 1);
+	  filter.syn_filt(Ap2, 0, old_wsp_array, wsp, old_wsp_array, wsp, LD8KConstants.L_SUBFR, mem_w, 0, 1);
 	  
 	  LpcFunc.weight_az(A_t, LD8KConstants.MP1, gamma1[1], LD8KConstants.M, Ap1, 0);
 	  LpcFunc.weight_az(A_t, LD8KConstants.MP1, gamma2[1], LD8KConstants.M, Ap2, 0);
 	  Filter.residu(Ap1, 0, old_speech_array, speech + LD8KConstants.L_SUBFR, old_wsp_array, wsp + LD8KConstants.L_SUBFR, LD8KConstants.L_SUBFR);
-	  Filter.syn_filt(Ap2, 0, old_wsp_array, wsp + LD8KConstants.L_SUBFR, old_wsp_array, wsp + LD8KConstants.L_SUBFR, LD8KConstants.L_SUBFR, mem_w, 0, 1);
+	  filter.syn_filt(Ap2, 0, old_wsp_array, wsp + LD8KConstants.L_SUBFR, old_wsp_array, wsp + LD8KConstants.L_SUBFR, LD8KConstants.L_SUBFR, mem_w, 0, 1);
 	  
 	  /* Find open loop pitch lag for whole speech frame */
 
-	  T_op = Pitch.pitch_ol(old_wsp_array, wsp, LD8KConstants.PIT_MIN, LD8KConstants.PIT_MAX, LD8KConstants.L_FRAME);
+	  T_op = pitch.pitch_ol(old_wsp_array, wsp, LD8KConstants.PIT_MIN, LD8KConstants.PIT_MAX, LD8KConstants.L_FRAME);
 
 	  /* range for closed loop pitch search in 1st subframe */
 
@@ -325,8 +373,8 @@ public class CodLD8K {
 	    *---------------------------------------------------------------*/
 
 	    for (i = 0; i <= LD8KConstants.M; i++) ai_zero_array[ai_zero+i] = Ap1[i];
-	    Filter.syn_filt(Aq_t, Aq, ai_zero_array, ai_zero, h1, 0, LD8KConstants.L_SUBFR, ai_zero_array, zero, 0);
-	    Filter.syn_filt(Ap2, 0, h1, 0, h1, 0, LD8KConstants.L_SUBFR, ai_zero_array, zero, 0);
+	    filter.syn_filt(Aq_t, Aq, ai_zero_array, ai_zero, h1, 0, LD8KConstants.L_SUBFR, ai_zero_array, zero, 0);
+	    filter.syn_filt(Ap2, 0, h1, 0, h1, 0, LD8KConstants.L_SUBFR, ai_zero_array, zero, 0);
 
 	   /*------------------------------------------------------------------------*
 	    *                                                                        *
@@ -357,17 +405,17 @@ public class CodLD8K {
 
 	    Filter.residu(Aq_t, Aq, old_speech_array, speech + i_subfr, old_exc_array, exc + i_subfr, LD8KConstants.L_SUBFR);   /* LPC residual */
 
-	    Filter.syn_filt(Aq_t, Aq, old_exc_array, exc+i_subfr, mem_err_array, error,	LD8KConstants.L_SUBFR, mem_err_array, mem_err, 0);
+	    filter.syn_filt(Aq_t, Aq, old_exc_array, exc+i_subfr, mem_err_array, error,	LD8KConstants.L_SUBFR, mem_err_array, mem_err, 0);
 
 	    Filter.residu(Ap1, 0, mem_err_array, error, xn, 0, LD8KConstants.L_SUBFR);
 
-	    Filter.syn_filt(Ap2, 0, xn, 0, xn, 0, LD8KConstants.L_SUBFR, mem_w0, 0, 0);    /* target signal xn[]*/
+	    filter.syn_filt(Ap2, 0, xn, 0, xn, 0, LD8KConstants.L_SUBFR, mem_w0, 0, 0);    /* target signal xn[]*/
 
 	   /*----------------------------------------------------------------------*
 	    *                 Closed-loop fractional pitch search                  *
 	    *----------------------------------------------------------------------*/
 
-	    t0 = Pitch.pitch_fr3(old_exc_array,exc+i_subfr, xn, 0, h1, 0, LD8KConstants.L_SUBFR, t0_min.value, t0_max.value,
+	    t0 = pitch.pitch_fr3(old_exc_array,exc+i_subfr, xn, 0, h1, 0, LD8KConstants.L_SUBFR, t0_min.value, t0_max.value,
 	                              i_subfr, t0_frac);
 
 
@@ -409,11 +457,9 @@ public class CodLD8K {
 	    * - Innovative codebook search.                       *
 	    *-----------------------------------------------------*/
 
-	    IntegerPointer tmpi = new IntegerPointer(i);
-	    index = acelp.ACELP_codebook(xn2, h1, t0, sharp, i_subfr, code, y2, tmpi);
-	    i = tmpi.value;
+	    index = acelp.ACELP_codebook(xn2, h1, t0, sharp, i_subfr, code, y2, sign);
 	    ana_array[ana++] = index;        /* Positions index */
-	    ana_array[ana++] = i;            /* Signs index     */
+	    ana_array[ana++] = sign.value;   /* Signs index     */
 
 
 	   /*-----------------------------------------------------*
@@ -421,10 +467,9 @@ public class CodLD8K {
 	    *-----------------------------------------------------*/
 	    CorFunc.corr_xy2(xn, y1, y2, g_coeff);
 
-	    FloatPointer tmpgain_pit = new FloatPointer(gain_pit), tmpgain_code = new FloatPointer(gain_code);
-	    ana_array[ana++] = quaGain.qua_gain(code, g_coeff, LD8KConstants.L_SUBFR, tmpgain_pit, tmpgain_code, taming );
-	    gain_pit = tmpgain_pit.value; gain_code = tmpgain_code.value;
-	    
+	    ana_array[ana++] = quaGain.qua_gain(code, g_coeff, LD8KConstants.L_SUBFR, gain_pit_q, gain_code_q, taming );
+	    gain_pit = gain_pit_q.value; gain_code = gain_code_q.value;
+
 	   /*------------------------------------------------------------*
 	    * - Update pitch sharpening "sharp" with quantized gain_pit  *
 	    *------------------------------------------------------------*/
@@ -446,7 +491,7 @@ public class CodLD8K {
 
 	    tamingFunc.update_exc_err(gain_pit, t0);
 
-	    Filter.syn_filt(Aq_t, Aq, old_exc_array, exc+i_subfr, synth, i_subfr, LD8KConstants.L_SUBFR, mem_syn, 0, 1);
+	    filter.syn_filt(Aq_t, Aq, old_exc_array, exc+i_subfr, synth, i_subfr, LD8KConstants.L_SUBFR, mem_syn, 0, 1);
 
 	    for (i = LD8KConstants.L_SUBFR-LD8KConstants.M, j = 0; i < LD8KConstants.L_SUBFR; i++, j++)
 	      {
@@ -468,6 +513,68 @@ public class CodLD8K {
 	  Util.copy(old_wsp_array, old_wsp+LD8KConstants.L_FRAME, old_wsp_array, old_wsp, LD8KConstants.PIT_MAX);
 	  Util.copy(old_exc_array, old_exc+LD8KConstants.L_FRAME, old_exc_array, old_exc, LD8KConstants.PIT_MAX+LD8KConstants.L_INTERPOL);
 
+	  past_ftyp = LD8KConstants.FT_SPEECH;
+	  dtx.calcExc.seed = LD8KConstants.INIT_SEED;
+
+	  return past_ftyp;
+	}
+
+	/*----------------------------------------------------------------------------
+	 * update_noise - updates the memories of the encoder after a noise frame,
+	 *                whose excitation is in exc[] and filters in Aq_t[]
+	 *----------------------------------------------------------------------------
+	 */
+	private void update_noise()
+	{
+	  int A, Aq;
+	  int i, i_gamma, i_subfr;
+
+	  /* unquantized filters and weighted speech, for the pitch analysis */
+
+	  lpcFunc.int_lpc(lsp_old, lsp_new, lsf_int, lsf_new, A_t);
+	  for (i = 0; i < LD8KConstants.M; i++)
+	    lsp_old[i] = lsp_new[i];
+
+	  pwf.perc_var(gamma1, gamma2, lsf_int, lsf_new, rc);
+
+	  A  = 0;
+	  Aq = 0;
+	  i_gamma = 0;
+
+	  for (i_subfr = 0; i_subfr < LD8KConstants.L_FRAME; i_subfr += LD8KConstants.L_SUBFR)
+	  {
+	    LpcFunc.weight_az(A_t, A, gamma1[i_gamma], LD8KConstants.M, Ap1, 0);
+	    LpcFunc.weight_az(A_t, A, gamma2[i_gamma], LD8KConstants.M, Ap2, 0);
+	    i_gamma++;
+
+	    Filter.residu(Ap1, 0, old_speech_array, speech + i_subfr, old_wsp_array, wsp + i_subfr, LD8KConstants.L_SUBFR);
+	    filter.syn_filt(Ap2, 0, old_wsp_array, wsp + i_subfr, old_wsp_array, wsp + i_subfr, LD8KConstants.L_SUBFR, mem_w, 0, 1);
+
+	    /* synthesis of the comfort noise and weighted error */
+
+	    filter.syn_filt(Aq_t, Aq, old_exc_array, exc+i_subfr, synth, i_subfr, LD8KConstants.L_SUBFR, mem_syn, 0, 1);
+
+	    for (i = 0; i < LD8KConstants.L_SUBFR; i++)
+	      mem_err_array[error+i] = old_speech_array[speech+i_subfr+i] - synth[i_subfr+i];
+
+	    Filter.residu(Ap1, 0, mem_err_array, error, xn, 0, LD8KConstants.L_SUBFR);
+	    filter.syn_filt(Ap2, 0, xn, 0, xn, 0, LD8KConstants.L_SUBFR, mem_w0, 0, 1);
+
+	    Util.copy(mem_err_array, error+LD8KConstants.L_SUBFR-LD8KConstants.M, mem_err_array, mem_err, LD8KConstants.M);
+
+	    A  += LD8KConstants.MP1;
+	    Aq += LD8KConstants.MP1;
+	  }
+
+	  /* the speech coder restarts from a neutral state */
+
+	  sharp = LD8KConstants.SHARPMIN;
+	  for (i = 0; i < 4; i++)
+	    quaGain.past_qua_en[i] = (float)-14.0;
+
+	  Util.copy(old_speech_array,old_speech+LD8KConstants.L_FRAME, old_speech_array, old_speech, LD8KConstants.L_TOTAL-LD8KConstants.L_FRAME);
+	  Util.copy(old_wsp_array, old_wsp+LD8KConstants.L_FRAME, old_wsp_array, old_wsp, LD8KConstants.PIT_MAX);
+	  Util.copy(old_exc_array, old_exc+LD8KConstants.L_FRAME, old_exc_array, old_exc, LD8KConstants.PIT_MAX+LD8KConstants.L_INTERPOL);
 
 	  return;
 	}
@@ -24,19 +24,20 @@ package org.restcomm.media.codec.g729;
 
 public class DecAcelp {
 
+	int pos[] = new int[4];  /* positions of the 4 pulses */
+
 	/*-----------------------------------------------------------*
 	 *  Function  decod_ACELP()                                  *
 	 *  ~~~~~~~~~~~~~~~~~~~~~~~                                  *
 	 *   Algebraic codebook decoder.                             *
 	 *----------------------------------------------------------*/
 
-	public static void decod_ACELP(
+	public void decod_ACELP(
 	 int sign,              /* input : signs of 4 pulses     */
 	 int index,             /* input : positions of 4 pulses */
 	 float cod[]            /* output: innovative codevector */
 	)
 	{
-	   int pos[] = new int[4];
 	   int i, j;
 
 	   /* decode the positions of 4 pulses */
@@ -60,8 +60,19 @@ public class DecLD8K {
 	int old_t0;              /* integer delay of previous frame */
 	FloatPointer gain_code = new FloatPointer();         /* fixed codebook gain */
 	FloatPointer gain_pitch = new FloatPointer();       /* adaptive codebook gain */
+	int past_ftyp;           /* type of the previous frame (Annex B) */
+
+	        /* Working memory of decod_ld8k() */
+	float lsp_new[] = new float[LD8KConstants.M];           /* LSPs                               */
+	float code[] = new float[LD8KConstants.L_SUBFR];        /* algebraic codevector               */
+	IntegerPointer t0 = new IntegerPointer(), t0_frac = new IntegerPointer();
+
 	LspDec lspDec = new LspDec();
 	DecGain decGain = new DecGain();
+	DecAcelp decAcelp = new DecAcelp();
+	LpcFunc lpcFunc = new LpcFunc();
+	Filter filter = new Filter();
+	DecSid decSid = new DecSid();
 
 	/*--------------------------------------------------------------------------
 	 * init_decod_ld8k - Initialization of variables for the decoder section.
@@ -83,6 +94,9 @@ public class DecLD8K {
 
 	    lspDec.lsp_decw_reset();
 
+	    decSid.init_dec_cng();
+	    past_ftyp = LD8KConstants.FT_SPEECH;
+
 	    return;
 	}
 
@@ -99,14 +113,11 @@ public class DecLD8K {
 	)
 	{
 	   int Az;                  /* Pointer to A_t (LPC coefficients)  */
-	   float lsp_new[] = new float[LD8KConstants.M];           /* LSPs                               */
-	   float code[] = new float[LD8KConstants.L_SUBFR];        /* algebraic codevector               */
 
 	  /* Scalars */
 	  int   i, i_subfr;
 	  int   index;
 
-	  IntegerPointer t0 = new IntegerPointer(), t0_frac = new IntegerPointer();
 	  int bfi;
 	  int bad_pitch;
 
@@ -121,7 +132,7 @@ public class DecLD8K {
 
 	  /* Interpolation of LPC for the 2 subframes */
 
-	  LpcFunc.int_qlpc(lsp_old, lsp_new, A_t);
+	  lpcFunc.int_qlpc(lsp_old, lsp_new, A_t);
 
 	  /* update the LSFs for the next frame */
 
@@ -198,7 +209,7 @@ public class DecLD8K {
 	     parm[parms+1]= (int) (Util.random_g729() & 0x000f);      /*  4 bits random */
 	   }
 
-	   DecAcelp.decod_ACELP(parm[parms+1], parm[parms+0], code);
+	   decAcelp.decod_ACELP(parm[parms+1], parm[parms+0], code);
 	   parms +=2;
 	   for (i = t0.value; i < LD8KConstants.L_SUBFR; i++)   code[i] += sharp * code[i-t0.value];
 
@@ -241,7 +252,7 @@ public class DecLD8K {
 	     * - Find synthesis speech corresponding to exc[].       *
 	     *-------------------------------------------------------*/
 
-	    Filter.syn_filt(A_t, Az, old_exc_array, exc+i_subfr, synth, ss+i_subfr, LD8KConstants.L_SUBFR, mem_syn, 0, 1);
+	    filter.syn_filt(A_t, Az, old_exc_array, exc+i_subfr, synth, ss+i_subfr, LD8KConstants.L_SUBFR, mem_syn, 0, 1);
 
 	    Az  += LD8KConstants.MP1;        /* interpolated LPC parameters for next subframe */
 	  }
@@ -252,7 +263,45 @@ public class DecLD8K {
 	    *--------------------------------------------------*/
 	  Util.copy(old_exc_array, LD8KConstants.L_FRAME, old_exc_array, 0, LD8KConstants.PIT_MAX+LD8KConstants.L_INTERPOL);
 
+	  past_ftyp = LD8KConstants.FT_SPEECH;
+	  decSid.calcExc.seed = LD8KConstants.INIT_SEED;
+
 	   return;
 	}
 
+	/*--------------------------------------------------------------------------
+	 * decod_ld8k_cng - decoder of noise frames (Annex B)
+	 *--------------------------------------------------------------------------
+	 */
+	public void decod_ld8k_cng(
+	 int parm[], int parms,            /* input : SID parameters                             */
+	 int ftyp,              /* input : frame type, SID or untransmitted           */
+	 float synth[],int ss,         /* output: synthesized speech                         */
+	 float A_t[],           /* output: two sets of A(z) coefficients length=2*MP1 */
+	 IntegerPointer t0_first          /* output: integer delay of first subframe            */
+	)
+	{
+	  int i, i_subfr, Az;
+
+	  decSid.dec_cng(past_ftyp, ftyp, parm, parms, old_exc_array, exc, lsp_old, A_t, lspDec.freq_prev);
+
+	  Az = 0;
+	  for (i_subfr = 0; i_subfr < LD8KConstants.L_FRAME; i_subfr += LD8KConstants.L_SUBFR) {
+	    filter.syn_filt(A_t, Az, old_exc_array, exc+i_subfr, synth, ss+i_subfr, LD8KConstants.L_SUBFR, mem_syn, 0, 1);
+	    Az += LD8KConstants.MP1;
+	  }
+	  t0_first.value = old_t0;
+
+	  /* memories of the speech decoder */
+	  sharp = LD8KConstants.SHARPMIN;
+	  for (i = 0; i < 4; i++)
+	    decGain.past_qua_en[i] = (float)-14.0;
+	  LpcFunc.lsp_lsf(lsp_old, lspDec.prev_lsp, LD8KConstants.M);
+
+	  Util.copy(old_exc_array, LD8KConstants.L_FRAME, old_exc_array, 0, LD8KConstants.PIT_MAX+LD8KConstants.L_INTERPOL);
+
+	  past_ftyp = ftyp;
+	  return;
+	}
+
 }
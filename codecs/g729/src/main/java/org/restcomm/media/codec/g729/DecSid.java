@@ -0,0 +1,79 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2017, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.restcomm.media.codec.g729;
+
+public class DecSid {
+
+	/* Parameters of the last SID frame */
+	float lspSid[] = new float[]{
+	       (float)0.9595,  (float)0.8413,  (float)0.6549,  (float)0.4154,  (float)0.1423,
+	      (float)-0.1423, (float)-0.4154, (float)-0.6549, (float)-0.8413, (float)-0.9595};
+	float sid_gain;
+	float cur_gain;
+
+	QsidLsf qsidLsf = new QsidLsf();
+	LpcFunc lpcFunc = new LpcFunc();
+	CalcExc calcExc = new CalcExc();
+
+	/*----------------------------------------------------------------------------
+	 * init_dec_cng - initialization of the comfort noise generator
+	 *----------------------------------------------------------------------------
+	 */
+	public void init_dec_cng()
+	{
+	   sid_gain = TabDtx.tab_Sidgain[0];
+	   cur_gain = (float)0.;
+	   calcExc.seed = LD8KConstants.INIT_SEED;
+	   return;
+	}
+
+	/*----------------------------------------------------------------------------
+	 * dec_cng - decodes a noise frame and computes its excitation
+	 *----------------------------------------------------------------------------
+	 */
+	public void dec_cng(
+	 int    past_ftyp,           /* input : type of the previous frame             */
+	 int    ftyp,                /* input : SID or untransmitted                   */
+	 int    parm[], int ps,      /* input : SID parameters                         */
+	 float  exc[], int excs,     /* output: excitation of the frame                */
+	 float  lsp_old[],           /* in/out: LSPs of the previous frame             */
+	 float  A_t[],               /* output: interpolated filters of 2 subframes    */
+	 float  freq_prev[][]        /* in/out: memory of the LSF predictor            */
+	)
+	{
+	   if (ftyp == LD8KConstants.FT_SID) {
+	     qsidLsf.sid_lsfq_decode(parm, ps, lspSid, freq_prev);
+	     sid_gain = TabDtx.tab_Sidgain[parm[ps+3] & 31];
+	   }
+
+	   if (past_ftyp == LD8KConstants.FT_SPEECH) cur_gain = sid_gain;
+	   else cur_gain = LD8KConstants.A_GAIN0 * cur_gain + LD8KConstants.A_GAIN1 * sid_gain;
+
+	   calcExc.calc_exc_rand(cur_gain, exc, excs, null);
+
+	   lpcFunc.int_qlpc(lsp_old, lspSid, A_t);
+	   Util.copy(lspSid, lsp_old, LD8KConstants.M);
+	   return;
+	}
+
+}
@@ -43,7 +43,7 @@ public class Decoder implements Codec {
      * BFI
      */
 
-    short serial[] = new short[LD8KConstants.SERIAL_SIZE]; /* Serial stream */
+    int sidPrm[] = new int[LD8KConstants.SID_PRM_SIZE]; /* SID parameters (Annex B) */
 
     float Az_dec[] = new float[2 * LD8KConstants.MP1];
     int ptr_Az; /* Decoded Az for post-filter */
@@ -59,7 +59,7 @@ public class Decoder implements Codec {
     PostFil postFil = new PostFil();
     PostPro postPro = new PostPro();
 
-    private byte[][] subFrames=new byte[10][10];
+    private byte[] speechWindow = new byte[100 + LD8KConstants.SID_SIZE];
     private int framesCount;
     
     public Decoder() {
@@ -86,35 +86,29 @@ public class Decoder implements Codec {
         Frame res = null;
         byte[] data = frame.getData();
         
-        if(data.length==0 || data.length>100 || data.length%10!=0)
+        // speech frames of 10 octets, optionally followed by a single SID frame of 2 octets (Annex B)
+        int sid = data.length % 10 == LD8KConstants.SID_SIZE ? 1 : 0;
+        if(data.length==0 || data.length>100 + sid * LD8KConstants.SID_SIZE || data.length%10!=sid * LD8KConstants.SID_SIZE)
         	throw new RuntimeException("Invalid frame size!");
         
         circular.addData(data);
 
-        byte[] speechWindow = circular.getData(data.length);
-
-        // Process two frames at time, 20ms
-        byte[] resultBytes = null,transcodedBytes=null;
-        if (speechWindow != null) {
-            for (int q = 0; q < speechWindow.length; q++) {
-            	subFrames[q/10][q%10]=speechWindow[q];
-            }
-            
-            res = Memory.allocate(speechWindow.length*16);
-            res.setLength(speechWindow.length*16);
-            resultBytes = res.getData();
+        if (circular.getData(speechWindow, data.length)) {
+            framesCount=data.length/10;
+            res = Memory.allocate((framesCount + sid)*160);
+            res.setLength((framesCount + sid)*160);
+            byte[] resultBytes = res.getData();
             
-            framesCount=speechWindow.length/10;
             for(int q=0;q<framesCount;q++)
             {
-            	transcodedBytes=process(subFrames[q]);
-            	for(int k=0;k<transcodedBytes.length;k++)
-            		resultBytes[q*160 + k] = transcodedBytes[k];            	
+            	process(speechWindow, q*10, resultBytes, q*160);
             }                        
+            if (sid != 0) {
+                processSid(speechWindow, framesCount*10, resultBytes, framesCount*160);
+            }
         } else {
             res = Memory.allocate(frame.getLength());
             res.setLength(0);
-            resultBytes = new byte[0];
         }
         res.setOffset(0);
         res.setTimestamp(frame.getTimestamp());
@@ -133,27 +127,55 @@ public class Decoder implements Codec {
      * @return compressed media.
      */
     public byte[] process(byte[] media) {
-        serial = Bits.fromRealBits(media);
-        // serial = Util.byteArrayToShortArray(media);
+        byte[] res = new byte[2 * LD8KConstants.L_FRAME];
+        process(media, 0, res, 0);
+        return res;
+    }
+
+    /**
+     * Decompresses one 10ms frame without allocating.
+     * 
+     * @param media 10 compressed octets starting at offset
+     * @param offset position of the first octet in media
+     * @param dst receives 80 linear samples, little endian, starting at dstOffset
+     * @param dstOffset position of the first sample in dst
+     */
+    public void process(byte[] media, int offset, byte[] dst, int dstOffset) {
         frame++;
-        Bits.bits2prm_ld8k(serial, 2, parm, 1);
+        Bits.bits2prm_ld8k_b(media, offset, parm, 1);
 
         /*
          * the hardware detects frame erasures by checking if all bits are set
-         * to zero
+         * to zero, octet aligned frames carry no such indication
          */
         parm[0] = 0; /* No frame erasure */
-        for (int i = 2; i < LD8KConstants.SERIAL_SIZE; i++) {
-            if (serial[i] == 0) {
-                parm[0] = 1; /* frame erased */
 
-            /* check parity and put 1 in parm[4] if parity error */
-            }
-        }
+        /* check parity and put 1 in parm[4] if parity error */
         parm[4] = PParity.check_parity_pitch(parm[3], parm[4]);
 
         decLD.decod_ld8k(parm, 0, voicing, synth_buf, synth, Az_dec, t0_first); /* Decoder */
 
+        postProcess(dst, dstOffset);
+    }
+
+    /**
+     * Generates 10ms of comfort noise from a SID frame without allocating.
+     * 
+     * @param media 2 octets of a SID frame starting at offset
+     * @param offset position of the first octet in media
+     * @param dst receives 80 linear samples, little endian, starting at dstOffset
+     * @param dstOffset position of the first sample in dst
+     */
+    public void processSid(byte[] media, int offset, byte[] dst, int dstOffset) {
+        frame++;
+        Bits.bits2prm_sid_b(media, offset, sidPrm, 0);
+
+        decLD.decod_ld8k_cng(sidPrm, 0, LD8KConstants.FT_SID, synth_buf, synth, Az_dec, t0_first);
+
+        postProcess(dst, dstOffset);
+    }
+
+    private void postProcess(byte[] dst, int dstOffset) {
         /* Post-filter and decision on voicing parameter */
         voicing = 0;
         ptr_Az = 0;// Az_dec;
@@ -170,7 +192,7 @@ public class Decoder implements Codec {
 
         postPro.post_process(pst_out, LD8KConstants.L_FRAME);
 
-        return Util.floatArrayToByteArray(pst_out, LD8KConstants.L_FRAME);
+        Util.floatArrayToByteArray(pst_out, LD8KConstants.L_FRAME, dst, dstOffset);
     }
 
 }
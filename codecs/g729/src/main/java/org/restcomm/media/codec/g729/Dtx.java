@@ -0,0 +1,206 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2017, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.restcomm.media.codec.g729;
+
+public class Dtx {
+
+	/*-------------------------------------------------------------------*
+	 * Discontinuous transmission of the encoder. During noise, a SID     *
+	 * frame describing the spectrum and the energy of the background is  *
+	 * sent at the start and whenever the background changes, nothing is  *
+	 * sent otherwise. The encoder runs the comfort noise generator of    *
+	 * the decoder to keep its memories aligned.                          *
+	 *-------------------------------------------------------------------*/
+
+	/* Autocorrelations of the last 2 frames */
+	float Acf[][] = new float[2][LD8KConstants.MP1];
+
+	/* Parameters of the last SID frame */
+	float lspSid_q[] = new float[]{
+	       (float)0.9595,  (float)0.8413,  (float)0.6549,  (float)0.4154,  (float)0.1423,
+	      (float)-0.1423, (float)-0.4154, (float)-0.6549, (float)-0.8413, (float)-0.9595};
+	float Asid[] = new float[LD8KConstants.MP1];
+	float RCoeff[] = new float[LD8KConstants.MP1];   /* autocorrelations of Asid[] */
+	int   sid_idx;
+	float sid_gain;
+	float cur_gain;
+	int   count_fr0;
+
+	/* Working memory */
+	float sumAcf[] = new float[LD8KConstants.MP1];
+	float Acur[] = new float[LD8KConstants.MP1];
+	float rc[] = new float[LD8KConstants.M];
+	float lsp_cur[] = new float[LD8KConstants.M];
+
+	Lpc lpc = new Lpc();
+	LpcFunc lpcFunc = new LpcFunc();
+	QsidLsf qsidLsf = new QsidLsf();
+	CalcExc calcExc = new CalcExc();
+
+	/*----------------------------------------------------------------------------
+	 * init_cod_cng - initialization of the discontinuous transmission
+	 *----------------------------------------------------------------------------
+	 */
+	public void init_cod_cng()
+	{
+	   int i;
+
+	   for (i = 0; i < 2; i++)
+	     Util.set_zero(Acf[i], LD8KConstants.MP1);
+	   Util.set_zero(Asid, LD8KConstants.MP1);
+	   Asid[0] = (float)1.;
+	   calc_RCoeff(Asid, RCoeff);
+
+	   sid_idx = 0;
+	   sid_gain = TabDtx.tab_Sidgain[0];
+	   cur_gain = (float)0.;
+	   count_fr0 = 0;
+	   calcExc.seed = LD8KConstants.INIT_SEED;
+	   return;
+	}
+
+	/*----------------------------------------------------------------------------
+	 * update_cng - stores the autocorrelations of the current frame
+	 *----------------------------------------------------------------------------
+	 */
+	public void update_cng(
+	 float  r[]             /* input : autocorrelations r[0:M] */
+	)
+	{
+	   Util.copy(Acf[0], Acf[1], LD8KConstants.MP1);
+	   Util.copy(r, Acf[0], LD8KConstants.MP1);
+	   return;
+	}
+
+	/*----------------------------------------------------------------------------
+	 * cod_cng - codes a noise frame and computes its excitation
+	 *----------------------------------------------------------------------------
+	 */
+	public int cod_cng(          /* output: frame type, SID or untransmitted       */
+	 int    past_ftyp,           /* input : type of the previous frame             */
+	 int    sid_enable,          /* input : 0 if no SID may be sent in this frame  */
+	 float  exc[], int excs,     /* output: excitation of the frame                */
+	 float  lsp_old_q[],         /* in/out: quantized LSPs of the previous frame   */
+	 float  Aq_t[],              /* output: interpolated filters of 2 subframes    */
+	 int    ana[], int as,       /* output: SID parameters                         */
+	 float  freq_prev[][],       /* in/out: memory of the LSF predictor            */
+	 Taming taming               /* in/out: taming memory                          */
+	)
+	{
+	   int   i, ftyp, idx, flag_chang;
+	   float ener, dist;
+
+	   /* noise of the frame, the first one after speech only uses its own autocorrelations */
+	   if (past_ftyp == LD8KConstants.FT_SPEECH) {
+	     Util.copy(Acf[0], sumAcf, LD8KConstants.MP1);
+	   } else {
+	     for (i = 0; i < LD8KConstants.MP1; i++)
+	       sumAcf[i] = (float)0.5 * (Acf[0][i] + Acf[1][i]);
+	   }
+	   ener = lpc.levinson(sumAcf, Acur, 0, rc);
+	   idx = qua_Sidgain(ener);
+
+	   /* did the background change since the last SID frame? */
+	   flag_chang = 0;
+	   if (past_ftyp == LD8KConstants.FT_SPEECH) {
+	     flag_chang = 1;
+	   } else {
+	     dist = RCoeff[0] * sumAcf[0];
+	     for (i = 1; i <= LD8KConstants.M; i++)
+	       dist += (float)2. * RCoeff[i] * sumAcf[i];
+	     if (dist > LD8KConstants.THRESH_SD * ener) flag_chang = 1;
+	     if (Math.abs(idx - sid_idx) > LD8KConstants.THRESH_GAIN) flag_chang = 1;
+	   }
+
+	   count_fr0++;
+	   if (flag_chang == 1 && sid_enable != 0
+	       && (past_ftyp == LD8KConstants.FT_SPEECH || count_fr0 >= LD8KConstants.FR_SID_MIN)) {
+	     ftyp = LD8KConstants.FT_SID;
+	     count_fr0 = 0;
+
+	     lpc.az_lsp(Acur, 0, lsp_cur, lspSid_q);
+	     qsidLsf.lsfq_noise(lsp_cur, lspSid_q, freq_prev, ana, as);
+	     ana[as+3] = idx;
+
+	     sid_idx = idx;
+	     sid_gain = TabDtx.tab_Sidgain[idx];
+
+	     lpcFunc.lsp_az(lspSid_q, 0, Asid, 0);
+	     calc_RCoeff(Asid, RCoeff);
+	   } else {
+	     ftyp = LD8KConstants.FT_UNTRANSMITTED;
+	   }
+
+	   /* comfort noise, as the decoder generates it */
+	   if (past_ftyp == LD8KConstants.FT_SPEECH) cur_gain = sid_gain;
+	   else cur_gain = LD8KConstants.A_GAIN0 * cur_gain + LD8KConstants.A_GAIN1 * sid_gain;
+
+	   calcExc.calc_exc_rand(cur_gain, exc, excs, taming);
+
+	   lpcFunc.int_qlpc(lsp_old_q, lspSid_q, Aq_t);
+	   Util.copy(lspSid_q, lsp_old_q, LD8KConstants.M);
+
+	   return ftyp;
+	}
+
+	/*----------------------------------------------------------------------------
+	 * qua_Sidgain - quantizes the rms of the prediction residual
+	 *----------------------------------------------------------------------------
+	 */
+	static int qua_Sidgain(     /* output: energy index                        */
+	 float  ener                /* input : prediction error of the LPC window  */
+	)
+	{
+	   int   i;
+	   float rms;
+
+	   rms = (float)Math.sqrt(ener / TabDtx.ener_window);
+	   for (i = 0; i < TabDtx.tab_Sidgain.length-1; i++)
+	     if (rms * rms < TabDtx.tab_Sidgain[i] * TabDtx.tab_Sidgain[i+1]) break;
+	   return i;
+	}
+
+	/*----------------------------------------------------------------------------
+	 * calc_RCoeff - autocorrelations of the filter coefficients, so that the
+	 *               prediction error of a[] on autocorrelations r[] is
+	 *               RCoeff[0]*r[0] + 2*sum(RCoeff[i]*r[i])
+	 *----------------------------------------------------------------------------
+	 */
+	static void calc_RCoeff(
+	 float  a[],            /* input : filter coefficients a[0:M]   */
+	 float  RCoeff[]        /* output: autocorrelations RCoeff[0:M] */
+	)
+	{
+	   int   i, j;
+	   float sum;
+
+	   for (i = 0; i <= LD8KConstants.M; i++) {
+	     sum = (float)0.;
+	     for (j = 0; j <= LD8KConstants.M-i; j++)
+	       sum += a[j] * a[j+i];
+	     RCoeff[i] = sum;
+	   }
+	   return;
+	}
+
+}
@@ -25,23 +25,29 @@ package org.restcomm.media.codec.g729;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 
-import org.restcomm.media.spi.dsp.Codec;
+import org.restcomm.media.spi.dsp.ConfigurableCodec;
 import org.restcomm.media.spi.format.Format;
 import org.restcomm.media.spi.format.FormatFactory;
 import org.restcomm.media.spi.memory.Frame;
 import org.restcomm.media.spi.memory.Memory;
 
-public class Encoder implements Codec {
+public class Encoder implements ConfigurableCodec {
 
     private final static Format g729 = FormatFactory.createAudioFormat("g729", 8000);
     private final static Format linear = FormatFactory.createAudioFormat("linear", 8000, 16, 1);
 
+    /* Duration of one G.729 frame, in nanoseconds */
+    private final static long FRAME_DURATION = 10000000L;
+
     int frame = 0;
+    /* Annex B discontinuous transmission, negotiated with annexb fmtp parameter */
+    boolean dtx = false;
     CodLD8K encoder = new CodLD8K();
     PreProc preProc = new PreProc();
     CircularBuffer circularBuffer = new CircularBuffer(32000);
     int prm[] = new int[LD8KConstants.PRM_SIZE];
-    short serial[] = new short[LD8KConstants.SERIAL_SIZE];
+    float new_speech[] = new float[LD8KConstants.L_FRAME];
+    byte[] speechWindow = new byte[2 * LD8KConstants.L_FRAME];
 
     /* For Debugging Only */
     FileInputStream testData = null;
@@ -68,45 +74,77 @@ public class Encoder implements Codec {
         return g729;
     }
 
+    /**
+     * Enables Annex B silence compression unless the destination format carries <code>annexb=no</code>.
+     * <p>
+     * As per RFC 4856 the absence of the parameter means Annex B is supported.
+     * </p>
+     */
+    @Override
+    public void configure(Format source, Format destination) {
+        if (destination == null || !g729.matches(destination)) {
+            return;
+        }
+        dtx = isAnnexB(destination.getOptions() == null ? null : destination.getOptions().toString());
+    }
+
+    static boolean isAnnexB(String options) {
+        if (options == null) {
+            return true;
+        }
+        String[] params = options.split(";");
+        for (String param : params) {
+            int separator = param.indexOf('=');
+            if (separator > 0 && param.substring(0, separator).trim().equalsIgnoreCase("annexb")) {
+                return !param.substring(separator + 1).trim().equalsIgnoreCase("no");
+            }
+        }
+        return true;
+    }
+
     public Frame process(Frame frame) {
         Frame res = null;
-        byte[] data = frame.getData();
+        long shift = 0;
+        long duration = 0;
 
-        circularBuffer.addData(data);
+        // input left over from previous media frames is encoded first
+        long timestamp = frame.getTimestamp() - circularBuffer.getAvailableData() * FRAME_DURATION / (2 * LD8KConstants.L_FRAME);
+        circularBuffer.addData(frame.getData(), frame.getOffset(), frame.getLength());
 
         int frameSize = 2 * LD8KConstants.L_FRAME;
-        byte[] speechWindow = circularBuffer.getData(2 * frameSize);
-        byte[] resultingBytes = null;
+        // one G.729 frame per 10ms of buffered input, any remainder waits for the next media frame
+        int frames = circularBuffer.getAvailableData() / frameSize;
+        if (speechWindow.length < frames * frameSize) {
+            speechWindow = new byte[frames * frameSize];
+        }
 
-        if (speechWindow == null) {
-            resultingBytes = new byte[0]; // No data available right now, send
-        // empty buffer
+        if (frames == 0 || !circularBuffer.getData(speechWindow, frames * frameSize)) {
+            // No data available right now, send empty buffer
+            res = Memory.allocate(0);
+            res.setLength(0);
         } else {
-            // Process two frames = 20ms
-            byte[] one = new byte[frameSize];
-            byte[] two = new byte[frameSize];
-            for (int q = 0; q < frameSize; q++) {
-                one[q] = speechWindow[q];
-                two[q] = speechWindow[q + frameSize];
-            }
-            one = process(one);
-            two = process(two);
-
-            if (one.length != two.length) {
-                throw new RuntimeException(
-                        "The two frames are not equal in size!");
+            res = Memory.allocate(frames * 10);
+            byte[] resultingBytes = res.getData();
+            int length = 0;
+            int untransmitted = 0;
+            for (int f = 0; f < frames; f++) {
+                // a SID frame closes the packet, so it may only be sent in the last slot
+                int written = process(speechWindow, f * frameSize, resultingBytes, length, f == frames - 1);
+                if (written == 0 && length == 0) {
+                    untransmitted++;
+                }
+                length += written;
             }
-            res = Memory.allocate(one.length + two.length);
-            res.setLength(one.length + two.length);
-            byte[] resultBytes = res.getData();
-            for (int q = 0; q < one.length; q++) {
-            	resultBytes[q] = one[q];            	
-            	resultBytes[q + one.length] = two[q];
+            res.setLength(length);
+            duration = frames * FRAME_DURATION;
+            // packet starts with the first transmitted frame, silence keeps the duration it covers
+            if (length > 0) {
+                shift = untransmitted * FRAME_DURATION;
             }
         }
         res.setOffset(0);
-        res.setTimestamp(frame.getTimestamp());
-        res.setDuration(frame.getDuration());
+        res.setTimestamp(timestamp + shift);
+        res.setDuration(duration - shift);
         res.setSequenceNumber(frame.getSequenceNumber());
         res.setEOM(frame.isEOM());
         res.setFormat(g729);
@@ -121,22 +159,56 @@ public class Encoder implements Codec {
      * @return compressed media.
      */
     public byte[] process(byte[] media) {
+        byte[] res = new byte[10];
+        process(media, 0, res, 0);
+        return res;
+    }
+
+    /**
+     * Compresses one 10ms frame without allocating.
+     * 
+     * @param media 80 linear samples, little endian, starting at offset
+     * @param offset position of the first sample in media
+     * @param dst receives the 10 compressed octets starting at dstOffset
+     * @param dstOffset position of the first octet in dst
+     * @return the number of octets written, 10 for speech, 2 for a SID frame and 0 for an untransmitted frame
+     */
+    public int process(byte[] media, int offset, byte[] dst, int dstOffset) {
+        return process(media, offset, dst, dstOffset, true);
+    }
+
+    /**
+     * Compresses one 10ms frame without allocating.
+     * 
+     * @param media 80 linear samples, little endian, starting at offset
+     * @param offset position of the first sample in media
+     * @param dst receives up to 10 compressed octets starting at dstOffset
+     * @param dstOffset position of the first octet in dst
+     * @param sidAllowed whether silence may be described by a SID frame, otherwise the frame is coded as speech unless
+     *            the silence is already signaled
+     * @return the number of octets written, 10 for speech, 2 for a SID frame and 0 for an untransmitted frame
+     */
+    public int process(byte[] media, int offset, byte[] dst, int dstOffset, boolean sidAllowed) {
         frame++;
 
-        float[] new_speech = new float[media.length];
-        short[] shortMedia = Util.byteArrayToShortArray(media);
-        for (int i = 0; i < LD8KConstants.L_FRAME; i++) {
-            new_speech[i] = (float) shortMedia[i];
+        for (int i = 0; i < LD8KConstants.L_FRAME; i++, offset += 2) {
+            new_speech[i] = (float) (short) ((media[offset] & 0xff) | (media[offset + 1] << 8));
         }
         preProc.pre_process(new_speech, LD8KConstants.L_FRAME);
 
         encoder.loadSpeech(new_speech);
-        encoder.coder_ld8k(prm, 0);
+        int ftyp = encoder.coder_ld8k(prm, 0, dtx ? 1 : 0, sidAllowed ? 1 : 0);
 
-        //byte[] a = new byte[10];
-        Bits.prm2bits_ld8k(prm, serial);
-        // return a;
-        return Bits.toRealBits(serial);
+        switch (ftyp) {
+            case LD8KConstants.FT_SPEECH:
+                Bits.prm2bits_ld8k_b(prm, dst, dstOffset);
+                return 10;
+            case LD8KConstants.FT_SID:
+                Bits.prm2bits_sid_b(prm, 0, dst, dstOffset);
+                return LD8KConstants.SID_SIZE;
+            default:
+                return 0;
+        }
     }
 
     /* These methods are just for debugging */
@@ -23,8 +23,8 @@
 package org.restcomm.media.codec.g729;
 
 public class FloatPointer {
-	public Float value = null;
-	public FloatPointer(Float v) {
+	public float value;
+	public FloatPointer(float v) {
 		value = v;
 	}
 	public FloatPointer() {
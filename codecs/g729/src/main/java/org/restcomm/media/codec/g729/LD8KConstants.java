@@ -175,5 +175,41 @@ public class LD8KConstants {
 	public static final short SIZ_TAB_HUP_L =((F_UP_PST-1) * LH2_L);
 	public static final short SIZ_TAB_HUP_S =((F_UP_PST-1) * LH2_S);
 
+	/*---------------------------------------------------------------------------
+	 * Constants for VAD, DTX and CNG (Annex B)
+	 *---------------------------------------------------------------------------
+	 */
+	/* Frame types */
+	public static final short FT_UNTRANSMITTED = 0;  /* no frame is sent                         */
+	public static final short FT_SPEECH   =    1  ;   /* active speech frame, 10 octets            */
+	public static final short FT_SID      =    2  ;   /* silence insertion descriptor, 2 octets    */
+
+	public static final short SID_PRM_SIZE =   4  ;   /* number of parameters per SID frame        */
+	public static final short SID_SIZE    =    2  ;   /* octets per SID frame                      */
+
+	/* VAD */
+	public static final short NP          =    12 ;   /* order of the autocorrelations for VAD     */
+	public static final short N0          =    32 ;   /* frames used to initialize the background  */
+	public static final float EF_THRES    =    (float)21.0; /* energy of frames that are always noise */
+	public static final float VAD_ENER    =    (float)6.0 ; /* energy above background for speech, dB */
+	public static final float VAD_ENER_SD =    (float)2.0 ; /* same, when the spectrum changed, dB    */
+	public static final float VAD_SD      =    (float)0.015; /* spectral distortion threshold         */
+	public static final float VAD_ZC      =    (float)0.15 ; /* zero crossing rate deviation          */
+	public static final float VAD_UPDATE  =    (float)3.0 ; /* energy below which background is updated */
+	public static final short VAD_HANG    =    6  ;   /* hangover in frames after a talk spurt     */
+	public static final short MIN_FRAMES  =    16 ;   /* frames of each block of the minimum tracker */
+	public static final short MIN_BLOCKS  =    8  ;   /* blocks of the minimum tracker            */
+
+	/* DTX */
+	public static final short FR_SID_MIN  =    3  ;   /* minimum number of frames between SIDs     */
+	public static final float THRESH_SD   =    (float)1.2 ;  /* Itakura ratio requiring a new SID   */
+	public static final short THRESH_GAIN =    2  ;   /* energy index change requiring a new SID   */
+
+	/* CNG */
+	public static final short INIT_SEED   =    11111; /* seed of the random excitation             */
+	public static final float A_GAIN0     =    (float)0.875; /* smoothing of the comfort noise gain  */
+	public static final float A_GAIN1     =    ((float)1. - A_GAIN0);
+	public static final float ALPHA_CNG   =    (float)0.5 ; /* share of the gaussian excitation     */
+	public static final float G_MAX_CNG   =    (float)0.5 ; /* maximum random pitch gain            */
 
 }
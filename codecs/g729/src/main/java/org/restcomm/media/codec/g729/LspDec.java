@@ -32,8 +32,12 @@ public class LspDec {
 	};     /* PI*(float)(j+1)/(float)(M+1) */
 
 	/* static memory for frame erase operation */
-	static int prev_ma;                  /* previous MA prediction coef.*/
-	static float prev_lsp[] = new float[LD8KConstants.M];            /* previous LSP vector         */
+	int prev_ma;                  /* previous MA prediction coef.*/
+	float prev_lsp[] = new float[LD8KConstants.M];            /* previous LSP vector         */
+
+	/* Working memory */
+	float buf[] = new float[LD8KConstants.M];
+	LspGetq lspGetq = new LspGetq();
 
 
 	/*----------------------------------------------------------------------------
@@ -69,7 +73,6 @@ public class LspDec {
 	   int  code0;
 	   int  code1;
 	   int  code2;
-	   float buf[] = new float[LD8KConstants.M];
 
 
 	   if(erase==0)                 /* Not frame erasure */
@@ -79,7 +82,7 @@ public class LspDec {
 	        code1 = (prm[prms+1] >> LD8KConstants.NC1_B) & (short)(LD8KConstants.NC1 - 1);
 	        code2 = prm[prms+1] & (short)(LD8KConstants.NC1 - 1);
 
-	        LspGetq.lsp_get_quant(TabLD8k.lspcb1, TabLD8k.lspcb2, code0, code1, code2, TabLD8k.fg[mode_index],
+	        lspGetq.lsp_get_quant(TabLD8k.lspcb1, TabLD8k.lspcb2, code0, code1, code2, TabLD8k.fg[mode_index],
 	              freq_prev, lsp_q, TabLD8k.fg_sum[mode_index]);
 
 	        Util.copy(lsp_q, prev_lsp, LD8KConstants.M );
@@ -37,6 +37,18 @@ public class PostFil {
 	/* Variables */
 	FloatPointer gain_prec = new FloatPointer((float)0);             /* for gain adjustment          */
 
+	/* Working memory */
+	float apond1[] = new float[LD8KConstants.MP1];           /* s.t. denominator coeff.      */
+	float sig_ltp[] = new float[LD8KConstants.L_SUBFRP1];   /* H0 output signal             */
+	float y_up[] = new float[LD8KConstants.SIZ_Y_UP];
+	float tab_den0[] = new float[LD8KConstants.F_UP_PST-1], tab_den1[] = new float[LD8KConstants.F_UP_PST-1];
+	float h[] = new float[LD8KConstants.LONG_H_ST];
+	FloatPointer parcor0 = new FloatPointer();
+	IntegerPointer ltpdel = new IntegerPointer(), phase = new IntegerPointer(), off_yup = new IntegerPointer();
+	FloatPointer num_gltp = new FloatPointer(), den_gltp = new FloatPointer();
+	FloatPointer num2_gltp = new FloatPointer(), den2_gltp = new FloatPointer();
+	Filter filter = new Filter();
+
 	/****   Short term postfilter :                                     *****/
 	/*      Hst(z) = Hst0(z) Hst1(z)                                        */
 	/*      Hst0(z) = 1/g0 A(gamma2)(z) / A(gamma1)(z)                      */
@@ -100,10 +112,7 @@ public class PostFil {
 	 IntegerPointer vo                /* output: voicing decision 0 = uv,  > 0 delay */
 	)
 	{
-	    float apond1[] = new float[LD8KConstants.MP1];           /* s.t. denominator coeff.      */
-	    float sig_ltp[] = new float[LD8KConstants.L_SUBFRP1];   /* H0 output signal             */
 	    int sig_ltp_ptr;
-	    FloatPointer parcor0 = new FloatPointer();
 
 	    /* Compute weighted LPC coefficients */
 	    LpcFunc.weight_az(coeff, coeffs, LD8KConstants.GAMMA1_PST, LD8KConstants.M, apond1, 0);
@@ -124,7 +133,7 @@ public class PostFil {
 	    calc_st_filt(apond2, 0, apond1, 0, parcor0, sig_ltp, sig_ltp_ptr);
 
 	    /* 1/A(gamma1) filtering, mem_stp is updated */
-	    Filter.syn_filt(apond1, 0, sig_ltp, sig_ltp_ptr, sig_ltp, sig_ltp_ptr, LD8KConstants.L_SUBFR, mem_stp, 0, 1);
+	    filter.syn_filt(apond1, 0, sig_ltp, sig_ltp_ptr, sig_ltp, sig_ltp_ptr, LD8KConstants.L_SUBFR, mem_stp, 0, 1);
 
 	    /* (1 + mu z-1) tilt filtering */
 	    filt_mu(sig_ltp, 0, sig_out, outs, parcor0.value);
@@ -151,14 +160,9 @@ public class PostFil {
 	{
 
 	/**** Declare variables                                 */
-	    IntegerPointer ltpdel = new IntegerPointer(0), phase = new IntegerPointer(0);
-	    FloatPointer num_gltp = new FloatPointer((float)0), den_gltp = new FloatPointer((float)0);
-	    FloatPointer num2_gltp = new FloatPointer((float)0), den2_gltp = new FloatPointer((float)0);
 	    float gain_plt;
-	    float y_up[] = new float[LD8KConstants.SIZ_Y_UP];
 	    int ptr_y_up;
 	    float[] ptr_y_up_array;
-	    IntegerPointer off_yup = new IntegerPointer();
 
 	    /* Sub optimal delay search */
 	    search_del(t0, ptr_sig_in, ins, ltpdel, phase, num_gltp, den_gltp,
@@ -189,8 +193,8 @@ public class PostFil {
 	            }
 	            else {
 	                /* select long filter */
-	                num_gltp = num2_gltp;
-	                den_gltp = den2_gltp;
+	                num_gltp.value = num2_gltp.value;
+	                den_gltp.value = den2_gltp.value;
 	                ptr_y_up = psts;
 	                ptr_y_up_array = ptr_sig_pst0;
 	            }
@@ -216,7 +220,7 @@ public class PostFil {
 	 *  search_del: computes best (shortest) integer LTP delay + fine search
 	 *----------------------------------------------------------------------------
 	 */
-	static void search_del(
+	void search_del(
 	 int t0,                /* input : pitch delay given by coder */
 	 float []ptr_sig_in, int ins,     /* input : input signal (with delay line) */
 	 IntegerPointer ltpdel,           /* output: delay = *ltpdel - *phase / f_up */
@@ -232,7 +236,6 @@ public class PostFil {
 	    int ptr_h;
 
 	    /* Variables and local arrays */
-	    float tab_den0[] = new float[LD8KConstants.F_UP_PST-1], tab_den1[] = new float[LD8KConstants.F_UP_PST-1];
 	    int ptr_den0, ptr_den1;
 	    int ptr_sig_past, ptr_sig_past0;
 	    int ptr1;
@@ -590,12 +593,11 @@ public class PostFil {
 	 float []sig_ltp_ptr, int sigs    /* in/out: input of 1/A(gamma1) : scaled by 1/g0 */
 	)
 	{
-	    float h[] = new float[LD8KConstants.LONG_H_ST];
 	    float g0, temp;
 	    int i;
 
 	    /* computes impulse response of  apond1 / apond2 */
-	    Filter.syn_filt(apond1,apond1s, apond2,apond2s, h,0, LD8KConstants.LONG_H_ST, mem_zero, 0, 0);
+	    filter.syn_filt(apond1,apond1s, apond2,apond2s, h,0, LD8KConstants.LONG_H_ST, mem_zero, 0, 0);
 
 	    /* computes 1st parcor */
 	    calc_rc0_h(h,0, parcor0);
@@ -0,0 +1,145 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2017, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.restcomm.media.codec.g729;
+
+public class QsidLsf {
+
+	/* Working memory */
+	float lsf[] = new float[LD8KConstants.M], lsfq[] = new float[LD8KConstants.M];
+	float wegt[] = new float[LD8KConstants.M];
+	float errlsf[] = new float[LD8KConstants.M];
+	float buf[] = new float[LD8KConstants.M];
+
+	/*----------------------------------------------------------------------------
+	 * lsfq_noise - quantizes the LSPs of a SID frame with the reduced codebooks
+	 *              and updates the memory of the LSF predictor
+	 *----------------------------------------------------------------------------
+	 */
+	public void lsfq_noise(
+	 float  lsp[],          /* input : unquantized LSPs                      */
+	 float  lspq[],         /* output: quantized LSPs                        */
+	 float  freq_prev[][],  /* in/out: previous LSF error vectors            */
+	 int    idx[], int is   /* output: MA mode, 1st and 2nd stage indices    */
+	)
+	{
+	   int   i, j, mode, i1, i2, cand, best_i1, best_i2, best_mode;
+	   float dist, tmp, min_dist, best_dist;
+
+	   /* convert lsp to lsf and guarantee a minimum spacing */
+	   LpcFunc.lsp_lsf(lsp, lsf, LD8KConstants.M);
+
+	   if (lsf[0] < LD8KConstants.L_LIMIT) lsf[0] = LD8KConstants.L_LIMIT;
+	   for (i = 0; i < LD8KConstants.M-1; i++)
+	     if (lsf[i+1] - lsf[i] < 2*LD8KConstants.GAP3) lsf[i+1] = lsf[i] + 2*LD8KConstants.GAP3;
+	   if (lsf[LD8KConstants.M-1] > LD8KConstants.M_LIMIT) lsf[LD8KConstants.M-1] = LD8KConstants.M_LIMIT;
+	   if (lsf[LD8KConstants.M-1] < lsf[LD8KConstants.M-2]) lsf[LD8KConstants.M-2] = lsf[LD8KConstants.M-1] - LD8KConstants.GAP3;
+
+	   QuaLsp.get_wegt(lsf, wegt);
+
+	   best_dist = LD8KConstants.FLT_MAX_G729;
+	   best_mode = best_i1 = best_i2 = 0;
+	   for (mode = 0; mode < LD8KConstants.MODE; mode++) {
+	     /* target vector of the mode */
+	     LspGetq.lsp_prev_extract(lsf, errlsf, TabDtx.noise_fg[mode], freq_prev, TabDtx.noise_fg_sum_inv[mode]);
+
+	     /* first stage */
+	     cand = 0;
+	     min_dist = LD8KConstants.FLT_MAX_G729;
+	     for (i1 = 0; i1 < TabDtx.PtrTab_1.length; i1++) {
+	       dist = (float)0.;
+	       for (j = 0; j < LD8KConstants.M; j++) {
+	         tmp = errlsf[j] - TabLD8k.lspcb1[TabDtx.PtrTab_1[i1]][j];
+	         dist += wegt[j] * tmp * tmp;
+	       }
+	       if (dist < min_dist) {
+	         min_dist = dist;
+	         cand = i1;
+	       }
+	     }
+
+	     /* second stage, weighted as the error seen after prediction */
+	     for (i2 = 0; i2 < TabDtx.PtrTab_2[0].length; i2++) {
+	       dist = (float)0.;
+	       for (j = 0; j < LD8KConstants.M; j++) {
+	         tmp = errlsf[j] - TabLD8k.lspcb1[TabDtx.PtrTab_1[cand]][j]
+	             - TabLD8k.lspcb2[TabDtx.PtrTab_2[j < LD8KConstants.NC ? 0 : 1][i2]][j];
+	         dist += wegt[j] * TabDtx.noise_fg_sum[mode][j] * TabDtx.noise_fg_sum[mode][j] * tmp * tmp;
+	       }
+	       if (dist < best_dist) {
+	         best_dist = dist;
+	         best_mode = mode;
+	         best_i1 = cand;
+	         best_i2 = i2;
+	       }
+	     }
+	   }
+
+	   idx[is+0] = best_mode;
+	   idx[is+1] = best_i1;
+	   idx[is+2] = best_i2;
+
+	   get_quant(best_mode, best_i1, best_i2, lspq, freq_prev);
+	   return;
+	}
+
+	/*----------------------------------------------------------------------------
+	 * sid_lsfq_decode - decodes the LSPs of a SID frame and updates the memory
+	 *                   of the LSF predictor
+	 *----------------------------------------------------------------------------
+	 */
+	public void sid_lsfq_decode(
+	 int    idx[], int is,  /* input : MA mode, 1st and 2nd stage indices    */
+	 float  lspq[],         /* output: quantized LSPs                        */
+	 float  freq_prev[][]   /* in/out: previous LSF error vectors            */
+	)
+	{
+	   get_quant(idx[is+0] & 1, idx[is+1] & 31, idx[is+2] & 15, lspq, freq_prev);
+	   return;
+	}
+
+	private void get_quant(
+	 int    mode,           /* input : MA mode                               */
+	 int    i1,             /* input : first stage index                     */
+	 int    i2,             /* input : second stage index                    */
+	 float  lspq[],         /* output: quantized LSPs                        */
+	 float  freq_prev[][]   /* in/out: previous LSF error vectors            */
+	)
+	{
+	   int j;
+
+	   for (j = 0; j < LD8KConstants.NC; j++)
+	     buf[j] = TabLD8k.lspcb1[TabDtx.PtrTab_1[i1]][j] + TabLD8k.lspcb2[TabDtx.PtrTab_2[0][i2]][j];
+	   for (j = LD8KConstants.NC; j < LD8KConstants.M; j++)
+	     buf[j] = TabLD8k.lspcb1[TabDtx.PtrTab_1[i1]][j] + TabLD8k.lspcb2[TabDtx.PtrTab_2[1][i2]][j];
+
+	   LspGetq.lsp_expand_1_2(buf, LD8KConstants.GAP1);
+
+	   LspGetq.lsp_prev_compose(buf, lsfq, TabDtx.noise_fg[mode], freq_prev, TabDtx.noise_fg_sum[mode]);
+	   LspGetq.lsp_prev_update(buf, freq_prev);
+	   LspGetq.lsp_stability(lsfq);
+
+	   LpcFunc.lsf_lsp(lsfq, lspq, LD8KConstants.M);
+	   return;
+	}
+
+}
@@ -24,6 +24,11 @@ package org.restcomm.media.codec.g729;
 
 public class QuaGain {
 	float past_qua_en[] = new float[]{(float)-14.0,(float)-14.0,(float)-14.0,(float)-14.0};
+
+	/* Working memory */
+	IntegerPointer cand1 = new IntegerPointer(), cand2 = new IntegerPointer();
+	FloatPointer gcode0 = new FloatPointer();
+	float best_gain[] = new float[2];
 	/*----------------------------------------------------------------------------
 	 * qua_gain - Quantization of pitch and codebook gains
 	 *----------------------------------------------------------------------------
@@ -49,13 +54,11 @@ public class QuaGain {
 	   
 
 	   int    i,j, index1=0, index2=0;
-	   IntegerPointer    cand1 = new IntegerPointer(0),cand2=new IntegerPointer(0) ;
-	   FloatPointer  gcode0 = new FloatPointer((float)0);
 	   float  dist = 0;
 	   float dist_min = 0;
 	   float g_pitch = 0;
 	   float g_code = 0;
-	   float  best_gain[] = new float[2],tmp;
+	   float  tmp;
 
 	  /*---------------------------------------------------*
 	   *-  energy due to innovation                       -*
@@ -31,6 +31,20 @@ public class QuaLsp {
 	 (float)1.713596,  (float)1.999195,  (float)2.284795,  (float)2.570394,  (float)2.855993
 	};     /* PI*(float)(j+1)/(float)(M+1) */
 
+	/* Working memory */
+	float lsf[] = new float[LD8KConstants.M], lsf_q[] = new float[LD8KConstants.M];  /* domain 0.0<= lsf <PI */
+	float wegt[] = new float[LD8KConstants.M];   /* weight coef. */
+	IntegerPointer index = new IntegerPointer();
+	IntegerPointer mode_index = new IntegerPointer(), cand_cur = new IntegerPointer();
+	FloatPointer dist_cur = new FloatPointer();
+	int cand[] = new int[LD8KConstants.MODE];
+	int tindex1[] = new int[LD8KConstants.MODE], tindex2[] = new int[LD8KConstants.MODE];
+	float tdist[] = new float[LD8KConstants.MODE];
+	float rbuf[] = new float[LD8KConstants.M];
+	float buf[] = new float[LD8KConstants.M];
+	float sbuf[] = new float[LD8KConstants.M];   /* target of the second stage search */
+	LspGetq lspGetq = new LspGetq();
+
 
 	public void qua_lsp(
 	  float lsp[],       /* (i) : Unquantized LSP            */
@@ -39,7 +53,6 @@ public class QuaLsp {
 	)
 	{
 	  int i;
-	  float lsf[] = new float[LD8KConstants.M], lsf_q[] = new float[LD8KConstants.M];  /* domain 0.0<= lsf <PI */
 
 	  /* Convert LSPs to LSFs */
 
@@ -79,8 +92,6 @@ public class QuaLsp {
 	 int[]  code             /*  output: codes of the selected LSP    */
 	)
 	{
-	   float        wegt[] = new float[LD8KConstants.M];   /* weight coef. */
-
 	   get_wegt( flsp_in, wegt );
 
 	   relspwed( flsp_in, wegt, lspq_out, TabLD8k.lspcb1, TabLD8k.lspcb2, TabLD8k.fg,
@@ -91,7 +102,7 @@ public class QuaLsp {
 	 * relspwed -
 	 *----------------------------------------------------------------------------
 	 */
-	static void relspwed(
+	void relspwed(
 	 float  lsp[],                  /*input: unquantized LSP parameters  */
 	 float  wegt[],                 /*input: weight coef.                */
 	 float  lspq[],                 /*output:quantized LSP parameters    */
@@ -105,13 +116,6 @@ public class QuaLsp {
 	)
 	{
 	   int  mode, j;
-	   IntegerPointer  index = new IntegerPointer();
-	   IntegerPointer mode_index = new IntegerPointer(),cand_cur = new IntegerPointer();
-	   int  cand[] = new int[LD8KConstants.MODE];
-	   int  tindex1[] =new int[LD8KConstants.MODE], tindex2[] = new int[LD8KConstants.MODE];
-	   float        tdist[] = new float[LD8KConstants.MODE];
-	   float        rbuf[] = new float[LD8KConstants.M];
-	   float        buf[] = new float[LD8KConstants.M];
 
 	   for(mode = 0; mode<LD8KConstants.MODE; mode++) {
 
@@ -144,10 +148,9 @@ public class QuaLsp {
 
 	      /* check */
 	      LspGetq.lsp_expand_1_2(buf, LD8KConstants.GAP2);
-	      FloatPointer tmp = new FloatPointer(tdist[mode]);
-	      lsp_get_tdist(wegt, buf, tmp, rbuf,
+	      lsp_get_tdist(wegt, buf, dist_cur, rbuf,
 	                    fg_sum[mode]);  /* calculate the distortion */
-	      tdist[mode] = tmp.value;
+	      tdist[mode] = dist_cur.value;
 
 	   } /* mode */
 
@@ -159,7 +162,7 @@ public class QuaLsp {
 	   code_ana[1] = (tindex1[mode_index.value]<<LD8KConstants.NC1_B) | tindex2[mode_index.value];
 
 	   /* reconstruct quantized LSP parameter and check the stabilty */
-	   LspGetq.lsp_get_quant(lspcb1, lspcb2, cand[mode_index.value],
+	   lspGetq.lsp_get_quant(lspcb1, lspcb2, cand[mode_index.value],
 	                 tindex1[mode_index.value], tindex2[mode_index.value],
 	                 fg[mode_index.value],
 	                 freq_prev,
@@ -204,7 +207,7 @@ public class QuaLsp {
 	 * lsp_pre_select_1 - select the code of second stage lsp codebook (lower 0-4)
 	 *----------------------------------------------------------------------------
 	 */
-	static void lsp_select_1(
+	void lsp_select_1(
 	 float  rbuf[],         /*input : target vector            */
 	 float  lspcb1[],       /*input : first stage lsp codebook */
 	 float  wegt[],         /*input : weight coef.             */
@@ -213,11 +216,10 @@ public class QuaLsp {
 	)
 	{
 	   int  j, k1;
-	   float        buf[] = new float[LD8KConstants.M];
 	   float        dist, dmin, tmp;
 
 	   for(j=0; j<LD8KConstants.NC; j++)
-	        buf[j]=rbuf[j]-lspcb1[j];
+	        sbuf[j]=rbuf[j]-lspcb1[j];
 
 	   index.value = 0;
 	   dmin=LD8KConstants.FLT_MAX_G729;
@@ -225,7 +227,7 @@ public class QuaLsp {
 	      /* calculate the distortion */
 	      dist = (float)0.;
 	      for(j=0; j<LD8KConstants.NC; j++) {
-	         tmp = buf[j]-lspcb2[k1][j];
+	         tmp = sbuf[j]-lspcb2[k1][j];
 	         dist += wegt[j] * tmp * tmp;
 	      }
 
@@ -241,7 +243,7 @@ public class QuaLsp {
 	 * lsp_pre_select_2 - select the code of second stage lsp codebook (higher 5-9)
 	 *----------------------------------------------------------------------------
 	 */
-	static void lsp_select_2(
+	void lsp_select_2(
 	 float  rbuf[],         /*input : target vector            */
 	 float  lspcb1[],       /*input : first stage lsp codebook */
 	 float  wegt[],         /*input : weighting coef.             */
@@ -250,11 +252,10 @@ public class QuaLsp {
 	)
 	{
 	   int  j, k1;
-	   float        buf[] = new float[LD8KConstants.M];
 	   float        dist, dmin, tmp;
 
 	   for(j=LD8KConstants.NC; j<LD8KConstants.M; j++)
-	        buf[j]=rbuf[j]-lspcb1[j];
+	        sbuf[j]=rbuf[j]-lspcb1[j];
 
 
 	   index.value = 0;
@@ -262,7 +263,7 @@ public class QuaLsp {
 	   for(k1 = 0; k1<LD8KConstants.NC1; k1++) {
 	      dist = (float)0.0;
 	      for(j=LD8KConstants.NC; j<LD8KConstants.M; j++) {
-	        tmp = buf[j] - lspcb2[k1][j];
+	        tmp = sbuf[j] - lspcb2[k1][j];
 	        dist += wegt[j] * tmp * tmp;
 	      }
 
@@ -0,0 +1,119 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2017, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.restcomm.media.codec.g729;
+
+public class TabDtx {
+
+	/*-------------------------------------------------------------------*
+	 * Subsets of the LSP codebooks used by SID frames. The 5 bit first  *
+	 * stage index points to lspcb1[], the 4 bit second stage index to   *
+	 * the lower and upper halves of lspcb2[].                           *
+	 *-------------------------------------------------------------------*/
+	public static final int PtrTab_1[] = new int[] {
+	  96, 52, 20, 54, 86,114, 82, 68, 36,121, 48, 92, 18,120, 94,124,
+	  50,125,  4,100, 28, 76, 12,117, 81, 22, 90,116,127, 21,108, 66
+	};
+
+	public static final int PtrTab_2[][] = new int[][] {
+	  {31, 21,  9,  3, 10,  2, 19, 26,  4,  3, 11, 29, 15, 27, 21, 12},
+	  {16,  1,  0,  0,  8, 25, 22, 20, 19, 23, 20, 31,  4, 31, 20, 31}
+	};
+
+	/*-------------------------------------------------------------------*
+	 * Comfort noise gains (rms of the excitation) for the 5 bit energy  *
+	 * index of SID frames: 4 dB steps, then 2 dB steps.                 *
+	 *-------------------------------------------------------------------*/
+	public static final float tab_Sidgain[] = new float[] {
+	 (float)   0.502, (float)   1.262, (float)   2.000, (float)   3.170,
+	 (float)   5.024, (float)   7.962, (float)  12.619, (float)  15.887,
+	 (float)  20.000, (float)  25.179, (float)  31.698, (float)  39.905,
+	 (float)  50.238, (float)  63.246, (float)  79.621, (float) 100.237,
+	 (float) 126.191, (float) 158.866, (float) 200.000, (float) 251.785,
+	 (float) 316.979, (float) 399.052, (float) 502.377, (float) 632.456,
+	 (float) 796.214, (float)1002.374, (float)1261.915, (float)1588.656,
+	 (float)2000.000, (float)2517.851, (float)3169.786, (float)3990.525
+	};
+
+	/*-------------------------------------------------------------------*
+	 * MA predictors of the SID quantizer: the first mode is the first   *
+	 * predictor of the speech quantizer, the second one weights both    *
+	 * speech predictors 0.6 and 0.4.                                    *
+	 *-------------------------------------------------------------------*/
+	public static final float noise_fg[][][] = new float[LD8KConstants.MODE][LD8KConstants.MA_NP][LD8KConstants.M];
+	public static final float noise_fg_sum[][] = new float[LD8KConstants.MODE][LD8KConstants.M];
+	public static final float noise_fg_sum_inv[][] = new float[LD8KConstants.MODE][LD8KConstants.M];
+
+	/*-------------------------------------------------------------------*
+	 * Autocorrelation of the impulse response of the 1 kHz low pass     *
+	 * filter giving the low band energy of the VAD.                     *
+	 *-------------------------------------------------------------------*/
+	public static final float lbf_corr[] = new float[LD8KConstants.NP+1];
+
+	/* Energy of the LPC analysis window */
+	public static final float ener_window;
+
+	static {
+	  int i, j, k;
+	  float sum;
+
+	  for (i = 0; i < LD8KConstants.MA_NP; i++)
+	    for (j = 0; j < LD8KConstants.M; j++) {
+	      noise_fg[0][i][j] = TabLD8k.fg[0][i][j];
+	      noise_fg[1][i][j] = (float)0.6*TabLD8k.fg[0][i][j] + (float)0.4*TabLD8k.fg[1][i][j];
+	    }
+
+	  for (k = 0; k < LD8KConstants.MODE; k++)
+	    for (j = 0; j < LD8KConstants.M; j++) {
+	      sum = (float)1.0;
+	      for (i = 0; i < LD8KConstants.MA_NP; i++)
+	        sum -= noise_fg[k][i][j];
+	      noise_fg_sum[k][j] = sum;
+	      noise_fg_sum_inv[k][j] = (float)1.0/sum;
+	    }
+
+	  /* hamming windowed sinc, unity gain at DC */
+	  float h[] = new float[LD8KConstants.NP+1];
+	  sum = (float)0.0;
+	  for (i = 0; i <= LD8KConstants.NP; i++) {
+	    k = i - LD8KConstants.NP/2;
+	    h[i] = (k == 0) ? (float)0.25 : (float)(Math.sin(0.25*Math.PI*k)/(Math.PI*k));
+	    h[i] *= (float)(0.54 - 0.46*Math.cos(2.0*Math.PI*i/LD8KConstants.NP));
+	    sum += h[i];
+	  }
+	  for (i = 0; i <= LD8KConstants.NP; i++)
+	    h[i] /= sum;
+
+	  for (k = 0; k <= LD8KConstants.NP; k++) {
+	    sum = (float)0.0;
+	    for (i = 0; i <= LD8KConstants.NP-k; i++)
+	      sum += h[i]*h[i+k];
+	    lbf_corr[k] = sum;
+	  }
+
+	  sum = (float)0.0;
+	  for (i = 0; i < LD8KConstants.L_WINDOW; i++)
+	    sum += TabLD8k.hamwindow[i]*TabLD8k.hamwindow[i];
+	  ener_window = sum;
+	}
+
+}
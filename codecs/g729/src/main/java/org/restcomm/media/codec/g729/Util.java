@@ -92,9 +92,23 @@ public class Util {
 			int length         /* input: length of data array */
 	)
 	{
-		int  i;
-		short sp16[] = new short[LD8KConstants.L_FRAME];
-		byte[] ret;
+		byte[] ret = new byte[2 * LD8KConstants.L_FRAME];
+		floatArrayToByteArray(data, length, ret, 0);
+		return ret;
+	}
+
+	/*-----------------------------------------------------------*
+	 * floatArrayToByteArray - rounds a float array to 16 bit    *
+	 * little endian samples written from dst[ds]                *
+	 *-----------------------------------------------------------*/
+
+	public static void floatArrayToByteArray(
+			float []data,           /* input: inputdata */
+			int length,          /* input: length of data array */
+			byte []dst, int ds   /* output: 16 bit samples */
+	)
+	{
+		int  i, sample;
 		float temp;
 
 		if (length > LD8KConstants.L_FRAME) {
@@ -111,13 +125,10 @@ public class Util {
 			else  temp -= (float)0.5;
 			if (temp >  (float)32767.0 ) temp =  (float)32767.0;
 			if (temp < (float)-32768.0 ) temp = (float)-32768.0;
-			sp16[i] = (short) temp;
-			
-			
+			sample = (short) temp;
+			dst[ds++] = (byte) sample;
+			dst[ds++] = (byte) (sample >> 8);
 		}
-		ret = shortArrayToByteArray(sp16);
-		return ret;
-
 	}
 	/*-----------------------------------------------------------*
 	 * fwrite16 - writes a float array as a Short to a a file    *
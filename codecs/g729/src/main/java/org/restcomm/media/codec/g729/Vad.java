@@ -0,0 +1,209 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2017, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.restcomm.media.codec.g729;
+
+public class Vad {
+
+	/*-------------------------------------------------------------------*
+	 * Voice activity detector. Every frame is compared with a running   *
+	 * estimate of the background noise on four features: full band and  *
+	 * low band energies, zero crossing rate and spectral distortion of   *
+	 * the LSFs. The decision is then smoothed so that the ends of words  *
+	 * are not clipped.                                                   *
+	 *-------------------------------------------------------------------*/
+
+	/* Background noise characteristics */
+	float MeanLSF[] = new float[LD8KConstants.M];
+	float MeanSE, MeanSLE, MeanSZC;
+	float MeanE;
+
+	/* Minimum energy over the last MIN_BLOCKS*MIN_FRAMES frames */
+	float Min_buffer[] = new float[LD8KConstants.MIN_BLOCKS];
+	float Next_Min, Min;
+
+	int frm_count;
+	int less_count;
+	int count_update;
+	int hang;
+	int prev_marker;
+	float prev_energy;
+
+	/*----------------------------------------------------------------------------
+	 * vad_init - initialization of the voice activity detector
+	 *----------------------------------------------------------------------------
+	 */
+	public void vad_init()
+	{
+	   Util.set_zero(MeanLSF, LD8KConstants.M);
+	   MeanSE = MeanSLE = MeanSZC = MeanE = (float)0.;
+
+	   for (int i = 0; i < LD8KConstants.MIN_BLOCKS; i++)
+	     Min_buffer[i] = LD8KConstants.FLT_MAX_G729;
+	   Next_Min = Min = LD8KConstants.FLT_MAX_G729;
+
+	   frm_count = 0;
+	   less_count = 0;
+	   count_update = 0;
+	   hang = 0;
+	   prev_marker = 1;
+	   prev_energy = (float)0.;
+	   return;
+	}
+
+	/*----------------------------------------------------------------------------
+	 * vad - voice activity decision of a frame
+	 *----------------------------------------------------------------------------
+	 */
+	public int vad(            /* output: 1 for speech, 0 for noise             */
+	 float  r[],               /* input : autocorrelations r[0:NP]              */
+	 float  lsf[],             /* input : unquantized LSFs                      */
+	 float  x[], int xs        /* input : present frame, x[xs-1:xs+L_FRAME-1]   */
+	)
+	{
+	   int   i, marker;
+	   float acf0, ENERGY, ENERGY_low, ZC, SD, beta;
+
+	   frm_count++;
+
+	   /* full band energy */
+	   ENERGY = (float)10. * (float)Math.log10(r[0] / LD8KConstants.L_WINDOW);
+
+	   /* low band energy */
+	   acf0 = TabDtx.lbf_corr[0] * r[0];
+	   for (i = 1; i <= LD8KConstants.NP; i++)
+	     acf0 += (float)2. * TabDtx.lbf_corr[i] * r[i];
+	   if (acf0 < (float)1.) acf0 = (float)1.;
+	   ENERGY_low = (float)10. * (float)Math.log10(acf0 / LD8KConstants.L_WINDOW);
+
+	   /* zero crossing rate */
+	   ZC = (float)0.;
+	   for (i = xs; i < xs + LD8KConstants.L_FRAME; i++)
+	     if ((x[i-1] < (float)0.) != (x[i] < (float)0.)) ZC += (float)1.;
+	   ZC /= LD8KConstants.L_FRAME;
+
+	   /* minimum energy tracking */
+	   if (ENERGY < Next_Min) Next_Min = ENERGY;
+	   if (frm_count % LD8KConstants.MIN_FRAMES == 0) {
+	     for (i = 0; i < LD8KConstants.MIN_BLOCKS-1; i++)
+	       Min_buffer[i] = Min_buffer[i+1];
+	     Min_buffer[LD8KConstants.MIN_BLOCKS-1] = Next_Min;
+	     Next_Min = LD8KConstants.FLT_MAX_G729;
+	   }
+	   Min = Next_Min;
+	   for (i = 0; i < LD8KConstants.MIN_BLOCKS; i++)
+	     if (Min_buffer[i] < Min) Min = Min_buffer[i];
+
+	   /* initialization of the background characteristics */
+	   if (frm_count <= LD8KConstants.N0) {
+	     if (ENERGY < LD8KConstants.EF_THRES) {
+	       marker = 0;
+	     } else {
+	       marker = 1;
+	       MeanE += ENERGY;
+	       MeanSLE += ENERGY_low;
+	       MeanSZC += ZC;
+	       for (i = 0; i < LD8KConstants.M; i++)
+	         MeanLSF[i] += lsf[i];
+	       less_count++;
+	     }
+
+	     if (frm_count == LD8KConstants.N0) {
+	       if (less_count == 0) {
+	         /* nothing but silence so far, start over */
+	         frm_count = 0;
+	       } else {
+	         /* the first frames of a call are taken as background noise */
+	         MeanE /= less_count;
+	         MeanSLE /= less_count;
+	         MeanSZC /= less_count;
+	         for (i = 0; i < LD8KConstants.M; i++)
+	           MeanLSF[i] /= less_count;
+	         MeanSE = MeanE;
+	       }
+	     }
+
+	     prev_marker = marker;
+	     prev_energy = ENERGY;
+	     return marker;
+	   }
+
+	   /* spectral distortion */
+	   SD = (float)0.;
+	   for (i = 0; i < LD8KConstants.M; i++)
+	     SD += (lsf[i] - MeanLSF[i]) * (lsf[i] - MeanLSF[i]);
+
+	   /* initial decision */
+	   if (ENERGY < LD8KConstants.EF_THRES) {
+	     marker = 0;
+	   } else if (ENERGY - MeanSE > LD8KConstants.VAD_ENER || ENERGY_low - MeanSLE > LD8KConstants.VAD_ENER) {
+	     marker = 1;
+	   } else if (ENERGY - MeanSE > LD8KConstants.VAD_ENER_SD
+	       && (SD > LD8KConstants.VAD_SD || Math.abs(ZC - MeanSZC) > LD8KConstants.VAD_ZC)) {
+	     marker = 1;
+	   } else {
+	     marker = 0;
+	   }
+
+	   /* smoothing: a frame as loud as the previous speech frame stays speech */
+	   if (marker == 0 && prev_marker == 1 && ENERGY > LD8KConstants.EF_THRES
+	       && ENERGY - MeanSE > LD8KConstants.VAD_ENER_SD
+	       && Math.abs(ENERGY - prev_energy) <= LD8KConstants.VAD_ENER_SD) {
+	     marker = 1;
+	   }
+
+	   /* smoothing: hangover after talk spurts of two frames or more */
+	   if (marker == 1) {
+	     if (prev_marker == 1) hang = LD8KConstants.VAD_HANG;
+	   } else if (hang > 0) {
+	     hang--;
+	     marker = 1;
+	   }
+
+	   /* update of the background characteristics */
+	   if (ENERGY - MeanSE < LD8KConstants.VAD_UPDATE) {
+	     count_update++;
+	     if (count_update < 20) beta = (float)0.75;
+	     else if (count_update < 30) beta = (float)0.95;
+	     else if (count_update < 60) beta = (float)0.98;
+	     else beta = (float)0.995;
+
+	     MeanSE = beta * MeanSE + ((float)1. - beta) * ENERGY;
+	     MeanSLE = beta * MeanSLE + ((float)1. - beta) * ENERGY_low;
+	     MeanSZC = beta * MeanSZC + ((float)1. - beta) * ZC;
+	     for (i = 0; i < LD8KConstants.M; i++)
+	       MeanLSF[i] = beta * MeanLSF[i] + ((float)1. - beta) * lsf[i];
+	   }
+
+	   /* the background got louder, follow the minimum energy */
+	   if (frm_count > LD8KConstants.MIN_BLOCKS*LD8KConstants.MIN_FRAMES && Min - MeanSE > LD8KConstants.VAD_ENER) {
+	     MeanSLE += Min - MeanSE;
+	     MeanSE = Min;
+	     count_update = 0;
+	   }
+
+	   prev_marker = marker;
+	   prev_energy = ENERGY;
+	   return marker;
+	}
+
+}
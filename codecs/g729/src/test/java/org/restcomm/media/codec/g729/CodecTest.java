@@ -0,0 +1,305 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2017, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.restcomm.media.codec.g729;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Ignore;
+import org.junit.Test;
+import org.restcomm.media.spi.dsp.Codec;
+import org.restcomm.media.spi.format.Format;
+import org.restcomm.media.spi.format.FormatFactory;
+import org.restcomm.media.spi.memory.Frame;
+import org.restcomm.media.spi.memory.Memory;
+import org.restcomm.media.spi.utils.Text;
+
+/**
+ * Checks the codec against reference vectors.
+ * <p>
+ * <code>speech.inp</code> holds 16 bit little endian speech followed by silence, a saturated square wave and loud noise.
+ * <code>speech.bit</code> and <code>speech.out</code> are the bitstream and the synthesis produced from it by the original
+ * port of the ITU reference code, where every 29th frame of the bitstream has two bits flipped to exercise the parity
+ * check on the pitch delay. Both must be reproduced exactly.
+ * </p>
+ */
+public class CodecTest {
+
+    private static final int PCM_FRAME = 320;
+    private static final int G729_FRAME = 20;
+
+    @Test
+    public void testEncode() throws IOException {
+        final byte[] speech = load("/speech.inp");
+        final byte[] bits = load("/speech.bit");
+        assertArrayEquals(bits, encode(new Encoder(), speech));
+    }
+
+    @Test
+    public void testDecode() throws IOException {
+        final byte[] bits = corrupt(load("/speech.bit"));
+        final byte[] synthesis = load("/speech.out");
+        assertArrayEquals(synthesis, decode(new Decoder(), bits));
+    }
+
+    @Test
+    public void testInterleavedChannels() throws IOException {
+        final byte[] speech = load("/speech.inp");
+        final byte[] bits = load("/speech.bit");
+        final byte[] corrupted = corrupt(bits);
+        final byte[] synthesis = load("/speech.out");
+
+        // state must not leak between codec instances
+        final Encoder[] encoders = { new Encoder(), new Encoder() };
+        final Decoder[] decoders = { new Decoder(), new Decoder() };
+        final ByteArrayOutputStream[] encoded = { new ByteArrayOutputStream(), new ByteArrayOutputStream() };
+        final ByteArrayOutputStream[] decoded = { new ByteArrayOutputStream(), new ByteArrayOutputStream() };
+        for (int f = 0; f < speech.length / PCM_FRAME; f++) {
+            for (int c = 0; c < 2; c++) {
+                encoded[c].write(process(encoders[c], speech, f * PCM_FRAME, PCM_FRAME));
+                decoded[c].write(process(decoders[c], corrupted, f * G729_FRAME, G729_FRAME));
+            }
+        }
+        for (int c = 0; c < 2; c++) {
+            assertArrayEquals(bits, encoded[c].toByteArray());
+            assertArrayEquals(synthesis, decoded[c].toByteArray());
+        }
+    }
+
+    @Test
+    public void testEncodePacketizationPeriods() throws IOException {
+        // 120ms is a multiple of every packetization period
+        final byte[] speech = load("/speech.inp");
+        final int length = speech.length - speech.length % (6 * PCM_FRAME);
+        final byte[] bits = Arrays.copyOf(load("/speech.bit"), length / PCM_FRAME * G729_FRAME);
+
+        for (int ptime = 10; ptime <= 40; ptime += 10) {
+            final Encoder encoder = new Encoder();
+            final int size = ptime * PCM_FRAME / 20;
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            for (int i = 0; i < length; i += size) {
+                byte[] data = process(encoder, speech, i, size);
+                assertEquals(ptime / 10 * G729_FRAME / 2, data.length);
+                out.write(data, 0, data.length);
+            }
+            assertArrayEquals(bits, out.toByteArray());
+        }
+    }
+
+    @Test
+    public void testEncodeWithoutData() {
+        final Frame frame = Memory.allocate(0);
+        final Frame res = new Encoder().process(frame);
+        assertEquals(0, res.getLength());
+    }
+
+    @Test
+    public void testAnnexBNegotiation() {
+        assertTrue(Encoder.isAnnexB(null));
+        assertTrue(Encoder.isAnnexB(""));
+        assertTrue(Encoder.isAnnexB("annexb=yes"));
+        assertFalse(Encoder.isAnnexB("annexb=no"));
+        assertFalse(Encoder.isAnnexB("bitrate=8; AnnexB = No"));
+
+        final Format linear = FormatFactory.createAudioFormat("linear", 8000, 16, 1);
+        final Format g729 = FormatFactory.createAudioFormat("g729", 8000);
+        final Encoder encoder = new Encoder();
+        assertFalse(encoder.dtx);
+        encoder.configure(linear, g729);
+        assertTrue(encoder.dtx);
+        g729.setOptions(new Text("annexb=no"));
+        encoder.configure(linear, g729);
+        assertFalse(encoder.dtx);
+    }
+
+    @Test
+    public void testSidBits() {
+        final int[] prm = { 1, 21, 10, 27 };
+        final byte[] bits = new byte[LD8KConstants.SID_SIZE];
+        Bits.prm2bits_sid_b(prm, 0, bits, 0);
+        final int[] res = new int[LD8KConstants.SID_PRM_SIZE];
+        Bits.bits2prm_sid_b(bits, 0, res, 0);
+        assertArrayEquals(prm, res);
+        assertEquals(0, bits[1] & 1);
+    }
+
+    @Test
+    public void testSilenceSuppression() throws IOException {
+        final byte[] speech = load("/speech.inp");
+        final Encoder encoder = new Encoder();
+        encoder.configure(encoder.getSupportedInputFormat(), encoder.getSupportedOutputFormat());
+        final Decoder decoder = new Decoder();
+
+        // two seconds of low background noise before the speech
+        final byte[] noise = new byte[100 * PCM_FRAME];
+        final Random random = new Random(729);
+        for (int i = 0; i < noise.length; i += 2) {
+            final short sample = (short) (random.nextGaussian() * 100);
+            noise[i] = (byte) sample;
+            noise[i + 1] = (byte) (sample >> 8);
+        }
+
+        int empty = 0, sid = 0;
+        for (int f = 0; f < 100 + 100; f++) {
+            final byte[] pcm = f < 100 ? noise : speech;
+            final int offset = (f < 100 ? f : f - 100) * PCM_FRAME;
+            final byte[] bits = process(encoder, pcm, offset, PCM_FRAME);
+            switch (bits.length) {
+                case 0:
+                    empty++;
+                    continue;
+                case 2:
+                case 12:
+                    sid++;
+                    break;
+                default:
+                    assertTrue(bits.length == 10 || bits.length == 20);
+                    break;
+            }
+            final byte[] synthesis = process(decoder, bits, 0, bits.length);
+            assertEquals((bits.length / 10 + bits.length % 10 / LD8KConstants.SID_SIZE) * 160, synthesis.length);
+        }
+        // background noise is mostly suppressed, described by a few SID frames
+        assertTrue(empty > 50);
+        assertTrue(sid > 0);
+    }
+
+    /**
+     * Measures how many full duplex G.729 channels a single core sustains, that is one 20ms frame encoded and one decoded
+     * per channel every 20ms.
+     */
+    @Ignore
+    @Test
+    public void testSpeed() throws IOException {
+        final byte[] speech = load("/speech.inp");
+        final int channels = 64;
+        final int rounds = 100;
+        final int frames = speech.length / PCM_FRAME;
+
+        final Encoder[] encoders = new Encoder[channels];
+        final Decoder[] decoders = new Decoder[channels];
+        final Frame[] input = new Frame[channels];
+        for (int c = 0; c < channels; c++) {
+            encoders[c] = new Encoder();
+            decoders[c] = new Decoder();
+            input[c] = Memory.allocate(PCM_FRAME);
+        }
+
+        final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        final com.sun.management.ThreadMXBean allocations = threads instanceof com.sun.management.ThreadMXBean
+                ? (com.sun.management.ThreadMXBean) threads : null;
+        final long thread = Thread.currentThread().getId();
+
+        for (int pass = 0; pass < 10; pass++) {
+            long allocated = allocations == null ? 0 : allocations.getThreadAllocatedBytes(thread);
+            long duration = 0;
+            for (int r = 0; r < rounds; r++) {
+                for (int c = 0; c < channels; c++) {
+                    System.arraycopy(speech, ((pass * rounds + r + c * 7) % frames) * PCM_FRAME, input[c].getData(), 0, PCM_FRAME);
+
+                    long s = System.nanoTime();
+                    Frame encoded = encoders[c].process(input[c]);
+                    Frame decoded = decoders[c].process(encoded);
+                    duration += System.nanoTime() - s;
+
+                    encoded.recycle();
+                    decoded.recycle();
+                }
+            }
+            allocated = allocations == null ? 0 : allocations.getThreadAllocatedBytes(thread) - allocated;
+
+            final long perFrame = duration / (channels * rounds);
+            System.out.println("G.729 encode + decode of " + channels + " channels: " + perFrame + " ns per 20ms frame, "
+                    + (20000000L / perFrame) + " channels per core, " + (allocated / (channels * rounds)) + " bytes allocated per frame");
+        }
+    }
+
+    private static byte[] encode(Encoder encoder, byte[] speech) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i + PCM_FRAME <= speech.length; i += PCM_FRAME) {
+            byte[] data = process(encoder, speech, i, PCM_FRAME);
+            out.write(data, 0, data.length);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] decode(Decoder decoder, byte[] bits) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i + G729_FRAME <= bits.length; i += G729_FRAME) {
+            byte[] data = process(decoder, bits, i, G729_FRAME);
+            out.write(data, 0, data.length);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] process(Codec codec, byte[] data, int offset, int length) {
+        final Frame frame = Memory.allocate(length);
+        System.arraycopy(data, offset, frame.getData(), 0, length);
+        frame.setLength(length);
+        final Frame res = codec.process(frame);
+        final byte[] result = new byte[res.getLength()];
+        System.arraycopy(res.getData(), res.getOffset(), result, 0, result.length);
+        frame.recycle();
+        res.recycle();
+        return result;
+    }
+
+    /**
+     * Flips two bits of every 29th 10ms frame, as done when the reference synthesis was produced.
+     */
+    private static byte[] corrupt(byte[] bits) {
+        final byte[] corrupted = bits.clone();
+        for (int f = 0; f < corrupted.length / 10; f++) {
+            if (f % 29 == 28) {
+                corrupted[f * 10 + f % 10] ^= 0x24;
+            }
+        }
+        return corrupted;
+    }
+
+    private static byte[] load(String name) throws IOException {
+        final InputStream in = CodecTest.class.getResourceAsStream(name);
+        try {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[4096];
+            int count;
+            while ((count = in.read(buffer)) > 0) {
+                out.write(buffer, 0, count);
+            }
+            return out.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
+
+}
@@ -38,6 +38,15 @@ public class Encoder implements Codec {
     private final static Format gsm = FormatFactory.createAudioFormat("gsm", 8000);
     private final static Format linear = FormatFactory.createAudioFormat("linear", 8000, 16, 1);
 
+    /* Linear input of one GSM frame, 20ms */
+    private final static int FRAME_SIZE = 320;
+    private final static long FRAME_DURATION = 20000000L;
+    private final static long BYTE_DURATION = FRAME_DURATION / FRAME_SIZE;
+
+    /* Input of an incomplete GSM frame, encoded along with the next media frame */
+    private final byte[] pending = new byte[FRAME_SIZE];
+    private int pendingLength = 0;
+
     private short z1=0,mp=0,k_temp,temp,temp1,temp2,temp3,s1,msp,lsp,smax,dmax,scalauto,di,sav,scal,nc,bc,R,S,bp,mc,xmax,exp,itest,xmaxc,mant;
     private short[] r=new short[9];
     private short[] rp=new short[9];
@@ -73,16 +82,48 @@ public class Encoder implements Codec {
     }
     
     public Frame process(Frame frame) {
-        // encode into short values
         byte[] data = frame.getData();
+        int offset = frame.getOffset();
+        int length = frame.getLength();
 
-        // int k = 0;
-        for (i = 0; i < 160; i++) {
-            signal[i] = ((short) ((data[i*2 + 1] << 8) | (data[i*2] & 0xFF)));
+        // one GSM frame per 20ms of input, any remainder waits for the next media frame
+        int blocks = (pendingLength + length) / FRAME_SIZE;
+        long timestamp = frame.getTimestamp() - pendingLength * BYTE_DURATION;
+        Frame res = Memory.allocate(33 * blocks);
+        byte[] output = res.getData();
+        for (int block = 0; block < blocks; block++) {
+            if (pendingLength > 0) {
+                int missing = FRAME_SIZE - pendingLength;
+                System.arraycopy(data, offset, pending, pendingLength, missing);
+                encode(pending, 0, output, block * 33);
+                pendingLength = 0;
+                offset += missing;
+                length -= missing;
+            } else {
+                encode(data, offset, output, block * 33);
+                offset += FRAME_SIZE;
+                length -= FRAME_SIZE;
+            }
         }
+        System.arraycopy(data, offset, pending, pendingLength, length);
+        pendingLength += length;
 
-        Frame res = Memory.allocate(33);
-        data = res.getData();
+        res.setOffset(0);
+        res.setLength(33 * blocks);
+        res.setTimestamp(timestamp);
+        res.setDuration(blocks * FRAME_DURATION);
+        res.setSequenceNumber(frame.getSequenceNumber());
+        res.setEOM(frame.isEOM());
+        res.setFormat(gsm);
+        
+        return res;
+    }
+
+    private void encode(byte[] data, int offset, byte[] output, int outputOffset) {
+        // encode into short values
+        for (i = 0; i < 160; i++) {
+            signal[i] = ((short) ((data[offset + i*2 + 1] << 8) | (data[offset + i*2] & 0xFF)));
+        }
         
         //preprocessing
         downscale(signal);
@@ -108,17 +149,17 @@ public class Encoder implements Codec {
                 
         //write 5 LARC bytes
         //0XD0 + 4 bits of LARC[1]
-        data[0]  = (byte) ( 0xD0 | ((LARc[1] >> 2) & 0xF));
+        output[outputOffset+0] = (byte) ( 0xD0 | ((LARc[1] >> 2) & 0xF));
         //2 bits of LARC[1] + 6 bits of LARC[2]
-        data[1]  = (byte) ((LARc[1] << 6) | (LARc[2] & 0x3F));
+        output[outputOffset+1] = (byte) ((LARc[1] << 6) | (LARc[2] & 0x3F));
         //5 bits of LARC[3] + 3 bits of LARC[4]
-        data[2]  = (byte) ((LARc[3] << 3) | ((LARc[4] >> 2) & 0x7));
+        output[outputOffset+2] = (byte) ((LARc[3] << 3) | ((LARc[4] >> 2) & 0x7));
         //2 bits of LARC[4] + 4 bits of LARC[5] + 2 bits of LARC[6]
-        data[3]  = (byte) ((LARc[4] << 6) | ((LARc[5] & 0xF) << 2) | ((LARc[6] >> 2) & 0x3));
+        output[outputOffset+3] = (byte) ((LARc[4] << 6) | ((LARc[5] & 0xF) << 2) | ((LARc[6] >> 2) & 0x3));
         //2 bits of LARC[6] + 3 bits of LARC[7] + 3 bits of LARC[8]
-        data[4]  = (byte) ((LARc[6] << 6) | ((LARc[7] & 0x7) << 3) | (LARc[8] & 0x7));
+        output[outputOffset+4] = (byte) ((LARc[6] << 6) | ((LARc[7] & 0x7) << 3) | (LARc[8] & 0x7));
 	
-        k_temp=5;
+        k_temp=(short)(outputOffset+5);
         for(k=0;k<4;k++)
         {
         	//long term
@@ -137,33 +178,21 @@ public class Encoder implements Codec {
         	
         	//write frame 7 bytes
         	//7 bits of NC + one bits of BC
-        	data[k_temp++]  = (byte) ((nc << 1) | ((bc >> 1) & 0x1));
+        	output[k_temp++] = (byte) ((nc << 1) | ((bc >> 1) & 0x1));
         	//1 bit of BC + 2 bits of MC + 5 bits of XMAXC
-        	data[k_temp++]  = (byte) ((bc << 7) | ((mc & 0x3) << 5) | ((xmaxc >> 1) & 0x1F));
+        	output[k_temp++] = (byte) ((bc << 7) | ((mc & 0x3) << 5) | ((xmaxc >> 1) & 0x1F));
         	//1 bit of XMAXC + 3 bits of XMC[0] + 3 bits of XMC[1] + 1 bit of XMC[2]
-        	data[k_temp++]  = (byte) ((xmaxc << 7) | ((xmc[0] & 0x7) << 4) | ((xmc[1] & 0x7) << 1) | ((xmc[2] >> 2) & 0x1));
+        	output[k_temp++] = (byte) ((xmaxc << 7) | ((xmc[0] & 0x7) << 4) | ((xmc[1] & 0x7) << 1) | ((xmc[2] >> 2) & 0x1));
         	//2 bits of XMC[2] + 3 bits of XMC[3] + 3 bits of XMC[4]
-        	data[k_temp++]  = (byte) ((xmc[2] << 6) | ((xmc[3] & 0x7) << 3) | (xmc[4] & 0x7));
+        	output[k_temp++] = (byte) ((xmc[2] << 6) | ((xmc[3] & 0x7) << 3) | (xmc[4] & 0x7));
         	//3 bits of XMC[5] + 3 bits of XMC[6] + 2 bits of XMC[7]
-        	data[k_temp++]  = (byte) ((xmc[5] << 5)	| ((xmc[6] & 0x7) << 2) | ((xmc[7] >> 1) & 0x3));
+        	output[k_temp++] = (byte) ((xmc[5] << 5)	| ((xmc[6] & 0x7) << 2) | ((xmc[7] >> 1) & 0x3));
         	//1 bit of XMC[7] + 3 bits of XMC[8] + 3 bits of XMC[9] + 1 bit of XMC[10]
-        	data[k_temp++]  = (byte) ((xmc[7] << 7)	| ((xmc[8] & 0x7) << 4) | ((xmc[9] & 0x7) << 1) | ((xmc[10] >> 2) & 0x1));
+        	output[k_temp++] = (byte) ((xmc[7] << 7)	| ((xmc[8] & 0x7) << 4) | ((xmc[9] & 0x7) << 1) | ((xmc[10] >> 2) & 0x1));
         	//2 bits of XMC[10]+ 3 bits of XMC[11] + 3 bits of XMC[12]
-        	data[k_temp++]  = (byte) ((xmc[10] << 6)	| ((xmc[11] & 0x7) << 3) | (xmc[12] & 0x7)); 
+        	output[k_temp++] = (byte) ((xmc[10] << 6)	| ((xmc[11] & 0x7) << 3) | (xmc[12] & 0x7)); 
         }
-                
-        //encoder.encode(signal, res.getData());
-        
-        res.setOffset(0);
-        res.setLength(33);
-        res.setTimestamp(frame.getTimestamp());
-        res.setDuration(frame.getDuration());
-        res.setSequenceNumber(frame.getSequenceNumber());
-        res.setEOM(frame.isEOM());
-        res.setFormat(gsm);
-        
-        return res;
-    }    
+    }
 
     public Format getSupportedInputFormat() {
         return linear;
@@ -0,0 +1,111 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2017, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.codec.gsm;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Random;
+
+import org.junit.Test;
+import org.restcomm.media.spi.memory.Frame;
+import org.restcomm.media.spi.memory.Memory;
+
+public class EncoderTest {
+
+    private static final int GSM_FRAME = 33;
+    private static final long GSM_FRAME_DURATION = 20000000L;
+    private static final int BYTES_PER_MS = 16;
+
+    /**
+     * Builds 1200ms of linear audio, a multiple of every packetization period.
+     */
+    private static byte[] speech() {
+        final Random random = new Random(610);
+        final byte[] data = new byte[1200 * BYTES_PER_MS];
+        for (int i = 0; i < data.length / 2; i++) {
+            final short sample = (short) (8000 * Math.sin(i * 0.07) + 3000 * Math.sin(i * 0.31) + random.nextInt(1000) - 500);
+            data[2 * i] = (byte) sample;
+            data[2 * i + 1] = (byte) (sample >> 8);
+        }
+        return data;
+    }
+
+    /**
+     * Encodes the audio in media frames of the given duration, checking each packet holds whole GSM frames.
+     */
+    private static byte[] encode(byte[] speech, int ptime) {
+        final Encoder encoder = new Encoder();
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final int size = ptime * BYTES_PER_MS;
+        for (int offset = 0; offset < speech.length; offset += size) {
+            final Frame frame = Memory.allocate(size);
+            System.arraycopy(speech, offset, frame.getData(), 0, size);
+            frame.setOffset(0);
+            frame.setLength(size);
+            frame.setTimestamp(offset / BYTES_PER_MS * 1000000L);
+            frame.setDuration(ptime * 1000000L);
+
+            final Frame encoded = encoder.process(frame);
+            final int frames = encoded.getLength() / GSM_FRAME;
+            assertEquals(0, encoded.getLength() % GSM_FRAME);
+            assertEquals(frames * GSM_FRAME_DURATION, encoded.getDuration());
+            if (frames > 0) {
+                // packet starts with the oldest input it encodes
+                assertEquals(out.size() / GSM_FRAME * GSM_FRAME_DURATION, encoded.getTimestamp());
+            }
+            out.write(encoded.getData(), encoded.getOffset(), encoded.getLength());
+            encoded.recycle();
+        }
+        return out.toByteArray();
+    }
+
+    @Test
+    public void testEncode20ms() {
+        final byte[] encoded = encode(speech(), 20);
+
+        assertEquals(60 * GSM_FRAME, encoded.length);
+        for (int i = 0; i < encoded.length; i += GSM_FRAME) {
+            assertEquals(0xD0, encoded[i] & 0xF0);
+        }
+    }
+
+    @Test
+    public void testEncode10ms() {
+        final byte[] speech = speech();
+        assertArrayEquals(encode(speech, 20), encode(speech, 10));
+    }
+
+    @Test
+    public void testEncode30ms() {
+        final byte[] speech = speech();
+        assertArrayEquals(encode(speech, 20), encode(speech, 30));
+    }
+
+    @Test
+    public void testEncode40ms() {
+        final byte[] speech = speech();
+        assertArrayEquals(encode(speech, 20), encode(speech, 40));
+    }
+
+}
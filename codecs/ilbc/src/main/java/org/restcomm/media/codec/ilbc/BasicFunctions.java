@@ -142,7 +142,7 @@ public class BasicFunctions {
 	{		
 		int sum=0;
 		for(int n=0;n<length;n++)
-			sum+=((input1[input1Index++]*input2[input2Index++])>>rightShifts);
+			sum+=((input1[input1Index+n]*input2[input2Index+n])>>rightShifts);
 		
 		return sum;
 	}
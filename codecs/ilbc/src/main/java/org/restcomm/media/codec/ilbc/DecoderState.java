@@ -69,7 +69,7 @@ public class DecoderState
 		}
 		else
 		{
-			DECODER_MODE=20;
+			DECODER_MODE=30;
 			SIZE=240;
 			SUBFRAMES=6;
 			NASUB=4;
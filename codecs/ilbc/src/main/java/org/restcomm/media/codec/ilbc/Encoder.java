@@ -40,6 +40,17 @@ public class Encoder implements Codec {
     private final static Format linear = FormatFactory.createAudioFormat("linear", 8000, 16, 1);
 
     private short[] signal = new short[160];
+
+    /* Linear input of one iLBC frame, 20ms */
+    private final static int FRAME_SIZE = 320;
+    private final static int ENCODED_SIZE = 38;
+    private final static long FRAME_DURATION = 20000000L;
+    private final static long BYTE_DURATION = FRAME_DURATION / FRAME_SIZE;
+
+    /* Input of an incomplete iLBC frame, encoded along with the next media frame */
+    private final byte[] pending = new byte[FRAME_SIZE];
+    private int pendingLength = 0;
+    private final byte[] packed = new byte[ENCODED_SIZE];
     
     //encoder state
     private EncoderState encoderState=new EncoderState();
@@ -82,12 +93,47 @@ public class Encoder implements Codec {
 	//max used 1335
     private short[] tempMemory=new short[1350];        
     
-    public Frame process(Frame frame) {    	
-    	byte[] data = frame.getData();    	    	
-    	
+    public Frame process(Frame frame) {
+        byte[] data = frame.getData();
+        int offset = frame.getOffset();
+        int length = frame.getLength();
+
+        // one iLBC frame per 20ms of input, any remainder waits for the next media frame
+        int blocks = (pendingLength + length) / FRAME_SIZE;
+        long timestamp = frame.getTimestamp() - pendingLength * BYTE_DURATION;
+        Frame res = Memory.allocate(ENCODED_SIZE * blocks);
+        for (int block = 0; block < blocks; block++) {
+            if (pendingLength > 0) {
+                int missing = FRAME_SIZE - pendingLength;
+                System.arraycopy(data, offset, pending, pendingLength, missing);
+                encode(pending, 0);
+                pendingLength = 0;
+                offset += missing;
+                length -= missing;
+            } else {
+                encode(data, offset);
+                offset += FRAME_SIZE;
+                length -= FRAME_SIZE;
+            }
+            System.arraycopy(packed, 0, res.getData(), block * ENCODED_SIZE, ENCODED_SIZE);
+        }
+        System.arraycopy(data, offset, pending, pendingLength, length);
+        pendingLength += length;
+
+        res.setOffset(0);
+        res.setLength(ENCODED_SIZE * blocks);
+        res.setTimestamp(timestamp);
+        res.setDuration(blocks * FRAME_DURATION);
+        res.setSequenceNumber(frame.getSequenceNumber());
+        res.setEOM(frame.isEOM());
+        res.setFormat(ilbc);
+        return res;
+    }
+
+    private void encode(byte[] data, int offset) {
     	temp=10;
     	for (i = 0; i < 160; i++) {
-    		dataVec[temp++] = ((short) ((data[i*2 + 1] << 8) | (data[i*2] & 0xFF)));
+    		dataVec[temp++] = ((short) ((data[offset + i*2 + 1] << 8) | (data[offset + i*2] & 0xFF)));
         }
     	     
     	/* xLow pass filtering of input signal and scale down the residual (*0.5) */
@@ -279,48 +325,7 @@ public class Encoder implements Codec {
     	    }
     	}
 
-    	System.out.println("************************************************************");
-    	System.out.println("PACKED DATA");
-    	System.out.println("************************************************************");
-    	System.out.println("START IDX:" + encoderBits.getStartIdx() + ",STATE FIRST:" + encoderBits.getStateFirst());
-    	System.out.print("LSF:");
-    	for(i=0;i<encoderBits.getLSF().length;i++)
-    		System.out.print(encoderBits.getLSF()[i] + ",");
-    	
-    	System.out.println();
-    	
-    	System.out.print("IDX VEC:");
-    	for(i=0;i<encoderBits.getIdxVec().length;i++)
-    		System.out.print(encoderBits.getIdxVec()[i] + ",");
-    	
-    	System.out.println();
-    	System.out.print("CB INDEX:");
-    	for(i=0;i<encoderBits.getCbIndex().length;i++)
-    		System.out.print(encoderBits.getCbIndex()[i] + ",");
-    	
-    	System.out.println();
-    	
-    	System.out.print("GAIN INDEX:");
-    	for(i=0;i<encoderBits.getGainIndex().length;i++)
-    		System.out.print(encoderBits.getGainIndex()[i] + ",");
-    	
-    	System.out.println();
-    	    	
-    	System.out.println("STATE FIRST:" + encoderBits.getStateFirst());
-    	System.out.println("START IDX:" + encoderBits.getStartIdx());
-    	System.out.println("IDX FOR MAX:" + encoderBits.getIdxForMax());
-    	
-    	Frame res = Memory.allocate(38);
-    	packBits(res.getData());       	    	
-    	
-        res.setOffset(0);
-        res.setLength(38);
-        res.setTimestamp(frame.getTimestamp());
-        res.setDuration(frame.getDuration());
-        res.setSequenceNumber(frame.getSequenceNumber());
-        res.setEOM(frame.isEOM());
-        res.setFormat(ilbc);
-        return res;
+    	packBits(packed);
     }
 
     public Format getSupportedInputFormat() {
@@ -464,10 +469,9 @@ public class Encoder implements Codec {
 
         // Find the max. sample
     	max=0;
-    	tempIndex2=inputIndex;
-    	for(i=0;i<inputLength;i++)
+    	for(int idx=inputIndex;idx<inputIndex+inputLength;idx++)
     	{
-    		tempS=BasicFunctions.abs(input[tempIndex2++]);
+    		tempS=BasicFunctions.abs(input[idx]);
     		if(tempS>max)
     			max=tempS;
     	}
@@ -489,19 +493,8 @@ public class Encoder implements Codec {
         }
              
         // Perform the actual correlation calculation
-        for (i = 0; i < order + 1; i++)
-        {
-            sum = 0;
-            tempIndex2=inputIndex;
-            tempIndex3=inputIndex+i;
-            for (j = inputLength - i; j > 0; j--)
-            {
-            	tempShift=input[tempIndex2++]*input[tempIndex3++];            	
-                sum += (tempShift>>scale);
-            }
-            
-    		result[resultIndex++] = sum;
-        }                  
+        for (int lag = 0; lag < order + 1; lag++)
+    		result[resultIndex++] = BasicFunctions.scaleRight(input, inputIndex, input, inputIndex + lag, inputLength - lag, scale);
     }
 
     private void windowMultiply(int[] output,int outputIndex,int[] input,int inputIndex,int[] window,int length)
@@ -2180,31 +2173,15 @@ public class Encoder implements Codec {
     private void interpolateSamples(short[] interpSamples,int interpSamplesIndex,short[] cbMem,int cbMemIndex,int length)
     {
     	/* Calculate the 20 vectors of interpolated samples (4 samples each) that are used in the codebooks for lag 20 to 39 */
-    	for (n=0; n<20; n++) 
-    	{
-    	    tempIndex6 = cbMemIndex+length-4;
-    	    tempIndex7 = cbMemIndex+length-n-24;
-    	    
-    	    tempShift=(Constants.ALPHA[3]*cbMem[tempIndex6++])>>15;
-    		temp=tempShift;
-    		tempShift=(Constants.ALPHA[0]*cbMem[tempIndex7++])>>15;
-    		temp+=tempShift;
-    	    interpSamples[interpSamplesIndex++] = (short)temp;
-    	    tempShift=(Constants.ALPHA[2]*cbMem[tempIndex6++])>>15;
-    		temp=tempShift;
-    		tempShift=(Constants.ALPHA[1]*cbMem[tempIndex7++])>>15;
-    		temp+=tempShift;
-  	      	interpSamples[interpSamplesIndex++] = (short)temp;
-  	      	tempShift=(Constants.ALPHA[1]*cbMem[tempIndex6++])>>15;
-  			temp=tempShift;
-  			tempShift=(Constants.ALPHA[2]*cbMem[tempIndex7++])>>15;
-  			temp+=tempShift;
-  	      	interpSamples[interpSamplesIndex++] = (short)temp;
-  	      	tempShift=(Constants.ALPHA[0]*cbMem[tempIndex6++])>>15;
-  			temp=tempShift;
-  			tempShift=(Constants.ALPHA[3]*cbMem[tempIndex7++])>>15;
-  			temp+=tempShift;
-  	      	interpSamples[interpSamplesIndex++] = (short)temp;    	        	      	
+    	int lowIndex=cbMemIndex+length-4;
+    	int highIndex;
+    	for (int lag=0; lag<20; lag++) 
+    	{
+    	    highIndex = cbMemIndex+length-lag-24;
+    	    interpSamples[interpSamplesIndex++] = (short)(((Constants.ALPHA[3]*cbMem[lowIndex])>>15) + ((Constants.ALPHA[0]*cbMem[highIndex])>>15));
+    	    interpSamples[interpSamplesIndex++] = (short)(((Constants.ALPHA[2]*cbMem[lowIndex+1])>>15) + ((Constants.ALPHA[1]*cbMem[highIndex+1])>>15));
+    	    interpSamples[interpSamplesIndex++] = (short)(((Constants.ALPHA[1]*cbMem[lowIndex+2])>>15) + ((Constants.ALPHA[2]*cbMem[highIndex+2])>>15));
+    	    interpSamples[interpSamplesIndex++] = (short)(((Constants.ALPHA[0]*cbMem[lowIndex+3])>>15) + ((Constants.ALPHA[3]*cbMem[highIndex+3])>>15));
     	}
     }    
     
@@ -2275,7 +2252,7 @@ public class Encoder implements Codec {
     	energyShiftsIndex += 1 + baseSize;    	
     	energyArrayIndex += 1 + baseSize;    	
 
-    	for(n=0;n<range-1;n++) 
+    	for(int count=range-1;count>0;count--) 
     	{
     	    /* Calculate next energy by a +/- operation on the edge samples */
     	    energy += ((ppi[ppiIndex] * ppi[ppiIndex])-(ppo[ppoIndex] * ppo[ppoIndex]))>>scale;
@@ -2286,10 +2263,9 @@ public class Encoder implements Codec {
     	    ppoIndex--;
 
     	    /* Normalize the energy into a WebRtc_Word16 and store the number of shifts */
-    	    energyShifts[energyShiftsIndex] = BasicFunctions.norm(energy);
-
-    	    energyArray[energyArrayIndex++] = (short)((energy<<energyShifts[energyShiftsIndex])>>16);
-    	    energyShiftsIndex++;
+    	    short shifts = BasicFunctions.norm(energy);
+    	    energyShifts[energyShiftsIndex++] = shifts;
+    	    energyArray[energyArrayIndex++] = (short)((energy<<shifts)>>16);
     	}
     }
     
@@ -2298,38 +2274,26 @@ public class Encoder implements Codec {
     	/* Calculate the correlation between the target and the
     	interpolated codebook. The correlation is calculated in
     	3 sections with the interpolated part in the middle */    	
-    	for (n=low; n<=high; n++) 
+    	for (int lag=low; lag<=high; lag++) 
     	{
-    	    /* Compute dot product for the first (n-4) samples */
-    		cDot[cDotIndex] = BasicFunctions.scaleRight(target, targetIndex, buf, bufIndex-n, n-4, scale);    	    
+    	    /* Compute dot product for the first (lag-4) samples */
+    		int dot = BasicFunctions.scaleRight(target, targetIndex, buf, bufIndex-lag, lag-4, scale);    	    
 
     	    /* Compute dot product on the interpolated samples */
-    		cDot[cDotIndex]+=BasicFunctions.scaleRight(target, targetIndex+n-4, interpSamples, interpSamplesIndex, 4, scale);    	    
+    		dot += BasicFunctions.scaleRight(target, targetIndex+lag-4, interpSamples, interpSamplesIndex, 4, scale);    	    
     	    interpSamplesIndex += 4;
 
     	    /* Compute dot product for the remaining samples */
-    	    cDot[cDotIndex]+=BasicFunctions.scaleRight(target, targetIndex+n, buf, bufIndex-n, 40-n, scale);
-    	    cDotIndex++;
+    	    dot += BasicFunctions.scaleRight(target, targetIndex+lag, buf, bufIndex-lag, 40-lag, scale);
+    	    cDot[cDotIndex++] = dot;
     	}
     }
    
     private void crossCorrelation(int[] crossCorrelation,int crossCorrelationIndex,short[] seq1, int seq1Index,short[] seq2, int seq2Index,short dimSeq,short dimCrossCorrelation,short rightShifts,short stepSeq2)
     {
-    	tempIndex7 = crossCorrelationIndex;
-    	for (i = 0; i < dimCrossCorrelation; i++)
-        {
-            // Set the pointer to the static vector, set the pointer to the sliding vector
-            // and initialize cross_correlation            
-            tempIndex5 = seq2Index + stepSeq2 * i;
-            tempIndex6 = seq1Index;            
-            crossCorrelation[tempIndex7]=0;
-            
-            // Perform the cross correlation
-            for (j = 0; j < dimSeq; j++)
-            	crossCorrelation[tempIndex7] += (seq1[tempIndex6++]*seq2[tempIndex5++])>>rightShifts;
-            
-            tempIndex7++;
-        }    
+    	/* The sliding vector moves by stepSeq2 samples per lag, each lag is a plain scaled dot product */
+    	for (int lag = 0; lag < dimCrossCorrelation; lag++)
+    		crossCorrelation[crossCorrelationIndex + lag] = BasicFunctions.scaleRight(seq1, seq1Index, seq2, seq2Index + stepSeq2 * lag, dimSeq, rightShifts);
     }
     
     private void createAugmentVector(short index,short[] buf,int bufIndex,short[] cbVec,int cbVecIndex)
@@ -2491,101 +2455,83 @@ public class Encoder implements Codec {
     
     private void cbSearchCore(int[] cDot, int cDotIndex, short range, short stage, short[] inverseEnergy, int inverseEnergyIndex, short[] inverseEnergyShift, int inverseEnergyShiftIndex, int[] crit, int critIndex)
     {        
+    	int end=cDotIndex+range;
+    	int cDotValue;
+
     	/* Don't allow negative values for stage 0 */
     	if (stage==0) 
     	{
-    		tempIndex7=cDotIndex;    	    
-    	    for (n=0;n<range;n++) 
-    	    {
-    	    	if(cDot[tempIndex7]<0)
-    	    		cDot[tempIndex7]=0;
-    	    	
-    	    	tempIndex7++;
-    	    }
+    	    for (int idx=cDotIndex;idx<end;idx++) 
+    	    	if(cDot[idx]<0)
+    	    		cDot[idx]=0;
     	}
 
     	/* Normalize cDot to WebRtc_Word16, calculate the square of cDot and store the upper WebRtc_Word16 */
-    	tempIndex7=cDotIndex;
-    	temp=0;
-    	for(n=0;n<range;n++)
-    	{
-    		if(cDot[tempIndex7]>0 && cDot[tempIndex7]>temp)
-    			temp=cDot[tempIndex7];
-    		else if((0-cDot[tempIndex7])>temp)
-    			temp=0-cDot[tempIndex7];
-    		tempIndex7++;
+    	int maxAbs=0;
+    	for(int idx=cDotIndex;idx<end;idx++)
+    	{
+    		cDotValue=cDot[idx];
+    		if(cDotValue>0 && cDotValue>maxAbs)
+    			maxAbs=cDotValue;
+    		else if((0-cDotValue)>maxAbs)
+    			maxAbs=0-cDotValue;
     	}
     	
-    	nBits=BasicFunctions.norm(temp);
-    	tempIndex7=cDotIndex;  
-    	tempIndex6=critIndex;
-    	tempIndex5=inverseEnergyShiftIndex;    	
-    	max=Short.MIN_VALUE;
+    	short shifts=BasicFunctions.norm(maxAbs);
+    	short maxShift=Short.MIN_VALUE;
+    	short square;
 
-    	for (n=0;n<range;n++) 
+    	for (int m=0;m<range;m++) 
     	{
     	    /* Calculate cDot*cDot and put the result in a WebRtc_Word16 */
-    		tempShift=cDot[tempIndex7++]<<nBits;
-    	    tempS = (short)(tempShift>>16);
+    	    square = (short)((cDot[cDotIndex+m]<<shifts)>>16);
     	    
     	    /* Calculate the criteria (cDot*cDot/energy) */
-    	    tempShift=(tempS*tempS)>>16;
-    	    crit[tempIndex6]=tempShift*inverseEnergy[inverseEnergyIndex++];
+    	    cDotValue=((square*square)>>16)*inverseEnergy[inverseEnergyIndex+m];
+    	    crit[critIndex+m]=cDotValue;
     	    
     	    /* Extract the maximum shift value under the constraint
     	       that the criteria is not zero */
-    	    if (crit[tempIndex6]!=0 && inverseEnergyShift[tempIndex5]>max)
-    	    	max = inverseEnergyShift[tempIndex5];    	    	
-    	    
-    	    tempIndex5++;
-    	    tempIndex6++;
+    	    if (cDotValue!=0 && inverseEnergyShift[inverseEnergyShiftIndex+m]>maxShift)
+    	    	maxShift = inverseEnergyShift[inverseEnergyShiftIndex+m];    	    	
     	}
     	
     	/* If no max shifts still at initialization value, set shift to zero */
-    	if (max==Short.MIN_VALUE)
-    	    max = 0;    	  
+    	if (maxShift==Short.MIN_VALUE)
+    	    maxShift = 0;    	  
 
-    	/* Modify the criterias, so that all of them use the same Q domain */
-    	tempIndex6=critIndex;
-    	tempIndex5=inverseEnergyShiftIndex;
-    	for (n=0;n<range;n++) 
+    	/* Modify the criterias, so that all of them use the same Q domain,
+    	   and keep track of the index of the best value on the way */
+    	short critShift;
+    	int bestIndex=0;
+    	int bestCrit=0;
+    	for (int m=0;m<range;m++) 
     	{
     	    /* Guarantee that the shift value is less than 16
     	       in order to simplify for DSP's (and guard against >31) */
-    		if(16<max-inverseEnergyShift[tempIndex5])
-    			tempS = 16;
+    		if(16<maxShift-inverseEnergyShift[inverseEnergyShiftIndex+m])
+    			critShift = 16;
     		else
-    			tempS = (short)(max-inverseEnergyShift[tempIndex5]);
+    			critShift = (short)(maxShift-inverseEnergyShift[inverseEnergyShiftIndex+m]);
     		
-    	    if(tempS<0)
-    	    	crit[tempIndex6]=crit[tempIndex6]<<(-tempS);    	    	
+    	    if(critShift<0)
+    	    	cDotValue=crit[critIndex+m]<<(-critShift);    	    	
     	    else
-    	    	crit[tempIndex6]=crit[tempIndex6]>>(tempS);
-    	    
-    	    tempIndex5++;
-    	    tempIndex6++;
-    	        	    
-    	}
+    	    	cDotValue=crit[critIndex+m]>>critShift;
+    	    crit[critIndex+m]=cDotValue;
 
-    	/* Find the index of the best value */
-    	tempIndex6=critIndex+1;
-    	temp=crit[critIndex];
-    	searchData.setIndexNew((short)0);
-    	for(n=1;n<range;n++)
-    	{
-    		if(crit[tempIndex6]>temp)
-    		{
-    			temp=crit[tempIndex6];
-    			searchData.setIndexNew((short)n);    			
-    		}
-    		
-    		tempIndex6++;
+    	    if(m==0 || cDotValue>bestCrit)
+    	    {
+    	    	bestCrit=cDotValue;
+    	    	bestIndex=m;
+    	    }
     	}
-    	
-    	searchData.setCritNew(crit[critIndex + searchData.getIndexNew()]);    	
+
+    	searchData.setIndexNew((short)bestIndex);
+    	searchData.setCritNew(bestCrit);    	
 
     	/* Calculate total shifts of this criteria */
-    	searchData.setCritNewSh((short)(32 - 2*nBits + max));    	
+    	searchData.setCritNewSh((short)(32 - 2*shifts + maxShift));    	
     }
     
     private void cbConstruct(short[] decVector,int decVectorIndex,short[] mem,int memIndex,short length,short vectorLength,int cbIndexIndex,int gainIndexIndex)
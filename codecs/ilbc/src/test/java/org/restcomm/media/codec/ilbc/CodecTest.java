@@ -22,10 +22,22 @@
 
 package org.restcomm.media.codec.ilbc;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 import java.net.URL;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.CRC32;
 
+import org.junit.Ignore;
 import org.junit.Test;
 import org.restcomm.media.spi.memory.Frame;
 import org.restcomm.media.spi.memory.Memory;
@@ -44,6 +56,7 @@ public class CodecTest {
     	try
     	{
     	Frame frame = Memory.allocate(320);
+    	frame.setLength(320);
     	byte[] data=frame.getData();
     	
     	Frame resFrame=Memory.allocate(38);
@@ -101,4 +114,201 @@ public class CodecTest {
     		e.printStackTrace();
     	}
     }    
+
+    private static final int PCM_FRAME_20MS = 320;
+    private static final int ILBC_FRAME_20MS = 38;
+    private static final int ILBC_FRAME_30MS = 50;
+
+    private static byte[] load(String resource) throws IOException {
+        final InputStream in = CodecTest.class.getResourceAsStream(resource);
+        try {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[4096];
+            int len;
+            while ((len = in.read(buffer)) > 0) {
+                out.write(buffer, 0, len);
+            }
+            return out.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Builds 30ms payloads out of a seeded random generator, forcing the start index into its valid range so that every
+     * frame goes through the regular decoding path.
+     */
+    private static Frame[] frames30ms(int count) {
+        final Random random = new Random(3951);
+        final Frame[] frames = new Frame[count];
+        for (int i = 0; i < count; i++) {
+            frames[i] = Memory.allocate(ILBC_FRAME_30MS);
+            final byte[] data = frames[i].getData();
+            random.nextBytes(data);
+            data[5] = (byte) ((data[5] & 0x1f) | ((random.nextInt(5) + 1) << 5));
+        }
+        return frames;
+    }
+
+    /**
+     * The codec is a fixed point port and does not reproduce the floating point RFC 3951 vectors bit for bit, so its output
+     * on those vectors is pinned instead. Any optimization of the codebook search or the LPC analysis must keep it.
+     */
+    @Test
+    public void testEncodeBitExact() throws IOException {
+        final byte[] speech = load("/iLBC.INP");
+        final Encoder encoder = new Encoder();
+        final CRC32 crc = new CRC32();
+
+        int frames = 0;
+        for (int offset = 0; offset + PCM_FRAME_20MS <= speech.length; offset += PCM_FRAME_20MS) {
+            Frame frame = Memory.allocate(PCM_FRAME_20MS);
+            System.arraycopy(speech, offset, frame.getData(), 0, PCM_FRAME_20MS);
+            frame.setLength(PCM_FRAME_20MS);
+
+            Frame encoded = encoder.process(frame);
+            assertEquals(ILBC_FRAME_20MS, encoded.getLength());
+            crc.update(encoded.getData(), encoded.getOffset(), encoded.getLength());
+            encoded.recycle();
+            frames++;
+        }
+
+        assertEquals(474, frames);
+        assertEquals(0x3e8c76f8L, crc.getValue());
+    }
+
+    @Test
+    public void testDecodeBitExact() throws IOException {
+        final byte[] bits = load("/iLBC_20ms.BIT");
+        final Decoder decoder = new Decoder();
+        final CRC32 crc = new CRC32();
+
+        for (int offset = 0; offset + ILBC_FRAME_20MS <= bits.length; offset += ILBC_FRAME_20MS) {
+            Frame frame = Memory.allocate(ILBC_FRAME_20MS);
+            System.arraycopy(bits, offset, frame.getData(), 0, ILBC_FRAME_20MS);
+
+            Frame decoded = decoder.process(frame);
+            assertEquals(PCM_FRAME_20MS, decoded.getLength());
+            crc.update(decoded.getData(), decoded.getOffset(), decoded.getLength());
+            decoded.recycle();
+        }
+
+        assertEquals(0x8d2a2fe8L, crc.getValue());
+    }
+
+    @Test
+    public void testDecode30ms() {
+        final Decoder decoder = new Decoder();
+        final CRC32 crc = new CRC32();
+
+        for (Frame frame : frames30ms(400)) {
+            Frame decoded = decoder.process(frame);
+            assertEquals(480, decoded.getLength());
+            crc.update(decoded.getData(), decoded.getOffset(), decoded.getLength());
+            decoded.recycle();
+        }
+
+        assertEquals(0xb005de6bL, crc.getValue());
+    }
+
+    /**
+     * Encodes the reference speech in media frames of the given packetization period. The encoder works on whole 20ms
+     * frames and keeps any remainder for the next media frame, so every period must produce the same stream.
+     */
+    private static byte[] encode(byte[] speech, int ptime) {
+        final Encoder encoder = new Encoder();
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final int size = ptime * PCM_FRAME_20MS / 20;
+        for (int offset = 0; offset + size <= speech.length; offset += size) {
+            Frame frame = Memory.allocate(size);
+            System.arraycopy(speech, offset, frame.getData(), 0, size);
+            frame.setLength(size);
+            frame.setTimestamp(offset / 16 * 1000000L);
+
+            Frame encoded = encoder.process(frame);
+            final int frames = encoded.getLength() / ILBC_FRAME_20MS;
+            assertEquals(0, encoded.getLength() % ILBC_FRAME_20MS);
+            assertEquals(frames * 20000000L, encoded.getDuration());
+            if (frames > 0) {
+                assertEquals(out.size() / ILBC_FRAME_20MS * 20000000L, encoded.getTimestamp());
+            }
+            out.write(encoded.getData(), encoded.getOffset(), encoded.getLength());
+            encoded.recycle();
+        }
+        return out.toByteArray();
+    }
+
+    @Test
+    public void testEncodePacketizationPeriods() throws IOException {
+        final byte[] speech = Arrays.copyOf(load("/iLBC.INP"), 120 * PCM_FRAME_20MS);
+        final byte[] reference = encode(speech, 20);
+        assertEquals(120 * ILBC_FRAME_20MS, reference.length);
+
+        assertArrayEquals(reference, encode(speech, 10));
+        assertArrayEquals(reference, encode(speech, 30));
+        assertArrayEquals(reference, encode(speech, 40));
+    }
+
+    /**
+     * Measures the cost of one frame for each mode of the codec: 20ms encoding, 20ms decoding and 30ms decoding.
+     */
+    @Ignore
+    @Test
+    public void testSpeed() throws IOException {
+        final byte[] speech = load("/iLBC.INP");
+        final byte[] bits = load("/iLBC_20ms.BIT");
+        final Frame[] frames30 = frames30ms(400);
+        final int frames = speech.length / PCM_FRAME_20MS;
+
+        final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        final com.sun.management.ThreadMXBean allocations = threads instanceof com.sun.management.ThreadMXBean
+                ? (com.sun.management.ThreadMXBean) threads : null;
+        final long thread = Thread.currentThread().getId();
+
+        final Frame input = Memory.allocate(PCM_FRAME_20MS);
+        input.setLength(PCM_FRAME_20MS);
+        final Frame payload = Memory.allocate(ILBC_FRAME_20MS);
+        for (int pass = 0; pass < 10; pass++) {
+            Encoder encoder = new Encoder();
+            long allocated = allocations == null ? 0 : allocations.getThreadAllocatedBytes(thread);
+            long duration = 0;
+            for (int f = 0; f < frames; f++) {
+                System.arraycopy(speech, f * PCM_FRAME_20MS, input.getData(), 0, PCM_FRAME_20MS);
+                long s = System.nanoTime();
+                Frame encoded = encoder.process(input);
+                duration += System.nanoTime() - s;
+                encoded.recycle();
+            }
+            allocated = allocations == null ? 0 : allocations.getThreadAllocatedBytes(thread) - allocated;
+            System.out.println("iLBC 20ms encode: " + (duration / frames) + " ns per frame, " + (allocated / frames)
+                    + " bytes allocated per frame");
+
+            Decoder decoder = new Decoder();
+            allocated = allocations == null ? 0 : allocations.getThreadAllocatedBytes(thread);
+            duration = 0;
+            for (int f = 0; f < frames; f++) {
+                System.arraycopy(bits, f * ILBC_FRAME_20MS, payload.getData(), 0, ILBC_FRAME_20MS);
+                long s = System.nanoTime();
+                Frame decoded = decoder.process(payload);
+                duration += System.nanoTime() - s;
+                decoded.recycle();
+            }
+            allocated = allocations == null ? 0 : allocations.getThreadAllocatedBytes(thread) - allocated;
+            System.out.println("iLBC 20ms decode: " + (duration / frames) + " ns per frame, " + (allocated / frames)
+                    + " bytes allocated per frame");
+
+            decoder = new Decoder();
+            allocated = allocations == null ? 0 : allocations.getThreadAllocatedBytes(thread);
+            duration = 0;
+            for (int f = 0; f < frames30.length; f++) {
+                long s = System.nanoTime();
+                Frame decoded = decoder.process(frames30[f]);
+                duration += System.nanoTime() - s;
+                decoded.recycle();
+            }
+            allocated = allocations == null ? 0 : allocations.getThreadAllocatedBytes(thread) - allocated;
+            System.out.println("iLBC 30ms decode: " + (duration / frames30.length) + " ns per frame, "
+                    + (allocated / frames30.length) + " bytes allocated per frame");
+        }
+    }
 }
@@ -39,11 +39,12 @@ public class Encoder implements Codec {
     private final static Format linear = FormatFactory.createAudioFormat("linear", 8000, 16, 1);
 
     public Frame process(Frame frame) {
-	Frame res = Memory.allocate(320);
-        System.arraycopy( frame.getData(), 0, res.getData(), 0, 320 );
+        // samples are carried as they are, so any packetization period maps to one frame
+        Frame res = Memory.allocate(frame.getLength());
+        System.arraycopy( frame.getData(), frame.getOffset(), res.getData(), 0, frame.getLength() );
 
         res.setOffset(0);
-        res.setLength(320);
+        res.setLength(frame.getLength());
         res.setTimestamp(frame.getTimestamp());
         res.setDuration(frame.getDuration());
         res.setSequenceNumber(frame.getSequenceNumber());
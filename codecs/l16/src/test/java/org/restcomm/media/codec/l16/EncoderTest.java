@@ -0,0 +1,77 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2017, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.codec.l16;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+import org.restcomm.media.spi.memory.Frame;
+import org.restcomm.media.spi.memory.Memory;
+
+public class EncoderTest {
+
+    private void assertEncoded(int ptime) {
+        // given
+        final Encoder encoder = new Encoder();
+        final int size = ptime * 16;
+        final Frame frame = Memory.allocate(size + 4);
+        for (int i = 0; i < frame.getData().length; i++) {
+            frame.getData()[i] = (byte) i;
+        }
+        frame.setOffset(4);
+        frame.setLength(size);
+        frame.setTimestamp(40000000L);
+        frame.setDuration(ptime * 1000000L);
+
+        // when
+        final Frame encoded = encoder.process(frame);
+
+        // then - every sample of the media frame is carried
+        assertEquals(size, encoded.getLength());
+        for (int i = 0; i < size; i++) {
+            assertEquals((byte) (i + 4), encoded.getData()[encoded.getOffset() + i]);
+        }
+        assertEquals(40000000L, encoded.getTimestamp());
+        assertEquals(ptime * 1000000L, encoded.getDuration());
+    }
+
+    @Test
+    public void testEncode10ms() {
+        assertEncoded(10);
+    }
+
+    @Test
+    public void testEncode20ms() {
+        assertEncoded(20);
+    }
+
+    @Test
+    public void testEncode30ms() {
+        assertEncoded(30);
+    }
+
+    @Test
+    public void testEncode40ms() {
+        assertEncoded(40);
+    }
+
+}
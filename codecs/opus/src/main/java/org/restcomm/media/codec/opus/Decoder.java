@@ -0,0 +1,140 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2017, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.codec.opus;
+
+import io.github.jaredmdobson.OpusDecoder;
+import io.github.jaredmdobson.OpusException;
+
+import org.restcomm.media.spi.dsp.Codec;
+import org.restcomm.media.spi.format.Format;
+import org.restcomm.media.spi.format.FormatFactory;
+import org.restcomm.media.spi.memory.Frame;
+import org.restcomm.media.spi.memory.Memory;
+
+/**
+ * Decodes Opus into 48kHz mono linear audio, stereo streams being downmixed.
+ * <p>
+ * When the sequence numbers reveal lost packets, the in-band FEC of the packet which follows them is used to rebuild the
+ * last lost packet, or the loss is concealed if the sender did not add FEC. Packets the sender skipped because of DTX
+ * leave no gap in the sequence numbers and need no recovery. A corrupted packet is concealed as well.
+ * </p>
+ * <p>
+ * The codec keeps the state of the stream between frames, so one instance must be used per stream. Concentus allocates its
+ * working memory on every call, about 30KB per 20ms packet.
+ * </p>
+ */
+public class Decoder implements Codec {
+
+    private final static Format opus = FormatFactory.createAudioFormat("opus", 48000, 16, 2);
+    private final static Format linear = FormatFactory.createAudioFormat("linear", 48000, 16, 1);
+
+    /* Longest packet, 120ms at 48kHz */
+    private static final int MAX_SAMPLES = 5760;
+    /* Gaps of sequence numbers beyond this are taken as a new stream rather than as losses */
+    private static final int MAX_GAP = 10;
+    /* Length of a packet when none was decoded yet, 20ms */
+    private static final int DEFAULT_SAMPLES = 960;
+
+    private final OpusDecoder decoder;
+
+    private long sequenceNumber = -1;
+    private int lastSamples = DEFAULT_SAMPLES;
+    private final short[] pcm = new short[2 * MAX_SAMPLES];
+
+    public Decoder() {
+        try {
+            this.decoder = new OpusDecoder(48000, 1);
+        } catch (OpusException e) {
+            throw new IllegalStateException("Could not create Opus decoder", e);
+        }
+    }
+
+    public Format getSupportedInputFormat() {
+        return opus;
+    }
+
+    public Format getSupportedOutputFormat() {
+        return linear;
+    }
+
+    public Frame process(Frame frame) {
+        final byte[] data = frame.getData();
+        final int offset = frame.getOffset();
+        final int length = frame.getLength();
+
+        int samples = 0;
+        if (isLoss(frame.getSequenceNumber()) && length > 0) {
+            samples = decode(data, offset, length, 0, this.lastSamples, true);
+        }
+        final int recovered = samples;
+        samples += decode(data, offset, length, samples, MAX_SAMPLES, false);
+        this.sequenceNumber = frame.getSequenceNumber();
+
+        Frame res = Memory.allocate(2 * samples);
+        byte[] out = res.getData();
+        for (int i = 0; i < samples; i++) {
+            out[2 * i] = (byte) this.pcm[i];
+            out[2 * i + 1] = (byte) (this.pcm[i] >> 8);
+        }
+
+        // recovered audio comes before the packet
+        final long recoveredDuration = recovered * 1000000L / 48;
+        res.setOffset(0);
+        res.setLength(2 * samples);
+        res.setTimestamp(frame.getTimestamp() - recoveredDuration);
+        res.setDuration(frame.getDuration() + recoveredDuration);
+        res.setSequenceNumber(frame.getSequenceNumber());
+        res.setEOM(frame.isEOM());
+        res.setFormat(linear);
+        return res;
+    }
+
+    private boolean isLoss(long sequenceNumber) {
+        if (this.sequenceNumber < 0) {
+            return false;
+        }
+        final long gap = (sequenceNumber - this.sequenceNumber) & 0xffff;
+        return gap > 1 && gap <= MAX_GAP;
+    }
+
+    private int decode(byte[] data, int offset, int length, int position, int maxSamples, boolean fec) {
+        int samples;
+        try {
+            samples = length == 0 ? -1 : this.decoder.decode(data, offset, length, this.pcm, position, maxSamples, fec);
+        } catch (OpusException e) {
+            samples = -1;
+        }
+        if (samples < 0) {
+            // conceal a packet which could not be decoded
+            try {
+                samples = this.decoder.decode(null, 0, 0, this.pcm, position, this.lastSamples, false);
+            } catch (OpusException e) {
+                samples = 0;
+            }
+        }
+        if (!fec && samples > 0) {
+            this.lastSamples = samples;
+        }
+        return samples;
+    }
+
+}
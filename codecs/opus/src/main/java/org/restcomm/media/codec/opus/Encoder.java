@@ -0,0 +1,213 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2017, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.codec.opus;
+
+import io.github.jaredmdobson.OpusApplication;
+import io.github.jaredmdobson.OpusBandwidth;
+import io.github.jaredmdobson.OpusEncoder;
+import io.github.jaredmdobson.OpusException;
+import io.github.jaredmdobson.OpusSignal;
+
+import org.restcomm.media.spi.dsp.ConfigurableCodec;
+import org.restcomm.media.spi.format.Format;
+import org.restcomm.media.spi.format.FormatFactory;
+import org.restcomm.media.spi.memory.Frame;
+import org.restcomm.media.spi.memory.Memory;
+
+/**
+ * Encodes 48kHz mono linear audio into Opus, one packet per media frame.
+ * <p>
+ * The encoder follows the receiving preferences of the remote peer, which the negotiated format carries as options:
+ * <code>useinbandfec</code> enables in-band FEC, <code>usedtx</code> enables discontinuous transmission,
+ * <code>maxaveragebitrate</code> caps the bitrate, <code>maxplaybackrate</code> caps the audio bandwidth and
+ * <code>cbr</code> disables variable bitrate.
+ * </p>
+ * <p>
+ * Packets carry the timestamp and duration of the samples they encode. A media frame too short to fill an Opus frame gives
+ * an empty frame of no duration, while a packet skipped because of DTX gives an empty frame which keeps its duration.
+ * </p>
+ * <p>
+ * The codec keeps the state of the stream between frames, so one instance must be used per stream. Its own buffers are
+ * reused, but Concentus allocates its working memory on every call, about 110KB per 20ms frame. Along with the decoder,
+ * each Opus leg leaves about 7MB of short lived garbage per second.
+ * </p>
+ */
+public class Encoder implements ConfigurableCodec {
+
+    private final static Format opus = FormatFactory.createAudioFormat("opus", 48000, 16, 2);
+    private final static Format linear = FormatFactory.createAudioFormat("linear", 48000, 16, 1);
+
+    /* Bitrate of a mono voice stream, in bits per second */
+    static final int BITRATE = 32000;
+    /* Trades quality for CPU, 0 to 10 */
+    static final int COMPLEXITY = 5;
+    /* Loss rate the in-band FEC is sized for, in percent */
+    static final int PACKET_LOSS = 10;
+
+    /* Sizes of an Opus frame at 48kHz, from 60ms down to 2.5ms */
+    private static final int[] FRAME_SIZES = { 2880, 1920, 960, 480, 240, 120 };
+    /* Largest packet, as per RFC 6716 */
+    private static final int MAX_PACKET = 1275;
+    /* Packets of up to 2 bytes are only sent to keep DTX going, they may be skipped */
+    private static final int DTX_PACKET = 2;
+    /* One millisecond in nanoseconds, the duration of 48 samples */
+    private static final long MILLISECOND = 1000000L;
+
+    private final OpusEncoder encoder;
+    private boolean dtx;
+
+    // input samples not encoded yet
+    private short[] pcm = new short[FRAME_SIZES[0]];
+    private int pending;
+    private final byte[] packet = new byte[MAX_PACKET];
+
+    public Encoder() {
+        try {
+            this.encoder = new OpusEncoder(48000, 1, OpusApplication.OPUS_APPLICATION_VOIP);
+        } catch (OpusException e) {
+            throw new IllegalStateException("Could not create Opus encoder", e);
+        }
+        this.encoder.setSignalType(OpusSignal.OPUS_SIGNAL_VOICE);
+        this.encoder.setComplexity(COMPLEXITY);
+        apply(null);
+    }
+
+    public Format getSupportedInputFormat() {
+        return linear;
+    }
+
+    public Format getSupportedOutputFormat() {
+        return opus;
+    }
+
+    @Override
+    public void configure(Format source, Format destination) {
+        if (destination == null || !opus.matches(destination)) {
+            return;
+        }
+        apply(destination.getOptions() == null ? null : destination.getOptions().toString());
+    }
+
+    private void apply(String options) {
+        final int bitrate = getParameter(options, "maxaveragebitrate", 0);
+        final int playbackRate = getParameter(options, "maxplaybackrate", 48000);
+        final boolean fec = getParameter(options, "useinbandfec", 0) == 1;
+
+        this.encoder.setBitrate(bitrate > 0 ? Math.min(BITRATE, bitrate) : BITRATE);
+        this.encoder.setMaxBandwidth(getBandwidth(playbackRate));
+        this.encoder.setUseVBR(getParameter(options, "cbr", 0) != 1);
+        this.encoder.setUseInbandFEC(fec);
+        this.encoder.setPacketLossPercent(fec ? PACKET_LOSS : 0);
+        this.dtx = getParameter(options, "usedtx", 0) == 1;
+        this.encoder.setUseDTX(this.dtx);
+    }
+
+    /**
+     * Gets a numeric parameter out of the fmtp parameters, normalized by the SDP layer as <code>name=value</code> pairs
+     * separated by semicolons.
+     */
+    static int getParameter(String options, String name, int defaultValue) {
+        if (options == null) {
+            return defaultValue;
+        }
+        for (String param : options.split(";")) {
+            final int separator = param.indexOf('=');
+            if (separator > 0 && param.substring(0, separator).trim().equalsIgnoreCase(name)) {
+                try {
+                    return Integer.parseInt(param.substring(separator + 1).trim());
+                } catch (NumberFormatException e) {
+                    return defaultValue;
+                }
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Gets the widest audio bandwidth the receiver is able to render.
+     */
+    static OpusBandwidth getBandwidth(int playbackRate) {
+        if (playbackRate <= 8000) {
+            return OpusBandwidth.OPUS_BANDWIDTH_NARROWBAND;
+        } else if (playbackRate <= 12000) {
+            return OpusBandwidth.OPUS_BANDWIDTH_MEDIUMBAND;
+        } else if (playbackRate <= 16000) {
+            return OpusBandwidth.OPUS_BANDWIDTH_WIDEBAND;
+        } else if (playbackRate <= 24000) {
+            return OpusBandwidth.OPUS_BANDWIDTH_SUPERWIDEBAND;
+        }
+        return OpusBandwidth.OPUS_BANDWIDTH_FULLBAND;
+    }
+
+    public Frame process(Frame frame) {
+        final byte[] data = frame.getData();
+        final int offset = frame.getOffset();
+        final int samples = frame.getLength() / 2;
+        final int buffered = this.pending;
+        if (this.pcm.length < this.pending + samples) {
+            final short[] pcm = new short[this.pending + samples];
+            System.arraycopy(this.pcm, 0, pcm, 0, this.pending);
+            this.pcm = pcm;
+        }
+        for (int i = 0; i < samples; i++) {
+            this.pcm[this.pending++] = (short) ((data[offset + 2 * i] & 0xff) | (data[offset + 2 * i + 1] << 8));
+        }
+
+        // encode the longest frame the pending samples fill, any remainder waits for the next media frame
+        int size = 0;
+        for (int i = 0; i < FRAME_SIZES.length && size == 0; i++) {
+            if (FRAME_SIZES[i] <= this.pending) {
+                size = FRAME_SIZES[i];
+            }
+        }
+
+        int length = 0;
+        long duration = 0;
+        if (size > 0) {
+            try {
+                length = this.encoder.encode(this.pcm, 0, size, this.packet, 0, MAX_PACKET);
+            } catch (OpusException e) {
+                throw new IllegalArgumentException("Could not encode Opus frame", e);
+            }
+            duration = size * MILLISECOND / 48;
+            this.pending -= size;
+            System.arraycopy(this.pcm, size, this.pcm, 0, this.pending);
+            if (this.dtx && length <= DTX_PACKET) {
+                // nothing worth sending during silence
+                length = 0;
+            }
+        }
+
+        Frame res = Memory.allocate(length);
+        System.arraycopy(this.packet, 0, res.getData(), 0, length);
+        res.setOffset(0);
+        res.setLength(length);
+        // the packet starts with the oldest samples it encodes, that were buffered ahead of this frame
+        res.setTimestamp(frame.getTimestamp() - buffered * MILLISECOND / 48);
+        res.setDuration(duration);
+        res.setSequenceNumber(frame.getSequenceNumber());
+        res.setEOM(frame.isEOM());
+        res.setFormat(opus);
+        return res;
+    }
+
+}
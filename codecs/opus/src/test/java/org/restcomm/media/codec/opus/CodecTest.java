@@ -0,0 +1,364 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2017, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.codec.opus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import org.junit.Ignore;
+import org.junit.Test;
+import org.restcomm.media.spi.format.AudioFormat;
+import org.restcomm.media.spi.format.FormatFactory;
+import org.restcomm.media.spi.memory.Frame;
+import org.restcomm.media.spi.memory.Memory;
+import org.restcomm.media.spi.utils.Text;
+
+public class CodecTest {
+
+    /* 20ms of 48kHz linear audio */
+    private static final int SAMPLES = 960;
+
+    /* Longest delay of the encoder and decoder the alignment looks for, in samples */
+    private static final int MAX_DELAY = 480;
+
+    /**
+     * Builds a voiced test signal: three harmonics whose level rises and falls three times per second.
+     */
+    private static short[] voice(int samples) {
+        final short[] signal = new short[samples];
+        for (int i = 0; i < samples; i++) {
+            final double t = i / 48000.0;
+            final double envelope = 0.5 + 0.5 * StrictMath.sin(2 * Math.PI * 3 * t);
+            signal[i] = (short) (8000 * envelope * (StrictMath.sin(2 * Math.PI * 220 * t)
+                    + 0.5 * StrictMath.sin(2 * Math.PI * 440 * t + 1) + 0.3 * StrictMath.sin(2 * Math.PI * 1100 * t)));
+        }
+        return signal;
+    }
+
+    private static Frame toFrame(short[] signal, int offset, int samples, long sequenceNumber) {
+        final Frame frame = Memory.allocate(samples * 2);
+        final byte[] data = frame.getData();
+        for (int i = 0; i < samples; i++) {
+            data[2 * i] = (byte) signal[offset + i];
+            data[2 * i + 1] = (byte) (signal[offset + i] >> 8);
+        }
+        frame.setOffset(0);
+        frame.setLength(samples * 2);
+        frame.setSequenceNumber(sequenceNumber);
+        return frame;
+    }
+
+    private static int append(Frame decoded, short[] signal, int position) {
+        final byte[] data = decoded.getData();
+        final int samples = decoded.getLength() / 2;
+        for (int i = 0; i < samples && position < signal.length; i++) {
+            signal[position++] = (short) ((data[2 * i + 1] << 8) | (data[2 * i] & 0xff));
+        }
+        decoded.recycle();
+        return position;
+    }
+
+    private static Encoder encoder(String options) {
+        final AudioFormat opus = FormatFactory.createAudioFormat("opus", 48000, 16, 2);
+        if (options != null) {
+            opus.setOptions(new Text(options));
+        }
+        final Encoder encoder = new Encoder();
+        encoder.configure(FormatFactory.createAudioFormat("linear", 48000, 16, 1), opus);
+        return encoder;
+    }
+
+    /**
+     * Finds the delay of the codec, as the one which gives the best signal to noise ratio.
+     */
+    private static int delay(short[] input, short[] output) {
+        int delay = 0;
+        double best = 0;
+        for (int d = 0; d < MAX_DELAY; d++) {
+            double correlation = 0;
+            for (int i = SAMPLES; i < input.length - MAX_DELAY; i++) {
+                correlation += (double) input[i] * output[i + d];
+            }
+            if (correlation > best) {
+                best = correlation;
+                delay = d;
+            }
+        }
+        return delay;
+    }
+
+    /**
+     * Computes the signal to noise ratio of the decoded signal over the given frames, once aligned on the input.
+     */
+    private static double snr(short[] input, short[] output, int delay, int from, int to, int step) {
+        double signal = 0;
+        double noise = 0;
+        for (int f = from; f < to; f += step) {
+            for (int i = f * SAMPLES; i < (f + 1) * SAMPLES; i++) {
+                final double error = input[i] - output[i + delay];
+                signal += (double) input[i] * input[i];
+                noise += error * error;
+            }
+        }
+        return 10 * Math.log10(signal / noise);
+    }
+
+    @Test
+    public void testFormats() {
+        final Encoder encoder = new Encoder();
+        final Decoder decoder = new Decoder();
+        assertEquals("linear", encoder.getSupportedInputFormat().getName().toString());
+        assertEquals("opus", encoder.getSupportedOutputFormat().getName().toString());
+        assertEquals(48000, ((AudioFormat) encoder.getSupportedInputFormat()).getSampleRate());
+        // RFC 7587 always announces 2 channels, whatever the stream carries
+        assertEquals(2, ((AudioFormat) encoder.getSupportedOutputFormat()).getChannels());
+        assertTrue(decoder.getSupportedInputFormat().matches(encoder.getSupportedOutputFormat()));
+        assertTrue(decoder.getSupportedOutputFormat().matches(encoder.getSupportedInputFormat()));
+    }
+
+    @Test
+    public void testRoundTrip() {
+        final short[] input = voice(48000);
+        final short[] output = new short[input.length];
+        final Encoder encoder = encoder(null);
+        final Decoder decoder = new Decoder();
+
+        int position = 0;
+        int bytes = 0;
+        for (int f = 0; f < input.length / SAMPLES; f++) {
+            final Frame encoded = encoder.process(toFrame(input, f * SAMPLES, SAMPLES, f));
+            assertTrue(encoded.getLength() > 0);
+            bytes += encoded.getLength();
+
+            final Frame decoded = decoder.process(encoded);
+            assertEquals(SAMPLES * 2, decoded.getLength());
+            position = append(decoded, output, position);
+        }
+
+        // 32 kbit/s, with some room for the rate control
+        assertTrue(bytes * 8 < 36000);
+        final int delay = delay(input, output);
+        assertTrue(snr(input, output, delay, 5, 45, 1) > 6);
+    }
+
+    @Test
+    public void testFrameSizes() {
+        final short[] input = voice(48000);
+        final Encoder encoder = encoder(null);
+        final Decoder decoder = new Decoder();
+
+        // 10ms and 60ms frames are encoded as such
+        Frame decoded = decoder.process(encoder.process(toFrame(input, 0, 480, 0)));
+        assertEquals(480 * 2, decoded.getLength());
+        decoded = decoder.process(encoder.process(toFrame(input, 480, 2880, 1)));
+        assertEquals(2880 * 2, decoded.getLength());
+
+        // 15ms frames leave 5ms for the next packet
+        decoded = decoder.process(encoder.process(toFrame(input, 3360, 720, 2)));
+        assertEquals(480 * 2, decoded.getLength());
+        decoded = decoder.process(encoder.process(toFrame(input, 4080, 720, 3)));
+        assertEquals(960 * 2, decoded.getLength());
+
+        // less than 2.5ms waits for more input
+        final Frame encoded = encoder.process(toFrame(input, 4800, 100, 4));
+        assertEquals(0, encoded.getLength());
+    }
+
+    @Test
+    public void testDurations() {
+        final short[] input = voice(48000);
+        final short[] silence = new short[48000];
+        final Encoder encoder = encoder("usedtx=1");
+
+        // 15ms frames give one 10ms packet then one 20ms packet, starting with the samples left from the first
+        Frame frame = toFrame(input, 0, 720, 0);
+        frame.setTimestamp(0);
+        Frame encoded = encoder.process(frame);
+        assertEquals(10000000L, encoded.getDuration());
+        assertEquals(0, encoded.getTimestamp());
+        frame = toFrame(input, 720, 720, 1);
+        frame.setTimestamp(15000000L);
+        encoded = encoder.process(frame);
+        assertEquals(20000000L, encoded.getDuration());
+        assertEquals(10000000L, encoded.getTimestamp());
+
+        // a frame still being buffered has no duration
+        frame = toFrame(input, 1440, 100, 2);
+        frame.setTimestamp(30000000L);
+        encoded = encoder.process(frame);
+        assertEquals(0, encoded.getLength());
+        assertEquals(0, encoded.getDuration());
+
+        // a packet skipped during silence keeps its duration
+        int skipped = 0;
+        for (int f = 0; f < silence.length / SAMPLES; f++) {
+            encoded = encoder.process(toFrame(silence, f * SAMPLES, SAMPLES, 3 + f));
+            if (encoded.getLength() == 0) {
+                assertEquals(20000000L, encoded.getDuration());
+                skipped++;
+            }
+        }
+        assertTrue(skipped > 0);
+    }
+
+    @Test
+    public void testMaxAverageBitrate() {
+        final short[] input = voice(48000);
+        final Encoder encoder = encoder("maxaveragebitrate=12000");
+
+        int bytes = 0;
+        for (int f = 0; f < input.length / SAMPLES; f++) {
+            bytes += encoder.process(toFrame(input, f * SAMPLES, SAMPLES, f)).getLength();
+        }
+        assertTrue(bytes * 8 < 13200);
+    }
+
+    @Test
+    public void testDtx() {
+        final short[] silence = new short[48000];
+
+        int dtx = 0;
+        int continuous = 0;
+        final Encoder dtxEncoder = encoder("usedtx=1");
+        final Encoder encoder = encoder(null);
+        for (int f = 0; f < silence.length / SAMPLES; f++) {
+            dtx += dtxEncoder.process(toFrame(silence, f * SAMPLES, SAMPLES, f)).getLength() == 0 ? 1 : 0;
+            continuous += encoder.process(toFrame(silence, f * SAMPLES, SAMPLES, f)).getLength() == 0 ? 1 : 0;
+        }
+
+        // only the hangover and the comfort noise updates are sent
+        assertTrue(dtx > 35);
+        assertEquals(0, continuous);
+    }
+
+    @Test
+    public void testInbandFec() {
+        final short[] input = voice(96000);
+        final int frames = input.length / SAMPLES;
+
+        double[] snr = new double[2];
+        for (int fec = 0; fec < 2; fec++) {
+            final Encoder encoder = encoder(fec == 1 ? "useinbandfec=1" : null);
+            final Decoder decoder = new Decoder();
+            final short[] output = new short[input.length + SAMPLES];
+
+            int position = 0;
+            for (int f = 0; f < frames; f++) {
+                final Frame encoded = encoder.process(toFrame(input, f * SAMPLES, SAMPLES, f));
+                if (f % 10 == 5) {
+                    // lost packet
+                    encoded.recycle();
+                    continue;
+                }
+                final Frame decoded = decoder.process(encoded);
+                // the lost packet is rebuilt ahead of the next one
+                assertEquals(f % 10 == 6 ? 4 * SAMPLES : 2 * SAMPLES, decoded.getLength());
+                position = append(decoded, output, position);
+            }
+            snr[fec] = snr(input, output, delay(input, output), 15, frames - 10, 10);
+        }
+
+        // FEC rebuilds the lost packets better than concealment
+        assertTrue(snr[1] > 6);
+        assertTrue(snr[1] > snr[0] + 2);
+    }
+
+    @Test
+    public void testLostPacketsWithoutFec() {
+        final short[] input = voice(48000);
+        final Encoder encoder = encoder(null);
+        final Decoder decoder = new Decoder();
+
+        decoder.process(encoder.process(toFrame(input, 0, SAMPLES, 65534)));
+        encoder.process(toFrame(input, SAMPLES, SAMPLES, 65535));
+        // sequence numbers wrap around, the lost packet is concealed
+        assertEquals(4 * SAMPLES, decoder.process(encoder.process(toFrame(input, 2 * SAMPLES, SAMPLES, 0))).getLength());
+        // a jump in sequence numbers is a new stream rather than losses
+        assertEquals(2 * SAMPLES, decoder.process(encoder.process(toFrame(input, 3 * SAMPLES, SAMPLES, 1000))).getLength());
+        // a corrupted packet is concealed
+        final Frame corrupted = Memory.allocate(3);
+        corrupted.setLength(3);
+        corrupted.setSequenceNumber(1001);
+        corrupted.getData()[0] = (byte) 0xff;
+        assertEquals(2 * SAMPLES, decoder.process(corrupted).getLength());
+    }
+
+    /**
+     * Measures how many channels one core encodes and decodes in real time.
+     */
+    @Ignore
+    @Test
+    public void testSpeed() {
+        final short[] speech = voice(48000);
+        final int channels = 64;
+        final int rounds = 100;
+        final int frames = speech.length / SAMPLES;
+
+        final Encoder[] encoders = new Encoder[channels];
+        final Decoder[] decoders = new Decoder[channels];
+        for (int c = 0; c < channels; c++) {
+            encoders[c] = encoder("useinbandfec=1");
+            decoders[c] = new Decoder();
+        }
+        final Frame[] input = new Frame[frames];
+        for (int f = 0; f < frames; f++) {
+            input[f] = toFrame(speech, f * SAMPLES, SAMPLES, f);
+        }
+
+        final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        final com.sun.management.ThreadMXBean allocations = threads instanceof com.sun.management.ThreadMXBean
+                ? (com.sun.management.ThreadMXBean) threads : null;
+        final long thread = Thread.currentThread().getId();
+
+        for (int pass = 0; pass < 10; pass++) {
+            long allocated = allocations == null ? 0 : allocations.getThreadAllocatedBytes(thread);
+            long encoding = 0;
+            long decoding = 0;
+            for (int r = 0; r < rounds; r++) {
+                for (int c = 0; c < channels; c++) {
+                    long s = System.nanoTime();
+                    Frame encoded = encoders[c].process(input[(r + c) % frames]);
+                    long e = System.nanoTime();
+                    encoded.setSequenceNumber(r);
+                    Frame decoded = decoders[c].process(encoded);
+                    decoding += System.nanoTime() - e;
+                    encoding += e - s;
+
+                    encoded.recycle();
+                    decoded.recycle();
+                }
+            }
+            allocated = allocations == null ? 0 : allocations.getThreadAllocatedBytes(thread) - allocated;
+
+            final long encode = encoding / (channels * rounds);
+            final long decode = decoding / (channels * rounds);
+            System.out.println("Opus " + channels + " channels: encode " + encode + " ns per 20ms frame, "
+                    + (20000000L / encode) + " channels per core, decode " + decode + " ns per 20ms frame, "
+                    + (20000000L / decode) + " channels per core, " + (allocated / (channels * rounds))
+                    + " bytes allocated per frame");
+        }
+    }
+
+}
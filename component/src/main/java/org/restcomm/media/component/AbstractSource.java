@@ -98,6 +98,15 @@ public abstract class AbstractSource extends BaseComponent implements MediaSourc
     }
 
     
+    /**
+     * Pins media generator of this source to media loop of the scheduler.
+     * 
+     * @param affinity the affinity key
+     */
+    public void setAffinity(int affinity) {
+        this.worker.setAffinity(affinity);
+    }
+
     /**
      * (Non Java-doc).
      * 
@@ -389,7 +398,7 @@ public abstract class AbstractSource extends BaseComponent implements MediaSourc
         	
         	readCount=0;
         	overallDelay=0;
-        	while(overallDelay<20000000L)
+        	while(overallDelay<scheduler.getPeriod())
         	{
         		readCount++;
         		frame = evolve(timestamp);
@@ -27,6 +27,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.restcomm.media.concurrent.ConcurrentMap;
 import org.restcomm.media.spi.format.AudioFormat;
+import org.restcomm.media.spi.format.Format;
 import org.restcomm.media.spi.format.FormatFactory;
 import org.restcomm.media.spi.memory.Frame;
 import org.restcomm.media.spi.memory.Memory;
@@ -42,7 +43,17 @@ public class AudioComponent {
 	// Format of the output stream.
     private final static AudioFormat FORMAT = FormatFactory.createAudioFormat("LINEAR", 8000, 16, 1);
     private final static long PERIOD = 20000000L;
-    private final static int PACKET_SIZE = (int) (PERIOD / 1000000) * FORMAT.getSampleRate() / 1000 * FORMAT.getSampleSize() / 8;
+
+    // Mean frame energy above which a component is considered talking, about -55 dBov
+    private final static long VAD_THRESHOLD = 3400L;
+
+    // Duration a component stays talking after its last voiced frame, so word endings are not cut
+    private final static long VAD_HANGOVER = 200000000L;
+
+    // Sampling rates supported for mixing
+    public final static int NARROWBAND = 8000;
+    public final static int WIDEBAND = 16000;
+    public final static int FULLBAND = 48000;
 
     // Component State
     private final int componentId;
@@ -51,11 +62,31 @@ public class AudioComponent {
 	
 	protected final AtomicBoolean shouldRead;
 	protected final AtomicBoolean shouldWrite;
+	private volatile int affinity;
 
 	// Mixing State
-	private final int[] data;
+	private volatile long period;
+	private volatile int[] data;
 	final AtomicBoolean first;
 
+	// Rate conversion, the leg rate is the sampling rate of inputs and outputs while the mixing rate is the one of mixed data
+	private volatile int sampleRate;
+	private volatile int mixingRate;
+	private AudioFormat format;
+	private int[] legData;
+	private volatile Resampler inputConverter;
+	private volatile Resampler outputConverter;
+
+	// Voice activity, updated when the component is performed
+	private long energy;
+	private int silentFrames = Integer.MAX_VALUE;
+	private boolean received;
+	private volatile boolean skipSilence;
+
+	// Speaker selection state, owned by the mixing task
+	long level;
+	boolean speaker;
+
 	/**
 	 * Creates new instance with default name.
 	 */
@@ -66,10 +97,14 @@ public class AudioComponent {
 		this.outputs = new ConcurrentMap<AudioOutput>();
 		this.shouldRead = new AtomicBoolean(false);
 		this.shouldWrite = new AtomicBoolean(false);
+		this.affinity = -1;
 
 		// Mixing State
-		this.data = new int[PACKET_SIZE / 2];
 		this.first = new AtomicBoolean(false);
+		this.sampleRate = NARROWBAND;
+		this.mixingRate = NARROWBAND;
+		this.format = FORMAT;
+		setPeriod(PERIOD);
 	}
 
 	public int getComponentId() {
@@ -81,11 +116,121 @@ public class AudioComponent {
 		this.shouldWrite.set(shouldWrite);
 	}
 
+	/**
+	 * Pins outputs of this component to media loop of the scheduler.
+	 * 
+	 * @param affinity the affinity key
+	 */
+	public void setAffinity(int affinity) {
+		this.affinity = affinity;
+		final Iterator<AudioOutput> activeOutputs = outputs.valuesIterator();
+		while (activeOutputs.hasNext()) {
+			activeOutputs.next().setAffinity(affinity);
+		}
+	}
+
+	/**
+	 * Sets the duration of frames mixed by this component.
+	 * 
+	 * @param period the packetization period in nanoseconds
+	 */
+	public void setPeriod(long period) {
+		if (this.data != null && this.period == period) {
+			return;
+		}
+		this.period = period;
+		resize();
+	}
+
+	public long getPeriod() {
+		return period;
+	}
+
+	/**
+	 * Sets the sampling rate of the leg attached to this component.
+	 * <p>
+	 * Frames are exchanged with inputs and outputs at this rate and converted to the mixing rate at the edge of the component.
+	 * The rate is updated automatically from the format of linear frames received by the inputs.
+	 * </p>
+	 * 
+	 * @param sampleRate the sampling rate in Hertz, one of 8000, 16000 or 48000
+	 */
+	public void setSampleRate(int sampleRate) {
+		if (!isSupported(sampleRate)) {
+			throw new IllegalArgumentException("Unsupported sampling rate " + sampleRate);
+		}
+		if (this.sampleRate != sampleRate) {
+			this.sampleRate = sampleRate;
+			this.format = FormatFactory.createAudioFormat("LINEAR", sampleRate, 16, 1);
+			resize();
+		}
+	}
+
+	public int getSampleRate() {
+		return sampleRate;
+	}
+
+	/**
+	 * Sets the sampling rate of the data exchanged with the mixer.
+	 * 
+	 * @param mixingRate the sampling rate in Hertz, one of 8000, 16000 or 48000
+	 */
+	void setMixingRate(int mixingRate) {
+		if (!isSupported(mixingRate)) {
+			throw new IllegalArgumentException("Unsupported sampling rate " + mixingRate);
+		}
+		if (this.mixingRate != mixingRate) {
+			this.mixingRate = mixingRate;
+			resize();
+		}
+	}
+
+	int getMixingRate() {
+		return mixingRate;
+	}
+
+	/**
+	 * Sets whether silent frames may be dropped before decoding.
+	 * <p>
+	 * The mixer enables it when voice activity detection leaves silent components out of the mix, so their frames are
+	 * measured but never decoded nor converted to the mixing rate.
+	 * </p>
+	 * 
+	 * @param skipSilence whether silent frames are dropped
+	 */
+	void setSkipSilence(boolean skipSilence) {
+		this.skipSilence = skipSilence;
+	}
+
+	static boolean isSupported(int sampleRate) {
+		return sampleRate == NARROWBAND || sampleRate == WIDEBAND || sampleRate == FULLBAND;
+	}
+
+	/**
+	 * Gets the number of samples of one frame.
+	 */
+	static int getSamples(long period, int sampleRate) {
+		return (int) (period / 1000000) * sampleRate / 1000;
+	}
+
+	private void resize() {
+		final int samples = getSamples(this.period, this.mixingRate);
+		if (this.data == null || this.data.length != samples) {
+			this.data = new int[samples];
+		}
+		this.legData = this.sampleRate == this.mixingRate ? null : new int[getSamples(this.period, this.sampleRate)];
+		this.inputConverter = null;
+		this.outputConverter = null;
+	}
+
 	public void addInput(AudioInput input) {
 		inputs.put(input.getInputId(), input);
 	}
 
 	public void addOutput(AudioOutput output) {
+		if (this.affinity >= 0) {
+			output.setAffinity(this.affinity);
+		}
 		outputs.put(output.getOutputId(), output);
 	}
 
@@ -100,6 +245,9 @@ public class AudioComponent {
     public void perform() {
         this.first.set(true);
 
+        boolean received = false;
+        long energy = 0L;
+        final int[] data = this.data;
         final Iterator<AudioInput> activeInputs = this.inputs.valuesIterator();
         while (activeInputs.hasNext()) {
             final AudioInput input = activeInputs.next();
@@ -107,11 +255,40 @@ public class AudioComponent {
 
             if (inputFrame != null) {
                 try {
+                    received = true;
+
+                    // empty frames are sent during discontinuous transmission, there is nothing to decode
+                    final int length = inputFrame.getLength();
+                    if (length == 0) {
+                        continue;
+                    }
+
+                    // measure the frame before decoding it, silent frames left out of the mix are never decoded
                     final byte[] dataArray = inputFrame.getData();
+                    final int offset = inputFrame.getOffset();
+                    final long frameEnergy = MixingKernel.energy(dataArray, offset, length);
+                    energy = Math.max(energy, frameEnergy);
+                    if (this.skipSilence && frameEnergy <= VAD_THRESHOLD && !isHangover()) {
+                        continue;
+                    }
 
-                    int inputIndex = 0;
-                    for (int inputCount = 0; inputCount < dataArray.length; inputCount += 2) {
-                        this.data[inputIndex++] = (short) (((dataArray[inputCount + 1]) << 8) | (dataArray[inputCount] & 0xff));
+                    // follow the rate of the leg, converting to the mixing rate when they differ
+                    final int rate = getSampleRate(inputFrame.getFormat());
+                    if (rate != this.sampleRate) {
+                        setSampleRate(rate);
+                    }
+                    final int[] legData = this.legData;
+                    if (legData == null) {
+                        decode(dataArray, offset, length, data, data.length);
+                    } else {
+                        // the rates may be renegotiated from another thread, which drops the converter
+                        Resampler converter = this.inputConverter;
+                        if (converter == null) {
+                            converter = new Resampler(this.sampleRate, this.mixingRate);
+                            this.inputConverter = converter;
+                        }
+                        final int samples = decode(dataArray, offset, length, legData, legData.length);
+                        converter.process(legData, samples, data);
                     }
 
                     if (first.get()) {
@@ -122,8 +299,76 @@ public class AudioComponent {
                 }
             }
         }
+
+        // measure voice activity once per tick
+        this.received = received;
+        this.energy = energy;
+        if (!received) {
+            this.silentFrames = Integer.MAX_VALUE;
+        } else if (energy > VAD_THRESHOLD) {
+            this.silentFrames = 0;
+        } else if (this.silentFrames < Integer.MAX_VALUE) {
+            this.silentFrames++;
+        }
+    }
+
+    /**
+     * Indicates whether a silent frame read now would still fall within the hangover of the last voiced frame.
+     */
+    private boolean isHangover() {
+        return ((long) this.silentFrames + 1) * this.period <= VAD_HANGOVER;
+    }
+
+    private static int decode(byte[] dataArray, int offset, int length, int[] samples, int maxSamples) {
+        int inputIndex = 0;
+        final int end = offset + Math.min(length, maxSamples * 2) / 2 * 2;
+        for (int inputCount = offset; inputCount < end; inputCount += 2) {
+            samples[inputIndex++] = (short) (((dataArray[inputCount + 1]) << 8) | (dataArray[inputCount] & 0xff));
+        }
+        return inputIndex;
+    }
+
+    private int getSampleRate(Format format) {
+        if (format instanceof AudioFormat && FORMAT.getName().equals(format.getName())) {
+            final int rate = ((AudioFormat) format).getSampleRate();
+            if (isSupported(rate)) {
+                return rate;
+            }
+        }
+        return NARROWBAND;
     }
 
+	/**
+	 * Gets the mean energy of the frame read during last tick.
+	 * 
+	 * @return the mean of squared samples, zero when no frame was read
+	 */
+	public long getEnergy() {
+		return energy;
+	}
+
+	/**
+	 * Indicates whether the component is talking.
+	 * <p>
+	 * A component is talking when the energy of its frames exceeds the silence threshold, and remains so for a short hangover
+	 * after its last voiced frame. Components that stop sending, for example during discontinuous transmission, are silent.
+	 * </p>
+	 * 
+	 * @return true when the component is talking
+	 */
+	public boolean isVoiceActive() {
+		return (long) this.silentFrames * this.period <= VAD_HANGOVER;
+	}
+
+	/**
+	 * Indicates whether the component read a frame during last tick, including empty or silent frames that were not decoded.
+	 * 
+	 * @return true when the component is sending media
+	 */
+	boolean isSending() {
+		return this.shouldRead.get() && this.received;
+	}
+
 	public int[] getData() {
 		if (!this.shouldRead.get()) {
 			return null;
@@ -140,28 +385,77 @@ public class AudioComponent {
 		if (!this.shouldWrite.get()) {
 			return;
 		}
+		offer(encode(data));
+	}
 
-		final Frame outputFrame = Memory.allocate(PACKET_SIZE);
+	/**
+	 * Encodes mixed samples into a frame at the rate of the leg.
+	 * 
+	 * @param data the mixed samples
+	 * @return the frame holding the samples
+	 */
+	Frame encode(int[] data) {
+		final int[] legData = this.legData;
+		if (legData == null) {
+			return encode(data, data.length, this.format, this.period);
+		}
+		Resampler converter = this.outputConverter;
+		if (converter == null) {
+			converter = new Resampler(this.mixingRate, this.sampleRate);
+			this.outputConverter = converter;
+		}
+		final int samples = converter.process(data, data.length, legData);
+		return encode(legData, samples, this.format, this.period);
+	}
+
+	/**
+	 * Encodes linear samples into a frame that may be offered to several components.
+	 * 
+	 * @param data the samples
+	 * @param length the number of samples
+	 * @param format the linear format of the samples
+	 * @param period the duration of the frame in nanoseconds
+	 * @return the frame holding the samples
+	 */
+	static Frame encode(int[] data, int length, AudioFormat format, long period) {
+		final int packetSize = length * 2;
+		final Frame outputFrame = Memory.allocate(packetSize);
 		final byte[] dataArray = outputFrame.getData();
 
 		int outputIndex = 0;
-		for (int outputCount = 0; outputCount < data.length;) {
+		for (int outputCount = 0; outputCount < length;) {
 			dataArray[outputIndex++] = (byte) (data[outputCount]);
 			dataArray[outputIndex++] = (byte) (data[outputCount++] >> 8);
 		}
 
 		outputFrame.setOffset(0);
-		outputFrame.setLength(PACKET_SIZE);
-		outputFrame.setDuration(PERIOD);
-		outputFrame.setFormat(FORMAT);
+		outputFrame.setLength(packetSize);
+		outputFrame.setDuration(period);
+		outputFrame.setFormat(format);
+		return outputFrame;
+	}
 
+	/**
+	 * Offers an encoded frame to the outputs of this component.
+	 * <p>
+	 * The component takes ownership of the frame, which is recycled when no output consumes it.
+	 * </p>
+	 * 
+	 * @param outputFrame the frame to offer
+	 */
+	void offer(Frame outputFrame) {
 		final Iterator<AudioOutput> activeOutputs = outputs.valuesIterator();
+		if (!activeOutputs.hasNext()) {
+			outputFrame.recycle();
+			return;
+		}
+
 		while (activeOutputs.hasNext()) {
 			AudioOutput output = activeOutputs.next();
 			if (!activeOutputs.hasNext()) {
 				output.offer(outputFrame);
 			} else {
-				output.offer(outputFrame.clone());
+				output.offer(outputFrame.share());
 			}
 			output.wakeup();
 		}
@@ -25,7 +25,9 @@ package org.restcomm.media.component.audio;
 import java.io.IOException;
 
 import org.restcomm.media.component.AbstractSink;
-import org.restcomm.media.concurrent.ConcurrentCyclicFIFO;
+import org.restcomm.media.concurrent.MpmcRingQueue;
+import org.restcomm.media.spi.format.AudioFormat;
+import org.restcomm.media.spi.format.Format;
 import org.restcomm.media.spi.memory.Frame;
 import org.restcomm.media.spi.memory.Memory;
 
@@ -38,9 +40,12 @@ public class AudioInput extends AbstractSink {
 	
 	private static final long serialVersionUID = -6377790166652701617L;
 
+	// sampling rate the packet size is given for
+	private static final int SAMPLE_RATE = 8000;
+
 	private int inputId;
     private int limit=3;
-    private ConcurrentCyclicFIFO<Frame> buffer = new ConcurrentCyclicFIFO<Frame>();
+    private MpmcRingQueue<Frame> buffer = new MpmcRingQueue<Frame>(4);
     private Frame activeFrame=null;
     private byte[] activeData;
     private byte[] oldData;
@@ -76,34 +81,42 @@ public class AudioInput extends AbstractSink {
     public void onMediaTransfer(Frame frame) throws IOException {
     	//generate frames with correct size here , aggregate frames if needed.
     	//allows to accept several sources with different ptime ( packet time ) 
+    	final int length=frame.getLength();
+    	if(length==0)
+    	{
+    		//discontinuous transmission, the empty frame is read as silence
+    		enqueue(frame);
+    		return;
+    	}
+    	
     	oldData=frame.getData();
-    	count=0;
-    	while(count<oldData.length)
+    	final Format format=frame.getFormat();
+    	final int size=getPacketSize(format);
+    	final int end=frame.getOffset()+length;
+    	count=frame.getOffset();
+    	while(count<end)
     	{
     		if(activeData==null)
     		{
-    			activeFrame=Memory.allocate(packetSize);
+    			activeFrame=Memory.allocate(size);
     			activeFrame.setOffset(0);
-    			activeFrame.setLength(packetSize);
+    			activeFrame.setLength(size);
+    			activeFrame.setFormat(format);
     			activeData=activeFrame.getData(); 
     			byteIndex=0;
     		}
     		
-    		if(oldData.length-count<activeData.length-byteIndex)
+    		if(end-count<activeData.length-byteIndex)
     		{
-    			System.arraycopy(oldData, count, activeData, byteIndex, oldData.length-count);
-    			byteIndex+=oldData.length-count;
-    			count=oldData.length;    			
+    			System.arraycopy(oldData, count, activeData, byteIndex, end-count);
+    			byteIndex+=end-count;
+    			count=end;    			
     		}
     		else
     		{
     			System.arraycopy(oldData, count, activeData, byteIndex, activeData.length-byteIndex);
     			count+=activeData.length-byteIndex;
-    			
-    			if (buffer.size() >= limit) 
-            		buffer.poll().recycle();
-                
-            	buffer.offer(activeFrame);
+    			enqueue(activeFrame);
             	
             	activeFrame=null;
     			activeData=null;    			    			
@@ -113,6 +126,30 @@ public class AudioInput extends AbstractSink {
     	frame.recycle();
     }
 
+    private void enqueue(Frame frame) {
+    	if (buffer.size() >= limit) {
+    		Frame oldest = buffer.poll();
+    		if (oldest != null)
+    			oldest.recycle();
+    	}
+        
+    	if (!buffer.offer(frame))
+    		frame.recycle();
+    }
+
+    /**
+     * Gets the size of aggregated frames, scaled to the sampling rate of wideband audio.
+     */
+    private int getPacketSize(Format format) {
+    	if(format instanceof AudioFormat)
+    	{
+    		final int sampleRate=((AudioFormat) format).getSampleRate();
+    		if(sampleRate>SAMPLE_RATE && sampleRate%SAMPLE_RATE==0)
+    			return packetSize*(sampleRate/SAMPLE_RATE);
+    	}
+    	return packetSize;
+    }
+
     /**
      * Indicates the state of the input buffer.
      *
@@ -135,8 +172,9 @@ public class AudioInput extends AbstractSink {
      * Recycles input stream
      */
     public void recycle() {
-    	while(buffer.size()>0)
-    		buffer.poll().recycle();
+    	Frame frame;
+    	while((frame = buffer.poll()) != null)
+    		frame.recycle();
     	
     	if(activeFrame!=null)
     		activeFrame.recycle();
@@ -148,7 +186,8 @@ public class AudioInput extends AbstractSink {
     
     public void resetBuffer()
     {
-    	while(buffer.size()>0)
-    		buffer.poll().recycle();
+    	Frame frame;
+    	while((frame = buffer.poll()) != null)
+    		frame.recycle();
     }
 }
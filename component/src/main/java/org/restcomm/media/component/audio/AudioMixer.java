@@ -22,13 +22,19 @@
 
 package org.restcomm.media.component.audio;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import org.restcomm.media.concurrent.ConcurrentMap;
 import org.restcomm.media.scheduler.PriorityQueueScheduler;
 import org.restcomm.media.scheduler.Task;
 import org.restcomm.media.spi.format.AudioFormat;
 import org.restcomm.media.spi.format.FormatFactory;
+import org.restcomm.media.spi.memory.Frame;
 
 /**
  * Implements compound audio mixer , one of core components of mms 3.0
@@ -36,6 +42,22 @@ import org.restcomm.media.spi.format.FormatFactory;
  * @author Yulian Oifa
  */
 public class AudioMixer {
+
+	// a component must be this many times louder than the quietest speaker to replace it
+	private static final int HYSTERESIS = 2;
+
+	// voice levels follow frame energy by 1/4 of the difference each tick
+	private static final int LEVEL_SMOOTHING = 2;
+
+	// number of participants from which mixing is split over several threads
+	private static final int PARALLEL_THRESHOLD = 64;
+
+	// minimum number of participants mixed by one thread
+	private static final int PARTITION_SIZE = 32;
+
+	// pool shared by all mixers to mix large conferences, threads are started on demand
+	private static final ForkJoinPool MIXING_POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
 	// scheduler for mixer job scheduling
 	private PriorityQueueScheduler scheduler;
 
@@ -45,8 +67,8 @@ public class AudioMixer {
 	// The pool of components
 	private ConcurrentMap<AudioComponent> components = new ConcurrentMap<AudioComponent>();
 
-	private long period = 20000000L;
-	private int packetSize = (int) (period / 1000000) * format.getSampleRate() / 1000 * format.getSampleSize() / 8;
+	private final long period;
+	private final int packetSize;
 
 	private MixTask mixer;
 	private volatile boolean started = false;
@@ -56,17 +78,55 @@ public class AudioMixer {
 	// gain value
 	private double gain = 1.0;
 
+	// maximum number of mixed components, zero mixes all of them
+	private volatile int activeSpeakers = 0;
+
+	// whether silent components are left out of the mix
+	private volatile boolean voiceActivityDetection = false;
+
+	// highest sampling rate used for mixing
+	private volatile int sampleRate = AudioComponent.NARROWBAND;
+
+	// maximum number of threads mixing one tick
+	private volatile int parallelism = MIXING_POOL.getParallelism();
+
+	// media loop affinity
+	private volatile int affinity = -1;
+
 	public AudioMixer(PriorityQueueScheduler scheduler) {
 		this.scheduler = scheduler;
+		this.period = scheduler.getPeriod();
+		this.packetSize = (int) (period / 1000000) * format.getSampleRate() / 1000 * format.getSampleSize() / 8;
 		this.mixer = new MixTask();
 	}
 
 	public void addComponent(AudioComponent component) {
+		component.setPeriod(period);
+		component.level = 0L;
+		component.speaker = false;
+		if (affinity >= 0) {
+			component.setAffinity(affinity);
+		}
 		components.put(component.getComponentId(), component);
 	}
 
+	/**
+	 * Pins mixing job and outputs of the components to media loop of the scheduler.
+	 * 
+	 * @param affinity
+	 *            the affinity key
+	 */
+	public void setAffinity(int affinity) {
+		this.affinity = affinity;
+		this.mixer.setAffinity(affinity);
+		Iterator<AudioComponent> activeComponents = components.valuesIterator();
+		while (activeComponents.hasNext()) {
+			activeComponents.next().setAffinity(affinity);
+		}
+	}
+
 	protected int getPacketSize() {
-		return this.packetSize;
+		return AudioComponent.getSamples(period, mixer.sampleRate) * format.getSampleSize() / 8;
 	}
 
 	/**
@@ -89,6 +149,79 @@ public class AudioMixer {
 		this.gain = gain > 0 ? gain * 1.26 : gain == 0 ? 1 : 1 / (gain * 1.26);
 	}
 
+	/**
+	 * Limits the mix to the loudest components.
+	 * <p>
+	 * Only the given number of components with the highest voice level are mixed, each of them receiving the mix of the other
+	 * speakers, while all remaining components share a single mix. The cost of mixing then depends on the number of speakers
+	 * rather than on the number of participants. A component replaces a speaker only when it is clearly louder, so selection
+	 * does not flap between participants talking at similar levels.
+	 * </p>
+	 * 
+	 * @param activeSpeakers
+	 *            the maximum number of mixed components, zero mixes all components
+	 */
+	public void setActiveSpeakers(int activeSpeakers) {
+		if (activeSpeakers < 0) {
+			throw new IllegalArgumentException("Number of active speakers cannot be negative.");
+		}
+		this.activeSpeakers = activeSpeakers;
+	}
+
+	public int getActiveSpeakers() {
+		return activeSpeakers;
+	}
+
+	/**
+	 * Enables mixing of talking components only.
+	 * <p>
+	 * Components whose voice activity flag is down are not summed and receive the shared mix, like any listener. When nobody
+	 * talks, all components share one silent frame.
+	 * </p>
+	 * 
+	 * @param voiceActivityDetection
+	 *            whether silent components are left out of the mix
+	 */
+	public void setVoiceActivityDetection(boolean voiceActivityDetection) {
+		this.voiceActivityDetection = voiceActivityDetection;
+	}
+
+	public boolean isVoiceActivityDetection() {
+		return voiceActivityDetection;
+	}
+
+	/**
+	 * Sets the highest sampling rate used for mixing.
+	 * <p>
+	 * Each tick, the mixer runs at the highest rate of the legs of its components within this limit, so conferences of
+	 * narrowband legs are mixed at 8 kHz while wideband legs can be bridged as HD voice. Components convert their legs to the
+	 * mixing rate at their edge.
+	 * </p>
+	 * 
+	 * @param sampleRate
+	 *            the sampling rate in Hertz, one of 8000, 16000 or 48000
+	 */
+	public void setSampleRate(int sampleRate) {
+		if (!AudioComponent.isSupported(sampleRate)) {
+			throw new IllegalArgumentException("Unsupported sampling rate " + sampleRate);
+		}
+		this.sampleRate = sampleRate;
+	}
+
+	public int getSampleRate() {
+		return sampleRate;
+	}
+
+	/**
+	 * Sets the maximum number of threads mixing one tick of a large conference.
+	 * 
+	 * @param parallelism
+	 *            the number of threads, one keeps mixing on the scheduler thread only
+	 */
+	void setParallelism(int parallelism) {
+		this.parallelism = Math.max(1, parallelism);
+	}
+
 	public void start() {
 		mixCount = 0;
 		started = true;
@@ -101,13 +234,22 @@ public class AudioMixer {
 	}
 
 	private class MixTask extends Task {
-		int sourcesCount = 0;
-		private int i;
-		private int minValue = 0;
-		private int maxValue = 0;
-		private double currGain = 0;
 		private int[] total = new int[packetSize / 2];
-		private int[] current;
+		private int sampleRate = AudioComponent.NARROWBAND;
+		private AudioFormat mixFormat = format;
+		private final List<AudioComponent> speakers = new ArrayList<AudioComponent>();
+
+		// components mixed during current tick
+		private final List<AudioComponent> participants = new ArrayList<AudioComponent>();
+		private final List<MixPartition> partitions = new ArrayList<MixPartition>();
+
+		// state of current tick, read by partitions
+		private int maxSpeakers;
+		private boolean vad;
+		private int shift;
+		private int factor;
+		private boolean minusSelf;
+		private Frame mix;
 
 		public MixTask() {
 			super();
@@ -120,76 +262,277 @@ public class AudioMixer {
 
 		@Override
 		public long perform() {
-			// summarize all
-			sourcesCount = 0;
+			maxSpeakers = activeSpeakers;
+			vad = voiceActivityDetection;
+			if (maxSpeakers == 0) {
+				speakers.clear();
+			}
+
+			participants.clear();
+			int legRate = AudioComponent.NARROWBAND;
 			Iterator<AudioComponent> activeComponents = components.valuesIterator();
 			while (activeComponents.hasNext()) {
 				AudioComponent component = activeComponents.next();
-				component.perform();
-				current = component.getData();
-				if (current != null) {
+				legRate = Math.max(legRate, component.getSampleRate());
+				participants.add(component);
+			}
+
+			// mix at the highest rate of the legs, narrowband conferences never pay for wideband processing
+			final int rate = Math.min(legRate, AudioMixer.this.sampleRate);
+			if (rate != sampleRate) {
+				sampleRate = rate;
+				mixFormat = FormatFactory.createAudioFormat("LINEAR", rate, 16, 1);
+				total = new int[AudioComponent.getSamples(period, rate)];
+				partitions.clear();
+			}
+
+			// large conferences are split over several threads, small ones stay on this thread
+			final int count = participants.size();
+			final int partitionCount = count < PARALLEL_THRESHOLD ? 1 : Math.min(parallelism, count / PARTITION_SIZE);
+
+			// read all components, summing talking ones when no speakers are selected
+			int sourcesCount;
+			int senders;
+			if (partitionCount > 1) {
+				split(partitionCount);
+				invoke(partitionCount, false);
+				sourcesCount = 0;
+				senders = 0;
+				for (int i = 0; i < partitionCount; i++) {
+					MixPartition partition = partitions.get(i);
+					senders += partition.senders;
+					if (partition.sources.isEmpty()) {
+						continue;
+					}
 					if (sourcesCount == 0) {
-						System.arraycopy(current, 0, total, 0, total.length);
+						System.arraycopy(partition.partial, 0, total, 0, total.length);
 					} else {
-						for (i = 0; i < total.length; i++) {
-							total[i] += current[i];
-						}
+						MixingKernel.accumulate(total, partition.partial, total.length);
 					}
-					sourcesCount++;
+					sourcesCount += partition.sources.size();
+					speakers.addAll(partition.sources);
 				}
+			} else {
+				senders = read(0, count, total, speakers);
+				sourcesCount = speakers.size();
 			}
 
-			if (sourcesCount == 0) {
+			// otherwise sum the loudest components only
+			if (maxSpeakers > 0) {
+				selectSpeakers();
+				sourcesCount = speakers.size();
+				for (int i = 0; i < sourcesCount; i++) {
+					if (i == 0) {
+						System.arraycopy(speakers.get(i).getData(), 0, total, 0, total.length);
+					} else {
+						MixingKernel.accumulate(total, speakers.get(i).getData(), total.length);
+					}
+				}
+			}
+
+			if (senders == 0) {
+				participants.clear();
 				scheduler.submit(this, PriorityQueueScheduler.MIXER_MIX_QUEUE);
 				mixCount++;
 				return 0;
 			}
 
-			minValue = 0;
-			maxValue = 0;
-			for (i = 0; i < total.length; i++) {
-				if (total[i] > maxValue) {
-					maxValue = total[i];
-				} else if (total[i] < minValue) {
-					minValue = total[i];
-				}
+			// nobody talks, everyone gets the same silence
+			if (sourcesCount == 0) {
+				Arrays.fill(total, 0);
 			}
 
-			if (minValue > 0) {
-				minValue = 0 - minValue;
+			// scale the mix in fixed point, reducing gain when the sum exceeds 16 bits
+			final int peak = MixingKernel.peak(total, total.length);
+			shift = MixingKernel.shift(peak);
+			factor = MixingKernel.factor(gain, peak, shift);
+			MixingKernel.scale(total, total.length, shift, factor);
+
+			// speakers get the mix of the others, all other components share the same mix encoded once
+			minusSelf = sourcesCount > 1;
+			mix = sourcesCount < count ? AudioComponent.encode(total, total.length, mixFormat, period) : null;
+			if (partitionCount > 1) {
+				invoke(partitionCount, true);
+			} else {
+				write(0, count);
+			}
+			if (mix != null) {
+				mix.recycle();
+				mix = null;
 			}
 
-			if (minValue > maxValue) {
-				maxValue = minValue;
+			participants.clear();
+			scheduler.submit(this, PriorityQueueScheduler.MIXER_MIX_QUEUE);
+			mixCount++;
+			return 0;
+		}
+
+		/**
+		 * Reads a range of participants.
+		 * <p>
+		 * When all components are mixed, talking components are summed into the given buffer and collected as sources.
+		 * Otherwise only their voice level is measured.
+		 * </p>
+		 * 
+		 * @return the number of components that provided data
+		 */
+		private int read(int from, int to, int[] sum, List<AudioComponent> sources) {
+			int senders = 0;
+			int sourcesCount = 0;
+			for (int i = from; i < to; i++) {
+				AudioComponent component = participants.get(i);
+				if (component.getMixingRate() != sampleRate) {
+					component.setMixingRate(sampleRate);
+				}
+				component.setSkipSilence(vad);
+				component.perform();
+				int[] current = component.getData();
+				// silent frames that were not decoded still keep the mix going
+				if (component.isSending()) {
+					senders++;
+				}
+				if (maxSpeakers == 0) {
+					component.speaker = current != null && (!vad || component.isVoiceActive());
+					if (component.speaker) {
+						if (sourcesCount == 0) {
+							System.arraycopy(current, 0, sum, 0, sum.length);
+						} else {
+							MixingKernel.accumulate(sum, current, sum.length);
+						}
+						sources.add(component);
+						sourcesCount++;
+					}
+				} else {
+					long energy = current == null ? 0L : component.getEnergy();
+					component.level += (energy - component.level) >> LEVEL_SMOOTHING;
+				}
 			}
+			return senders;
+		}
 
-			currGain = gain;
-			if (maxValue > Short.MAX_VALUE) {
-				currGain = (currGain * (double) Short.MAX_VALUE) / (double) maxValue;
+		/**
+		 * Offers the scaled mix to a range of participants.
+		 */
+		private void write(int from, int to) {
+			for (int i = from; i < to; i++) {
+				AudioComponent component = participants.get(i);
+				if (component.speaker) {
+					if (minusSelf) {
+						int[] current = component.getData();
+						MixingKernel.subtract(total, current, total.length, shift, factor);
+						component.offer(current);
+					}
+				} else if (component.shouldWrite.get()) {
+					if (component.getSampleRate() == sampleRate) {
+						component.offer(mix.share());
+					} else {
+						component.offer(total);
+					}
+				}
 			}
+		}
 
-			for (i = 0; i < total.length; i++) {
-				total[i] = (short) ((double) total[i] * currGain);
+		/**
+		 * Updates the speakers with the loudest components.
+		 */
+		private void selectSpeakers() {
+			// drop speakers that left the mixer or stopped talking
+			for (int i = speakers.size() - 1; i >= 0; i--) {
+				AudioComponent speaker = speakers.get(i);
+				if (i >= maxSpeakers || !isCandidate(speaker) || components.get(speaker.getComponentId()) != speaker) {
+					speaker.speaker = false;
+					speakers.remove(i);
+				}
 			}
 
-			// get data for each component
-			activeComponents = components.valuesIterator();
-			while (activeComponents.hasNext()) {
-				AudioComponent component = activeComponents.next();
-				current = component.getData();
-				if (current != null && sourcesCount > 1) {
-					for (i = 0; i < total.length; i++) {
-						current[i] = total[i] - (short) ((double) current[i] * currGain);
+			for (int c = 0; c < participants.size(); c++) {
+				AudioComponent candidate = participants.get(c);
+				if (candidate.speaker || !isCandidate(candidate)) {
+					continue;
+				}
+
+				if (speakers.size() < maxSpeakers) {
+					candidate.speaker = true;
+					speakers.add(candidate);
+					continue;
+				}
+
+				// replace the quietest speaker only if the candidate is clearly louder
+				int quietest = 0;
+				for (int i = 1; i < speakers.size(); i++) {
+					if (speakers.get(i).level < speakers.get(quietest).level) {
+						quietest = i;
 					}
-					component.offer(current);
-				} else if (current == null) {
-					component.offer(total);
+				}
+				AudioComponent replaced = speakers.get(quietest);
+				if (candidate.level > replaced.level * HYSTERESIS) {
+					replaced.speaker = false;
+					candidate.speaker = true;
+					speakers.set(quietest, candidate);
 				}
 			}
+		}
 
-			scheduler.submit(this, PriorityQueueScheduler.MIXER_MIX_QUEUE);
-			mixCount++;
-			return 0;
+		private boolean isCandidate(AudioComponent component) {
+			return component.getData() != null && (!vad || component.isVoiceActive());
+		}
+
+		/**
+		 * Assigns contiguous ranges of participants to partitions.
+		 */
+		private void split(int partitionCount) {
+			while (partitions.size() < partitionCount) {
+				partitions.add(new MixPartition());
+			}
+			final int count = participants.size();
+			for (int i = 0; i < partitionCount; i++) {
+				MixPartition partition = partitions.get(i);
+				partition.from = (int) ((long) count * i / partitionCount);
+				partition.to = (int) ((long) count * (i + 1) / partitionCount);
+			}
+		}
+
+		/**
+		 * Runs one phase of the partitions, the first one on this thread and the others on the mixing pool.
+		 */
+		private void invoke(int partitionCount, boolean write) {
+			for (int i = 0; i < partitionCount; i++) {
+				MixPartition partition = partitions.get(i);
+				partition.reinitialize();
+				partition.write = write;
+				partition.sources.clear();
+			}
+			for (int i = 1; i < partitionCount; i++) {
+				MIXING_POOL.execute(partitions.get(i));
+			}
+			partitions.get(0).invoke();
+			for (int i = 1; i < partitionCount; i++) {
+				partitions.get(i).join();
+			}
+		}
+
+		/**
+		 * Range of participants of a large conference mixed by one thread.
+		 */
+		private final class MixPartition extends RecursiveAction {
+
+			private static final long serialVersionUID = 1L;
+
+			private final int[] partial = new int[total.length];
+			private final List<AudioComponent> sources = new ArrayList<AudioComponent>();
+			private int from;
+			private int to;
+			private boolean write;
+			private int senders;
+
+			@Override
+			protected void compute() {
+				if (write) {
+					write(from, to);
+				} else {
+					senders = read(from, to, partial, sources);
+				}
+			}
 		}
 	}
 }
@@ -24,7 +24,7 @@ package org.restcomm.media.component.audio;
 
 import org.restcomm.media.component.AbstractSink;
 import org.restcomm.media.component.AbstractSource;
-import org.restcomm.media.concurrent.ConcurrentCyclicFIFO;
+import org.restcomm.media.concurrent.MpmcRingQueue;
 import org.restcomm.media.scheduler.PriorityQueueScheduler;
 import org.restcomm.media.spi.memory.Frame;
 
@@ -38,7 +38,7 @@ public class AudioOutput extends AbstractSource {
 	private static final long serialVersionUID = -5988244809612104056L;
 
 	private int outputId;
-	private ConcurrentCyclicFIFO<Frame> buffer = new ConcurrentCyclicFIFO<Frame>();
+	private MpmcRingQueue<Frame> buffer = new MpmcRingQueue<Frame>(4);
 
 	/**
 	 * Creates new instance with default name.
@@ -67,25 +67,29 @@ public class AudioOutput extends AbstractSource {
 
 	@Override
 	public void stop() {
-		while (buffer.size() > 0) {
-			Frame frame = buffer.poll();
-			if(frame != null) {
-			    frame.recycle();
-			}
+		Frame frame;
+		while ((frame = buffer.poll()) != null) {
+			frame.recycle();
 		}
 		super.stop();
 	}
 
 	public void resetBuffer() {
-		while (buffer.size() > 0) {
-			buffer.poll().recycle();
+		Frame frame;
+		while ((frame = buffer.poll()) != null) {
+			frame.recycle();
 		}
 	}
 
 	public void offer(Frame frame) {
 		if (buffer.size() > 1) {
-			buffer.poll().recycle();
+			Frame oldest = buffer.poll();
+			if (oldest != null) {
+				oldest.recycle();
+			}
+		}
+		if (!buffer.offer(frame)) {
+			frame.recycle();
 		}
-		buffer.offer(frame);
 	}
 }
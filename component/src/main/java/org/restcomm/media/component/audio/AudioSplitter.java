@@ -45,8 +45,8 @@ public class AudioSplitter {
 
 	// the format of the output stream.
 	private static final AudioFormat FORMAT = FormatFactory.createAudioFormat("LINEAR", 8000, 16, 1);
-	private static final long PERIOD = 20000000L;
-	private static final int PACKET_SIZE = (int) (PERIOD / 1000000) * FORMAT.getSampleRate() / 1000 * FORMAT.getSampleSize() / 8;
+	private final long period;
+	private final int packetSize;
 
 	// The pools of components
 	private final ConcurrentMap<AudioComponent> insideComponents;
@@ -56,30 +56,62 @@ public class AudioSplitter {
 	private final OutsideMixTask outsideMixer;
 	private final AtomicBoolean started;
 	private final AtomicLong mixCount;
+	private volatile int affinity;
 
 	// gain value
 	private double gain = 1.0;
 
 	public AudioSplitter(PriorityQueueScheduler scheduler) {
 		this.scheduler = scheduler;
+		this.period = scheduler.getPeriod();
+		this.packetSize = (int) (period / 1000000) * FORMAT.getSampleRate() / 1000 * FORMAT.getSampleSize() / 8;
 		this.insideMixer = new InsideMixTask();
 		this.outsideMixer = new OutsideMixTask();
 		this.insideComponents = new ConcurrentMap<AudioComponent>();
 		this.outsideComponents = new ConcurrentMap<AudioComponent>();
 		this.started = new AtomicBoolean(false);
 		this.mixCount = new AtomicLong(0);
+		this.affinity = -1;
 	}
 
 	public void addInsideComponent(AudioComponent component) {
+		component.setPeriod(period);
+		if (affinity >= 0) {
+			component.setAffinity(affinity);
+		}
 		insideComponents.put(component.getComponentId(), component);
 	}
 
 	public void addOutsideComponent(AudioComponent component) {
+		component.setPeriod(period);
+		if (affinity >= 0) {
+			component.setAffinity(affinity);
+		}
 		outsideComponents.put(component.getComponentId(), component);
 	}
 
+	/**
+	 * Pins mixing jobs and outputs of the components to media loop of the scheduler.
+	 * 
+	 * @param affinity
+	 *            the affinity key
+	 */
+	public void setAffinity(int affinity) {
+		this.affinity = affinity;
+		this.insideMixer.setAffinity(affinity);
+		this.outsideMixer.setAffinity(affinity);
+		Iterator<AudioComponent> activeComponents = insideComponents.valuesIterator();
+		while (activeComponents.hasNext()) {
+			activeComponents.next().setAffinity(affinity);
+		}
+		activeComponents = outsideComponents.valuesIterator();
+		while (activeComponents.hasNext()) {
+			activeComponents.next().setAffinity(affinity);
+		}
+	}
+
 	protected int getPacketSize() {
-		return PACKET_SIZE;
+		return packetSize;
 	}
 
 	/**
@@ -129,7 +161,7 @@ public class AudioSplitter {
 
 	private class InsideMixTask extends Task {
 
-	    private final int[] total = new int[PACKET_SIZE / 2];
+	    private final int[] total = new int[packetSize / 2];
 
 		public InsideMixTask() {
 			super();
@@ -155,9 +187,7 @@ public class AudioSplitter {
 						System.arraycopy(current, 0, total, 0, total.length);
 						first = false;
 					} else {
-						for (int i = 0; i < total.length; i++) {
-							total[i] += current[i];
-						}
+						MixingKernel.accumulate(total, current, total.length);
 					}
 				}
 			}
@@ -168,32 +198,10 @@ public class AudioSplitter {
 				return 0;
 			}
 
-			int minValue = 0;
-			int maxValue = 0;
-			for (int i = 0; i < total.length; i++) {
-				if (total[i] > maxValue) {
-					maxValue = total[i];
-				} else if (total[i] < minValue) {
-					minValue = total[i];
-				}
-			}
-
-			if (minValue > 0) {
-				minValue = 0 - minValue;
-			}
-
-			if (minValue > maxValue) {
-				maxValue = minValue;
-			}
-
-			double currGain = gain;
-			if (maxValue > Short.MAX_VALUE) {
-				currGain = (currGain * (double) Short.MAX_VALUE) / (double) maxValue;
-			}
-
-			for (int i = 0; i < total.length; i++) {
-				total[i] = (short) Math.round((double) total[i] * currGain);
-			}
+			// scale the mix in fixed point, reducing gain when the sum exceeds 16 bits
+			final int peak = MixingKernel.peak(total, total.length);
+			final int shift = MixingKernel.shift(peak);
+			MixingKernel.scale(total, total.length, shift, MixingKernel.factor(gain, peak, shift));
 
 			// get data for each component
 			final Iterator<AudioComponent> outsideSIterator = outsideComponents.valuesIterator();
@@ -210,7 +218,7 @@ public class AudioSplitter {
 
 	private class OutsideMixTask extends Task {
 	    
-		private final int[] total = new int[PACKET_SIZE / 2];
+		private final int[] total = new int[packetSize / 2];
 
 		public OutsideMixTask() {
 			super();
@@ -236,9 +244,7 @@ public class AudioSplitter {
 						System.arraycopy(current, 0, total, 0, total.length);
 						first = false;
 					} else {
-						for (int i = 0; i < total.length; i++) {
-							total[i] += current[i];
-						}
+						MixingKernel.accumulate(total, current, total.length);
 					}
 				}
 			}
@@ -249,29 +255,10 @@ public class AudioSplitter {
 				return 0;
 			}
 
-			int minValue = 0;
-			int maxValue = 0;
-			for (int i = 0; i < total.length; i++) {
-				if (total[i] > maxValue) {
-					maxValue = total[i];
-				} else if (total[i] < minValue) {
-					minValue = total[i];
-				}
-			}
-
-			minValue = 0 - minValue;
-			if (minValue > maxValue) {
-				maxValue = minValue;
-			}
-
-			double currGain = gain;
-			if (maxValue > Short.MAX_VALUE) {
-				currGain = (currGain * Short.MAX_VALUE) / maxValue;
-			}
-
-			for (int i = 0; i < total.length; i++) {
-				total[i] = (short) Math.round((double) total[i] * currGain);
-			}
+			// scale the mix in fixed point, reducing gain when the sum exceeds 16 bits
+			final int peak = MixingKernel.peak(total, total.length);
+			final int shift = MixingKernel.shift(peak);
+			MixingKernel.scale(total, total.length, shift, MixingKernel.factor(gain, peak, shift));
 
 			// get data for each component
 			final Iterator<AudioComponent> insideSIterator = insideComponents.valuesIterator();
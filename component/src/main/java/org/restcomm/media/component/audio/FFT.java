@@ -24,24 +24,167 @@ package org.restcomm.media.component.audio;
 
 import org.apache.log4j.Logger;
 
-/*******************************************************************************
- * Compilation: javac FFT.java Execution: java FFT N Dependencies: Complex.java
- * 
- * Compute the FFT and inverse FFT of a length N complex sequence. Bare bones
- * implementation that runs in O(N log N) time. Our goal is to optimize the
- * clarity of the code, rather than performance.
- * 
- * Limitations ----------- - assumes N is a power of 2 - not the most memory
- * efficient algorithm (because it uses an object type for representing complex
- * numbers and because it re-allocates memory for the subarray, instead of doing
- * in-place or reusing a single temporary array)
- * 
- ******************************************************************************/
-
+/**
+ * In place radix 2 FFT working on arrays of doubles.
+ * <p>
+ * Twiddle factors and the bit reversal permutation are computed once for a transform length and kept until another length
+ * is requested. Real signals are transformed as a complex signal of half their length, followed by a split step, so the
+ * transform allocates nothing once its tables are built. An instance is not thread safe.
+ * </p>
+ */
 public class FFT {
 	
 	private static Logger logger = Logger.getLogger(FFT.class);
 
+	// length of the twiddle table, cos and -sin of 2*pi*k/size for k < size/2
+	private int size;
+	private double[] cos;
+	private double[] sin;
+
+	// bit reversal permutation of the complex transform
+	private int[] reversed;
+
+	// work arrays of the real transform and of the object wrapper
+	private double[] re;
+	private double[] im;
+
+	private static boolean isPowerOfTwo(int n) {
+		return n > 0 && (n & (n - 1)) == 0;
+	}
+
+	private void prepareTwiddles(int size) {
+		if (this.size == size) {
+			return;
+		}
+		this.cos = new double[Math.max(1, size / 2)];
+		this.sin = new double[Math.max(1, size / 2)];
+		for (int k = 0; k < size / 2; k++) {
+			final double kth = -2 * k * Math.PI / size;
+			this.cos[k] = Math.cos(kth);
+			this.sin[k] = Math.sin(kth);
+		}
+		this.size = size;
+	}
+
+	private void preparePermutation(int n) {
+		if (this.reversed != null && this.reversed.length == n) {
+			return;
+		}
+		this.reversed = new int[n];
+		final int bits = Integer.numberOfTrailingZeros(n);
+		for (int i = 0; i < n; i++) {
+			this.reversed[i] = bits == 0 ? 0 : Integer.reverse(i) >>> (32 - bits);
+		}
+	}
+
+	private void prepareWork(int n) {
+		if (this.re == null || this.re.length < n) {
+			this.re = new double[n];
+			this.im = new double[n];
+		}
+	}
+
+	/**
+	 * Computes in place the FFT of a complex signal.
+	 * 
+	 * @param re the real parts of the signal, replaced by the real parts of the spectrum
+	 * @param im the imaginary parts of the signal, replaced by the imaginary parts of the spectrum
+	 * @param n the length of the signal, a power of 2
+	 */
+	public void transform(double[] re, double[] im, int n) {
+		if (!isPowerOfTwo(n)) {
+			throw new IllegalArgumentException("N is not a power of 2");
+		}
+		prepareTwiddles(n);
+		compute(re, im, n);
+	}
+
+	/**
+	 * Computes the FFT of a real signal.
+	 * <p>
+	 * The spectrum of a real signal is symmetric, so only bins 0 to n/2 are written.
+	 * </p>
+	 * 
+	 * @param signal the signal, left unchanged
+	 * @param re receives the real parts of the n/2 + 1 first bins
+	 * @param im receives the imaginary parts of the n/2 + 1 first bins
+	 * @param n the length of the signal, a power of 2 greater than 1
+	 */
+	public void transform(double[] signal, double[] re, double[] im, int n) {
+		if (n < 2 || !isPowerOfTwo(n)) {
+			throw new IllegalArgumentException("N is not a power of 2");
+		}
+		final int half = n / 2;
+		prepareTwiddles(n);
+		prepareWork(half);
+
+		// pack even samples as real parts and odd samples as imaginary parts
+		final double[] zr = this.re;
+		final double[] zi = this.im;
+		for (int k = 0; k < half; k++) {
+			zr[k] = signal[2 * k];
+			zi[k] = signal[2 * k + 1];
+		}
+		compute(zr, zi, half);
+
+		// split the spectra of even and odd samples and recombine them
+		re[0] = zr[0] + zi[0];
+		im[0] = 0;
+		re[half] = zr[0] - zi[0];
+		im[half] = 0;
+		for (int k = 1; k < half; k++) {
+			final int m = half - k;
+			final double er = (zr[k] + zr[m]) * 0.5;
+			final double ei = (zi[k] - zi[m]) * 0.5;
+			final double or = (zi[k] + zi[m]) * 0.5;
+			final double oi = (zr[m] - zr[k]) * 0.5;
+			final double wr = this.cos[k];
+			final double wi = this.sin[k];
+			re[k] = er + wr * or - wi * oi;
+			im[k] = ei + wr * oi + wi * or;
+		}
+	}
+
+	/**
+	 * Radix 2 decimation in time over a table computed for a length multiple of n.
+	 */
+	private void compute(double[] re, double[] im, int n) {
+		preparePermutation(n);
+		final int[] reversed = this.reversed;
+		for (int i = 0; i < n; i++) {
+			final int j = reversed[i];
+			if (i < j) {
+				final double tr = re[i];
+				re[i] = re[j];
+				re[j] = tr;
+				final double ti = im[i];
+				im[i] = im[j];
+				im[j] = ti;
+			}
+		}
+
+		final double[] cos = this.cos;
+		final double[] sin = this.sin;
+		for (int len = 2; len <= n; len <<= 1) {
+			final int half = len >> 1;
+			final int step = this.size / len;
+			for (int i = 0; i < n; i += len) {
+				for (int j = 0, k = 0; j < half; j++, k += step) {
+					final int p = i + j;
+					final int q = p + half;
+					final double wr = cos[k];
+					final double wi = sin[k];
+					final double tr = wr * re[q] - wi * im[q];
+					final double ti = wr * im[q] + wi * re[q];
+					re[q] = re[p] - tr;
+					im[q] = im[p] - ti;
+					re[p] += tr;
+					im[p] += ti;
+				}
+			}
+		}
+	}
+
 	// compute the FFT of x[], assuming its length is a power of 2
 	public Complex[] fft(Complex[] x) {
 		int N = x.length;
@@ -53,62 +196,23 @@ public class FFT {
 			return y;
 		}
 
-		// radix 2 Cooley-Tukey FFT
-		if (N % 2 != 0)
+		if (!isPowerOfTwo(N))
 			throw new RuntimeException("N is not a power of 2");
-		Complex[] even = new Complex[N / 2];
-		Complex[] odd = new Complex[N / 2];
-		for (int k = 0; k < N / 2; k++)
-			even[k] = x[2 * k];
-		for (int k = 0; k < N / 2; k++)
-			odd[k] = x[2 * k + 1];
-
-		Complex[] q = fft(even);
-		Complex[] r = fft(odd);
-
-		for (int k = 0; k < N / 2; k++) {
-			double kth = -2 * k * Math.PI / N;
-			Complex wk = new Complex(Math.cos(kth), Math.sin(kth));
-			y[k] = q[k].plus(wk.times(r[k]));
-			y[k + N / 2] = q[k].minus(wk.times(r[k]));
+
+		prepareWork(N);
+		final double[] re = this.re;
+		final double[] im = this.im;
+		for (int k = 0; k < N; k++) {
+			re[k] = x[k].re();
+			im[k] = x[k].im();
+		}
+		transform(re, im, N);
+		for (int k = 0; k < N; k++) {
+			y[k] = new Complex(re[k], im[k]);
 		}
 		return y;
 	}
 
-	// compute the inverse FFT of x[], assuming its length is a power of 2
-	/*
-	 * public static Complex[] ifft(Complex[] x) { int N = x.length; Complex[] y =
-	 * new Complex[N]; // take conjugate for (int i = 0; i < N; i++) { y[i] =
-	 * x[i].conjugate(); } // compute forward FFT y = fft(y); // take conjugate
-	 * again for (int i = 0; i < N; i++) { y[i] = y[i].conjugate(); } // divide
-	 * by N for (int i = 0; i < N; i++) { y[i] = y[i].times(1.0 / N); }
-	 * 
-	 * return y; } // compute the circular convolution of x and y public static
-	 * Complex[] cconvolve(Complex[] x, Complex[] y) { // should probably pad x
-	 * and y with 0s so that they have same length // and are powers of 2 if
-	 * (x.length != y.length) { throw new RuntimeException("Dimensions don't
-	 * agree"); }
-	 * 
-	 * int N = x.length; // compute FFT of each sequence Complex[] a = fft(x);
-	 * Complex[] b = fft(y); // point-wise multiply Complex[] c = new
-	 * Complex[N]; for (int i = 0; i < N; i++) { c[i] = a[i].times(b[i]); } //
-	 * compute inverse FFT return ifft(c); } // compute the linear convolution
-	 * of x and y public static Complex[] convolve(Complex[] x, Complex[] y) {
-	 * Complex ZERO = new Complex(0, 0);
-	 * 
-	 * Complex[] a = new Complex[2 * x.length]; for (int i = 0; i < x.length;
-	 * i++) a[i] = x[i]; for (int i = x.length; i < 2 * x.length; i++) a[i] =
-	 * ZERO;
-	 * 
-	 * Complex[] b = new Complex[2 * y.length]; for (int i = 0; i < y.length;
-	 * i++) b[i] = y[i]; for (int i = y.length; i < 2 * y.length; i++) b[i] =
-	 * ZERO;
-	 * 
-	 * return cconvolve(a, b); } // display an array of Complex numbers to
-	 * standard output
-	 * 
-	 */
-
 	public static void show(Complex[] x, String title) {
 		logger.debug(title);
 		logger.debug("-------------------");
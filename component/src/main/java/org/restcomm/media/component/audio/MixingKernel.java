@@ -0,0 +1,135 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2017, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.component.audio;
+
+/**
+ * Fixed point mixing kernel shared by the audio mixer and splitter.
+ * <p>
+ * Gains are applied as Q15 factors. When the sum of the inputs exceeds the 16 bit range, the sum is shifted right before
+ * being scaled and the shift is folded into the factor, so every product fits in 32 bits. Loops are kept as plain counted
+ * loops over int arrays, without branches or long arithmetic, so that C2 compiles them to SIMD instructions.
+ * </p>
+ * <p>
+ * Results are rounded to the nearest integer and saturated to the 16 bit range.
+ * </p>
+ */
+final class MixingKernel {
+
+    // format of the gain factors
+    static final int Q = 15;
+    private static final int ROUND = 1 << (Q - 1);
+
+    // largest factor that keeps a 16 bit sample times the factor in 32 bits, about +6 dB
+    static final int MAX_FACTOR = (1 << (Q + 1)) - 1;
+
+    private MixingKernel() {
+        super();
+    }
+
+    /**
+     * Adds the samples of an input to the mix.
+     */
+    static void accumulate(int[] total, int[] current, int length) {
+        for (int i = 0; i < length; i++) {
+            total[i] += current[i];
+        }
+    }
+
+    /**
+     * Gets the mean energy of a frame of 16 bit little endian samples, without decoding it.
+     */
+    static long energy(byte[] data, int offset, int length) {
+        long energy = 0L;
+        final int samples = length / 2;
+        for (int i = offset, end = offset + samples * 2; i < end; i += 2) {
+            final int sample = (short) ((data[i + 1] << 8) | (data[i] & 0xff));
+            energy += sample * sample;
+        }
+        return samples == 0 ? 0L : energy / samples;
+    }
+
+    /**
+     * Gets the largest absolute value of the mix.
+     */
+    static int peak(int[] total, int length) {
+        int peak = 0;
+        for (int i = 0; i < length; i++) {
+            peak = Math.max(peak, Math.abs(total[i]));
+        }
+        return peak;
+    }
+
+    /**
+     * Gets the number of bits the mix must be shifted right so that it fits in 16 bits.
+     */
+    static int shift(int peak) {
+        return Math.max(0, 17 - Integer.numberOfLeadingZeros(peak));
+    }
+
+    /**
+     * Computes the Q15 factor to apply to the mix, once shifted.
+     * <p>
+     * The gain is reduced so the mix does not exceed the 16 bit range, as the original floating point implementation did,
+     * and is additionally bounded so that a gain above unity cannot overflow it either.
+     * </p>
+     * 
+     * @param gain The gain of the mixer.
+     * @param peak The largest absolute value of the mix.
+     * @param shift The shift computed for the peak.
+     * @return The Q15 factor.
+     */
+    static int factor(double gain, int peak, int shift) {
+        double factor = gain;
+        if (peak > Short.MAX_VALUE) {
+            factor = (factor * Short.MAX_VALUE) / peak;
+        }
+        if (Math.abs(factor) * peak > Short.MAX_VALUE) {
+            factor = Math.signum(factor) * Short.MAX_VALUE / peak;
+        }
+
+        final long fixed = (long) (factor * (1L << (Q + shift)));
+        return (int) Math.max(-MAX_FACTOR, Math.min(MAX_FACTOR, fixed));
+    }
+
+    /**
+     * Scales the mix in place.
+     */
+    static void scale(int[] total, int length, int shift, int factor) {
+        final int half = (1 << shift) >> 1;
+        for (int i = 0; i < length; i++) {
+            final int sample = (((total[i] + half) >> shift) * factor + ROUND) >> Q;
+            total[i] = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, sample));
+        }
+    }
+
+    /**
+     * Removes the contribution of an input from the scaled mix, writing the result over the input samples.
+     */
+    static void subtract(int[] total, int[] current, int length, int shift, int factor) {
+        final int half = (1 << shift) >> 1;
+        for (int i = 0; i < length; i++) {
+            final int sample = total[i] - ((((current[i] + half) >> shift) * factor + ROUND) >> Q);
+            current[i] = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, sample));
+        }
+    }
+
+}
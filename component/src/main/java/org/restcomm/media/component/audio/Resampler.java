@@ -23,13 +23,56 @@
 package org.restcomm.media.component.audio;
 
 /**
- * Peforms resampling of the signal.
+ * Streaming polyphase resampler of 16 bit signals.
+ * <p>
+ * The conversion ratio is reduced to L/M, the signal is conceptually upsampled by L, filtered by a Kaiser windowed sinc
+ * and decimated by M. Only the L phases of the filter that produce an output are evaluated, with fixed point coefficients
+ * and integer accumulators. The cutoff of the filter sits at the Nyquist frequency of the lower rate, so the same kernel
+ * removes images when upsampling and aliases when downsampling.
+ * </p>
+ * <p>
+ * The tail of each block is kept as history of the next one, so a stream may be fed frame by frame without discontinuity
+ * at frame boundaries. All buffers are allocated up front; one instance must be used per stream.
+ * </p>
  *
  * @author kulikov
  */
 public class Resampler {
-    private int f;
-    private int F;
+
+    // number of zero crossings of the kernel on each side of its center, measured at the lower rate
+    private static final int ZERO_CROSSINGS = 16;
+
+    // shape of the window, giving about 70 dB of stop band attenuation
+    private static final double KAISER_BETA = 7.0;
+
+    // coefficients are Q14 so that the accumulator cannot overflow on full scale signals
+    private static final int Q = 14;
+    private static final int ROUND = 1 << (Q - 1);
+
+    private final int inputRate;
+    private final int outputRate;
+
+    // conversion ratio L/M
+    private final int interpolation;
+    private final int decimation;
+
+    // advance of the input position per output sample, split into whole samples and phases
+    private final int step;
+    private final int stepPhase;
+
+    // filter phases, each holding taps coefficients in reverse order
+    private final int taps;
+    private final int[] coefficients;
+
+    // history followed by the current block
+    private int[] window;
+
+    // input sample and filter phase of the next output, relative to the current block
+    private int position;
+    private int phase;
+
+    // output of the block interpolation
+    private double[] signal;
 
     /**
      * Creates new resampler.
@@ -38,40 +81,256 @@ public class Resampler {
      * @param F the sampling rate of the new signal in Hertz.
      */
     public Resampler(int f, int F) {
-        this.f = f;
-        this.F = F;
+        if (f <= 0 || F <= 0) {
+            throw new IllegalArgumentException("Sampling rates must be positive.");
+        }
+        this.inputRate = f;
+        this.outputRate = F;
+
+        final int gcd = gcd(f, F);
+        this.interpolation = F / gcd;
+        this.decimation = f / gcd;
+        this.step = this.decimation / this.interpolation;
+        this.stepPhase = this.decimation % this.interpolation;
+
+        final int ratio = (Math.max(this.interpolation, this.decimation) + this.interpolation - 1) / this.interpolation;
+        this.taps = this.interpolation == this.decimation ? 1 : 2 * ZERO_CROSSINGS * ratio;
+        this.coefficients = design(this.interpolation, this.decimation, this.taps);
+
+        this.window = new int[this.taps - 1 + f / 50];
+    }
+
+    private static int gcd(int a, int b) {
+        while (b != 0) {
+            final int r = a % b;
+            a = b;
+            b = r;
+        }
+        return a;
     }
 
     /**
-     * Performs resampling of the given signal.
-     *
-     * @param buffer the buffer containing the signal.
-     * @param len the length of the signal in bytes.
-     * @return resampled signal
+     * Computes the phases of the low pass filter, each one normalized to unity gain.
      */
-    public double[] perform(double[] buffer, int len) {
-        int size = (int)((double)F/f * len);
-        double signal[] = new double[size];
+    private static int[] design(int interpolation, int decimation, int taps) {
+        final int length = interpolation * taps;
+        final double cutoff = 0.5 / Math.max(interpolation, decimation);
+        final double center = (length - 1) / 2.0;
+        final double norm = bessel(KAISER_BETA);
 
-        double dx = 1./(double)f;
-        double dX = 1./(double)F;
+        final double[] h = new double[length];
+        for (int n = 0; n < length; n++) {
+            final double t = n - center;
+            final double x = 2 * cutoff * t;
+            final double sinc = x == 0 ? 1.0 : Math.sin(Math.PI * x) / (Math.PI * x);
+            final double r = center == 0 ? 0 : t / center;
+            h[n] = sinc * bessel(KAISER_BETA * Math.sqrt(Math.max(0.0, 1 - r * r))) / norm;
+        }
 
-        signal[0] = buffer[0];
+        final int[] coefficients = new int[length];
+        for (int p = 0; p < interpolation; p++) {
+            double sum = 0;
+            for (int k = 0; k < taps; k++) {
+                sum += h[p + k * interpolation];
+            }
 
-        double k = 0;
-        for (int i = 1; i < size - 1; i++) {
-            double X = i * dX;
+            // quantize and give the rounding residue to the largest tap so that DC passes unchanged
+            int total = 0;
+            int largest = 0;
+            for (int k = 0; k < taps; k++) {
+                final int c = (int) Math.round(h[p + k * interpolation] / sum * (1 << Q));
+                final int index = p * taps + taps - 1 - k;
+                coefficients[index] = c;
+                total += c;
+                if (Math.abs(c) > Math.abs(coefficients[p * taps + largest])) {
+                    largest = taps - 1 - k;
+                }
+            }
+            coefficients[p * taps + largest] += (1 << Q) - total;
+        }
+        return coefficients;
+    }
 
-            int p = (int)(X/dx);
-            int q = p + 1;
+    /**
+     * Zeroth order modified Bessel function of the first kind.
+     */
+    private static double bessel(double x) {
+        double sum = 1.0;
+        double term = 1.0;
+        final double q = x * x / 4;
+        for (int k = 1; k < 50 && term > 1e-12 * sum; k++) {
+            term *= q / (k * k);
+            sum += term;
+        }
+        return sum;
+    }
 
-            k = (buffer[q] - buffer[p])/dx;
-            double x = p * dx;
+    public int getInputRate() {
+        return inputRate;
+    }
 
-            signal[i] = buffer[p] + (X - x) * k;
+    public int getOutputRate() {
+        return outputRate;
+    }
+
+    /**
+     * Gets the maximum number of samples produced from a block of input samples.
+     * 
+     * @param inputLength the number of input samples
+     * @return the number of output samples, exact when the block holds a whole number of decimation periods
+     */
+    public int getOutputLength(int inputLength) {
+        return (inputLength * this.interpolation + this.decimation - 1) / this.decimation;
+    }
+
+    /**
+     * Gets the group delay of the filter.
+     * 
+     * @return the delay in output samples
+     */
+    double getDelay() {
+        return (this.interpolation * this.taps - 1) / (2.0 * this.decimation);
+    }
+
+    /**
+     * Drops the history of the stream.
+     */
+    public void reset() {
+        this.position = 0;
+        this.phase = 0;
+        for (int i = 0; i < this.taps - 1; i++) {
+            this.window[i] = 0;
         }
+    }
 
-        signal[size - 1] = buffer[len - 1] + ((size - 1) *dX - (len -1)*dx) *k;
+    /**
+     * Resamples a block of the stream.
+     * 
+     * @param input the 16 bit samples
+     * @param length the number of input samples
+     * @param output the array receiving the samples, at least {@link #getOutputLength(int)} long
+     * @return the number of output samples
+     */
+    public int process(int[] input, int length, int[] output) {
+        final int[] window = prepare(length);
+        System.arraycopy(input, 0, window, this.taps - 1, length);
+
+        int count = 0;
+        while (this.position < length) {
+            output[count++] = convolve(window);
+        }
+        return complete(window, length, count);
+    }
+
+    /**
+     * Resamples a block of the stream held as little endian 16 bit samples.
+     * 
+     * @param input the input bytes
+     * @param offset the offset of the block
+     * @param length the length of the block in bytes
+     * @param output the array receiving the bytes
+     * @param outputOffset the offset of the output block
+     * @return the number of bytes written
+     */
+    public int process(byte[] input, int offset, int length, byte[] output, int outputOffset) {
+        final int samples = length / 2;
+        final int[] window = prepare(samples);
+        final int history = this.taps - 1;
+        for (int i = 0, j = offset; i < samples; i++, j += 2) {
+            window[history + i] = (short) ((input[j + 1] << 8) | (input[j] & 0xff));
+        }
+
+        int count = 0;
+        int j = outputOffset;
+        while (this.position < samples) {
+            final int sample = convolve(window);
+            output[j++] = (byte) sample;
+            output[j++] = (byte) (sample >> 8);
+            count++;
+        }
+        return complete(window, samples, count) * 2;
+    }
+
+    private int[] prepare(int length) {
+        if (this.window.length < this.taps - 1 + length) {
+            final int[] window = new int[this.taps - 1 + length];
+            System.arraycopy(this.window, 0, window, 0, this.taps - 1);
+            this.window = window;
+        }
+        return this.window;
+    }
+
+    /**
+     * Computes the next output sample and advances to the following one.
+     */
+    private int convolve(int[] window) {
+        final int[] coefficients = this.coefficients;
+        final int taps = this.taps;
+        final int start = this.position;
+        final int base = this.phase * taps;
+
+        int acc = ROUND;
+        for (int k = 0; k < taps; k++) {
+            acc += coefficients[base + k] * window[start + k];
+        }
+
+        this.position += this.step;
+        this.phase += this.stepPhase;
+        if (this.phase >= this.interpolation) {
+            this.phase -= this.interpolation;
+            this.position++;
+        }
+
+        acc >>= Q;
+        if (acc > Short.MAX_VALUE) {
+            return Short.MAX_VALUE;
+        }
+        if (acc < Short.MIN_VALUE) {
+            return Short.MIN_VALUE;
+        }
+        return acc;
+    }
+
+    /**
+     * Keeps the tail of the block as history of the next one.
+     */
+    private int complete(int[] window, int length, int count) {
+        System.arraycopy(window, length, window, 0, this.taps - 1);
+        this.position -= length;
+        return count;
+    }
+
+    /**
+     * Resamples a whole signal by linear interpolation.
+     * <p>
+     * Meant for block analysis of signals held as doubles, where the conversion ratio is close to one. The returned array
+     * is reused by the next call.
+     * </p>
+     *
+     * @param buffer the buffer containing the signal.
+     * @param len the length of the signal in samples.
+     * @return resampled signal
+     */
+    public double[] perform(double[] buffer, int len) {
+        final int size = (int) ((long) this.outputRate * len / this.inputRate);
+        if (this.signal == null || this.signal.length != size) {
+            this.signal = new double[size];
+        }
+        final double[] signal = this.signal;
+        if (len < 2) {
+            for (int i = 0; i < size; i++) {
+                signal[i] = buffer[0];
+            }
+            return signal;
+        }
+
+        // walk the original signal with a constant step, extrapolating the last segment
+        final double step = (double) this.inputRate / this.outputRate;
+        for (int i = 0; i < size; i++) {
+            final double x = i * step;
+            final int p = Math.min((int) x, len - 2);
+            signal[i] = buffer[p] + (x - p) * (buffer[p + 1] - buffer[p]);
+        }
         return signal;
     }
 }
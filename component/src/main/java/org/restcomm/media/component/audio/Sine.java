@@ -43,8 +43,8 @@ public class Sine extends AbstractSource {
     private final static AudioFormat LINEAR_AUDIO = FormatFactory.createAudioFormat("LINEAR", 8000, 16, 1);
     private final static Formats formats = new Formats();
 
-    private volatile long period = 20000000L;
-    private int packetSize = (int)(period / 1000000) * LINEAR_AUDIO.getSampleRate()/1000 * LINEAR_AUDIO.getSampleSize() / 8;
+    private volatile long period;
+    private int packetSize;
 
     private int f;
     private short A = Short.MAX_VALUE;
@@ -62,6 +62,8 @@ public class Sine extends AbstractSource {
         //number of seconds covered by one sample
         dt = 1. / LINEAR_AUDIO.getSampleRate();
         
+        this.period = scheduler.getPeriod();
+        this.packetSize = (int)(period / 1000000) * LINEAR_AUDIO.getSampleRate()/1000 * LINEAR_AUDIO.getSampleSize() / 8;
         this.input=new AudioInput(ComponentType.SINE.getType(),packetSize);
         this.connect(this.input); 
     }
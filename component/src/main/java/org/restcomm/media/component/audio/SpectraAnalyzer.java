@@ -51,7 +51,13 @@ public class SpectraAnalyzer extends AbstractSink {
     private double[] buffer = new double[81920];
     private volatile int len;
 
-    private double pow[];
+    private double pow[] = new double[4097];
+
+    // analysis buffers, reused for every second of signal
+    private final double[] block = new double[8000];
+    private final double[] re = new double[4097];
+    private final double[] im = new double[4097];
+    private final double[] dif = new double[4095];
 
     private FFT fft = new FFT();
     private Resampler resampler = new Resampler(8000, 8192);
@@ -84,12 +90,10 @@ public class SpectraAnalyzer extends AbstractSink {
     	output.stop();
     }        
     
-    private double[] mod(Complex[] x) {
-        double[] res = new double[x.length];
+    private void mod(double[] re, double[] im, double[] res) {
         for (int i = 0; i < res.length; i++) {
-            res[i] = Math.sqrt(x[i].re() * x[i].re() + x[i].im() * x[i].im());
+            res[i] = Math.sqrt(re[i] * re[i] + im[i] * im[i]);
         }
-        return res;
     }
 
     public void onMediaTransfer(Frame frame) throws IOException {
@@ -101,12 +105,10 @@ public class SpectraAnalyzer extends AbstractSink {
         }
     }
 
-    private double[] derivative(double[] spectra) {
-        double[] res = new double[spectra.length / 2 - 1];
+    private void derivative(double[] spectra, double[] res) {
         for (int i = 0; i < res.length; i++) {
             res[i] = spectra[i + 1] - spectra[i];
         }
-        return res;
     }
 
     private int[] findPeaks(double[] data) {
@@ -137,20 +139,14 @@ public class SpectraAnalyzer extends AbstractSink {
         System.out.println("len=" + len);
         int count = len / 8000;
         for (int i = 0; i < count; i++) {
-            double[] data = new double[8000];
-            System.arraycopy(buffer, 8000 * i, data, 0, 8000);
+            System.arraycopy(buffer, 8000 * i, block, 0, 8000);
 
-            double s[] = resampler.perform(data, 8000);
-
-            Complex[] signal = new Complex[8192];
-            for (int j = 0; j < 8192; j++) {
-                signal[j] = new Complex(s[j], 0);
-            }
+            double s[] = resampler.perform(block, 8000);
 
-            Complex[] sp = fft.fft(signal);
-            pow = mod(sp);
+            fft.transform(s, re, im, 8192);
+            mod(re, im, pow);
 
-            double[] dif = this.derivative(pow);
+            this.derivative(pow, dif);
             int[] freqs = this.findPeaks(dif);
 
             for (int k = 0; k < freqs.length; k++) {
@@ -22,8 +22,11 @@
 
 package org.restcomm.media.component.dsp;
 
+import org.apache.log4j.Logger;
 import org.restcomm.media.spi.dsp.Codec;
+import org.restcomm.media.spi.dsp.ConfigurableCodec;
 import org.restcomm.media.spi.dsp.Processor;
+import org.restcomm.media.spi.format.AudioFormat;
 import org.restcomm.media.spi.format.Format;
 import org.restcomm.media.spi.memory.Frame;
 
@@ -35,14 +38,25 @@ import org.restcomm.media.spi.memory.Frame;
  * formats defines format's priority. If frame has format matching to output
  * format the frame won't be changed.
  *
+ * Codecs are chained when none converts directly, typically decoding to
+ * linear audio and encoding from it, and linear audio is resampled when
+ * sampling rates differ. The chain resolved for a pair of formats is kept,
+ * so switching between streams of known formats costs no new search.
+ *
  * @author kulikov
  */
 public class Dsp implements Processor {
-    private Codec codec;
-    private Codec[] codecs;
 
-    //The current format of the frame stream
-    private Format sourceFormat,destinationFormat;    
+    private static final Logger logger = Logger.getLogger(Dsp.class);
+
+    //number of conversions remembered by the processor
+    private static final int CACHE_SIZE = 4;
+
+    private final Codec[] codecs;
+    private final TranscodingGraph graph;
+
+    //resolved conversions, most recent first
+    private volatile Pipeline[] pipelines = new Pipeline[0];
     
     /**
      * Creates new instance of processor.
@@ -50,7 +64,18 @@ public class Dsp implements Processor {
      * @param codecs
      */
     protected Dsp(Codec[] codecs) {
+        this(codecs, codecs == null ? null : new TranscodingGraph(codecs));
+    }
+
+    /**
+     * Creates new instance of processor sharing the graph of its factory.
+     *
+     * @param codecs the codecs, in the order the graph refers to them
+     * @param graph the conversions offered by the codecs
+     */
+    Dsp(Codec[] codecs, TranscodingGraph graph) {
         this.codecs = codecs;
+        this.graph = graph;
     }
 
     @Override
@@ -60,56 +85,115 @@ public class Dsp implements Processor {
 	    
     @Override
     public Frame process(Frame frame,Format source,Format destination) {
-    	if (source==null || destination==null)
-			return frame;
-		
-    	if(source.matches(destination))
-    		return frame;
-    	
-    	//normal flow: format of the stream is already known
-		if (sourceFormat!=null && source.matches(sourceFormat) && destinationFormat != null && destination.matches(destinationFormat)) {
-			//do transcode if required
-			if (codec != null) {
-				try {
-					return codec.process(frame);
-				} finally {
-					frame.recycle();
-				}
-			}
-
-			//return the original frame if no transcoding required
-			return frame;
-		}
-		
-		//check that codecs are defined.
-		if (codecs == null) {
-			//no spade - no questions
-			return frame;
-		}
-		
-		for (int i = 0; i < codecs.length; i++) {
-			//select codec wich can receive current frame
-			if (codecs[i].getSupportedInputFormat().matches(source)) {
-				//check if this codec can transform frame to any of the output format
-				if (codecs[i].getSupportedOutputFormat().matches(destination)) {
-					codec = codecs[i];
-					destinationFormat=destination;
-					sourceFormat=source;
-					break;
-				}
-			}
-		}
-		
-		//if codec found do the transcoding
-		if (codec != null) {
-			try {
-				return codec.process(frame);
-			} finally {
-				frame.recycle();
-			}    			    			    			
-		}    		
-		
-		//return frame without changes
-		return frame;
+        if (source == null || destination == null) {
+            return frame;
+        }
+
+        if (source.matches(destination)) {
+            return frame;
+        }
+
+        Pipeline pipeline = find(source, destination);
+        if (pipeline == null) {
+            pipeline = resolve(source, destination);
+        }
+        return pipeline.process(frame);
+    }
+
+    private Pipeline find(Format source, Format destination) {
+        final Pipeline[] pipelines = this.pipelines;
+        for (Pipeline pipeline : pipelines) {
+            if (pipeline.source == source && pipeline.destination == destination) {
+                return pipeline;
+            }
+        }
+        for (Pipeline pipeline : pipelines) {
+            if (pipeline.source.matches(source) && pipeline.destination.matches(destination)) {
+                //same conversion between formats negotiated anew, codecs may adopt new parameters
+                return cache(new Pipeline(source, destination, pipeline.stages));
+            }
+        }
+        return null;
+    }
+
+    private Pipeline resolve(Format source, Format destination) {
+        final int[] path = this.graph == null ? null : this.graph.getPath(source, destination);
+
+        final Codec[] stages;
+        if (path != null) {
+            stages = new Codec[path.length];
+            for (int i = 0; i < path.length; i++) {
+                final int codec = this.graph.getCodec(path[i]);
+                if (codec == TranscodingGraph.RESAMPLING) {
+                    stages[i] = resampler(this.graph.getSource(path[i]), this.graph.getDestination(path[i]));
+                } else {
+                    stages[i] = this.codecs[codec];
+                }
+            }
+        } else if (ResamplingCodec.isSupported(source, destination)) {
+            //linear audio at another sampling rate only needs to be resampled
+            stages = new Codec[] { resampler(source, destination) };
+        } else {
+            //no spade - no questions
+            if (logger.isDebugEnabled()) {
+                logger.debug("No conversion from " + source + " to " + destination + ", frames are left unchanged");
+            }
+            stages = new Codec[0];
+        }
+
+        return cache(new Pipeline(source, destination, stages));
+    }
+
+    private Pipeline cache(Pipeline pipeline) {
+        final Pipeline[] pipelines = this.pipelines;
+        final Pipeline[] updated = new Pipeline[Math.min(pipelines.length + 1, CACHE_SIZE)];
+        updated[0] = pipeline;
+        System.arraycopy(pipelines, 0, updated, 1, updated.length - 1);
+        this.pipelines = updated;
+        return pipeline;
+    }
+
+    private static Codec resampler(Format source, Format destination) {
+        return new ResamplingCodec(((AudioFormat) source).getSampleRate(), ((AudioFormat) destination).getSampleRate());
+    }
+
+    /**
+     * Chain of codecs converting frames between two formats.
+     */
+    private static final class Pipeline {
+
+        private final Format source;
+        private final Format destination;
+        private final Codec[] stages;
+
+        Pipeline(Format source, Format destination, Codec[] stages) {
+            this.source = source;
+            this.destination = destination;
+            this.stages = stages;
+            for (Codec stage : stages) {
+                if (stage instanceof ConfigurableCodec) {
+                    ((ConfigurableCodec) stage).configure(source, destination);
+                }
+            }
+        }
+
+        Frame process(Frame frame) {
+            Frame current = frame;
+            for (Codec stage : this.stages) {
+                //intermediate frames go back to the pool as soon as the next stage consumed them,
+                //unless the stage rewrote the frame in place
+                Frame next = null;
+                try {
+                    next = stage.process(current);
+                } finally {
+                    if (next != current) {
+                        current.recycle();
+                    }
+                }
+                current = next;
+            }
+            return current;
+        }
+
     }
 }
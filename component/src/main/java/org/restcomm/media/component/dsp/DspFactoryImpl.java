@@ -37,6 +37,9 @@ public class DspFactoryImpl implements DspFactory {
 	
     //list of registered codecs where codec is represented by its fully qualified class name
     private final ArrayList<String> classes;
+
+    //conversions offered by the registered codecs, built with the first processor
+    private volatile TranscodingGraph graph;
     
     public DspFactoryImpl() {
     	this.classes = new ArrayList<String>();
@@ -49,6 +52,7 @@ public class DspFactoryImpl implements DspFactory {
      */
     public void addCodec(String fqn) {
     	this.classes.add(fqn);
+    	this.graph = null;
     }
 
     /**
@@ -58,6 +62,7 @@ public class DspFactoryImpl implements DspFactory {
      */
     public void remove(String fqn) {
     	this.classes.remove(fqn);
+    	this.graph = null;
     }
 
     /**
@@ -78,11 +83,18 @@ public class DspFactoryImpl implements DspFactory {
         	Class<?> codecClass = DspFactoryImpl.class.getClassLoader().loadClass(fqn);
         	codecs[i] = (Codec) codecClass.newInstance();
         }
-        return new Dsp(codecs);
+
+        TranscodingGraph graph = this.graph;
+        if (graph == null) {
+            graph = new TranscodingGraph(codecs);
+            this.graph = graph;
+        }
+        return new Dsp(codecs, graph);
     }
     
     @Override
     public void setCodecs(List<String> list) {
         this.classes.addAll(list);
+        this.graph = null;
     }
 }
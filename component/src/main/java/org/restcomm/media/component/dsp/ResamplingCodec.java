@@ -0,0 +1,103 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2017, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.restcomm.media.component.dsp;
+
+import org.restcomm.media.component.audio.Resampler;
+import org.restcomm.media.spi.dsp.Codec;
+import org.restcomm.media.spi.format.AudioFormat;
+import org.restcomm.media.spi.format.Format;
+import org.restcomm.media.spi.format.FormatFactory;
+import org.restcomm.media.spi.memory.Frame;
+import org.restcomm.media.spi.memory.Memory;
+
+/**
+ * Converts linear audio from one sampling rate to another.
+ * <p>
+ * The codec keeps the state of the stream between frames, so one instance must be used per stream.
+ * </p>
+ */
+public class ResamplingCodec implements Codec {
+
+    private static final long serialVersionUID = 4409212716442036580L;
+
+    private final AudioFormat inputFormat;
+    private final AudioFormat outputFormat;
+    private final transient Resampler resampler;
+
+    /**
+     * Creates a new codec.
+     * 
+     * @param inputRate The sampling rate of input frames, in Hertz
+     * @param outputRate The sampling rate of output frames, in Hertz
+     */
+    public ResamplingCodec(int inputRate, int outputRate) {
+        this.inputFormat = FormatFactory.createAudioFormat("linear", inputRate, 16, 1);
+        this.outputFormat = FormatFactory.createAudioFormat("linear", outputRate, 16, 1);
+        this.resampler = new Resampler(inputRate, outputRate);
+    }
+
+    /**
+     * Tells whether frames can be converted from one format to another by changing their sampling rate.
+     * 
+     * @param source The format of the frames
+     * @param destination The expected format
+     * @return true if both formats are mono linear audio, false otherwise
+     */
+    public static boolean isSupported(Format source, Format destination) {
+        if (!(source instanceof AudioFormat) || !(destination instanceof AudioFormat)) {
+            return false;
+        }
+        final AudioFormat src = (AudioFormat) source;
+        final AudioFormat dst = (AudioFormat) destination;
+        return "linear".equals(src.getName().toString()) && "linear".equals(dst.getName().toString())
+                && src.getChannels() == 1 && dst.getChannels() == 1 && src.getSampleRate() > 0 && dst.getSampleRate() > 0;
+    }
+
+    @Override
+    public Format getSupportedInputFormat() {
+        return this.inputFormat;
+    }
+
+    @Override
+    public Format getSupportedOutputFormat() {
+        return this.outputFormat;
+    }
+
+    @Override
+    public Frame process(Frame frame) {
+        final int samples = frame.getLength() / 2;
+        final Frame res = Memory.allocate(this.resampler.getOutputLength(samples) * 2);
+        final int length = this.resampler.process(frame.getData(), frame.getOffset(), samples * 2, res.getData(), 0);
+
+        res.setOffset(0);
+        res.setLength(length);
+        res.setTimestamp(frame.getTimestamp());
+        res.setDuration(frame.getDuration());
+        res.setSequenceNumber(frame.getSequenceNumber());
+        res.setEOM(frame.isEOM());
+        res.setFormat(this.outputFormat);
+        res.setHeader(frame.getHeader());
+        return res;
+    }
+
+}
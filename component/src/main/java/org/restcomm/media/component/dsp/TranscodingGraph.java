@@ -0,0 +1,196 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2017, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.restcomm.media.component.dsp;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.restcomm.media.spi.dsp.Codec;
+import org.restcomm.media.spi.format.AudioFormat;
+import org.restcomm.media.spi.format.Format;
+
+/**
+ * Graph of the conversions offered by a set of codecs.
+ * <p>
+ * Formats are the nodes and codecs the edges of the graph, along with resampling edges between linear formats of different
+ * sampling rates. The shortest path between every pair of formats is computed when the graph is built, so converting
+ * through linear audio costs two hops while a codec converting directly between two formats costs one.
+ * </p>
+ */
+final class TranscodingGraph {
+
+    /**
+     * Edge of the graph that resamples linear audio instead of running a registered codec.
+     */
+    static final int RESAMPLING = -1;
+
+    private final Format[] formats;
+
+    // edges, by index: source node, destination node and codec index or RESAMPLING
+    private final int[] sources;
+    private final int[] destinations;
+    private final int[] codecs;
+
+    // shortest path between each pair of nodes, as edge indexes, null when unreachable
+    private final int[][][] paths;
+
+    /**
+     * Builds the graph of a set of codecs.
+     * 
+     * @param codecs The codecs, edges refer to them by their index in this array
+     */
+    TranscodingGraph(Codec[] codecs) {
+        final List<Format> nodes = new ArrayList<>();
+        for (Codec codec : codecs) {
+            add(nodes, codec.getSupportedInputFormat());
+            add(nodes, codec.getSupportedOutputFormat());
+        }
+        this.formats = nodes.toArray(new Format[nodes.size()]);
+
+        final List<int[]> edges = new ArrayList<>();
+        for (int i = 0; i < codecs.length; i++) {
+            edges.add(new int[] { indexOf(codecs[i].getSupportedInputFormat()), indexOf(codecs[i].getSupportedOutputFormat()), i });
+        }
+        for (int i = 0; i < this.formats.length; i++) {
+            for (int j = 0; j < this.formats.length; j++) {
+                if (i != j && ResamplingCodec.isSupported(this.formats[i], this.formats[j])
+                        && ((AudioFormat) this.formats[i]).getSampleRate() != ((AudioFormat) this.formats[j]).getSampleRate()) {
+                    edges.add(new int[] { i, j, RESAMPLING });
+                }
+            }
+        }
+
+        final int count = edges.size();
+        this.sources = new int[count];
+        this.destinations = new int[count];
+        this.codecs = new int[count];
+        for (int i = 0; i < count; i++) {
+            final int[] edge = edges.get(i);
+            this.sources[i] = edge[0];
+            this.destinations[i] = edge[1];
+            this.codecs[i] = edge[2];
+        }
+
+        this.paths = new int[this.formats.length][][];
+        for (int i = 0; i < this.formats.length; i++) {
+            this.paths[i] = search(i);
+        }
+    }
+
+    private static void add(List<Format> nodes, Format format) {
+        for (Format node : nodes) {
+            if (node.matches(format)) {
+                return;
+            }
+        }
+        nodes.add(format);
+    }
+
+    /**
+     * Breadth first search of the shortest paths leaving a node. Edges are visited in order, so registered codecs are
+     * preferred over resampling when paths have the same length.
+     */
+    private int[][] search(int source) {
+        final int nodes = this.formats.length;
+        final int[] parent = new int[nodes];
+        final int[] queue = new int[nodes];
+        for (int i = 0; i < nodes; i++) {
+            parent[i] = -2;
+        }
+        parent[source] = -1;
+
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = source;
+        while (head < tail) {
+            final int node = queue[head++];
+            for (int e = 0; e < this.sources.length; e++) {
+                final int next = this.destinations[e];
+                if (this.sources[e] == node && parent[next] == -2) {
+                    parent[next] = e;
+                    queue[tail++] = next;
+                }
+            }
+        }
+
+        final int[][] paths = new int[nodes][];
+        for (int destination = 0; destination < nodes; destination++) {
+            if (destination == source || parent[destination] == -2) {
+                continue;
+            }
+            int hops = 0;
+            for (int node = destination; node != source; node = this.sources[parent[node]]) {
+                hops++;
+            }
+            final int[] path = new int[hops];
+            for (int node = destination; node != source; node = this.sources[parent[node]]) {
+                path[--hops] = parent[node];
+            }
+            paths[destination] = path;
+        }
+        return paths;
+    }
+
+    private int indexOf(Format format) {
+        for (int i = 0; i < this.formats.length; i++) {
+            if (this.formats[i].matches(format)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the shortest conversion between two formats.
+     * 
+     * @param source The format of the frames
+     * @param destination The expected format
+     * @return the edges to follow, null if the formats are not connected
+     */
+    int[] getPath(Format source, Format destination) {
+        final int from = indexOf(source);
+        final int to = indexOf(destination);
+        if (from < 0 || to < 0) {
+            return null;
+        }
+        return this.paths[from][to];
+    }
+
+    Format getSource(int edge) {
+        return this.formats[this.sources[edge]];
+    }
+
+    Format getDestination(int edge) {
+        return this.formats[this.destinations[edge]];
+    }
+
+    /**
+     * Gets the codec of an edge.
+     * 
+     * @return the index of the codec, or {@link #RESAMPLING}
+     */
+    int getCodec(int edge) {
+        return this.codecs[edge];
+    }
+
+}
@@ -41,6 +41,7 @@ public class OOBComponent {
 	private final ConcurrentMap<OOBOutput> outputs;
 	private final AtomicBoolean shouldRead;
 	private final AtomicBoolean shouldWrite;
+	private volatile int affinity;
 
 	private Frame frame;
 
@@ -53,6 +54,7 @@ public class OOBComponent {
 		this.outputs = new ConcurrentMap<OOBOutput>();
 		this.shouldRead = new AtomicBoolean(false);
         this.shouldWrite = new AtomicBoolean(false);
+        this.affinity = -1;
 	}
 
 	public int getComponentId() {
@@ -64,11 +66,27 @@ public class OOBComponent {
 		this.shouldWrite.set(shouldWrite);
 	}
 
+	/**
+	 * Pins outputs of this component to media loop of the scheduler.
+	 * 
+	 * @param affinity the affinity key
+	 */
+	public void setAffinity(int affinity) {
+		this.affinity = affinity;
+		final Iterator<OOBOutput> activeOutputs = outputs.valuesIterator();
+		while (activeOutputs.hasNext()) {
+			activeOutputs.next().setAffinity(affinity);
+		}
+	}
+
 	public void addInput(OOBInput input) {
 		inputs.put(input.getInputId(), input);
 	}
 
 	public void addOutput(OOBOutput output) {
+		if (this.affinity >= 0) {
+			output.setAffinity(this.affinity);
+		}
 		outputs.put(output.getOutputId(), output);
 	}
 
@@ -114,7 +132,7 @@ public class OOBComponent {
 			if (!activeOutputs.hasNext()) {
 				output.offer(frame);
 			} else {
-				output.offer(frame.clone());
+				output.offer(frame.share());
 			}
 			output.wakeup();
 		}
@@ -25,7 +25,7 @@ package org.restcomm.media.component.oob;
 import java.io.IOException;
 
 import org.restcomm.media.component.AbstractSink;
-import org.restcomm.media.concurrent.ConcurrentCyclicFIFO;
+import org.restcomm.media.concurrent.MpmcRingQueue;
 import org.restcomm.media.spi.memory.Frame;
 
 /**
@@ -39,7 +39,7 @@ public class OOBInput extends AbstractSink {
 
 	private int inputId;
     private int limit=10;
-    private ConcurrentCyclicFIFO<Frame> buffer = new ConcurrentCyclicFIFO<Frame>();
+    private MpmcRingQueue<Frame> buffer = new MpmcRingQueue<Frame>(16);
     
     /**
      * Creates new stream
@@ -64,9 +64,14 @@ public class OOBInput extends AbstractSink {
     @Override
     public void onMediaTransfer(Frame frame) throws IOException {
     	if (buffer.size() >= limit) {
-    		buffer.poll().recycle();
+    		Frame oldest = buffer.poll();
+    		if (oldest != null) {
+    			oldest.recycle();
+    		}
     	} 
-    	buffer.offer(frame);    	
+    	if (!buffer.offer(frame)) {
+    		frame.recycle();
+    	}
     }
 
     /**
@@ -91,14 +96,16 @@ public class OOBInput extends AbstractSink {
      * Recycles input stream
      */
     public void recycle() {
-    	while(buffer.size()>0) {
-    		buffer.poll().recycle();    	    			       
+    	Frame frame;
+    	while((frame = buffer.poll()) != null) {
+    		frame.recycle();
     	}
     }
     
     public void resetBuffer() {
-    	while(buffer.size()>0) {
-    		buffer.poll().recycle();
+    	Frame frame;
+    	while((frame = buffer.poll()) != null) {
+    		frame.recycle();
     	}
     }
 }
@@ -45,6 +45,7 @@ public class OOBMixer {
 
 	private final AtomicBoolean started;
 	private final AtomicLong mixCount;
+	private volatile int affinity;
 
 	public OOBMixer(PriorityQueueScheduler scheduler) {
 		this.scheduler = scheduler;
@@ -52,6 +53,7 @@ public class OOBMixer {
 		this.mixer = new MixTask();
 		this.started = new AtomicBoolean(false);
 		this.mixCount = new AtomicLong(0);
+		this.affinity = -1;
 	}
 	
 	public long getMixCount() {
@@ -59,9 +61,27 @@ public class OOBMixer {
     }
 
 	public void addComponent(OOBComponent component) {
+		if (affinity >= 0) {
+			component.setAffinity(affinity);
+		}
 		components.put(component.getComponentId(), component);
 	}
 
+	/**
+	 * Pins mixing job and outputs of the components to media loop of the scheduler.
+	 * 
+	 * @param affinity
+	 *            the affinity key
+	 */
+	public void setAffinity(int affinity) {
+		this.affinity = affinity;
+		this.mixer.setAffinity(affinity);
+		Iterator<OOBComponent> activeComponents = components.valuesIterator();
+		while (activeComponents.hasNext()) {
+			activeComponents.next().setAffinity(affinity);
+		}
+	}
+
 	/**
 	 * Releases unused input stream
 	 * 
@@ -126,7 +146,7 @@ public class OOBMixer {
 			while (activeComponents.hasNext()) {
 				OOBComponent component = activeComponents.next();
 				if (component.getComponentId() != sourceComponent) {
-					component.offer(current.clone());
+					component.offer(current.share());
 				}
 			}
 
@@ -24,7 +24,7 @@ package org.restcomm.media.component.oob;
 
 import org.restcomm.media.component.AbstractSink;
 import org.restcomm.media.component.AbstractSource;
-import org.restcomm.media.concurrent.ConcurrentCyclicFIFO;
+import org.restcomm.media.concurrent.MpmcRingQueue;
 import org.restcomm.media.scheduler.PriorityQueueScheduler;
 import org.restcomm.media.spi.memory.Frame;
 
@@ -38,7 +38,7 @@ public class OOBOutput extends AbstractSource {
 	private static final long serialVersionUID = -1350715959623627363L;
 
 	private int outputId;
-    private ConcurrentCyclicFIFO<Frame> buffer = new ConcurrentCyclicFIFO<Frame>();
+    private MpmcRingQueue<Frame> buffer = new MpmcRingQueue<Frame>(4);
     
     /**
      * Creates new instance with default name.
@@ -67,22 +67,29 @@ public class OOBOutput extends AbstractSource {
 
     @Override
     public void stop() {
-    	while(buffer.size()>0) {
-    		buffer.poll().recycle();
+    	Frame frame;
+    	while((frame = buffer.poll()) != null) {
+    		frame.recycle();
     	}
     	super.stop();            
     }
     
     public void resetBuffer() {
-    	while(buffer.size()>0) {
-    		buffer.poll().recycle();
+    	Frame frame;
+    	while((frame = buffer.poll()) != null) {
+    		frame.recycle();
     	}
     }
     
     public void offer(Frame frame) {
     	if(buffer.size()>1) {
-        	buffer.poll().recycle();
+    		Frame oldest = buffer.poll();
+    		if(oldest != null) {
+    			oldest.recycle();
+    		}
+    	}
+    	if(!buffer.offer(frame)) {
+    		frame.recycle();
     	}
-    	buffer.offer(frame);
     }
 }
@@ -49,6 +49,7 @@ public class OOBSplitter {
 	private final InsideMixTask insideMixer;
 	private final OutsideMixTask outsideMixer;
 	private final AtomicBoolean started;
+	private volatile int affinity;
 
 	protected long mixCount = 0;
 
@@ -59,16 +60,43 @@ public class OOBSplitter {
 		this.insideMixer = new InsideMixTask();
 		this.outsideMixer = new OutsideMixTask();
 		this.started = new AtomicBoolean(false);
+		this.affinity = -1;
 	}
 
 	public void addInsideComponent(OOBComponent component) {
+		if (affinity >= 0) {
+			component.setAffinity(affinity);
+		}
 		insideComponents.put(component.getComponentId(), component);
 	}
 
 	public void addOutsideComponent(OOBComponent component) {
+		if (affinity >= 0) {
+			component.setAffinity(affinity);
+		}
 		outsideComponents.put(component.getComponentId(), component);
 	}
 
+	/**
+	 * Pins mixing jobs and outputs of the components to media loop of the scheduler.
+	 * 
+	 * @param affinity
+	 *            the affinity key
+	 */
+	public void setAffinity(int affinity) {
+		this.affinity = affinity;
+		this.insideMixer.setAffinity(affinity);
+		this.outsideMixer.setAffinity(affinity);
+		Iterator<OOBComponent> activeComponents = insideComponents.valuesIterator();
+		while (activeComponents.hasNext()) {
+			activeComponents.next().setAffinity(affinity);
+		}
+		activeComponents = outsideComponents.valuesIterator();
+		while (activeComponents.hasNext()) {
+			activeComponents.next().setAffinity(affinity);
+		}
+	}
+
 	/**
 	 * Releases inside component
 	 * 
@@ -139,7 +167,7 @@ public class OOBSplitter {
 				if (!outsideSIterator.hasNext()) {
 					component.offer(current);
 				} else {
-					component.offer(current.clone());
+					component.offer(current.share());
 				}
 			}
 
@@ -188,7 +216,7 @@ public class OOBSplitter {
 				if (!insideSIterator.hasNext()) {
 					component.offer(current);
 				} else {
-					component.offer(current.clone());
+					component.offer(current.share());
 				}
 			}
 
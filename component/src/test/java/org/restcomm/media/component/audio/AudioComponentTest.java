@@ -0,0 +1,197 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2017, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.component.audio;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.junit.Test;
+import org.restcomm.media.spi.format.AudioFormat;
+import org.restcomm.media.spi.format.FormatFactory;
+import org.restcomm.media.spi.memory.Frame;
+import org.restcomm.media.spi.memory.Memory;
+
+public class AudioComponentTest {
+
+    private static final AudioFormat WIDEBAND = FormatFactory.createAudioFormat("LINEAR", 16000, 16, 1);
+
+    private static final AudioFormat NARROWBAND = FormatFactory.createAudioFormat("LINEAR", 8000, 16, 1);
+
+    private static Frame frame(AudioFormat format, int frequency) {
+        final int samples = format.getSampleRate() / 50;
+        final Frame frame = Memory.allocate(samples * 2);
+        final byte[] data = frame.getData();
+        for (int i = 0; i < samples; i++) {
+            final short sample = (short) (8000 * Math.sin(2 * Math.PI * frequency * i / format.getSampleRate()));
+            data[2 * i] = (byte) sample;
+            data[2 * i + 1] = (byte) (sample >> 8);
+        }
+        frame.setOffset(0);
+        frame.setLength(data.length);
+        frame.setFormat(format);
+        return frame;
+    }
+
+    @Test
+    public void testDefaultNarrowband() {
+        final AudioComponent component = new AudioComponent(1);
+        assertEquals(AudioComponent.NARROWBAND, component.getSampleRate());
+        assertEquals(AudioComponent.NARROWBAND, component.getMixingRate());
+    }
+
+    @Test
+    public void testWidebandLeg() throws IOException {
+        final AudioComponent component = new AudioComponent(1);
+        final AudioInput input = new AudioInput(1, 320);
+        component.addInput(input);
+        component.updateMode(true, true);
+
+        // leg rate follows the input while mixing stays narrowband
+        input.onMediaTransfer(frame(WIDEBAND, 1000));
+        component.perform();
+        assertEquals(AudioComponent.WIDEBAND, component.getSampleRate());
+        assertEquals(160, component.getData().length);
+
+        // mixing at the leg rate needs no conversion
+        component.setMixingRate(AudioComponent.WIDEBAND);
+        input.onMediaTransfer(frame(WIDEBAND, 1000));
+        component.perform();
+        final int[] data = component.getData();
+        assertNotNull(data);
+        assertEquals(320, data.length);
+        assertEquals((int) (8000 * Math.sin(2 * Math.PI * 1000 * 5 / 16000)), data[5]);
+    }
+
+    @Test
+    public void testEncodeAtLegRate() {
+        final AudioComponent component = new AudioComponent(1);
+        component.setSampleRate(AudioComponent.NARROWBAND);
+        component.setMixingRate(AudioComponent.WIDEBAND);
+
+        final int[] mix = new int[320];
+        for (int i = 0; i < mix.length; i++) {
+            mix[i] = 1000;
+        }
+        component.encode(mix).recycle();
+
+        // once the resampling filter is filled a constant level passes unchanged
+        final Frame frame = component.encode(mix);
+        assertEquals(320, frame.getLength());
+        assertEquals(AudioComponent.NARROWBAND, ((AudioFormat) frame.getFormat()).getSampleRate());
+        assertTrue(frame.getData()[2] == (byte) 1000);
+        assertTrue(frame.getData()[3] == (byte) (1000 >> 8));
+        frame.recycle();
+    }
+
+    @Test
+    public void testVoiceActivity() throws IOException {
+        final AudioComponent component = new AudioComponent(1);
+        final AudioInput input = new AudioInput(1, 320);
+        component.addInput(input);
+        component.updateMode(true, false);
+        assertFalse(component.isVoiceActive());
+
+        input.onMediaTransfer(frame(NARROWBAND, 1000));
+        component.perform();
+        assertTrue(component.getEnergy() > 0);
+        assertTrue(component.isVoiceActive());
+
+        // silent frames keep the flag up during the hangover
+        for (int i = 0; i < 10; i++) {
+            input.onMediaTransfer(frame(NARROWBAND, 0));
+            component.perform();
+            assertEquals(0, component.getEnergy());
+            assertTrue(component.isVoiceActive());
+        }
+        input.onMediaTransfer(frame(NARROWBAND, 0));
+        component.perform();
+        assertFalse(component.isVoiceActive());
+
+        // components that stop sending are silent
+        input.onMediaTransfer(frame(NARROWBAND, 1000));
+        component.perform();
+        assertTrue(component.isVoiceActive());
+        component.perform();
+        assertFalse(component.isVoiceActive());
+    }
+
+    @Test
+    public void testSilenceIsNotDecoded() throws IOException {
+        final AudioComponent component = new AudioComponent(1);
+        final AudioInput input = new AudioInput(1, 320);
+        component.addInput(input);
+        component.updateMode(true, false);
+
+        // silent frames are decoded while they may still be mixed
+        input.onMediaTransfer(frame(NARROWBAND, 0));
+        component.perform();
+        assertNotNull(component.getData());
+
+        // and only measured once left out of the mix
+        component.setSkipSilence(true);
+        input.onMediaTransfer(frame(NARROWBAND, 0));
+        component.perform();
+        assertNull(component.getData());
+        assertFalse(component.isVoiceActive());
+
+        // voiced frames are always decoded, as are silent ones during the hangover
+        input.onMediaTransfer(frame(NARROWBAND, 1000));
+        component.perform();
+        assertNotNull(component.getData());
+        input.onMediaTransfer(frame(NARROWBAND, 0));
+        component.perform();
+        assertNotNull(component.getData());
+        assertTrue(component.isVoiceActive());
+    }
+
+    @Test
+    public void testDiscontinuousTransmission() throws IOException {
+        final AudioComponent component = new AudioComponent(1);
+        final AudioInput input = new AudioInput(1, 320);
+        component.addInput(input);
+        component.updateMode(true, false);
+
+        input.onMediaTransfer(frame(NARROWBAND, 1000));
+        component.perform();
+        assertTrue(component.isVoiceActive());
+
+        // empty frames are silence, kept within the hangover but never decoded
+        final Frame empty = frame(NARROWBAND, 1000);
+        empty.setLength(0);
+        input.onMediaTransfer(empty);
+        component.perform();
+        assertNull(component.getData());
+        assertEquals(0, component.getEnergy());
+        assertTrue(component.isVoiceActive());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsupportedRate() {
+        new AudioComponent(1).setSampleRate(44100);
+    }
+
+}
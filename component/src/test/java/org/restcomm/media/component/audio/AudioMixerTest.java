@@ -28,8 +28,12 @@
 package org.restcomm.media.component.audio;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.After;
 import org.junit.AfterClass;
@@ -43,6 +47,7 @@ import org.restcomm.media.component.audio.SpectraAnalyzer;
 import org.restcomm.media.scheduler.Clock;
 import org.restcomm.media.scheduler.PriorityQueueScheduler;
 import org.restcomm.media.scheduler.WallClock;
+import org.restcomm.media.spi.memory.Frame;
 
 /**
  *
@@ -203,4 +208,208 @@ public class AudioMixerTest {
                 
         testMixing();    	
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testActiveSpeakers() throws InterruptedException {
+        sine3.setAmplitude((short) (Short.MAX_VALUE / 8));
+        mixer.setActiveSpeakers(2);
+
+        sine1.activate();
+        sine2.activate();
+        sine3.activate();
+        analyzer.activate();
+
+        mixer.start();
+        Thread.sleep(5000);
+
+        mixer.stop();
+        sine1.deactivate();
+        sine2.deactivate();
+        sine3.deactivate();
+        analyzer.deactivate();
+
+        // the quiet source is left out of the mix
+        int res[] = analyzer.getSpectra();
+        assertEquals(2, res.length);
+        assertEquals(80, res[0], 5);
+        assertEquals(150, res[1], 5);
+    }
+
+    @Test
+    public void testParallelMixing() throws InterruptedException {
+        // enough listeners to split the conference over three threads
+        for (int i = 0; i < 96; i++) {
+            AudioComponent listener = new AudioComponent(100 + i);
+            listener.updateMode(false, true);
+            mixer.addComponent(listener);
+        }
+        mixer.setParallelism(4);
+
+        testMixing();
+    }
+
+    @Test
+    public void testSilentParticipants() throws InterruptedException {
+        // silent participants are left out, talking ones are still mixed
+        mixer.setVoiceActivityDetection(true);
+        sine3.setAmplitude((short) 0);
+        mixAndAnalyze();
+
+        // when nobody talks, listeners still get the shared silence
+        AudioComponent listener = new AudioComponent(5);
+        AudioOutput output = new AudioOutput(scheduler, 5);
+        listener.addOutput(output);
+        listener.updateMode(false, true);
+        mixer.addComponent(listener);
+        sine1.setAmplitude((short) 0);
+        sine2.setAmplitude((short) 0);
+
+        sine1.activate();
+        sine2.activate();
+        sine3.activate();
+        mixer.start();
+        Thread.sleep(500);
+        mixer.stop();
+        sine1.deactivate();
+        sine2.deactivate();
+        sine3.deactivate();
+
+        Frame frame = output.evolve(0);
+        assertNotNull(frame);
+        for (byte sample : frame.getData()) {
+            assertEquals(0, sample);
+        }
+        frame.recycle();
+    }
+
+    @Test
+    public void testSilentRoomKeepsStreaming() throws InterruptedException {
+        // every participant is silent, so none of their frames is decoded
+        mixer.setVoiceActivityDetection(true);
+        sine1.setAmplitude((short) 0);
+        sine2.setAmplitude((short) 0);
+        sine3.setAmplitude((short) 0);
+
+        final AtomicInteger frames = new AtomicInteger();
+        final AtomicInteger noise = new AtomicInteger();
+        AudioComponent listener = new AudioComponent(5);
+        listener.addOutput(new AudioOutput(scheduler, 5) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public void offer(Frame frame) {
+                final byte[] data = frame.getData();
+                for (int i = frame.getOffset(); i < frame.getOffset() + frame.getLength(); i++) {
+                    if (data[i] != 0) {
+                        noise.incrementAndGet();
+                    }
+                }
+                frames.incrementAndGet();
+                frame.recycle();
+            }
+
+        });
+        listener.updateMode(false, true);
+        mixer.addComponent(listener);
+
+        sine1.activate();
+        sine2.activate();
+        sine3.activate();
+        mixer.start();
+        Thread.sleep(500);
+        final int received = frames.get();
+        Thread.sleep(500);
+        mixer.stop();
+        sine1.deactivate();
+        sine2.deactivate();
+        sine3.deactivate();
+
+        // listeners keep receiving the shared silence rather than a dead stream
+        assertTrue(received > 0);
+        assertTrue(frames.get() - received >= 10);
+        assertEquals(0, noise.get());
+    }
+
+    @Test
+    public void testQuietParticipants() throws InterruptedException {
+        // a participant talking below the silence threshold
+        sine1.setAmplitude((short) 0);
+        sine2.setAmplitude((short) 0);
+        sine3.setAmplitude((short) 50);
+
+        // is heard when voice activity detection is left disabled
+        assertFalse(mixer.isVoiceActivityDetection());
+        mixQuietly();
+        assertTrue(sine3Component.speaker);
+
+        // and left out of the mix when enabled
+        mixer.setVoiceActivityDetection(true);
+        mixQuietly();
+        assertFalse(sine3Component.speaker);
+        assertFalse(sine3Component.isVoiceActive());
+    }
+
+    private void mixQuietly() throws InterruptedException {
+        sine1.activate();
+        sine2.activate();
+        sine3.activate();
+        mixer.start();
+        Thread.sleep(500);
+        mixer.stop();
+        sine1.deactivate();
+        sine2.deactivate();
+        sine3.deactivate();
+    }
+
+    @Test
+    public void testMixingRateFollowsParticipants() throws InterruptedException {
+        AudioComponent wideband = new AudioComponent(5);
+        wideband.setSampleRate(AudioComponent.WIDEBAND);
+        wideband.updateMode(false, true);
+        mixer.addComponent(wideband);
+
+        // narrowband by default, even with a wideband participant
+        assertEquals(AudioComponent.NARROWBAND, mixer.getSampleRate());
+        mixer.start();
+        Thread.sleep(200);
+        mixer.stop();
+        assertEquals(AudioComponent.NARROWBAND, wideband.getMixingRate());
+
+        // a higher limit lets the conference mix at the rate of its widest codec
+        mixer.setSampleRate(AudioComponent.FULLBAND);
+        mixer.start();
+        Thread.sleep(200);
+        mixer.stop();
+        assertEquals(AudioComponent.WIDEBAND, wideband.getMixingRate());
+        assertEquals(AudioComponent.WIDEBAND, sine1Component.getMixingRate());
+
+        // back to narrowband once the wideband participant leaves
+        mixer.release(wideband);
+        mixer.start();
+        Thread.sleep(200);
+        mixer.stop();
+        assertEquals(AudioComponent.NARROWBAND, sine1Component.getMixingRate());
+    }
+
+    private void mixAndAnalyze() throws InterruptedException {
+        sine1.activate();
+        sine2.activate();
+        sine3.activate();
+        analyzer.activate();
+
+        mixer.start();
+        Thread.sleep(5000);
+
+        mixer.stop();
+        sine1.deactivate();
+        sine2.deactivate();
+        sine3.deactivate();
+        analyzer.deactivate();
+
+        int res[] = analyzer.getSpectra();
+        assertEquals(2, res.length);
+        assertEquals(80, res[0], 5);
+        assertEquals(150, res[1], 5);
+    }
+}
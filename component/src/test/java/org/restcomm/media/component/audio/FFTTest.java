@@ -5,10 +5,13 @@
 
 package org.restcomm.media.component.audio;
 
+import static org.junit.Assert.assertEquals;
+
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
 import org.junit.BeforeClass;
+import org.junit.Ignore;
 import org.junit.Test;
 import org.restcomm.media.component.audio.Complex;
 import org.restcomm.media.component.audio.FFT;
@@ -58,4 +61,132 @@ public class FFTTest {
         System.out.println("Duration=" + (f-st));
     }
 
-}
\ No newline at end of file
+    /**
+     * Former recursive implementation, used as reference.
+     */
+    private static Complex[] recursive(Complex[] x) {
+        int N = x.length;
+        Complex[] y = new Complex[N];
+        if (N == 1) {
+            y[0] = x[0];
+            return y;
+        }
+        Complex[] even = new Complex[N / 2];
+        Complex[] odd = new Complex[N / 2];
+        for (int k = 0; k < N / 2; k++) {
+            even[k] = x[2 * k];
+            odd[k] = x[2 * k + 1];
+        }
+        Complex[] q = recursive(even);
+        Complex[] r = recursive(odd);
+        for (int k = 0; k < N / 2; k++) {
+            double kth = -2 * k * Math.PI / N;
+            Complex wk = new Complex(Math.cos(kth), Math.sin(kth));
+            y[k] = q[k].plus(wk.times(r[k]));
+            y[k + N / 2] = q[k].minus(wk.times(r[k]));
+        }
+        return y;
+    }
+
+    private static double[] signal(int n) {
+        final double[] signal = new double[n];
+        for (int i = 0; i < n; i++) {
+            signal[i] = 10000 * Math.sin(2 * Math.PI * 440 * i / 8000) + 3000 * Math.cos(2 * Math.PI * 1777 * i / 8000)
+                    + (i * 7919 % 1000) - 500;
+        }
+        return signal;
+    }
+
+    @Test
+    public void testComplexAccuracy() {
+        for (int n : new int[] { 2, 8, 256, 8192 }) {
+            final double[] signal = signal(2 * n);
+            final Complex[] x = new Complex[n];
+            final double[] re = new double[n];
+            final double[] im = new double[n];
+            for (int i = 0; i < n; i++) {
+                x[i] = new Complex(signal[2 * i], signal[2 * i + 1]);
+                re[i] = signal[2 * i];
+                im[i] = signal[2 * i + 1];
+            }
+
+            final Complex[] expected = recursive(x);
+            final Complex[] wrapped = fft.fft(x);
+            fft.transform(re, im, n);
+            for (int i = 0; i < n; i++) {
+                assertEquals(expected[i].re(), re[i], 1e-6 * n);
+                assertEquals(expected[i].im(), im[i], 1e-6 * n);
+                assertEquals(expected[i].re(), wrapped[i].re(), 1e-6 * n);
+                assertEquals(expected[i].im(), wrapped[i].im(), 1e-6 * n);
+            }
+        }
+    }
+
+    @Test
+    public void testRealAccuracy() {
+        for (int n : new int[] { 2, 4, 16, 1024, 8192 }) {
+            final double[] signal = signal(n);
+            final Complex[] x = new Complex[n];
+            for (int i = 0; i < n; i++) {
+                x[i] = new Complex(signal[i], 0);
+            }
+            final double[] re = new double[n / 2 + 1];
+            final double[] im = new double[n / 2 + 1];
+
+            final Complex[] expected = recursive(x);
+            fft.transform(signal, re, im, n);
+            for (int i = 0; i <= n / 2; i++) {
+                assertEquals(expected[i].re(), re[i], 1e-6 * n);
+                assertEquals(expected[i].im(), im[i], 1e-6 * n);
+            }
+            assertEquals(signal(n)[n - 1], signal[n - 1], 0);
+        }
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testNotPowerOfTwo() {
+        fft.fft(new Complex[] { new Complex(0, 0), new Complex(0, 0), new Complex(0, 0) });
+    }
+
+    @Ignore
+    @Test
+    public void testSpeed() {
+        final int n = 8192;
+        final int rounds = 200;
+        final double[] signal = signal(n);
+        final Complex[] x = new Complex[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = new Complex(signal[i], 0);
+        }
+        final double[] re = new double[n / 2 + 1];
+        final double[] im = new double[n / 2 + 1];
+
+        for (int r = 0; r < rounds; r++) {
+            recursive(x);
+            fft.fft(x);
+            fft.transform(signal, re, im, n);
+        }
+
+        long s = System.nanoTime();
+        for (int r = 0; r < rounds; r++) {
+            recursive(x);
+        }
+        final long objects = System.nanoTime() - s;
+
+        s = System.nanoTime();
+        for (int r = 0; r < rounds; r++) {
+            fft.fft(x);
+        }
+        final long wrapped = System.nanoTime() - s;
+
+        s = System.nanoTime();
+        for (int r = 0; r < rounds; r++) {
+            fft.transform(signal, re, im, n);
+        }
+        final long real = System.nanoTime() - s;
+
+        System.out.println(n + " points: recursive " + (objects / rounds) + " ns, wrapper " + (wrapped / rounds)
+                + " ns, real transform " + (real / rounds) + " ns");
+    }
+
+}
@@ -0,0 +1,256 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2017, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.component.audio;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+public class MixingKernelTest {
+
+    private static final int SAMPLES = 160;
+
+    private final Random random = new Random(7);
+
+    private int[][] generate(int participants, int amplitude) {
+        final int[][] inputs = new int[participants][SAMPLES];
+        for (int p = 0; p < participants; p++) {
+            for (int i = 0; i < SAMPLES; i++) {
+                inputs[p][i] = random.nextInt(2 * amplitude + 1) - amplitude;
+            }
+        }
+        return inputs;
+    }
+
+    private int[] mix(int[][] inputs, double gain, int[][] outputs) {
+        final int[] total = new int[SAMPLES];
+        for (int[] input : inputs) {
+            MixingKernel.accumulate(total, input, SAMPLES);
+        }
+        final int peak = MixingKernel.peak(total, SAMPLES);
+        final int shift = MixingKernel.shift(peak);
+        final int factor = MixingKernel.factor(gain, peak, shift);
+        MixingKernel.scale(total, SAMPLES, shift, factor);
+        for (int p = 0; p < inputs.length; p++) {
+            System.arraycopy(inputs[p], 0, outputs[p], 0, SAMPLES);
+            MixingKernel.subtract(total, outputs[p], SAMPLES, shift, factor);
+        }
+        return total;
+    }
+
+    /**
+     * Floating point mix, as implemented before the fixed point kernel, with negative peaks taken into account.
+     */
+    private double[] reference(int[][] inputs, double gain, double[][] outputs) {
+        final double[] total = new double[SAMPLES];
+        int peak = 0;
+        for (int i = 0; i < SAMPLES; i++) {
+            int sum = 0;
+            for (int[] input : inputs) {
+                sum += input[i];
+            }
+            total[i] = sum;
+            peak = Math.max(peak, Math.abs(sum));
+        }
+        double currGain = gain;
+        if (peak > Short.MAX_VALUE) {
+            currGain = (currGain * Short.MAX_VALUE) / peak;
+        }
+        for (int i = 0; i < SAMPLES; i++) {
+            total[i] *= currGain;
+        }
+        for (int p = 0; p < inputs.length; p++) {
+            for (int i = 0; i < SAMPLES; i++) {
+                outputs[p][i] = total[i] - inputs[p][i] * currGain;
+            }
+        }
+        return total;
+    }
+
+    private void assertMix(int[][] inputs, double gain, int tolerance) {
+        final int[][] outputs = new int[inputs.length][SAMPLES];
+        final double[][] expectedOutputs = new double[inputs.length][SAMPLES];
+        final int[] total = mix(inputs, gain, outputs);
+        final double[] expected = reference(inputs, gain, expectedOutputs);
+
+        for (int i = 0; i < SAMPLES; i++) {
+            assertTrue(total[i] >= Short.MIN_VALUE && total[i] <= Short.MAX_VALUE);
+            assertEquals(expected[i], total[i], tolerance);
+            for (int p = 0; p < inputs.length; p++) {
+                assertTrue(outputs[p][i] >= Short.MIN_VALUE && outputs[p][i] <= Short.MAX_VALUE);
+                final double clipped = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, expectedOutputs[p][i]));
+                assertEquals(clipped, outputs[p][i], 2 * tolerance);
+            }
+        }
+    }
+
+    @Test
+    public void testUnityGainIsExact() {
+        final int[][] inputs = generate(3, 8000);
+        final int[][] outputs = new int[3][SAMPLES];
+        final int[] total = mix(inputs, 1.0, outputs);
+
+        for (int i = 0; i < SAMPLES; i++) {
+            final int sum = inputs[0][i] + inputs[1][i] + inputs[2][i];
+            assertEquals(sum, total[i]);
+            for (int p = 0; p < inputs.length; p++) {
+                assertEquals(sum - inputs[p][i], outputs[p][i]);
+            }
+        }
+    }
+
+    @Test
+    public void testClipping() {
+        // low bits dropped by the shift cost at most 2 LSB
+        assertMix(generate(3, 32767), 1.0, 2);
+        assertMix(generate(10, 32767), 1.0, 2);
+        assertMix(generate(50, 32767), 1.0, 2);
+    }
+
+    @Test
+    public void testNegativePeak() {
+        final int[][] inputs = new int[2][SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            inputs[0][i] = -30000;
+            inputs[1][i] = i == 0 ? -30000 : 1000;
+        }
+        final int[] total = mix(inputs, 1.0, new int[2][SAMPLES]);
+
+        // the negative peak drives the gain, the sum does not wrap around
+        assertEquals(Short.MIN_VALUE + 1, total[0]);
+        assertTrue(total[1] < 0);
+        assertMix(inputs, 1.0, 1);
+    }
+
+    @Test
+    public void testGain() {
+        assertMix(generate(3, 8000), 0.5, 1);
+        assertMix(generate(3, 8000), -1 / 12.6, 1);
+        assertMix(generate(10, 32767), 0.25, 2);
+
+        // gain above unity never exceeds the 16 bit range
+        final int[] total = mix(generate(3, 16000), 4.0, new int[3][SAMPLES]);
+        for (int i = 0; i < SAMPLES; i++) {
+            assertTrue(total[i] >= Short.MIN_VALUE && total[i] <= Short.MAX_VALUE);
+        }
+    }
+
+    @Test
+    public void testSilence() {
+        final int[][] inputs = new int[3][SAMPLES];
+        final int[] total = mix(inputs, 1.0, new int[3][SAMPLES]);
+        for (int i = 0; i < SAMPLES; i++) {
+            assertEquals(0, total[i]);
+        }
+    }
+
+    /**
+     * Floating point mix, as implemented before the fixed point kernel.
+     */
+    private void mixDouble(int[][] inputs, int[] total, int[][] outputs, double gain) {
+        System.arraycopy(inputs[0], 0, total, 0, SAMPLES);
+        for (int p = 1; p < inputs.length; p++) {
+            for (int i = 0; i < SAMPLES; i++) {
+                total[i] += inputs[p][i];
+            }
+        }
+        int minValue = 0;
+        int maxValue = 0;
+        for (int i = 0; i < SAMPLES; i++) {
+            if (total[i] > maxValue) {
+                maxValue = total[i];
+            } else if (total[i] < minValue) {
+                minValue = total[i];
+            }
+        }
+        minValue = 0 - minValue;
+        if (minValue > maxValue) {
+            maxValue = minValue;
+        }
+        double currGain = gain;
+        if (maxValue > Short.MAX_VALUE) {
+            currGain = (currGain * Short.MAX_VALUE) / maxValue;
+        }
+        for (int i = 0; i < SAMPLES; i++) {
+            total[i] = (short) ((double) total[i] * currGain);
+        }
+        for (int p = 0; p < inputs.length; p++) {
+            final int[] current = outputs[p];
+            System.arraycopy(inputs[p], 0, current, 0, SAMPLES);
+            for (int i = 0; i < SAMPLES; i++) {
+                current[i] = total[i] - (short) ((double) current[i] * currGain);
+            }
+        }
+    }
+
+    private void mixFixed(int[][] inputs, int[] total, int[][] outputs, double gain) {
+        System.arraycopy(inputs[0], 0, total, 0, SAMPLES);
+        for (int p = 1; p < inputs.length; p++) {
+            MixingKernel.accumulate(total, inputs[p], SAMPLES);
+        }
+        final int peak = MixingKernel.peak(total, SAMPLES);
+        final int shift = MixingKernel.shift(peak);
+        final int factor = MixingKernel.factor(gain, peak, shift);
+        MixingKernel.scale(total, SAMPLES, shift, factor);
+        for (int p = 0; p < inputs.length; p++) {
+            System.arraycopy(inputs[p], 0, outputs[p], 0, SAMPLES);
+            MixingKernel.subtract(total, outputs[p], SAMPLES, shift, factor);
+        }
+    }
+
+    @Ignore
+    @Test
+    public void testSpeed() {
+        final int rounds = 20000;
+        for (int participants : new int[] { 3, 10, 50 }) {
+            final int[][] inputs = generate(participants, 20000);
+            final int[][] outputs = new int[participants][SAMPLES];
+            final int[] total = new int[SAMPLES];
+
+            // warm up both implementations
+            for (int r = 0; r < rounds; r++) {
+                mixDouble(inputs, total, outputs, 1.0);
+                mixFixed(inputs, total, outputs, 1.0);
+            }
+
+            long s = System.nanoTime();
+            for (int r = 0; r < rounds; r++) {
+                mixDouble(inputs, total, outputs, 1.0);
+            }
+            final long floating = System.nanoTime() - s;
+
+            s = System.nanoTime();
+            for (int r = 0; r < rounds; r++) {
+                mixFixed(inputs, total, outputs, 1.0);
+            }
+            final long fixed = System.nanoTime() - s;
+
+            System.out.println(participants + " participants: floating point " + (floating / rounds) + " ns, fixed point "
+                    + (fixed / rounds) + " ns per 20ms frame");
+        }
+    }
+
+}
@@ -31,6 +31,7 @@ import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
 import org.junit.BeforeClass;
+import org.junit.Ignore;
 import org.junit.Test;
 import org.restcomm.media.component.audio.Resampler;
 
@@ -88,4 +89,192 @@ public class ResamplerTest {
         }
     }
 
-}
\ No newline at end of file
+    private static int[] sine(int sampleRate, double frequency, int length, double offset) {
+        final int[] samples = new int[length];
+        for (int i = 0; i < length; i++) {
+            samples[i] = (int) Math.round(10000 * Math.sin(2 * Math.PI * frequency * (i - offset) / sampleRate));
+        }
+        return samples;
+    }
+
+    /**
+     * Resamples a signal frame by frame.
+     */
+    private static int[] stream(Resampler resampler, int[] input, int frame) {
+        final int[] output = new int[resampler.getOutputLength(input.length)];
+        final int[] block = new int[frame];
+        final int[] converted = new int[resampler.getOutputLength(frame)];
+        int count = 0;
+        for (int i = 0; i < input.length; i += frame) {
+            System.arraycopy(input, i, block, 0, frame);
+            final int n = resampler.process(block, frame, converted);
+            System.arraycopy(converted, 0, output, count, n);
+            count += n;
+        }
+        assertEquals(output.length, count);
+        return output;
+    }
+
+    /**
+     * Measures the signal to noise ratio of the output against the ideal tone, once the filter is filled.
+     */
+    private static double snr(Resampler resampler, double frequency) {
+        final int f = resampler.getInputRate();
+        final int F = resampler.getOutputRate();
+        final int[] output = stream(resampler, sine(f, frequency, f / 2, 0), f / 50);
+        final int[] expected = sine(F, frequency, output.length, resampler.getDelay());
+
+        double signal = 0;
+        double noise = 0;
+        for (int i = F / 50; i < output.length; i++) {
+            signal += (double) expected[i] * expected[i];
+            noise += (double) (output[i] - expected[i]) * (output[i] - expected[i]);
+        }
+        return 10 * Math.log10(signal / noise);
+    }
+
+    /**
+     * Measures the level of the output relative to the input level, once the filter is filled.
+     */
+    private static double gain(Resampler resampler, double frequency) {
+        final int f = resampler.getInputRate();
+        final int F = resampler.getOutputRate();
+        final int[] output = stream(resampler, sine(f, frequency, f / 2, 0), f / 50);
+
+        double energy = 0;
+        for (int i = F / 50; i < output.length; i++) {
+            energy += (double) output[i] * output[i];
+        }
+        final double rms = Math.sqrt(energy / (output.length - F / 50));
+        return 20 * Math.log10(rms / (10000 / Math.sqrt(2)));
+    }
+
+    @Test
+    public void testUpsamplingQuality() {
+        assertTrue(snr(new Resampler(8000, 16000), 1000) > 55);
+        assertTrue(snr(new Resampler(8000, 48000), 3000) > 55);
+        assertTrue(snr(new Resampler(16000, 48000), 6000) > 55);
+    }
+
+    @Test
+    public void testDownsamplingQuality() {
+        assertTrue(snr(new Resampler(16000, 8000), 1000) > 55);
+        assertTrue(snr(new Resampler(48000, 8000), 3000) > 55);
+        assertTrue(snr(new Resampler(48000, 16000), 6000) > 55);
+    }
+
+    @Test
+    public void testAntiAliasing() {
+        // tones above the Nyquist frequency of the lower rate would fold back into the voice band
+        assertTrue(gain(new Resampler(16000, 8000), 5000) < -60);
+        assertTrue(gain(new Resampler(48000, 8000), 7000) < -60);
+        assertTrue(gain(new Resampler(48000, 16000), 12000) < -60);
+    }
+
+    @Test
+    public void testAntiImaging() {
+        // upsampled tone must not leave images around multiples of the original rate
+        final Resampler resampler = new Resampler(8000, 48000);
+        final int[] output = stream(resampler, sine(8000, 1000, 4000, 0), 160);
+        final int[] expected = sine(48000, 1000, output.length, resampler.getDelay());
+
+        // the residue holds every image, it must stay far below the tone
+        double residue = 0;
+        for (int i = 960; i < output.length; i++) {
+            residue += (double) (output[i] - expected[i]) * (output[i] - expected[i]);
+        }
+        final double rms = Math.sqrt(residue / (output.length - 960));
+        assertTrue(20 * Math.log10(rms / 10000) < -60);
+    }
+
+    @Test
+    public void testStreaming() {
+        // frame boundaries must not change the output
+        final int[] input = sine(16000, 1234, 3200, 0);
+        final int[] whole = stream(new Resampler(16000, 48000), input, 3200);
+        final int[] frames = stream(new Resampler(16000, 48000), input, 320);
+        for (int i = 0; i < whole.length; i++) {
+            assertEquals(whole[i], frames[i]);
+        }
+    }
+
+    @Test
+    public void testBytes() {
+        final Resampler reference = new Resampler(8000, 16000);
+        final Resampler resampler = new Resampler(8000, 16000);
+        final int[] input = sine(8000, 700, 160, 0);
+        final int[] expected = new int[320];
+
+        final byte[] data = new byte[324];
+        for (int i = 0; i < input.length; i++) {
+            data[4 + 2 * i] = (byte) input[i];
+            data[5 + 2 * i] = (byte) (input[i] >> 8);
+        }
+        final byte[] output = new byte[640];
+
+        for (int frame = 0; frame < 3; frame++) {
+            assertEquals(320, reference.process(input, 160, expected));
+            assertEquals(640, resampler.process(data, 4, 320, output, 0));
+            for (int i = 0; i < expected.length; i++) {
+                assertEquals(expected[i], (short) ((output[2 * i + 1] << 8) | (output[2 * i] & 0xff)));
+            }
+        }
+    }
+
+    @Test
+    public void testSameRate() {
+        final Resampler resampler = new Resampler(16000, 16000);
+        final int[] input = sine(16000, 1000, 320, 0);
+        final int[] output = new int[320];
+        assertEquals(320, resampler.process(input, 320, output));
+        for (int i = 0; i < output.length; i++) {
+            assertEquals(input[i], output[i]);
+        }
+    }
+
+    @Test
+    public void testFullScale() {
+        // square wave overshoots after filtering, output must saturate instead of wrapping
+        final Resampler resampler = new Resampler(8000, 16000);
+        final int[] input = new int[160];
+        for (int i = 0; i < input.length; i++) {
+            input[i] = (i / 8) % 2 == 0 ? Short.MAX_VALUE : Short.MIN_VALUE;
+        }
+        final int[] output = new int[320];
+        for (int frame = 0; frame < 5; frame++) {
+            resampler.process(input, 160, output);
+            for (int i = 0; i < output.length; i++) {
+                assertTrue(output[i] <= Short.MAX_VALUE && output[i] >= Short.MIN_VALUE);
+                if (frame > 0 && i % 32 == 8) {
+                    assertTrue(Math.abs(output[i]) > 30000);
+                }
+            }
+        }
+    }
+
+    @Ignore
+    @Test
+    public void testSpeed() {
+        final int rounds = 20000;
+        final int[][] conversions = { { 8000, 16000 }, { 16000, 8000 }, { 8000, 48000 }, { 48000, 8000 }, { 16000, 48000 },
+                { 48000, 16000 } };
+        for (int[] conversion : conversions) {
+            final Resampler resampler = new Resampler(conversion[0], conversion[1]);
+            final int[] input = sine(conversion[0], 1000, conversion[0] / 50, 0);
+            final int[] output = new int[resampler.getOutputLength(input.length)];
+
+            for (int r = 0; r < rounds; r++) {
+                resampler.process(input, input.length, output);
+            }
+
+            final long s = System.nanoTime();
+            for (int r = 0; r < rounds; r++) {
+                resampler.process(input, input.length, output);
+            }
+            final long elapsed = System.nanoTime() - s;
+
+            System.out.println(conversion[0] + " Hz to " + conversion[1] + " Hz: " + (elapsed / rounds) + " ns per 20ms frame");
+        }
+    }
+
+}
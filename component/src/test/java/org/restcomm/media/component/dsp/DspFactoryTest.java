@@ -31,12 +31,15 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import org.junit.Test;
+import org.restcomm.media.codec.g711.AlawToUlawTranscoder;
 import org.restcomm.media.codec.g711.alaw.Decoder;
 import org.restcomm.media.codec.g711.alaw.Encoder;
+import org.restcomm.media.spi.dsp.ConfigurableCodec;
 import org.restcomm.media.spi.format.Format;
 import org.restcomm.media.spi.format.FormatFactory;
 import org.restcomm.media.spi.memory.Frame;
 import org.restcomm.media.spi.memory.Memory;
+import org.restcomm.media.spi.utils.Text;
 
 /**
  *
@@ -119,4 +122,170 @@ public class DspFactoryTest {
         System.out.println("fmt=" + frame2.getFormat().getName());
         assertTrue("Format missmatch", fmt2.matches(frame2.getFormat()));    	
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testResampling() throws Exception {
+        Format fmt = FormatFactory.createAudioFormat("linear", 16000, 16, 1);
+        Format fmt2 = FormatFactory.createAudioFormat("linear", 8000, 16, 1);
+
+        Dsp dsp = dspFactory.newProcessor();
+
+        for (int i = 0; i < 3; i++) {
+            Frame frame = Memory.allocate(640);
+            frame.setOffset(0);
+            frame.setLength(640);
+            frame.setFormat(fmt);
+            frame.setDuration(20000000L);
+
+            Frame frame2 = dsp.process(frame, fmt, fmt2);
+
+            assertTrue("Format missmatch", fmt2.matches(frame2.getFormat()));
+            assertEquals(320, frame2.getLength());
+            assertEquals(20000000L, frame2.getDuration());
+        }
+    }
+
+    private static Frame linear(Format fmt, short... samples) {
+        Frame frame = Memory.allocate(samples.length * 2);
+        byte[] data = frame.getData();
+        for (int i = 0; i < samples.length; i++) {
+            data[2 * i] = (byte) samples[i];
+            data[2 * i + 1] = (byte) (samples[i] >> 8);
+        }
+        frame.setOffset(0);
+        frame.setLength(samples.length * 2);
+        frame.setFormat(fmt);
+        return frame;
+    }
+
+    @Test
+    public void testMultiHop() throws Exception {
+        Format linear = FormatFactory.createAudioFormat("linear", 8000, 16, 1);
+        Format pcma = FormatFactory.createAudioFormat("pcma", 8000, 8, 1);
+        Format pcmu = FormatFactory.createAudioFormat("pcmu", 8000, 8, 1);
+
+        dspFactory.addCodec(Encoder.class.getName());
+        dspFactory.addCodec(Decoder.class.getName());
+        dspFactory.addCodec(org.restcomm.media.codec.g711.ulaw.Encoder.class.getName());
+        dspFactory.addCodec(org.restcomm.media.codec.g711.ulaw.Decoder.class.getName());
+
+        Dsp encoder = dspFactory.newProcessor();
+        Dsp transcoder = dspFactory.newProcessor();
+        Dsp decoder = dspFactory.newProcessor();
+
+        short[] samples = { 0, 1000, -1000, 8000, -8000, 30000, -30000, 12345 };
+        for (int i = 0; i < 3; i++) {
+            // A-law goes to mu-law through linear audio
+            Frame alaw = encoder.process(linear(linear, samples), linear, pcma);
+            Frame ulaw = transcoder.process(alaw, pcma, pcmu);
+            assertTrue("Format missmatch", pcmu.matches(ulaw.getFormat()));
+            assertEquals(samples.length, ulaw.getLength());
+
+            Frame result = decoder.process(ulaw, pcmu, linear);
+            byte[] data = result.getData();
+            for (int j = 0; j < samples.length; j++) {
+                short sample = (short) ((data[2 * j + 1] << 8) | (data[2 * j] & 0xff));
+                assertEquals(samples[j], sample, Math.abs(samples[j]) / 16 + 16);
+            }
+            result.recycle();
+        }
+    }
+
+    @Test
+    public void testSwitchingFormats() throws Exception {
+        Format linear = FormatFactory.createAudioFormat("linear", 8000, 16, 1);
+        Format pcma = FormatFactory.createAudioFormat("pcma", 8000, 8, 1);
+
+        dspFactory.addCodec(Encoder.class.getName());
+        dspFactory.addCodec(Decoder.class.getName());
+
+        Dsp dsp = dspFactory.newProcessor();
+        for (int i = 0; i < 3; i++) {
+            Frame encoded = dsp.process(linear(linear, (short) 100, (short) -100), linear, pcma);
+            assertTrue("Format missmatch", pcma.matches(encoded.getFormat()));
+            assertEquals(2, encoded.getLength());
+
+            Frame decoded = dsp.process(encoded, pcma, linear);
+            assertTrue("Format missmatch", linear.matches(decoded.getFormat()));
+            assertEquals(4, decoded.getLength());
+            decoded.recycle();
+        }
+    }
+
+    @Test
+    public void testNoConversion() throws Exception {
+        Format linear = FormatFactory.createAudioFormat("linear", 8000, 16, 1);
+        Format gsm = FormatFactory.createAudioFormat("gsm", 8000);
+
+        dspFactory.addCodec(Encoder.class.getName());
+        dspFactory.addCodec(Decoder.class.getName());
+
+        Dsp dsp = dspFactory.newProcessor();
+        Frame frame = linear(linear, (short) 1);
+        assertEquals(frame, dsp.process(frame, linear, gsm));
+    }
+
+    @Test
+    public void testDirectTranscoding() throws Exception {
+        Format pcma = FormatFactory.createAudioFormat("pcma", 8000, 8, 1);
+        Format pcmu = FormatFactory.createAudioFormat("pcmu", 8000, 8, 1);
+
+        dspFactory.addCodec(Encoder.class.getName());
+        dspFactory.addCodec(Decoder.class.getName());
+        dspFactory.addCodec(org.restcomm.media.codec.g711.ulaw.Encoder.class.getName());
+        dspFactory.addCodec(org.restcomm.media.codec.g711.ulaw.Decoder.class.getName());
+        dspFactory.addCodec(AlawToUlawTranscoder.class.getName());
+
+        Dsp dsp = dspFactory.newProcessor();
+        for (int i = 0; i < 3; i++) {
+            Frame frame = Memory.allocate(160);
+            frame.setOffset(0);
+            frame.setLength(160);
+            frame.setFormat(pcma);
+
+            // a single hop rewrites the payload in place
+            Frame frame2 = dsp.process(frame, pcma, pcmu);
+            assertEquals(frame, frame2);
+            assertTrue("Format missmatch", pcmu.matches(frame2.getFormat()));
+            frame2.recycle();
+        }
+    }
+
+    @Test
+    public void testConfiguration() throws Exception {
+        Format linear = FormatFactory.createAudioFormat("linear", 8000, 16, 1);
+        Format offered = FormatFactory.createAudioFormat("pcma", 8000, 8, 1);
+        offered.setOptions(new Text("mode=1"));
+
+        dspFactory.addCodec(ConfiguredEncoder.class.getName());
+
+        Dsp dsp = dspFactory.newProcessor();
+        ConfiguredEncoder encoder = (ConfiguredEncoder) dsp.getCodecs()[0];
+        for (int i = 0; i < 3; i++) {
+            dsp.process(linear(linear, (short) 1), linear, offered).recycle();
+        }
+        assertEquals(1, encoder.configurations);
+        assertEquals(offered, encoder.destination);
+
+        // same conversion negotiated anew with other parameters
+        Format renegotiated = FormatFactory.createAudioFormat("pcma", 8000, 8, 1);
+        renegotiated.setOptions(new Text("mode=2"));
+        dsp.process(linear(linear, (short) 1), linear, renegotiated).recycle();
+        assertEquals(2, encoder.configurations);
+        assertEquals(renegotiated, encoder.destination);
+    }
+
+    public static class ConfiguredEncoder extends Encoder implements ConfigurableCodec {
+
+        private int configurations;
+        private Format destination;
+
+        @Override
+        public void configure(Format source, Format destination) {
+            this.configurations++;
+            this.destination = destination;
+        }
+
+    }
+
+}
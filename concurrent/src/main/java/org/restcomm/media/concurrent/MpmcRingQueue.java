@@ -0,0 +1,58 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2017, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.concurrent;
+
+/**
+ * Bounded lock free ring queue that can be safely accessed by multiple producers and multiple consumers.
+ * 
+ * @see RingQueue
+ */
+public class MpmcRingQueue<E> extends RingQueue<E> {
+
+    public MpmcRingQueue(int capacity) {
+        super(capacity);
+    }
+
+    @Override
+    public E poll() {
+        long position = this.head.get();
+        for (;;) {
+            final int index = (int) position & this.mask;
+            final long difference = this.sequences.get(index) - (position + 1);
+            if (difference == 0) {
+                if (this.head.compareAndSet(position, position + 1)) {
+                    final E e = this.buffer.get(index);
+                    this.buffer.lazySet(index, null);
+                    this.sequences.lazySet(index, position + this.capacity);
+                    return e;
+                }
+                position = this.head.get();
+            } else if (difference < 0) {
+                // slot not written yet
+                return null;
+            } else {
+                position = this.head.get();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,55 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2017, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.concurrent;
+
+/**
+ * Bounded lock free ring queue that can be safely accessed by multiple producers and a single consumer.
+ * <p>
+ * Polling does not need to compete for the head of the queue, so it is cheaper than {@link MpmcRingQueue#poll()}. Only
+ * one thread at a time may poll or clear the queue.
+ * </p>
+ * 
+ * @see RingQueue
+ */
+public class MpscRingQueue<E> extends RingQueue<E> {
+
+    public MpscRingQueue(int capacity) {
+        super(capacity);
+    }
+
+    @Override
+    public E poll() {
+        final long position = this.head.get();
+        final int index = (int) position & this.mask;
+        if (this.sequences.get(index) != position + 1) {
+            // slot not written yet
+            return null;
+        }
+
+        final E e = this.buffer.get(index);
+        this.buffer.lazySet(index, null);
+        this.sequences.lazySet(index, position + this.capacity);
+        this.head.lazySet(position + 1);
+        return e;
+    }
+
+}
@@ -0,0 +1,145 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2017, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.concurrent;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded, array backed, lock free ring queue.
+ * <p>
+ * Every slot carries a sequence number telling whether it may be written by a producer or read by a consumer, as in
+ * Dmitry Vyukov's bounded queue. Offering and polling never lock and never allocate. The capacity is rounded up to the
+ * next power of two.
+ * </p>
+ * 
+ * @see MpmcRingQueue
+ * @see MpscRingQueue
+ */
+public abstract class RingQueue<E> {
+
+    protected final int capacity;
+    protected final int mask;
+    protected final AtomicReferenceArray<E> buffer;
+    protected final AtomicLongArray sequences;
+
+    /** Position of the next element to be written */
+    protected final PaddedAtomicLong tail;
+
+    /** Position of the next element to be read */
+    protected final PaddedAtomicLong head;
+
+    protected RingQueue(int capacity) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("Capacity must be at least 2.");
+        }
+        if (capacity > (1 << 30)) {
+            throw new IllegalArgumentException("Capacity cannot exceed 2^30.");
+        }
+
+        this.capacity = Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = this.capacity - 1;
+        this.buffer = new AtomicReferenceArray<E>(this.capacity);
+        this.sequences = new AtomicLongArray(this.capacity);
+        for (int i = 0; i < this.capacity; i++) {
+            this.sequences.set(i, i);
+        }
+        this.tail = new PaddedAtomicLong(0);
+        this.head = new PaddedAtomicLong(0);
+    }
+
+    /**
+     * Inserts an element at the tail of the queue, if there is room for it.
+     * 
+     * @param e The element to be inserted.
+     * @return true if the element was inserted. false if the queue is full.
+     */
+    public boolean offer(E e) {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+
+        long position = this.tail.get();
+        for (;;) {
+            final int index = (int) position & this.mask;
+            final long difference = this.sequences.get(index) - position;
+            if (difference == 0) {
+                if (this.tail.compareAndSet(position, position + 1)) {
+                    this.buffer.lazySet(index, e);
+                    this.sequences.lazySet(index, position + 1);
+                    return true;
+                }
+                position = this.tail.get();
+            } else if (difference < 0) {
+                // slot still holds element from previous lap
+                return false;
+            } else {
+                position = this.tail.get();
+            }
+        }
+    }
+
+    /**
+     * Retrieves and removes the head of the queue.
+     * 
+     * @return The head of the queue, or null if the queue is empty.
+     */
+    public abstract E poll();
+
+    /**
+     * Gets the number of elements in the queue.
+     * <p>
+     * The value is only a snapshot when other threads are accessing the queue.
+     * </p>
+     * 
+     * @return The number of elements.
+     */
+    public int size() {
+        // read head first so that size is never negative
+        final long headPosition = this.head.get();
+        final long size = this.tail.get() - headPosition;
+        return size < 0 ? 0 : (size > this.capacity ? this.capacity : (int) size);
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Gets the maximum number of elements the queue can hold.
+     * 
+     * @return The capacity of the queue.
+     */
+    public int capacity() {
+        return this.capacity;
+    }
+
+    /**
+     * Removes all elements from the queue.
+     */
+    public void clear() {
+        while (poll() != null) {
+            // drain
+        }
+    }
+
+}
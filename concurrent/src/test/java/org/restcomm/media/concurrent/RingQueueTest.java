@@ -0,0 +1,237 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2017, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.concurrent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+public class RingQueueTest {
+
+    private static final int THREADS = 8;
+    private static final int STEP = 100000;
+
+    @Test
+    public void testCapacityRoundedToPowerOfTwo() {
+        assertEquals(2, new MpmcRingQueue<Integer>(2).capacity());
+        assertEquals(8, new MpmcRingQueue<Integer>(5).capacity());
+        assertEquals(1024, new MpscRingQueue<Integer>(1024).capacity());
+    }
+
+    @Test
+    public void testOfferPollInOrder() {
+        testOfferPollInOrder(new MpmcRingQueue<Integer>(4));
+        testOfferPollInOrder(new MpscRingQueue<Integer>(4));
+    }
+
+    private void testOfferPollInOrder(RingQueue<Integer> queue) {
+        // wrap around several times
+        for (int lap = 0; lap < 3; lap++) {
+            for (int i = 0; i < 4; i++) {
+                assertTrue(queue.offer(i));
+            }
+            assertFalse(queue.offer(4));
+            assertEquals(4, queue.size());
+
+            for (int i = 0; i < 4; i++) {
+                assertEquals(Integer.valueOf(i), queue.poll());
+            }
+            assertNull(queue.poll());
+            assertTrue(queue.isEmpty());
+        }
+    }
+
+    @Test
+    public void testClear() {
+        final RingQueue<Integer> queue = new MpmcRingQueue<Integer>(8);
+        for (int i = 0; i < 5; i++) {
+            queue.offer(i);
+        }
+        queue.clear();
+        assertEquals(0, queue.size());
+        assertNull(queue.poll());
+        assertTrue(queue.offer(10));
+        assertEquals(Integer.valueOf(10), queue.poll());
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testOfferNull() {
+        new MpscRingQueue<Integer>(4).offer(null);
+    }
+
+    @Test
+    public void testMultipleProducersMultipleConsumers() throws InterruptedException {
+        final MpmcRingQueue<Integer> queue = new MpmcRingQueue<Integer>(1024);
+        final AtomicLong sum = new AtomicLong(0);
+        final AtomicInteger received = new AtomicInteger(0);
+        final CountDownLatch done = new CountDownLatch(THREADS * 2);
+
+        for (int i = 0; i < THREADS; i++) {
+            new Producer(queue, i * STEP, done).start();
+            new Thread() {
+                @Override
+                public void run() {
+                    while (received.get() < THREADS * STEP) {
+                        Integer value = queue.poll();
+                        if (value != null) {
+                            sum.addAndGet(value);
+                            received.incrementAndGet();
+                        } else {
+                            Thread.yield();
+                        }
+                    }
+                    done.countDown();
+                }
+            }.start();
+        }
+        done.await();
+
+        final long total = (long) THREADS * STEP;
+        assertEquals(total, received.get());
+        assertEquals(total * (total - 1) / 2, sum.get());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testMultipleProducersSingleConsumer() throws InterruptedException {
+        final MpscRingQueue<Integer> queue = new MpscRingQueue<Integer>(1024);
+        final CountDownLatch done = new CountDownLatch(THREADS);
+        final int[] lastSeen = new int[THREADS];
+
+        for (int i = 0; i < THREADS; i++) {
+            lastSeen[i] = -1;
+            new Producer(queue, i * STEP, done).start();
+        }
+
+        // elements of each producer must come out in the order they were offered
+        int received = 0;
+        while (received < THREADS * STEP) {
+            Integer value = queue.poll();
+            if (value != null) {
+                final int producer = value / STEP;
+                assertTrue(value > lastSeen[producer]);
+                lastSeen[producer] = value;
+                received++;
+            }
+        }
+        done.await();
+        assertTrue(queue.isEmpty());
+    }
+
+    /**
+     * Compares throughput of the ring queue and the linked queue under contention.
+     */
+    @Test
+    @Ignore
+    public void testSpeed() throws InterruptedException {
+        for (int threads = THREADS; threads <= THREADS * 2; threads *= 2) {
+            long fifoTime = 0, ringTime = 0;
+            for (int j = 0; j < 10; j++) {
+                fifoTime += measure(new FifoAdapter(), threads);
+                ringTime += measure(new MpmcRingQueue<Integer>(1024), threads);
+            }
+            System.out.println(threads + " threads: FIFO time:" + fifoTime + " Ring time:" + ringTime);
+            assertTrue(ringTime < fifoTime);
+        }
+    }
+
+    private long measure(final RingQueue<Integer> queue, final int threads) throws InterruptedException {
+        final AtomicInteger received = new AtomicInteger(0);
+        final CountDownLatch done = new CountDownLatch(threads * 2);
+        final long startTime = System.currentTimeMillis();
+
+        for (int i = 0; i < threads; i++) {
+            new Producer(queue, i * STEP, done).start();
+            new Thread() {
+                @Override
+                public void run() {
+                    while (received.get() < threads * STEP) {
+                        if (queue.poll() != null) {
+                            received.incrementAndGet();
+                        } else {
+                            Thread.yield();
+                        }
+                    }
+                    done.countDown();
+                }
+            }.start();
+        }
+        done.await();
+        return System.currentTimeMillis() - startTime;
+    }
+
+    private static class Producer extends Thread {
+
+        private final RingQueue<Integer> queue;
+        private final int start;
+        private final CountDownLatch done;
+
+        public Producer(RingQueue<Integer> queue, int start, CountDownLatch done) {
+            this.queue = queue;
+            this.start = start;
+            this.done = done;
+        }
+
+        @Override
+        public void run() {
+            for (int i = 0; i < STEP; i++) {
+                final Integer value = start + i;
+                while (!queue.offer(value)) {
+                    Thread.yield();
+                }
+            }
+            done.countDown();
+        }
+    }
+
+    /**
+     * Exposes the linked queue through the ring queue contract so both can be measured the same way.
+     */
+    private static class FifoAdapter extends RingQueue<Integer> {
+
+        private final ConcurrentCyclicFIFO<Integer> fifo = new ConcurrentCyclicFIFO<Integer>();
+
+        public FifoAdapter() {
+            super(2);
+        }
+
+        @Override
+        public boolean offer(Integer e) {
+            fifo.offer(e);
+            return true;
+        }
+
+        @Override
+        public Integer poll() {
+            return fifo.poll();
+        }
+    }
+
+}
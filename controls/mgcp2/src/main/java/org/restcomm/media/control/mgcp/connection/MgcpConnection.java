@@ -166,4 +166,11 @@ public interface MgcpConnection extends MgcpEventSubject {
      */
     OOBComponent getOutOfBandComponent();
 
+    /**
+     * Pins the media components of the connection to a media loop of the scheduler.
+     * 
+     * @param affinity The affinity key of the endpoint that owns the connection
+     */
+    void setAffinity(int affinity);
+
 }
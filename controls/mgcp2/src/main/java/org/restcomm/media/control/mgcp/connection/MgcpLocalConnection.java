@@ -201,6 +201,13 @@ public class MgcpLocalConnection extends AbstractMgcpConnection {
     public OOBComponent getOutOfBandComponent() {
         return this.audioChannel.getOOBComponent();
     }
+
+    @Override
+    public void setAffinity(int affinity) {
+        // Local channel has no media jobs of its own, only the outputs of its components
+        this.audioChannel.getAudioComponent().setAffinity(affinity);
+        this.audioChannel.getOOBComponent().setAffinity(affinity);
+    }
     
     @Override
     protected Logger log() {
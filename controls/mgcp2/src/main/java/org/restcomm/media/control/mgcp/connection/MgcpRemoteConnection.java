@@ -417,6 +417,11 @@ public class MgcpRemoteConnection extends AbstractMgcpConnection implements RtpL
         return this.audioChannel.getAudioOobComponent();
     }
 
+    @Override
+    public void setAffinity(int affinity) {
+        this.audioChannel.setAffinity(affinity);
+    }
+
     @Override
     public void onRtpFailure(Throwable e) {
         String message = "RTP channel failure on connection " + this.cname + "!";
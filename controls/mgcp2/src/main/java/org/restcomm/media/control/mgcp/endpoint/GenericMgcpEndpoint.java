@@ -81,6 +81,9 @@ public class GenericMgcpEndpoint implements MgcpEndpoint {
     // Endpoint State
     private final AtomicBoolean active;
 
+    // Media loop of the endpoint, -1 while not pinned
+    private volatile int affinity;
+
     // Events and Signals
     private NotifiedEntity notifiedEntity;
     private ConcurrentHashMap<String, MgcpSignal> signals;
@@ -102,6 +105,7 @@ public class GenericMgcpEndpoint implements MgcpEndpoint {
 
         // Endpoint State
         this.active = new AtomicBoolean(false);
+        this.affinity = -1;
 
         // Media Components
         this.mediaGroup = mediaGroup;
@@ -127,6 +131,26 @@ public class GenericMgcpEndpoint implements MgcpEndpoint {
         return this.mediaGroup;
     }
 
+    /**
+     * Pins the media components of the endpoint to a media loop of the scheduler.<br>
+     * Connections created afterwards are pinned to the same loop, so the whole media path of a call is ticked by a single
+     * loop.
+     * 
+     * @param affinity The affinity key, see PriorityQueueScheduler#nextAffinity()
+     */
+    public void setAffinity(int affinity) {
+        this.affinity = affinity;
+    }
+
+    /**
+     * Gets the media loop affinity of the endpoint.
+     * 
+     * @return The affinity key or -1 if endpoint is not pinned to any loop
+     */
+    public int getAffinity() {
+        return this.affinity;
+    }
+
     public boolean hasConnections() {
         return !this.connections.isEmpty();
     }
@@ -166,6 +190,9 @@ public class GenericMgcpEndpoint implements MgcpEndpoint {
     @Override
     public MgcpConnection createConnection(int callId, boolean local) {
         MgcpConnection connection = local ? this.connectionProvider.provideLocal(callId) : this.connectionProvider.provideRemote(callId);
+        if (this.affinity >= 0) {
+            connection.setAffinity(this.affinity);
+        }
         registerConnection(callId, connection);
         if (!connection.isLocal()) {
             connection.observe(this);
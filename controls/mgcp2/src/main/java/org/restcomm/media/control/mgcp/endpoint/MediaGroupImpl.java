@@ -119,6 +119,20 @@ public class MediaGroupImpl implements MediaGroup {
         return engine;
     }
 
+    /**
+     * Pins the media resources of the group to a media loop of the scheduler.
+     * 
+     * @param affinity The affinity key of the endpoint that owns the media group
+     */
+    public void setAffinity(int affinity) {
+        // TODO try getting rid of implementation casts
+        ((AudioPlayerImpl) this.player).setAffinity(affinity);
+        ((AudioRecorderImpl) this.recorder).setAffinity(affinity);
+        ((DetectorImpl) this.detector).setAffinity(affinity);
+        this.audioComponent.setAffinity(affinity);
+        this.oobComponent.setAffinity(affinity);
+    }
+
     @Override
     public Player getPlayer() {
         return this.player;
@@ -44,6 +44,14 @@ public class MgcpMixerEndpoint extends GenericMgcpEndpoint {
         this.outbandMixer = outbandMixer;
     }
 
+    @Override
+    public void setAffinity(int affinity) {
+        super.setAffinity(affinity);
+        this.inbandMixer.setAffinity(affinity);
+        this.outbandMixer.setAffinity(affinity);
+        ((MediaGroupImpl) this.mediaGroup).setAffinity(affinity);
+    }
+
     @Override
     protected void onConnectionCreated(MgcpConnection connection) {
         this.inbandMixer.addComponent(connection.getAudioComponent());
@@ -43,6 +43,14 @@ public class MgcpSplitterEndpoint extends GenericMgcpEndpoint {
         this.outbandSplitter = outbandSplitter;
     }
 
+    @Override
+    public void setAffinity(int affinity) {
+        super.setAffinity(affinity);
+        this.inbandSplitter.setAffinity(affinity);
+        this.outbandSplitter.setAffinity(affinity);
+        ((MediaGroupImpl) this.mediaGroup).setAffinity(affinity);
+    }
+
     @Override
     protected void onConnectionCreated(MgcpConnection connection) {
         if (connection.isLocal()) {
@@ -40,12 +40,22 @@ public class MgcpMixerEndpointProvider extends AbstractMgcpEndpointProvider<Mgcp
     private final PriorityQueueScheduler mediaScheduler;
     private final MgcpConnectionProvider connectionProvider;
     private final MediaGroupProvider mediaGroupProvider;
+    private final int activeSpeakers;
+    private final int sampleRate;
+    private final boolean voiceActivityDetection;
 
-    public MgcpMixerEndpointProvider(String namespace, String domain, PriorityQueueScheduler mediaScheduler, MgcpConnectionProvider connectionProvider, MediaGroupProvider mediaGroupProvider) {
+    public MgcpMixerEndpointProvider(String namespace, String domain, PriorityQueueScheduler mediaScheduler, MgcpConnectionProvider connectionProvider, MediaGroupProvider mediaGroupProvider, int activeSpeakers, int sampleRate, boolean voiceActivityDetection) {
         super(namespace, domain);
         this.mediaScheduler = mediaScheduler;
         this.connectionProvider = connectionProvider;
         this.mediaGroupProvider = mediaGroupProvider;
+        this.activeSpeakers = activeSpeakers;
+        this.sampleRate = sampleRate;
+        this.voiceActivityDetection = voiceActivityDetection;
+    }
+
+    public MgcpMixerEndpointProvider(String namespace, String domain, PriorityQueueScheduler mediaScheduler, MgcpConnectionProvider connectionProvider, MediaGroupProvider mediaGroupProvider) {
+        this(namespace, domain, mediaScheduler, connectionProvider, mediaGroupProvider, 0, 8000, false);
     }
 
     @Override
@@ -53,8 +63,15 @@ public class MgcpMixerEndpointProvider extends AbstractMgcpEndpointProvider<Mgcp
         final EndpointIdentifier endpointId = new EndpointIdentifier(generateId(), getDomain());
         final AudioMixer audioMixer = new AudioMixer(this.mediaScheduler);
         final OOBMixer oobMixer = new OOBMixer(this.mediaScheduler);
+        audioMixer.setActiveSpeakers(this.activeSpeakers);
+        audioMixer.setSampleRate(this.sampleRate);
+        audioMixer.setVoiceActivityDetection(this.voiceActivityDetection);
         final MediaGroup mediaGroup = this.mediaGroupProvider.provide();
-        return new MgcpMixerEndpoint(endpointId, audioMixer, oobMixer, this.connectionProvider, mediaGroup);
+        final MgcpMixerEndpoint endpoint = new MgcpMixerEndpoint(endpointId, audioMixer, oobMixer, this.connectionProvider, mediaGroup);
+
+        // Pin all media jobs of the endpoint and its connections to the same media loop
+        endpoint.setAffinity(this.mediaScheduler.nextAffinity());
+        return endpoint;
     }
 
 }
@@ -54,7 +54,11 @@ public class MgcpSplitterEndpointProvider extends AbstractMgcpEndpointProvider<M
         final AudioSplitter audioSplitter = new AudioSplitter(this.mediaScheduler);
         final OOBSplitter oobSplitter = new OOBSplitter(this.mediaScheduler);
         final MediaGroup mediaGroup = this.mediaGroupProvider.provide();
-        return new MgcpSplitterEndpoint(endpointId, audioSplitter, oobSplitter, this.connectionProvider, mediaGroup);
+        final MgcpSplitterEndpoint endpoint = new MgcpSplitterEndpoint(endpointId, audioSplitter, oobSplitter, this.connectionProvider, mediaGroup);
+
+        // Pin all media jobs of the endpoint and its connections to the same media loop
+        endpoint.setAffinity(this.mediaScheduler.nextAffinity());
+        return endpoint;
     }
 
 }
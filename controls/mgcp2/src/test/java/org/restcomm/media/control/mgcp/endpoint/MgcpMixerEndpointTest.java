@@ -21,7 +21,9 @@
 
 package org.restcomm.media.control.mgcp.endpoint;
 
+import static org.junit.Assert.assertEquals;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
 import static org.mockito.Mockito.*;
 
 import org.junit.Test;
@@ -79,4 +81,54 @@ public class MgcpMixerEndpointTest {
         verify(outbandMixer, times(2)).release(any(OOBComponent.class));
     }
 
+    @Test
+    public void testConnectionsArePinnedToEndpointLoop() {
+        // given
+        final int callId = 1;
+        final MgcpRemoteConnection connection = mock(MgcpRemoteConnection.class);
+        final AudioMixer inbandMixer = mock(AudioMixer.class);
+        final OOBMixer outbandMixer = mock(OOBMixer.class);
+        final MgcpConnectionProvider connections = mock(MgcpConnectionProvider.class);
+        final MediaGroupImpl mediaGroup = mock(MediaGroupImpl.class);
+        final EndpointIdentifier endpointId = new EndpointIdentifier("mobicents/mock/1", "127.0.0.1:2427");
+        final MgcpMixerEndpoint endpoint = new MgcpMixerEndpoint(endpointId, inbandMixer, outbandMixer, connections, mediaGroup);
+
+        // when
+        when(connections.provideRemote(callId)).thenReturn(connection);
+        when(connection.getIdentifier()).thenReturn(1);
+        when(connection.getCallIdentifier()).thenReturn(callId);
+
+        endpoint.setAffinity(3);
+        endpoint.createConnection(callId, false);
+
+        // then
+        assertEquals(3, endpoint.getAffinity());
+        verify(inbandMixer).setAffinity(3);
+        verify(outbandMixer).setAffinity(3);
+        verify(mediaGroup).setAffinity(3);
+        verify(connection).setAffinity(3);
+    }
+
+    @Test
+    public void testUnpinnedEndpointLeavesConnectionsUnpinned() {
+        // given
+        final int callId = 1;
+        final MgcpRemoteConnection connection = mock(MgcpRemoteConnection.class);
+        final MgcpConnectionProvider connections = mock(MgcpConnectionProvider.class);
+        final MediaGroup mediaGroup = mock(MediaGroupImpl.class);
+        final EndpointIdentifier endpointId = new EndpointIdentifier("mobicents/mock/1", "127.0.0.1:2427");
+        final MgcpMixerEndpoint endpoint = new MgcpMixerEndpoint(endpointId, mock(AudioMixer.class), mock(OOBMixer.class), connections, mediaGroup);
+
+        // when
+        when(connections.provideRemote(callId)).thenReturn(connection);
+        when(connection.getIdentifier()).thenReturn(1);
+        when(connection.getCallIdentifier()).thenReturn(callId);
+
+        endpoint.createConnection(callId, false);
+
+        // then
+        assertEquals(-1, endpoint.getAffinity());
+        verify(connection, never()).setAffinity(anyInt());
+    }
+
 }
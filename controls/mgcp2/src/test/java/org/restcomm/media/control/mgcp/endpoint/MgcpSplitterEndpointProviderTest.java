@@ -24,9 +24,12 @@ package org.restcomm.media.control.mgcp.endpoint;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import org.junit.Test;
 import org.restcomm.media.control.mgcp.connection.MgcpConnectionProvider;
+import org.restcomm.media.control.mgcp.endpoint.MediaGroupImpl;
 import org.restcomm.media.control.mgcp.endpoint.MgcpSplitterEndpoint;
 import org.restcomm.media.control.mgcp.endpoint.provider.MediaGroupProvider;
 import org.restcomm.media.control.mgcp.endpoint.provider.MgcpSplitterEndpointProvider;
@@ -48,7 +51,12 @@ public class MgcpSplitterEndpointProviderTest {
         final MediaGroupProvider mediaGroupProvider = mock(MediaGroupProvider.class);
         final MgcpSplitterEndpointProvider provider = new MgcpSplitterEndpointProvider(namespace, domain, mediaScheduler, connections, mediaGroupProvider);
 
+        final MediaGroupImpl mediaGroup = mock(MediaGroupImpl.class);
+
         // when
+        when(mediaGroupProvider.provide()).thenReturn(mediaGroup);
+        when(mediaScheduler.nextAffinity()).thenReturn(0, 1, 2);
+
         MgcpSplitterEndpoint endpoint1 = provider.provide();
         MgcpSplitterEndpoint endpoint2 = provider.provide();
         MgcpSplitterEndpoint endpoint3 = provider.provide();
@@ -60,6 +68,10 @@ public class MgcpSplitterEndpointProviderTest {
         assertFalse(endpoint2.isActive());
         assertEquals(namespace + 3 + "@" + domain, endpoint3.getEndpointId().toString());
         assertFalse(endpoint3.isActive());
+        assertEquals(0, endpoint1.getAffinity());
+        assertEquals(1, endpoint2.getAffinity());
+        assertEquals(2, endpoint3.getAffinity());
+        verify(mediaGroup).setAffinity(2);
     }
 
 }
@@ -55,6 +55,7 @@ public class MixerEndpointProviderTest {
         // when
         when(mediaGroup.getAudioComponent()).thenReturn(audioComponent);
         when(mediaGroupProvider.provide()).thenReturn(mediaGroup);
+        when(mediaScheduler.nextAffinity()).thenReturn(0, 1, 2);
 
         MgcpMixerEndpoint endpoint1 = provider.provide();
         MgcpMixerEndpoint endpoint2 = provider.provide();
@@ -67,6 +68,10 @@ public class MixerEndpointProviderTest {
         assertFalse(endpoint2.isActive());
         assertEquals(namespace + 3 + "@" + domain, endpoint3.getEndpointId().toString());
         assertFalse(endpoint3.isActive());
+        assertEquals(0, endpoint1.getAffinity());
+        assertEquals(1, endpoint2.getAffinity());
+        assertEquals(2, endpoint3.getAffinity());
+        verify(mediaGroup).setAffinity(2);
     }
 
 }
\ No newline at end of file
@@ -34,6 +34,8 @@ public enum CodecType {
     GSM(3, "gsm", org.restcomm.media.codec.gsm.Encoder.class.getName(), org.restcomm.media.codec.gsm.Decoder.class.getName()), 
     L16(97, "l16", org.restcomm.media.codec.l16.Encoder.class.getName(), org.restcomm.media.codec.l16.Decoder.class.getName()),
     G729(18, "g729", org.restcomm.media.codec.g729.Encoder.class.getName(), org.restcomm.media.codec.g729.Decoder.class.getName()),
+    G722(9, "g722", org.restcomm.media.codec.g722.Encoder.class.getName(), org.restcomm.media.codec.g722.Decoder.class.getName()),
+    OPUS(111, "opus", org.restcomm.media.codec.opus.Encoder.class.getName(), org.restcomm.media.codec.opus.Decoder.class.getName()),
     ILBC(102, "ilbc", org.restcomm.media.codec.ilbc.Encoder.class.getName(), org.restcomm.media.codec.ilbc.Decoder.class.getName()),
     DTMF(101, "telephone-event", "", "");
 
@@ -25,6 +25,8 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Set;
 
+import org.restcomm.media.scheduler.TimerType;
+
 /**
  * Configuration of Media elements.
  * 
@@ -38,12 +40,24 @@ public class MediaConfiguration {
     public static final int LOW_PORT = 64534;
     public static final int HIGH_PORT = 65534;
     public static final int JITTER_BUFFER_SIZE = 50;
+    public static final int MEDIA_LOOPS = 0;
+    public static final int PTIME = 20;
+    public static final TimerType TIMER = TimerType.EXECUTOR;
+    public static final int ACTIVE_SPEAKERS = 0;
+    public static final int MIXER_SAMPLE_RATE = 8000;
+    public static final boolean VOICE_ACTIVITY_DETECTION = false;
 
     private int maxDuration;
     private int timeout;
     private int lowPort;
     private int highPort;
     private int jitterBufferSize;
+    private int mediaLoops;
+    private int ptime;
+    private TimerType timer;
+    private int activeSpeakers;
+    private int mixerSampleRate;
+    private boolean voiceActivityDetection;
     private final Set<String> codecs;
 
     public MediaConfiguration() {
@@ -52,6 +66,12 @@ public class MediaConfiguration {
         this.lowPort = LOW_PORT;
         this.highPort = HIGH_PORT;
         this.jitterBufferSize = JITTER_BUFFER_SIZE;
+        this.mediaLoops = MEDIA_LOOPS;
+        this.ptime = PTIME;
+        this.timer = TIMER;
+        this.activeSpeakers = ACTIVE_SPEAKERS;
+        this.mixerSampleRate = MIXER_SAMPLE_RATE;
+        this.voiceActivityDetection = VOICE_ACTIVITY_DETECTION;
         this.codecs = new HashSet<>(5);
     }
     
@@ -111,6 +131,103 @@ public class MediaConfiguration {
         this.jitterBufferSize = jitterBufferSize;
     }
 
+    /**
+     * Gets the number of independent media loops used by the media scheduler.
+     * 
+     * @return The number of media loops. Zero means all media tasks share a single core thread.
+     */
+    public int getMediaLoops() {
+        return mediaLoops;
+    }
+
+    public void setMediaLoops(int mediaLoops) {
+        if (mediaLoops < 0) {
+            throw new IllegalArgumentException("Number of media loops cannot be negative.");
+        }
+        this.mediaLoops = mediaLoops;
+    }
+
+    /**
+     * Gets the packetization period used for media processing and RTP.
+     * 
+     * @return The packetization period in milliseconds.
+     */
+    public int getPtime() {
+        return ptime;
+    }
+
+    public void setPtime(int ptime) {
+        if (ptime != 10 && ptime != 20 && ptime != 30 && ptime != 40) {
+            throw new IllegalArgumentException("Packetization period must be one of 10, 20, 30 or 40 ms.");
+        }
+        this.ptime = ptime;
+    }
+
+    /**
+     * Gets the type of timer used by the service scheduler.
+     * 
+     * @return The timer type.
+     */
+    public TimerType getTimer() {
+        return timer;
+    }
+
+    public void setTimer(TimerType timer) {
+        if (timer == null) {
+            throw new IllegalArgumentException("Timer type cannot be null.");
+        }
+        this.timer = timer;
+    }
+
+    public void setTimer(String timer) {
+        setTimer(TimerType.fromName(timer));
+    }
+
+    /**
+     * Gets the maximum number of speakers mixed by conference mixers.
+     * 
+     * @return The number of loudest participants that are mixed. Zero mixes all participants.
+     */
+    public int getActiveSpeakers() {
+        return activeSpeakers;
+    }
+
+    public void setActiveSpeakers(int activeSpeakers) {
+        if (activeSpeakers < 0) {
+            throw new IllegalArgumentException("Number of active speakers cannot be negative.");
+        }
+        this.activeSpeakers = activeSpeakers;
+    }
+
+    /**
+     * Gets the highest sampling rate used by conference mixers.
+     * 
+     * @return The sampling rate in Hertz. Conferences run at the highest rate of their participants within this limit.
+     */
+    public int getMixerSampleRate() {
+        return mixerSampleRate;
+    }
+
+    public void setMixerSampleRate(int mixerSampleRate) {
+        if (mixerSampleRate != 8000 && mixerSampleRate != 16000 && mixerSampleRate != 48000) {
+            throw new IllegalArgumentException("Mixer sampling rate must be one of 8000, 16000 or 48000 Hz.");
+        }
+        this.mixerSampleRate = mixerSampleRate;
+    }
+
+    /**
+     * Indicates whether conference mixers leave silent participants out of the mix.
+     * 
+     * @return true when only talking participants are mixed.
+     */
+    public boolean isVoiceActivityDetection() {
+        return voiceActivityDetection;
+    }
+
+    public void setVoiceActivityDetection(boolean voiceActivityDetection) {
+        this.voiceActivityDetection = voiceActivityDetection;
+    }
+
     public void addCodec(String codec) {
         if (codec == null || codec.isEmpty()) {
             throw new IllegalArgumentException("Codec cannot be empty.");
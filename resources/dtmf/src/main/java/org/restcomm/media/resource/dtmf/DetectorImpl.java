@@ -32,7 +32,6 @@ import org.apache.log4j.Logger;
 import org.restcomm.media.ComponentType;
 import org.restcomm.media.component.AbstractSink;
 import org.restcomm.media.component.audio.AudioOutput;
-import org.restcomm.media.component.audio.GoertzelFilter;
 import org.restcomm.media.component.oob.OOBOutput;
 import org.restcomm.media.scheduler.PriorityQueueScheduler;
 import org.restcomm.media.scheduler.Task;
@@ -78,8 +77,10 @@ public class DetectorImpl extends AbstractSink implements DtmfDetector, PooledOb
     private final static int[] lowFreq = new int[] { 697, 770, 852, 941 };
     private final static int[] highFreq = new int[] { 1209, 1336, 1477, 1633 };
 
-    private final GoertzelFilter[] lowFreqFilters = new GoertzelFilter[4];
-    private final GoertzelFilter[] highFreqFilters = new GoertzelFilter[4];
+    // speech carries strong harmonics while a DTMF tone has none, they must stay 20 dB below the tone
+    private final static double HARMONIC_RATIO = 10.0;
+
+    private final DtmfFilterBank filterBank;
 
     private final double threshold;
 
@@ -89,13 +90,12 @@ public class DetectorImpl extends AbstractSink implements DtmfDetector, PooledOb
     private final int toneDuration;
     private final int toneInterval;
     private final int N;
-    private final double scale;
 
     private final double p[];
     private final double P[];
 
-    private final double[] signal;
-    private double maxAmpl;
+    private final int[] signal;
+    private int maxAmpl;
     private String lastTone;
     private long elapsedTime;
     private volatile boolean waiting;
@@ -137,13 +137,12 @@ public class DetectorImpl extends AbstractSink implements DtmfDetector, PooledOb
         this.threshold = Math.pow(Math.pow(10, this.level), 0.1) * Short.MAX_VALUE;
         this.toneDuration = toneDuration;
         this.toneInterval = toneInterval;
-        this.scale = toneDuration / 1000.0;
         this.N = 8 * toneDuration;
-        this.signal = new double[N];
-        for (int i = 0; i < 4; i++) {
-            this.lowFreqFilters[i] = new GoertzelFilter(lowFreq[i], N, scale);
-            this.highFreqFilters[i] = new GoertzelFilter(highFreq[i], N, scale);
-        }
+        this.signal = new int[N];
+        final int[] frequencies = new int[8];
+        System.arraycopy(lowFreq, 0, frequencies, 0, 4);
+        System.arraycopy(highFreq, 0, frequencies, 4, 4);
+        this.filterBank = new DtmfFilterBank(frequencies, 8000, N);
         
         // Runtime Detection
         this.p = new double[4];
@@ -166,6 +165,15 @@ public class DetectorImpl extends AbstractSink implements DtmfDetector, PooledOb
         return this.oobOutput;
     }
 
+    /**
+     * Pins the event notifications of the detector to a media loop of the scheduler.
+     * 
+     * @param affinity the affinity key
+     */
+    public void setAffinity(int affinity) {
+        this.eventSender.setAffinity(affinity);
+    }
+
     @Override
     public void activate() {
         this.offset = 0;
@@ -218,8 +226,8 @@ public class DetectorImpl extends AbstractSink implements DtmfDetector, PooledOb
         int k = 0;
         while (k < M) {
             while (offset < N && k < M - 1) {
-                double s = ((data[k++] & 0xff) | (data[k++] << 8));
-                double sa = Math.abs(s);
+                int s = ((data[k++] & 0xff) | (data[k++] << 8));
+                int sa = Math.abs(s);
                 if (sa > maxAmpl) {
                     maxAmpl = sa;
                 }
@@ -235,8 +243,11 @@ public class DetectorImpl extends AbstractSink implements DtmfDetector, PooledOb
                 if (maxAmpl >= threshold) {
                     maxAmpl = 0;
 
-                    getPower(lowFreqFilters, signal, 0, p);
-                    getPower(highFreqFilters, signal, 0, P);
+                    filterBank.process(signal);
+                    for (int i = 0; i < 4; i++) {
+                        p[i] = filterBank.getPower(i);
+                        P[i] = filterBank.getPower(4 + i);
+                    }
 
                     String tone = getTone(p, P);
 
@@ -258,13 +269,6 @@ public class DetectorImpl extends AbstractSink implements DtmfDetector, PooledOb
         }
     }
 
-    private void getPower(GoertzelFilter[] filters, double[] data, int offset, double[] power) {
-        for (int i = 0; i < 4; i++) {
-            // power[i] = filter.getPower(freq[i], data, 0, data.length, (double) TONE_DURATION / (double) 1000);
-            power[i] = filters[i].getPower(data, offset);
-        }
-    }
-
     /**
      * Searches maximum value in the specified array.
      * 
@@ -327,6 +331,11 @@ public class DetectorImpl extends AbstractSink implements DtmfDetector, PooledOb
             return null;
         }
 
+        // reject voice (talk-off) by the harmonics of both frequencies
+        if (filterBank.getHarmonicPower(fm) * HARMONIC_RATIO > f[fm] || filterBank.getHarmonicPower(4 + Fm) * HARMONIC_RATIO > F[Fm]) {
+            return null;
+        }
+
         return events[fm][Fm];
     }
 
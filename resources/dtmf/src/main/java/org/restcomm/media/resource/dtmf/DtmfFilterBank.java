@@ -0,0 +1,171 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2017, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.restcomm.media.resource.dtmf;
+
+/**
+ * Bank of Goertzel filters evaluating a set of frequencies and their second harmonics over a block of 16 bit samples.
+ * <p>
+ * The block is windowed once, then the resonators run four at a time so that their independent recursions overlap while
+ * the states stay in registers. Window, coefficients and filter states are fixed point integers held in arrays allocated
+ * when the bank is created.
+ * </p>
+ */
+final class DtmfFilterBank {
+
+    // precision of the window and of the filter coefficients
+    private static final int WINDOW_Q = 15;
+    private static final int WINDOW_ROUND = 1 << (WINDOW_Q - 1);
+    private static final int COEFFICIENT_Q = 14;
+
+    private final int frequencies;
+    private final int filters;
+    private final int length;
+
+    private final int[] window;
+    private final int[] windowed;
+    private final int[] coefficients;
+    private final double[] cosines;
+
+    // resonator states, fundamentals first then harmonics
+    private final int[] s1;
+    private final int[] s2;
+
+    // magnitudes of the last block
+    private final double[] magnitudes;
+
+    /**
+     * Creates a new filter bank.
+     * 
+     * @param frequencies The frequencies to evaluate, in Hertz
+     * @param sampleRate The sampling rate of the signal, in Hertz
+     * @param length The length of a block, in samples
+     */
+    DtmfFilterBank(int[] frequencies, int sampleRate, int length) {
+        if (frequencies.length % 2 != 0) {
+            throw new IllegalArgumentException("The bank needs an even number of frequencies.");
+        }
+        this.frequencies = frequencies.length;
+        this.filters = 2 * frequencies.length;
+        this.length = length;
+
+        this.window = new int[length];
+        this.windowed = new int[length];
+        final double o = 2 * Math.PI / length;
+        for (int i = 0; i < length; i++) {
+            this.window[i] = (int) Math.round((0.54 - 0.46 * Math.cos(o * i)) * (1 << WINDOW_Q));
+        }
+
+        this.coefficients = new int[this.filters];
+        this.cosines = new double[this.filters];
+        for (int i = 0; i < this.filters; i++) {
+            final int frequency = frequencies[i % this.frequencies] * (i < this.frequencies ? 1 : 2);
+            this.coefficients[i] = (int) Math.round(2 * Math.cos(2 * Math.PI * frequency / sampleRate) * (1 << COEFFICIENT_Q));
+            this.cosines[i] = (double) this.coefficients[i] / (1 << COEFFICIENT_Q);
+        }
+
+        this.s1 = new int[this.filters];
+        this.s2 = new int[this.filters];
+        this.magnitudes = new double[this.filters];
+    }
+
+    int getLength() {
+        return length;
+    }
+
+    /**
+     * Evaluates all filters over a block of samples.
+     * 
+     * @param signal The block of samples, at least {@link #getLength()} long
+     */
+    void process(int[] signal) {
+        final int filters = this.filters;
+        final int[] window = this.window;
+        final int[] coefficients = this.coefficients;
+        final int[] s1 = this.s1;
+        final int[] s2 = this.s2;
+
+        final int[] windowed = this.windowed;
+        for (int n = 0; n < this.length; n++) {
+            windowed[n] = (signal[n] * window[n] + WINDOW_ROUND) >> WINDOW_Q;
+        }
+
+        // four interleaved resonators per pass keep their states in registers
+        for (int j = 0; j < filters; j += 4) {
+            final long c0 = coefficients[j];
+            final long c1 = coefficients[j + 1];
+            final long c2 = coefficients[j + 2];
+            final long c3 = coefficients[j + 3];
+            int a1 = 0, a2 = 0, b1 = 0, b2 = 0, e1 = 0, e2 = 0, g1 = 0, g2 = 0;
+            for (int n = 0; n < this.length; n++) {
+                final int x = windowed[n];
+                final int a = x + (int) ((c0 * a1) >> COEFFICIENT_Q) - a2;
+                final int b = x + (int) ((c1 * b1) >> COEFFICIENT_Q) - b2;
+                final int e = x + (int) ((c2 * e1) >> COEFFICIENT_Q) - e2;
+                final int g = x + (int) ((c3 * g1) >> COEFFICIENT_Q) - g2;
+                a2 = a1;
+                a1 = a;
+                b2 = b1;
+                b1 = b;
+                e2 = e1;
+                e1 = e;
+                g2 = g1;
+                g1 = g;
+            }
+            s1[j] = a1;
+            s2[j] = a2;
+            s1[j + 1] = b1;
+            s2[j + 1] = b2;
+            s1[j + 2] = e1;
+            s2[j + 2] = e2;
+            s1[j + 3] = g1;
+            s2[j + 3] = g2;
+        }
+
+        for (int j = 0; j < filters; j++) {
+            final double d1 = s1[j];
+            final double d2 = s2[j];
+            this.magnitudes[j] = Math.sqrt(d1 * d1 + d2 * d2 - this.cosines[j] * d1 * d2);
+        }
+    }
+
+    /**
+     * Gets the magnitude of a frequency in the last block.
+     * 
+     * @param index The index of the frequency
+     * @return the magnitude of the frequency
+     */
+    double getPower(int index) {
+        return this.magnitudes[index];
+    }
+
+    /**
+     * Gets the magnitude of the second harmonic of a frequency in the last block.
+     * 
+     * @param index The index of the frequency
+     * @return the magnitude of the harmonic
+     */
+    double getHarmonicPower(int index) {
+        return this.magnitudes[this.frequencies + index];
+    }
+
+}
@@ -58,8 +58,8 @@ import org.restcomm.media.spi.pooling.PooledObject;
 public class GeneratorImpl extends AbstractSource implements DtmfGenerator, PooledObject {
 
     private final static AudioFormat linear = FormatFactory.createAudioFormat("linear", 8000, 16, 1);
-    private long period = 20000000L;
-    private int packetSize = (int)(period / 1000000) * linear.getSampleRate()/1000 * linear.getSampleSize() / 8;    
+    private long period;
+    private int packetSize;
 
     private final static Formats formats = new Formats();
     static {
@@ -97,6 +97,8 @@ public class GeneratorImpl extends AbstractSource implements DtmfGenerator, Pool
         super(name, scheduler,scheduler.INPUT_QUEUE);
         dt = 1.0 / linear.getSampleRate();
         
+        this.period = scheduler.getPeriod();
+        this.packetSize = (int)(period / 1000000) * linear.getSampleRate()/1000 * linear.getSampleSize() / 8;
         this.input=new AudioInput(ComponentType.DTMF_GENERATOR.getType(),packetSize);
         this.connect(this.input);
         
@@ -137,6 +139,18 @@ public class GeneratorImpl extends AbstractSource implements DtmfGenerator, Pool
         return this.oobInput;
     }    
     
+    /**
+     * Pins both in-band and out-of-band generators to media loop of the scheduler.
+     * 
+     * @param affinity the affinity key
+     */
+    @Override
+    public void setAffinity(int affinity)
+    {
+        super.setAffinity(affinity);
+        this.oobGenerator.setAffinity(affinity);
+    }
+    
     @Override
     public void activate() {
         if(oobDigit!=null) {
@@ -235,7 +249,7 @@ public class GeneratorImpl extends AbstractSource implements DtmfGenerator, Pool
             return null;
         
         int k = 0;
-        int frameSize = (int) ((double) 20 / 1000.0 / dt);
+        int frameSize = packetSize / 2;
         Frame frame = Memory.allocate(2* frameSize);
         byte[] data = frame.getData();
         for (int i = 0; i < frameSize; i++) {
@@ -246,9 +260,9 @@ public class GeneratorImpl extends AbstractSource implements DtmfGenerator, Pool
         frame.setOffset(0);
         frame.setLength(2* frameSize);
         frame.setTimestamp(getMediaTime());
-        frame.setDuration(20000000L);
+        frame.setDuration(period);
 
-        time += ((double) 20) / 1000.0;
+        time += ((double) period) / 1000000000.0;
         if(time >= (double)toneDuration / 1000.0) 
             listeners.dispatch(event);
         
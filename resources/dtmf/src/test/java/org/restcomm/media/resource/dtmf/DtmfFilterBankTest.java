@@ -0,0 +1,166 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2017, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.restcomm.media.resource.dtmf;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Ignore;
+import org.junit.Test;
+import org.restcomm.media.component.audio.GoertzelFilter;
+
+public class DtmfFilterBankTest {
+
+    private static final int[] FREQUENCIES = { 697, 770, 852, 941, 1209, 1336, 1477, 1633 };
+    private static final int N = 640;
+
+    private static int[] tone(double amplitude, double... frequencies) {
+        final int[] signal = new int[N];
+        for (int i = 0; i < N; i++) {
+            double s = 0;
+            for (double f : frequencies) {
+                s += amplitude * Math.sin(2 * Math.PI * f * i / 8000 + 0.3);
+            }
+            signal[i] = (int) Math.round(s);
+        }
+        return signal;
+    }
+
+    /**
+     * Evaluates the frequencies with the floating point filters.
+     */
+    private static double[] reference(int[] signal) {
+        final double[] powers = new double[FREQUENCIES.length];
+        final double[] data = new double[N];
+        for (int i = 0; i < FREQUENCIES.length; i++) {
+            // the floating point filter windows the signal in place
+            for (int j = 0; j < N; j++) {
+                data[j] = signal[j];
+            }
+            powers[i] = new GoertzelFilter(FREQUENCIES[i], N, N / 8000.0).getPower(data, 0);
+        }
+        return powers;
+    }
+
+    @Test
+    public void testMatchesFloatingPoint() {
+        final DtmfFilterBank bank = new DtmfFilterBank(FREQUENCIES, 8000, N);
+        for (double amplitude : new double[] { 10000, 1000, 30 }) {
+            final int[] signal = tone(amplitude, 770, 1477);
+            final double[] expected = reference(signal);
+            bank.process(signal);
+
+            for (int i = 0; i < FREQUENCIES.length; i++) {
+                assertEquals(expected[i], bank.getPower(i), expected[i] * 0.01 + 20);
+            }
+        }
+    }
+
+    @Test
+    public void testSelectivity() {
+        final DtmfFilterBank bank = new DtmfFilterBank(FREQUENCIES, 8000, N);
+        bank.process(tone(3000, 852, 1336));
+
+        for (int i = 0; i < 4; i++) {
+            if (i != 2) {
+                assertTrue(bank.getPower(2) > 100 * bank.getPower(i));
+            }
+            if (i != 1) {
+                assertTrue(bank.getPower(5) > 100 * bank.getPower(4 + i));
+            }
+            assertTrue(bank.getPower(2) > 100 * bank.getHarmonicPower(i));
+            assertTrue(bank.getPower(5) > 100 * bank.getHarmonicPower(4 + i));
+        }
+    }
+
+    @Test
+    public void testHarmonics() {
+        // voiced speech at the pitch of the tones carries their harmonics
+        final DtmfFilterBank bank = new DtmfFilterBank(FREQUENCIES, 8000, N);
+        bank.process(tone(3000, 697, 1394, 1209, 2418));
+
+        assertEquals(bank.getPower(0), bank.getHarmonicPower(0), bank.getPower(0) * 0.05);
+        assertEquals(bank.getPower(4), bank.getHarmonicPower(4), bank.getPower(4) * 0.05);
+    }
+
+    @Test
+    public void testFullScale() {
+        final DtmfFilterBank bank = new DtmfFilterBank(FREQUENCIES, 8000, 8000);
+        final int[] signal = new int[8000];
+        for (int i = 0; i < signal.length; i++) {
+            signal[i] = (int) (Short.MAX_VALUE * Math.sin(2 * Math.PI * 697 * i / 8000));
+        }
+        bank.process(signal);
+
+        // peak of a windowed full scale tone over one second
+        assertEquals(Short.MAX_VALUE * 0.54 * 8000 / 2, bank.getPower(0), Short.MAX_VALUE * 0.54 * 8000 / 2 * 0.01);
+    }
+
+    @Ignore
+    @Test
+    public void testSpeed() {
+        final int rounds = 20000;
+        final int[] signal = tone(3000, 770, 1477);
+        final DtmfFilterBank bank = new DtmfFilterBank(FREQUENCIES, 8000, N);
+        final GoertzelFilter[] filters = new GoertzelFilter[FREQUENCIES.length];
+        for (int i = 0; i < filters.length; i++) {
+            filters[i] = new GoertzelFilter(FREQUENCIES[i], N, N / 8000.0);
+        }
+        final double[] data = new double[N];
+
+        for (int r = 0; r < rounds; r++) {
+            bank.process(signal);
+            floating(filters, signal, data);
+        }
+
+        long s = System.nanoTime();
+        for (int r = 0; r < rounds; r++) {
+            floating(filters, signal, data);
+        }
+        final long floating = System.nanoTime() - s;
+
+        s = System.nanoTime();
+        for (int r = 0; r < rounds; r++) {
+            bank.process(signal);
+        }
+        final long fixed = System.nanoTime() - s;
+
+        System.out.println("8 floating point filters " + (floating / rounds) + " ns, fixed point bank of 16 filters "
+                + (fixed / rounds) + " ns per " + N + " samples");
+    }
+
+    /**
+     * Former detection, converting the block to doubles and running each filter over it.
+     */
+    private static double floating(GoertzelFilter[] filters, int[] signal, double[] data) {
+        for (int j = 0; j < N; j++) {
+            data[j] = signal[j];
+        }
+        double sum = 0;
+        for (GoertzelFilter filter : filters) {
+            sum += filter.getPower(data, 0);
+        }
+        return sum;
+    }
+
+}
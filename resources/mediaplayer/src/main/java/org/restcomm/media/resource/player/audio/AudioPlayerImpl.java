@@ -61,8 +61,8 @@ public class AudioPlayerImpl extends AbstractSource implements Player, TTSEngine
 
     // define natively supported formats
     private final static AudioFormat LINEAR = FormatFactory.createAudioFormat("linear", 8000, 16, 1);
-    private final static long period = 20000000L;
-    private final static int packetSize = (int) (period / 1000000) * LINEAR.getSampleRate() / 1000 * LINEAR.getSampleSize() / 8;
+    private final long period;
+    private final int packetSize;
 
     // Media Components
     private Processor dsp;
@@ -87,6 +87,8 @@ public class AudioPlayerImpl extends AbstractSource implements Player, TTSEngine
      */
     public AudioPlayerImpl(String name, PriorityQueueScheduler scheduler, RemoteStreamProvider remoteStreamProvider) {
         super(name, scheduler, PriorityQueueScheduler.INPUT_QUEUE);
+        this.period = scheduler.getPeriod();
+        this.packetSize = (int) (period / 1000000) * LINEAR.getSampleRate() / 1000 * LINEAR.getSampleSize() / 8;
         this.input = new AudioInput(ComponentType.PLAYER.getType(), packetSize);
         this.listeners = new Listeners<PlayerListener>();
         this.connect(this.input);
@@ -142,14 +144,21 @@ public class AudioPlayerImpl extends AbstractSource implements Player, TTSEngine
         // creating required extension
         try {
             // check scheme, if its file, we should try to create dirs
+            // tracks with linear framing follow packetization period, GSM frames are always 20ms
             if (ext.matches(Extension.WAV)) {
-                track = new WavTrackImpl(targetURL, remoteStreamProvider);
+                final WavTrackImpl wavTrack = new WavTrackImpl(targetURL, remoteStreamProvider);
+                wavTrack.setPeriod(getPtime());
+                track = wavTrack;
             } else if (ext.matches(Extension.GSM)) {
                 track = new GsmTrackImpl(targetURL);
             } else if (ext.matches(Extension.TONE)) {
-                track = new ToneTrackImpl(targetURL);
+                final ToneTrackImpl toneTrack = new ToneTrackImpl(targetURL);
+                toneTrack.setPeriod(getPtime());
+                track = toneTrack;
             } else if (ext.matches(Extension.TXT)) {
-                track = new TtsTrackImpl(targetURL, voiceName, null);
+                final TtsTrackImpl ttsTrack = new TtsTrackImpl(targetURL, voiceName, null);
+                ttsTrack.setPeriod(getPtime());
+                track = ttsTrack;
             } else if (ext.matches(Extension.MOV) || ext.matches(Extension.MP4) || ext.matches(Extension.THREE_GP)) {
                 track = new AMRTrackImpl(targetURL);
             } else {
@@ -259,7 +268,13 @@ public class AudioPlayerImpl extends AbstractSource implements Player, TTSEngine
 
     @Override
     public void setText(String text) {
-        track = new TtsTrackImpl(text, voiceName, null);
+        final TtsTrackImpl ttsTrack = new TtsTrackImpl(text, voiceName, null);
+        ttsTrack.setPeriod(getPtime());
+        track = ttsTrack;
+    }
+
+    private int getPtime() {
+        return (int) (period / 1000000L);
     }
 
     @Override
@@ -141,6 +141,17 @@ public class AudioRecorderImpl extends AbstractSink implements Recorder, PooledO
         return this.oobOutput;
     }
 
+    /**
+     * Pins the heart beat and the event notifications of the recorder to a media loop of the scheduler.
+     * 
+     * @param affinity the affinity key
+     */
+    public void setAffinity(int affinity) {
+        this.heartbeat.setAffinity(affinity);
+        this.killRecording.setAffinity(affinity);
+        this.eventSender.setAffinity(affinity);
+    }
+
     @Override
     public void activate() {
         this.lastPacketData = scheduler.getClock().getTime();
@@ -44,8 +44,8 @@ import org.restcomm.media.spi.format.FormatFactory;
  */
 public class LocalDataChannel {
 	private AudioFormat format = FormatFactory.createAudioFormat("LINEAR", 8000, 16, 1);
-	private long period = 20000000L;
-	private int packetSize = (int) (period / 1000000) * format.getSampleRate() / 1000 * format.getSampleSize() / 8;
+	private long period;
+	private int packetSize;
 
 	private AudioComponent audioComponent;
 	private AudioInput input;
@@ -61,7 +61,11 @@ public class LocalDataChannel {
 	 * Creates new local channel.
 	 */
 	public LocalDataChannel(ChannelsManager channelsManager, int channelId) {
+		period = channelsManager.getScheduler().getPeriod();
+		packetSize = (int) (period / 1000000) * format.getSampleRate() / 1000 * format.getSampleSize() / 8;
+
 		audioComponent = new AudioComponent(channelId);
+		audioComponent.setPeriod(period);
 		input = new AudioInput(1, packetSize);
 		output = new AudioOutput(channelsManager.getScheduler(), 2);
 		audioComponent.addInput(input);
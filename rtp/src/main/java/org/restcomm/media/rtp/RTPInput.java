@@ -45,8 +45,8 @@ public class RTPInput extends AbstractSource implements BufferListener {
 	private static final long serialVersionUID = -737259897530641186L;
 
 	private AudioFormat format = FormatFactory.createAudioFormat("LINEAR", 8000, 16, 1);	
-	private long period = 20000000L;
-    private int packetSize = (int)(period / 1000000) * format.getSampleRate()/1000 * format.getSampleSize() / 8;
+	private long period;
+    private int packetSize;
     
     //jitter buffer
     private JitterBuffer rxBuffer;
@@ -66,6 +66,8 @@ public class RTPInput extends AbstractSource implements BufferListener {
     protected RTPInput(PriorityQueueScheduler scheduler,JitterBuffer jitterBuffer) {
         super("rtpinput", scheduler,PriorityQueueScheduler.INPUT_QUEUE);
         this.rxBuffer=jitterBuffer;        
+        this.period=scheduler.getPeriod();
+        this.packetSize=(int)(period / 1000000) * format.getSampleRate()/1000 * format.getSampleSize() / 8;
         input=new AudioInput(1,packetSize);
         this.connect(input);        
     }
@@ -114,7 +116,8 @@ public class RTPInput extends AbstractSource implements BufferListener {
         	if (dsp != null) {
         		try
         		{
-        			currFrame = dsp.process(currFrame,currFrame.getFormat(),format);
+        			// decode at the rate of the codec, mixers convert to the rate of the conference
+        			currFrame = dsp.process(currFrame,currFrame.getFormat(),RtpChannel.getLinearFormat(currFrame.getFormat()));
         		}
         		catch(Exception e)
         		{
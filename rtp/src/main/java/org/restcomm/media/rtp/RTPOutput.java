@@ -31,9 +31,10 @@ import org.restcomm.media.scheduler.PriorityQueueScheduler;
 import org.restcomm.media.spi.FormatNotSupportedException;
 import org.restcomm.media.spi.dsp.Processor;
 import org.restcomm.media.spi.format.AudioFormat;
-import org.restcomm.media.spi.format.FormatFactory;
+import org.restcomm.media.spi.format.Format;
 import org.restcomm.media.spi.format.Formats;
 import org.restcomm.media.spi.memory.Frame;
+import org.restcomm.media.spi.memory.Memory;
 
 /**
  * Transmitter implementation.
@@ -46,7 +47,7 @@ public class RTPOutput extends AbstractSink {
 
 	private static final Logger logger = Logger.getLogger(RTPOutput.class);
 
-	private AudioFormat format = FormatFactory.createAudioFormat("LINEAR", 8000, 16, 1);
+	private volatile AudioFormat format = RtpChannel.LINEAR_FORMAT;
 
 	@Deprecated
 	private RTPDataChannel channel;
@@ -61,6 +62,9 @@ public class RTPOutput extends AbstractSink {
 
 	private AudioOutput output;
 
+	// duration of outgoing packets, zero keeps duration of media frames
+	private volatile long packetDuration;
+
 	/**
 	 * Creates new transmitter
 	 */
@@ -121,14 +125,64 @@ public class RTPOutput extends AbstractSink {
 	 */
 	public void setFormats(Formats formats) throws FormatNotSupportedException {
 		this.formats = formats;
+		this.format = formats == null || formats.isEmpty() ? RtpChannel.LINEAR_FORMAT : RtpChannel.getLinearFormat(formats.get(0));
+	}
+
+	/**
+	 * Gets the linear format expected from the media source, at the sampling rate of the negotiated codec.
+	 * 
+	 * @return the linear format
+	 */
+	public AudioFormat getFormat() {
+		return this.format;
+	}
+
+	/**
+	 * Sets the duration of outgoing packets. Media frames which last a multiple of this
+	 * duration are split so the remote peer receives the packet time it asked for.
+	 * 
+	 * @param packetDuration
+	 *            the packet duration in nanoseconds, zero sends one packet per frame
+	 */
+	public void setPacketDuration(long packetDuration) {
+		this.packetDuration = packetDuration;
+	}
+
+	public long getPacketDuration() {
+		return this.packetDuration;
 	}
 
 	@Override
 	public void onMediaTransfer(Frame frame) throws IOException {
+		final long duration = this.packetDuration;
+		if (duration > 0 && frame.getDuration() > duration && frame.getDuration() % duration == 0) {
+			final int count = (int) (frame.getDuration() / duration);
+			final int length = frame.getLength() / count;
+			for (int i = 0; i < count; i++) {
+				final Frame packet = Memory.allocate(length);
+				System.arraycopy(frame.getData(), frame.getOffset() + i * length, packet.getData(), 0, length);
+				packet.setOffset(0);
+				packet.setLength(length);
+				packet.setTimestamp(frame.getTimestamp() + i * duration);
+				packet.setDuration(duration);
+				packet.setSequenceNumber(frame.getSequenceNumber());
+				packet.setEOM(frame.isEOM() && i == count - 1);
+				packet.setFormat(frame.getFormat());
+				transmit(packet);
+			}
+			frame.recycle();
+		} else {
+			transmit(frame);
+		}
+	}
+
+	private void transmit(Frame frame) {
 		// do transcoding
 		if (dsp != null && formats != null && !formats.isEmpty()) {
 			try {
-				frame = dsp.process(frame, format, formats.get(0));
+				// mixers tag frames with the rate of the leg, anything else is expected at the rate of the codec
+				final Format source = frame.getFormat() == null ? format : frame.getFormat();
+				frame = dsp.process(frame, source, formats.get(0));
 			} catch (Exception e) {
 				// transcoding error , print error and try to move to next frame
 				logger.error(e.getMessage(), e);
@@ -48,6 +48,7 @@ import org.restcomm.media.spi.ConnectionMode;
 import org.restcomm.media.spi.FormatNotSupportedException;
 import org.restcomm.media.spi.dsp.Processor;
 import org.restcomm.media.spi.format.AudioFormat;
+import org.restcomm.media.spi.format.Format;
 import org.restcomm.media.spi.format.FormatFactory;
 import org.restcomm.media.spi.format.Formats;
 import org.restcomm.media.spi.utils.Text;
@@ -103,6 +104,8 @@ public class RtpChannel extends MultiplexedChannel implements DtlsListener, IceE
 
     // Media formats
     protected final static AudioFormat LINEAR_FORMAT = FormatFactory.createAudioFormat("LINEAR", 8000, 16, 1);
+    protected final static AudioFormat LINEAR_WIDEBAND_FORMAT = FormatFactory.createAudioFormat("LINEAR", 16000, 16, 1);
+    protected final static AudioFormat LINEAR_FULLBAND_FORMAT = FormatFactory.createAudioFormat("LINEAR", 48000, 16, 1);
     public final static AudioFormat DTMF_FORMAT = FormatFactory.createAudioFormat("telephone-event", 8000);
     static {
         DTMF_FORMAT.setOptions(new Text("0-15"));
@@ -172,6 +175,19 @@ public class RtpChannel extends MultiplexedChannel implements DtlsListener, IceE
         return this.oobComponent;
     }
 
+    /**
+     * Pins the media jobs of the channel to a media loop of the scheduler.<br>
+     * The receivers, the heart beat and the outputs of the media components are ticked by the same loop.
+     * 
+     * @param affinity the affinity key
+     */
+    public void setAffinity(int affinity) {
+        this.rtpHandler.setAffinity(affinity);
+        this.heartBeat.setAffinity(affinity);
+        this.audioComponent.setAffinity(affinity);
+        this.oobComponent.setAffinity(affinity);
+    }
+
     public Processor getInputDsp() {
         return this.rtpHandler.getRtpInput().getDsp();
     }
@@ -190,6 +206,41 @@ public class RtpChannel extends MultiplexedChannel implements DtlsListener, IceE
 
     public void setOutputFormats(Formats fmts) throws FormatNotSupportedException {
         this.transmitter.getRtpOutput().setFormats(fmts);
+        // exchange audio with mixers at the rate of the negotiated codec
+        this.audioComponent.setSampleRate(this.transmitter.getRtpOutput().getFormat().getSampleRate());
+    }
+
+    /**
+     * Gets the linear format audio of a codec is decoded to and encoded from.
+     * <p>
+     * Wideband and fullband codecs keep their sampling rate so mixers can work on the whole band, any other codec is
+     * exchanged at 8kHz.
+     * </p>
+     * 
+     * @param format the format of the codec
+     * @return the linear format of the codec
+     */
+    static AudioFormat getLinearFormat(Format format) {
+        if (format instanceof AudioFormat) {
+            switch (((AudioFormat) format).getSampleRate()) {
+                case 16000:
+                    return LINEAR_WIDEBAND_FORMAT;
+                case 48000:
+                    return LINEAR_FULLBAND_FORMAT;
+                default:
+                    break;
+            }
+        }
+        return LINEAR_FORMAT;
+    }
+
+    /**
+     * Sets the duration of outgoing RTP packets.
+     * 
+     * @param ptime The packet time in milliseconds. Zero sends one packet per media frame.
+     */
+    public void setOutputPacketTime(int ptime) {
+        this.transmitter.getRtpOutput().setPacketDuration(ptime * 1000000L);
     }
 
     public void setRtpListener(RtpListener listener) {
@@ -21,7 +21,6 @@
 package org.restcomm.media.rtp;
 
 import java.net.InetSocketAddress;
-import java.nio.ByteBuffer;
 
 import org.apache.log4j.Logger;
 import org.restcomm.media.network.deprecated.channel.PacketHandler;
@@ -83,7 +82,8 @@ public class RtpHandler implements PacketHandler {
 		
 		this.rtpFormats = new RTPFormats();
 		this.statistics = statistics;
-		this.rtpPacket = new RtpPacket(RtpPacket.RTP_PACKET_MAX_SIZE, true);
+		// Incoming data is viewed in place, no buffer needs to be reserved
+		this.rtpPacket = new RtpPacket(0, false);
 		this.receivable = false;
 		this.loopable = false;
 		
@@ -106,6 +106,16 @@ public class RtpHandler implements PacketHandler {
 		return dtmfInput;
 	}
 	
+	/**
+	 * Pins the media sources fed by this handler to a media loop of the scheduler.
+	 * 
+	 * @param affinity the affinity key
+	 */
+	public void setAffinity(int affinity) {
+		this.rtpInput.setAffinity(affinity);
+		this.dtmfInput.setAffinity(affinity);
+	}
+	
 	public boolean isLoopable() {
 		return loopable;
 	}
@@ -258,18 +268,12 @@ public class RtpHandler implements PacketHandler {
 				logger.warn("SRTP packet is not valid! Dropping packet.");
 				return null;
 			} else {
-				// Transform incoming data directly into an RTP Packet
-				ByteBuffer buffer = this.rtpPacket.getBuffer();
-				buffer.clear();
-				buffer.put(decoded);
-				buffer.flip();
+				// View decoded data as an RTP Packet, without copying it
+				this.rtpPacket.view(decoded, 0, decoded.length);
 			}
 		} else {
-			// Transform incoming data directly into an RTP Packet
-			ByteBuffer buffer = this.rtpPacket.getBuffer();
-			buffer.clear();
-			buffer.put(packet, offset, dataLength);
-			buffer.flip();
+			// View incoming data as an RTP Packet, without copying it
+			this.rtpPacket.view(packet, offset, dataLength);
 		}
 		
 		// For RTP keep-alive purposes
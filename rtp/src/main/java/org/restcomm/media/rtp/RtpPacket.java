@@ -79,6 +79,21 @@ public class RtpPacket implements Serializable {
     	this(RTP_PACKET_MAX_SIZE, allocateDirect);
     }
     
+    /**
+     * Makes this packet a view over raw RTP data, without copying it.
+     * <p>
+     * The data must not be modified while the packet is in use.
+     * </p>
+     *
+     * @param data the raw RTP data
+     * @param offset the offset of the packet in the data
+     * @param length the length of the packet
+     */
+    public void view(byte[] data, int offset, int length) {
+        // absolute reads assume the packet starts at index zero
+        this.buffer = offset == 0 ? ByteBuffer.wrap(data, 0, length) : ByteBuffer.wrap(data, offset, length).slice();
+    }
+    
     /**
      * Provides access to the underlying buffer.
      * Any modifications to the returned buffer 
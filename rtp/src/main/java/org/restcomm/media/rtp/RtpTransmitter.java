@@ -69,6 +69,7 @@ public class RtpTransmitter {
 	private long dtmfTimestamp;
 	private long dtmfDuration;
 	private int sequenceNumber;
+	private boolean suppressed;
 
 	public RtpTransmitter(final PriorityQueueScheduler scheduler, final RtpClock clock, final RtpStatistics statistics) {
 		this.rtpClock = clock;
@@ -80,6 +81,7 @@ public class RtpTransmitter {
 		this.dtmfTimestamp = -1;
 		this.dtmfDuration = -1;
 		this.timestamp = -1;
+		this.suppressed = false;
 		this.formats = null;
 		this.secure = false;
 	}
@@ -141,6 +143,7 @@ public class RtpTransmitter {
 		this.timestamp = -1;
 		this.dtmfTimestamp = -1;
 		this.dtmfDuration = -1;
+		this.suppressed = false;
 		// Reset format in case connection is reused.
 		// Otherwise it would point to incorrect codec.
 		this.currentFormat = null;
@@ -247,6 +250,16 @@ public class RtpTransmitter {
 			rtpClock.setClockRate(currentFormat.getClockRate());
 		}
 
+		// codecs with silence suppression produce no payload while silent,
+		// codecs with longer frames produce none until a whole frame is buffered
+		if (frame.getLength() == 0) {
+			if (frame.getDuration() > 0) {
+				this.suppressed = true;
+			}
+			frame.recycle();
+			return;
+		}
+
 		// ignore frames with duplicate timestamp
 		if (frame.getTimestamp() / 1000000L == timestamp) {
 			frame.recycle();
@@ -257,7 +270,10 @@ public class RtpTransmitter {
 		timestamp = frame.getTimestamp() / 1000000L;
 		// convert to rtp time units
 		timestamp = rtpClock.convertToRtpTime(timestamp);
-		rtpPacket.wrap(false, currentFormat.getID(), this.sequenceNumber++, timestamp, this.statistics.getSsrc(), frame.getData(), frame.getOffset(), frame.getLength());
+		// first packet of a talk spurt is marked after suppressed silence
+		rtpPacket.wrap(this.suppressed, currentFormat.getID(), this.sequenceNumber++, timestamp, this.statistics.getSsrc(), frame.getData(), frame.getOffset(), frame.getLength());
+
+		this.suppressed = false;
 
 		frame.recycle();
 		try {
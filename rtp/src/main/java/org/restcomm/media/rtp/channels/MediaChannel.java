@@ -33,8 +33,11 @@ import org.restcomm.media.rtp.RtpClock;
 import org.restcomm.media.rtp.SsrcGenerator;
 import org.restcomm.media.rtp.statistics.RtpStatistics;
 import org.restcomm.media.scheduler.Clock;
+import org.restcomm.media.scheduler.PriorityQueueScheduler;
+import org.restcomm.media.sdp.attributes.RtpMapAttribute;
 import org.restcomm.media.sdp.fields.MediaDescriptionField;
 import org.restcomm.media.sdp.format.AVProfile;
+import org.restcomm.media.sdp.format.OpusParameters;
 import org.restcomm.media.sdp.format.RTPFormat;
 import org.restcomm.media.sdp.format.RTPFormats;
 import org.restcomm.media.spi.ConnectionMode;
@@ -44,6 +47,7 @@ import org.restcomm.media.spi.dsp.Processor;
 import org.restcomm.media.spi.format.AudioFormat;
 import org.restcomm.media.spi.format.FormatFactory;
 import org.restcomm.media.spi.format.Formats;
+import org.restcomm.media.spi.utils.Text;
 
 /**
  * Abstract representation of a media channel with RTP and RTCP components.
@@ -65,6 +69,7 @@ public abstract class MediaChannel {
 	protected String cname;
 	protected boolean rtcpMux;
 	protected boolean open;
+	protected final int ptime;
 	private boolean ice;
 	private boolean dtls;
 	
@@ -107,6 +112,8 @@ public abstract class MediaChannel {
 		this.open = false;
 		this.ice = false;
 		this.dtls = false;
+		final PriorityQueueScheduler scheduler = channelsManager.getScheduler();
+		this.ptime = (scheduler == null || scheduler.getPtime() <= 0) ? PriorityQueueScheduler.DEFAULT_PTIME : scheduler.getPtime();
 
 		// RTP Components
 		this.clock = new RtpClock(wallClock);
@@ -135,6 +142,15 @@ public abstract class MediaChannel {
 		return mediaType;
 	}
 
+	/**
+	 * Gets the packetization period of the media produced by the channel.
+	 * 
+	 * @return The packet time in milliseconds
+	 */
+	public int getPtime() {
+		return ptime;
+	}
+
 	/**
 	 * Gets the synchronization source of the channel.
 	 * 
@@ -344,6 +360,15 @@ public abstract class MediaChannel {
 		return available;
 	}
 
+	/**
+	 * Pins the media jobs of the RTP component to a media loop of the scheduler.
+	 * 
+	 * @param affinity The affinity key, see PriorityQueueScheduler#nextAffinity()
+	 */
+	public void setAffinity(int affinity) {
+		this.rtpChannel.setAffinity(affinity);
+	}
+
 	/**
 	 * Sets the input Digital Signaling Processor (DSP) of the RTP component.
 	 * 
@@ -580,7 +605,8 @@ public abstract class MediaChannel {
 		if (this.rtpChannel.getOutputDsp() != null) {
 			Codec[] currCodecs = this.rtpChannel.getOutputDsp().getCodecs();
 			for (int i = 0; i < currCodecs.length; i++) {
-				if (currCodecs[i].getSupportedInputFormat().matches(LINEAR_FORMAT)) {
+				// encoders of linear audio at any rate, wideband codecs are fed at their own rate
+				if (currCodecs[i].getSupportedInputFormat().getName().equals(LINEAR_FORMAT.getName())) {
 					fmts.add(currCodecs[i].getSupportedOutputFormat());
 				}
 			}
@@ -607,6 +633,7 @@ public abstract class MediaChannel {
 		this.offeredFormats.clean();
 		this.negotiatedFormats.clean();
 		setFormats(this.supportedFormats);
+		this.rtpChannel.setOutputPacketTime(0);
 		this.negotiated = false;
 	}
 	
@@ -644,8 +671,28 @@ public abstract class MediaChannel {
 		
 		// Map payload types tp RTP Format
 		for (int payloadType : media.getPayloadTypes()) {
-			RTPFormat format = AVProfile.getFormat(payloadType, AVProfile.AUDIO);
+			RtpMapAttribute rtpMap = media.getFormat(payloadType);
+			// Opus has a dynamic payload type, so it is recognized by its encoding name
+			RTPFormat format = rtpMap == null ? null : AVProfile.getOpus(payloadType, rtpMap.getCodec());
+			if(format != null) {
+				// keep receiving preferences of the remote peer, such as useinbandfec, for the encoder
+				String params = rtpMap.getParameters() == null ? null : rtpMap.getParameters().getParams();
+				format.getFormat().setOptions(new Text(OpusParameters.parse(params).toString()));
+			} else {
+				format = AVProfile.getFormat(payloadType, AVProfile.AUDIO);
+				if(AVProfile.isOpus(format)) {
+					// the payload type of Opus is bound to another encoding by the remote peer
+					format = null;
+				}
+			}
 			if(format != null) {
+				if(AVProfile.isG729(format)) {
+					// keep format parameters of the remote peer, such as annexb, for the codec
+					if(rtpMap != null && rtpMap.getParameters() != null && rtpMap.getParameters().getParams() != null) {
+						format = format.clone();
+						format.getFormat().setOptions(new Text(rtpMap.getParameters().getParams().trim()));
+					}
+				}
 				this.offeredFormats.add(format);
 			}
 		}
@@ -656,9 +703,40 @@ public abstract class MediaChannel {
 		
 		// Apply formats
 		setFormats(this.negotiatedFormats);
+		this.rtpChannel.setOutputPacketTime(negotiatePacketTime(media));
 		this.negotiated = true;
 	}
 	
+	/**
+	 * Selects the duration of outgoing packets based on the packet time
+	 * requested by the remote peer.
+	 * 
+	 * <p>
+	 * The media tick is shared by all calls, so a shorter packet time is
+	 * honoured by splitting media frames into packets of equal duration.
+	 * </p>
+	 * 
+	 * @param media
+	 *            The corresponding media description of the remote peer
+	 * @return The packet time in milliseconds or zero if packets should match
+	 *         media frames.
+	 */
+	private int negotiatePacketTime(MediaDescriptionField media) {
+		int requested = this.ptime;
+		if (media.getPtime() != null && media.getPtime().getTime() > 0) {
+			requested = Math.min(requested, media.getPtime().getTime());
+		}
+		if (media.getMaxptime() != null && media.getMaxptime().getTime() > 0) {
+			requested = Math.min(requested, media.getMaxptime().getTime());
+		}
+		
+		int packetTime = this.ptime;
+		while (packetTime > 10 && (packetTime > requested || this.ptime % packetTime != 0)) {
+			packetTime -= 10;
+		}
+		return packetTime == this.ptime ? 0 : packetTime;
+	}
+	
 	/**
 	 * Indicates whether the channel has successfully negotiated supported
 	 * codecs over SDP.
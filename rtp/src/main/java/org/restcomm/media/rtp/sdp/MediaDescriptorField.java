@@ -446,7 +446,10 @@ public class MediaDescriptorField {
         } else {
             //TODO: recreate format anyway. it is illegal to use clock rate as sample rate
             ((AudioFormat)rtpFormat.getFormat()).setName(name);
-            ((AudioFormat)rtpFormat.getFormat()).setSampleRate(clockRate);
+            if (!AVProfile.isG722(rtpFormat)) {
+                // G.722 advertises the 8kHz RTP clock while sampling at 16kHz
+                ((AudioFormat)rtpFormat.getFormat()).setSampleRate(clockRate);
+            }
             ((AudioFormat)rtpFormat.getFormat()).setChannels(channels);
         }
 
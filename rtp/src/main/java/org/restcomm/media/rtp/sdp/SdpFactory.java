@@ -39,6 +39,7 @@ import org.restcomm.media.sdp.fields.SessionNameField;
 import org.restcomm.media.sdp.fields.TimingField;
 import org.restcomm.media.sdp.fields.VersionField;
 import org.restcomm.media.sdp.format.AVProfile;
+import org.restcomm.media.sdp.format.OpusParameters;
 import org.restcomm.media.sdp.format.RTPFormat;
 import org.restcomm.media.sdp.ice.attributes.CandidateAttribute;
 import org.restcomm.media.sdp.ice.attributes.IceLiteAttribute;
@@ -131,7 +132,7 @@ public class SdpFactory {
 		md.setProtocol(profile.getProfile());
         final String externalAddress = channel.getExternalAddress() == null || channel.getExternalAddress().isEmpty() ? null : channel.getExternalAddress();
         md.setConnection(new ConnectionField("IN", "IP4", externalAddress != null ? externalAddress : channel.getRtpAddress()));
-		md.setPtime(new PacketTimeAttribute(20));
+		md.setPtime(new PacketTimeAttribute(channel.getPtime()));
         md.setRtcp(new RtcpAttribute(channel.getRtcpPort(), "IN", "IP4", externalAddress != null ? externalAddress : channel.getRtcpAddress()));
 		if (channel.isRtcpMux()) {
 			md.setRtcpMux(new RtcpMuxAttribute());
@@ -223,7 +224,10 @@ public class SdpFactory {
 					rtpMap.setCodecParams(audioFormat.getChannels());
 				}
 				
-				if (audioFormat.getOptions() != null) {
+				if (AVProfile.isOpus(f)) {
+					// Opus parameters declare how each side prefers to receive, so answers carry our own
+					rtpMap.setParameters(new FormatParameterAttribute(f.getID(), OpusParameters.receiving().toString()));
+				} else if (audioFormat.getOptions() != null) {
 					rtpMap.setParameters(new FormatParameterAttribute(f.getID(), audioFormat.getOptions().toString()));
 				}
 				break;
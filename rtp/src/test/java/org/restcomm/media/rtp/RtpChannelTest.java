@@ -299,4 +299,34 @@ public class RtpChannelTest {
         assertEquals(0, fcount);
     }
 
+    @Test
+    public void testLegFollowsRateOfNegotiatedCodec() throws Exception {
+        // given
+        Formats wideband = new Formats();
+        wideband.add(FormatFactory.createAudioFormat("g722", 16000));
+        Formats narrowband = new Formats();
+        narrowband.add(FormatFactory.createAudioFormat("pcma", 8000, 8, 1));
+
+        // when
+        channel1.setOutputFormats(wideband);
+
+        // then
+        assertEquals(16000, channel1.getAudioComponent().getSampleRate());
+
+        // when
+        channel1.setOutputFormats(narrowband);
+
+        // then
+        assertEquals(8000, channel1.getAudioComponent().getSampleRate());
+    }
+
+    @Test
+    public void testLinearFormatOfCodec() {
+        assertEquals(8000, RtpChannel.getLinearFormat(FormatFactory.createAudioFormat("pcmu", 8000, 8, 1)).getSampleRate());
+        assertEquals(16000, RtpChannel.getLinearFormat(FormatFactory.createAudioFormat("g722", 16000)).getSampleRate());
+        assertEquals(48000, RtpChannel.getLinearFormat(FormatFactory.createAudioFormat("opus", 48000, 16, 2)).getSampleRate());
+        assertEquals(8000, RtpChannel.getLinearFormat(FormatFactory.createAudioFormat("l16", 44100, 16, 1)).getSampleRate());
+        assertEquals(8000, RtpChannel.getLinearFormat(null).getSampleRate());
+    }
+
 }
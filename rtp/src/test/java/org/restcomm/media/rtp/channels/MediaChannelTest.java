@@ -43,8 +43,13 @@ import org.restcomm.media.scheduler.PriorityQueueScheduler;
 import org.restcomm.media.scheduler.Scheduler;
 import org.restcomm.media.scheduler.ServiceScheduler;
 import org.restcomm.media.scheduler.WallClock;
+import org.restcomm.media.sdp.attributes.FormatParameterAttribute;
+import org.restcomm.media.sdp.attributes.MaxPacketTimeAttribute;
+import org.restcomm.media.sdp.attributes.PacketTimeAttribute;
+import org.restcomm.media.sdp.attributes.RtpMapAttribute;
 import org.restcomm.media.sdp.fields.MediaDescriptionField;
 import org.restcomm.media.sdp.format.AVProfile;
+import org.restcomm.media.sdp.format.RTPFormat;
 import org.restcomm.media.sdp.format.RTPFormats;
 
 /**
@@ -252,6 +257,90 @@ public class MediaChannelTest {
         // then
         assertEquals(codecs, supportedCodecs);
     }
+
+    @Test
+    public void testPacketTimeNegotiation() {
+        // given
+        final RTPFormats codecs = new RTPFormats(1);
+        codecs.add(AVProfile.audio.find(0));
+
+        final ChannelsManager channelProvider = mock(ChannelsManager.class);
+        final PriorityQueueScheduler mediaScheduler = mock(PriorityQueueScheduler.class);
+        final RtpChannel rtpChannel = mock(RtpChannel.class);
+        final RtcpChannel rtcpChannel = mock(RtcpChannel.class);
+        final Clock clock = mock(Clock.class);
+
+        when(channelProvider.getCodecs()).thenReturn(codecs);
+        when(channelProvider.getScheduler()).thenReturn(mediaScheduler);
+        when(mediaScheduler.getPtime()).thenReturn(40);
+        when(channelProvider.getRtpChannel(any(RtpStatistics.class), any(RtpClock.class), any(RtpClock.class))).thenReturn(rtpChannel);
+        when(channelProvider.getRtcpChannel(any(RtpStatistics.class))).thenReturn(rtcpChannel);
+
+        final AudioChannel audioChannel = new AudioChannel(clock, channelProvider);
+        final MediaDescriptionField remoteMedia = new MediaDescriptionField();
+        remoteMedia.addPayloadType(0);
+
+        // when - remote peer does not ask for packet time
+        audioChannel.negotiateFormats(remoteMedia);
+
+        // then
+        assertEquals(40, audioChannel.getPtime());
+        verify(rtpChannel).setOutputPacketTime(0);
+
+        // when - remote peer asks for shorter packets
+        remoteMedia.setPtime(new PacketTimeAttribute(20));
+        audioChannel.negotiateFormats(remoteMedia);
+
+        // then
+        verify(rtpChannel).setOutputPacketTime(20);
+
+        // when - remote peer limits packet time to value that does not divide media tick
+        remoteMedia.setPtime(null);
+        remoteMedia.setMaxptime(new MaxPacketTimeAttribute(30));
+        audioChannel.negotiateFormats(remoteMedia);
+
+        // then
+        verify(rtpChannel, times(2)).setOutputPacketTime(20);
+    }
+
+    @Test
+    public void testOpusNegotiation() {
+        // given
+        final RTPFormats codecs = new RTPFormats(2);
+        codecs.add(AVProfile.audio.find(111));
+        codecs.add(AVProfile.audio.find(0));
+
+        final ChannelsManager channelProvider = mock(ChannelsManager.class);
+        final RtpChannel rtpChannel = mock(RtpChannel.class);
+        final RtcpChannel rtcpChannel = mock(RtcpChannel.class);
+        final Clock clock = mock(Clock.class);
+
+        when(channelProvider.getCodecs()).thenReturn(codecs);
+        when(channelProvider.getRtpChannel(any(RtpStatistics.class), any(RtpClock.class), any(RtpClock.class))).thenReturn(rtpChannel);
+        when(channelProvider.getRtcpChannel(any(RtpStatistics.class))).thenReturn(rtcpChannel);
+
+        final AudioChannel audioChannel = new AudioChannel(clock, channelProvider);
+        final MediaDescriptionField remoteMedia = new MediaDescriptionField();
+        final RtpMapAttribute opus = new RtpMapAttribute(109, "opus", 48000, 2);
+        opus.setParameters(new FormatParameterAttribute(109, "maxplaybackrate=48000;stereo=1;useinbandfec=1"));
+        remoteMedia.addPayloadType(109);
+        remoteMedia.addFormat(opus);
+        remoteMedia.addPayloadType(111);
+        remoteMedia.addFormat(new RtpMapAttribute(111, "red", 48000, 2));
+        remoteMedia.addPayloadType(0);
+
+        // when - remote peer offers Opus under its own payload type
+        audioChannel.negotiateFormats(remoteMedia);
+
+        // then
+        final RTPFormat[] negotiated = audioChannel.getFormats().toArray();
+        assertEquals(2, negotiated.length);
+        assertEquals(109, negotiated[0].getID());
+        assertTrue(AVProfile.isOpus(negotiated[0]));
+        assertEquals(48000, negotiated[0].getClockRate());
+        assertEquals("stereo=1;useinbandfec=1", negotiated[0].getFormat().getOptions().toString());
+        assertEquals(0, negotiated[1].getID());
+    }
 	
 	/**
 	 * Produces Media Channels
@@ -0,0 +1,408 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2017, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.scheduler;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Scheduler implementation backed by a hashed timing wheel.
+ * <p>
+ * Delayed tasks are hashed into the buckets of a fixed size wheel according to their deadline, so scheduling and canceling
+ * a task costs O(1) regardless of the number of pending tasks. A single ticker thread advances the wheel once per tick and
+ * hands all tasks of the expired bucket over to the worker pool in one pass.
+ * </p>
+ * <p>
+ * Deadlines are rounded up to the next tick, which suits protocol timers such as RTCP reports, RTP timeouts and MGCP
+ * retransmissions. Tasks are never executed before their deadline.
+ * </p>
+ */
+public class HashedWheelScheduler implements Scheduler {
+
+    private static final Logger LOGGER = Logger.getLogger(HashedWheelScheduler.class);
+
+    public static final int POOL_SIZE = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Default duration of one tick, in milliseconds.
+     */
+    public static final long TICK_DURATION = 10L;
+
+    /**
+     * Default number of buckets of the wheel.
+     */
+    public static final int WHEEL_SIZE = 1024;
+
+    private volatile boolean started;
+    private final Clock wallClock;
+
+    // Timing wheel
+    private final long tickDuration;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final Queue<WheelTask> pendingTasks;
+    private final Queue<WheelTask> cancelledTasks;
+    private volatile long startTime;
+
+    // Threads
+    private Ticker ticker;
+    private ExecutorService executor;
+    private final ThreadFactory threadFactory = new ThreadFactory() {
+
+        private AtomicInteger index = new AtomicInteger(0);
+
+        @Override
+        public Thread newThread(Runnable r) {
+            return new Thread(r, "wheel-scheduler-" + index.incrementAndGet());
+        }
+    };
+
+    /**
+     * Creates a new scheduler.
+     * 
+     * @param wallClock The wall clock of the scheduler
+     * @param tickDuration The duration of one tick of the wheel
+     * @param unit The time unit of the tick duration
+     * @param wheelSize The number of buckets of the wheel, rounded up to a power of two
+     */
+    public HashedWheelScheduler(Clock wallClock, long tickDuration, TimeUnit unit, int wheelSize) {
+        if (tickDuration <= 0) {
+            throw new IllegalArgumentException("Tick duration must be positive.");
+        }
+        if (wheelSize <= 0 || wheelSize > 1 << 30) {
+            throw new IllegalArgumentException("Wheel size must be between 1 and 2^30.");
+        }
+
+        this.started = false;
+        this.wallClock = wallClock;
+        this.tickDuration = unit.toNanos(tickDuration);
+
+        int size = 1;
+        while (size < wheelSize) {
+            size <<= 1;
+        }
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            this.wheel[i] = new Bucket();
+        }
+        this.mask = size - 1;
+        this.pendingTasks = new ConcurrentLinkedQueue<>();
+        this.cancelledTasks = new ConcurrentLinkedQueue<>();
+    }
+
+    public HashedWheelScheduler(Clock wallClock) {
+        this(wallClock, TICK_DURATION, TimeUnit.MILLISECONDS, WHEEL_SIZE);
+    }
+
+    public HashedWheelScheduler() {
+        this(new WallClock());
+    }
+
+    @Override
+    public Clock getWallClock() {
+        return this.wallClock;
+    }
+
+    @Override
+    public Future<?> submit(Runnable task) throws RejectedExecutionException {
+        if (!this.started) {
+            throw new RejectedExecutionException("Scheduler is not running.");
+        }
+        return this.executor.submit(task);
+    }
+
+    @Override
+    public ScheduledFuture<?> schedule(Runnable task, long delay, TimeUnit unit) throws RejectedExecutionException {
+        if (!this.started) {
+            throw new RejectedExecutionException("Scheduler is not running.");
+        }
+        final WheelTask wheelTask = new WheelTask(task, System.nanoTime() + unit.toNanos(delay), 0L);
+        this.pendingTasks.offer(wheelTask);
+        return wheelTask;
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable task, long initialDelay, long period, TimeUnit unit)
+            throws IllegalArgumentException, RejectedExecutionException {
+        if (period <= 0) {
+            throw new IllegalArgumentException("Period must be positive.");
+        }
+        if (!this.started) {
+            throw new RejectedExecutionException("Scheduler is not running.");
+        }
+        final WheelTask wheelTask = new WheelTask(task, System.nanoTime() + unit.toNanos(initialDelay), unit.toNanos(period));
+        this.pendingTasks.offer(wheelTask);
+        return wheelTask;
+    }
+
+    @Override
+    public void start() {
+        if (!this.started) {
+            this.started = true;
+            this.startTime = System.nanoTime();
+            this.executor = Executors.newFixedThreadPool(POOL_SIZE, threadFactory);
+            this.ticker = new Ticker();
+            this.ticker.start();
+            LOGGER.info("Started scheduler!");
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (this.started) {
+            this.started = false;
+            this.ticker.interrupt();
+            this.executor.shutdownNow();
+            LOGGER.info("Stopped scheduler!");
+        }
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        if (this.ticker == null) {
+            return true;
+        }
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        this.ticker.join(Math.max(1L, unit.toMillis(timeout)));
+        return this.executor.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS) && !this.ticker.isAlive();
+    }
+
+    /**
+     * Thread that advances the wheel and dispatches expired tasks.
+     */
+    private final class Ticker extends Thread {
+
+        private long tick;
+
+        public Ticker() {
+            super("wheel-scheduler-ticker");
+            this.tick = 0L;
+        }
+
+        @Override
+        public void run() {
+            while (started) {
+                if (!waitForNextTick()) {
+                    break;
+                }
+                removeCancelledTasks();
+                transferPendingTasks();
+                wheel[(int) (tick & mask)].expire(executor);
+                tick++;
+            }
+
+            // Cancel queued tasks
+            for (Bucket bucket : wheel) {
+                bucket.cancelAll();
+            }
+            WheelTask task;
+            while ((task = pendingTasks.poll()) != null) {
+                task.cancel(false);
+            }
+            cancelledTasks.clear();
+        }
+
+        private boolean waitForNextTick() {
+            final long deadline = tickDuration * (tick + 1);
+            long sleepTime = deadline - (System.nanoTime() - startTime);
+            while (sleepTime > 0) {
+                try {
+                    Thread.sleep(sleepTime / 1000000L, (int) (sleepTime % 1000000L));
+                } catch (InterruptedException e) {
+                    if (!started) {
+                        return false;
+                    }
+                }
+                sleepTime = deadline - (System.nanoTime() - startTime);
+            }
+            return started;
+        }
+
+        private void removeCancelledTasks() {
+            WheelTask task;
+            while ((task = cancelledTasks.poll()) != null) {
+                if (task.bucket != null) {
+                    task.bucket.remove(task);
+                }
+            }
+        }
+
+        private void transferPendingTasks() {
+            WheelTask task;
+            while ((task = pendingTasks.poll()) != null) {
+                if (task.isCancelled()) {
+                    continue;
+                }
+
+                // Tasks already due go to current bucket
+                final long calculated = Math.max(0L, task.deadline - startTime) / tickDuration;
+                task.remainingRounds = (calculated - tick) / wheel.length;
+                wheel[(int) (Math.max(calculated, tick) & mask)].add(task);
+            }
+        }
+
+    }
+
+    /**
+     * Slot of the wheel holding a doubly-linked list of tasks.
+     * <p>
+     * Only accessed by the ticker thread.
+     * </p>
+     */
+    private static final class Bucket {
+
+        private WheelTask head;
+        private WheelTask tail;
+
+        void add(WheelTask task) {
+            task.bucket = this;
+            if (this.head == null) {
+                this.head = this.tail = task;
+            } else {
+                this.tail.next = task;
+                task.prev = this.tail;
+                this.tail = task;
+            }
+        }
+
+        WheelTask remove(WheelTask task) {
+            final WheelTask next = task.next;
+            if (task.prev != null) {
+                task.prev.next = next;
+            }
+            if (task.next != null) {
+                task.next.prev = task.prev;
+            }
+            if (task == this.head) {
+                this.head = next;
+            }
+            if (task == this.tail) {
+                this.tail = task.prev;
+            }
+            task.prev = null;
+            task.next = null;
+            task.bucket = null;
+            return next;
+        }
+
+        void expire(ExecutorService executor) {
+            WheelTask task = this.head;
+            while (task != null) {
+                if (task.remainingRounds <= 0) {
+                    final WheelTask expired = task;
+                    task = remove(task);
+                    if (!expired.isCancelled()) {
+                        try {
+                            executor.execute(expired);
+                        } catch (RejectedExecutionException e) {
+                            expired.cancel(false);
+                        }
+                    }
+                } else if (task.isCancelled()) {
+                    task = remove(task);
+                } else {
+                    task.remainingRounds--;
+                    task = task.next;
+                }
+            }
+        }
+
+        void cancelAll() {
+            WheelTask task = this.head;
+            while (task != null) {
+                final WheelTask next = remove(task);
+                task.cancel(false);
+                task = next;
+            }
+        }
+
+    }
+
+    /**
+     * Task scheduled on the wheel.
+     */
+    private final class WheelTask extends FutureTask<Object> implements ScheduledFuture<Object> {
+
+        // Scheduling state
+        private volatile long deadline;
+        private final long period;
+
+        // Wheel state, only accessed by the ticker thread
+        private long remainingRounds;
+        private Bucket bucket;
+        private WheelTask prev;
+        private WheelTask next;
+
+        public WheelTask(Runnable task, long deadline, long period) {
+            super(task, null);
+            this.deadline = deadline;
+            this.period = period;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(this.deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            if (other == this) {
+                return 0;
+            }
+            final long diff = getDelay(TimeUnit.NANOSECONDS) - other.getDelay(TimeUnit.NANOSECONDS);
+            return diff < 0 ? -1 : (diff > 0 ? 1 : 0);
+        }
+
+        @Override
+        public void run() {
+            if (this.period == 0L) {
+                super.run();
+            } else if (runAndReset() && started) {
+                this.deadline = System.nanoTime() + this.period;
+                pendingTasks.offer(this);
+            }
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            final boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled && started) {
+                cancelledTasks.offer(this);
+            }
+            return cancelled;
+        }
+
+    }
+
+}
@@ -23,25 +23,30 @@
 package org.restcomm.media.scheduler;
 
 import org.restcomm.media.concurrent.ConcurrentCyclicFIFO;
+import org.restcomm.media.concurrent.MpscRingQueue;
 
 /**
  * Implements queue of tasks.
  * 
+ * Tasks are kept in lock free ring buffers polled only by the scheduler thread.
+ * The linked queues take the tasks which do not fit into the ring, once a task
+ * spilled over all later tasks of the same pool follow it so that the execution
+ * order always matches the submission order.
  * 
  * @author yulian oifa
  */
 public class OrderedTaskQueue {
+	//large enough for every media task of a loop, overflow is exceptional
+	private static final int CAPACITY=4096;
+	
 	//inner holder for tasks
-    private ConcurrentCyclicFIFO<Task>[] taskList=new ConcurrentCyclicFIFO[2];
+    private final MpscRingQueue<Task> taskList0=new MpscRingQueue<Task>(CAPACITY);
+    private final MpscRingQueue<Task> taskList1=new MpscRingQueue<Task>(CAPACITY);
+    private final ConcurrentCyclicFIFO<Task> overflowList0=new ConcurrentCyclicFIFO<Task>();
+    private final ConcurrentCyclicFIFO<Task> overflowList1=new ConcurrentCyclicFIFO<Task>();
     
     private Integer activeIndex=0;
     
-    public OrderedTaskQueue() {
-        //intitalize task list
-    	taskList[0] = new ConcurrentCyclicFIFO<Task>();
-    	taskList[1] = new ConcurrentCyclicFIFO<Task>();    
-    }    
-
     /**
      * Queues specified task using tasks dead line time.
      * 
@@ -53,7 +58,7 @@ public class OrderedTaskQueue {
     	{
     		if(!task.isInQueue0())
     		{
-    			taskList[0].offer(task);
+    			offer(taskList0, overflowList0, task);
     			task.storedInQueue0();
     		}
     	}
@@ -61,12 +66,18 @@ public class OrderedTaskQueue {
     	{
     		if(!task.isInQueue1())
     		{
-    			taskList[1].offer(task);
+    			offer(taskList1, overflowList1, task);
     			task.storedInQueue1();
     		}
     	}    	    	    
     }
     
+    private static void offer(MpscRingQueue<Task> taskList, ConcurrentCyclicFIFO<Task> overflowList, Task task) {
+    	//keep tasks behind the ones already spilled over
+    	if(overflowList.size()>0 || !taskList.offer(task))
+    		overflowList.offer(task);
+    }
+    
     /**
      * Retrieves the task with earliest dead line and removes it from queue.
      * 
@@ -76,13 +87,17 @@ public class OrderedTaskQueue {
     	Task result=null;
     	if(activeIndex==0)
     	{
-    		result=taskList[0].poll();
+    		result=taskList0.poll();
+    		if(result==null)
+    			result=overflowList0.poll();
     		if(result!=null)
     			result.removeFromQueue0();    		
     	}
     	else
     	{
-    		result=taskList[1].poll();
+    		result=taskList1.poll();
+    		if(result==null)
+    			result=overflowList1.poll();
     		if(result!=null)
     			result.removeFromQueue1();
     	}
@@ -99,8 +114,10 @@ public class OrderedTaskQueue {
      * Clean the queue.
      */
     public void clear() {
-    	taskList[0].clear();
-    	taskList[1].clear();    	    	    
+    	taskList0.clear();
+    	taskList1.clear();
+    	overflowList0.clear();
+    	overflowList1.clear();
     }
     
     /**
@@ -109,7 +126,10 @@ public class OrderedTaskQueue {
      * @return the size of the queue.
      */
     public int size() {
-    	return taskList[activeIndex].size();    	
+    	if(activeIndex==0)
+    		return taskList0.size() + overflowList0.size();
+    	
+    	return taskList1.size() + overflowList1.size();
     }
 
     @Override
@@ -117,7 +137,7 @@ public class OrderedTaskQueue {
         StringBuilder sb = new StringBuilder();
         sb.append("Queue[");
         
-        int len = Math.min(30, taskList[activeIndex].size());
+        int len = Math.min(30, size());
         for (int i = 0; i < len -1; i++) {
         	//sb.append(taskList[activeIndex].get(i).getPriority());
             sb.append(",");
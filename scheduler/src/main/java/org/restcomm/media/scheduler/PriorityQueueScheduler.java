@@ -23,11 +23,12 @@
 package org.restcomm.media.scheduler;
 
 import java.lang.InterruptedException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.LockSupport;
 
 import org.apache.log4j.Logger;
-import org.restcomm.media.concurrent.ConcurrentCyclicFIFO;
+import org.restcomm.media.concurrent.MpmcRingQueue;
 
 /**
  * Implements scheduler with multi-level priority queue.
@@ -40,6 +41,15 @@ import org.restcomm.media.concurrent.ConcurrentCyclicFIFO;
  * changed dynamically at runtime using the initial priority level, feedback
  * and other parameters.
  *
+ * When created with more than one media loop the core queues (management, input,
+ * mixer and output) and the heartbeat queue are sharded. Each media loop owns its
+ * own queues, keeps its own tick and executes its tasks on its own thread,
+ * so an overrun only delays the tasks pinned to the same loop. Tasks are pinned
+ * to loops using their affinity key, see {@link Task#setAffinity(int)}.
+ *
+ * The media tick defaults to 20ms and may be configured to any packetization
+ * period (ptime), components producing media frames size them after
+ * {@link #getPeriod()}.
  *
  * @author Oifa Yulian
  */
@@ -62,8 +72,17 @@ public class PriorityQueueScheduler  {
 	//HEARTBEAT QUEUE
 	public static final Integer HEARTBEAT_QUEUE=-1;
 	
+	//default packetization period in milliseconds
+	public static final int DEFAULT_PTIME=20;
+	
+	//capacity of queues feeding the workers
+	private static final int TASKS_CAPACITY=8192;
+	
     //The clock for time measurement
     private Clock clock;
+    
+    //media tick in nanoseconds
+    private final long period;
 
     //priority queue
     protected OrderedTaskQueue[] taskQueues = new OrderedTaskQueue[7];
@@ -79,17 +98,36 @@ public class PriorityQueueScheduler  {
 
     private Logger logger = Logger.getLogger(PriorityQueueScheduler.class) ;
     
-    private ConcurrentCyclicFIFO<Task> waitingTasks=new ConcurrentCyclicFIFO<Task>();
-    private ConcurrentCyclicFIFO<Task> criticalTasks=new ConcurrentCyclicFIFO<Task>();
+    private MpmcRingQueue<Task> waitingTasks=new MpmcRingQueue<Task>(TASKS_CAPACITY);
+    private MpmcRingQueue<Task> criticalTasks=new MpmcRingQueue<Task>(TASKS_CAPACITY);
+    
+    //workers parked while waiting for tasks
+    private MpmcRingQueue<PoolWorker> idleWorkers;
+    private MpmcRingQueue<PoolWorker> idleCriticalWorkers;
     
     private WorkerThread[] workerThreads;
     private CriticalWorkerThread[] criticalWorkerThreads;
+    
+    //independent media loops, null when running with shared core thread
+    private MediaLoop[] mediaLoops;
+    private AtomicInteger affinityIndex=new AtomicInteger(0);
+    
+    //execution statistics of core queues
+    private final SchedulerStatistics statistics=new SchedulerStatistics();
 
     /**
      * Creates new instance of scheduler.
+     * 
+     * @param clock the clock used for time measurement.
+     * @param mediaLoops the number of independent media loops, values lower than 2 keep the shared core thread.
+     * @param ptime the packetization period in milliseconds, the media tick of the scheduler.
      */
-    public PriorityQueueScheduler(Clock clock) {
+    public PriorityQueueScheduler(Clock clock, int mediaLoops, int ptime) {
+        if(ptime<=0) {
+        	throw new IllegalArgumentException("Packetization period must be positive: " + ptime);
+        }
         this.clock = clock;
+        this.period = ptime * 1000000L;
 
     	for(int i=0;i<taskQueues.length;i++) {
     		taskQueues[i]=new OrderedTaskQueue();
@@ -99,29 +137,97 @@ public class PriorityQueueScheduler  {
     		heartBeatQueue[i]=new OrderedTaskQueue();
     	}
     	
-    	coreThread = new CoreThread("scheduler-core");  
     	criticalThread = new CriticalThread("scheduler-critical");
     	
-        workerThreads=new WorkerThread[Runtime.getRuntime().availableProcessors()*2];
+    	if(mediaLoops>1) {
+    		this.mediaLoops=new MediaLoop[mediaLoops];
+    		for(int i=0;i<mediaLoops;i++) {
+    			this.mediaLoops[i] = new MediaLoop("scheduler-media-loop-" + i, i);
+    		}
+    		workerThreads=new WorkerThread[0];
+    	} else {
+    		coreThread = new CoreThread("scheduler-core");
+    		workerThreads=new WorkerThread[Runtime.getRuntime().availableProcessors()*2];
+    		idleWorkers=new MpmcRingQueue<PoolWorker>(Math.max(2, workerThreads.length));
+    		for(int i=0;i<workerThreads.length;i++) {
+    			workerThreads[i] = new WorkerThread("scheduler-worker-" + i);
+    		}
+    	}
+    	
         criticalWorkerThreads=new CriticalWorkerThread[Runtime.getRuntime().availableProcessors() / 2];
-        for(int i=0;i<workerThreads.length;i++) {
-            workerThreads[i] = new WorkerThread("scheduler-worker-" + i);
-        }
-        
+        idleCriticalWorkers=new MpmcRingQueue<PoolWorker>(Math.max(2, criticalWorkerThreads.length));
         for(int i=0;i<criticalWorkerThreads.length;i++) {
             criticalWorkerThreads[i] = new CriticalWorkerThread("scheduler-critical-worker-" + i);
         }
     }
     
+    /**
+     * Creates new instance of scheduler with default packetization period.
+     */
+    public PriorityQueueScheduler(Clock clock, int mediaLoops) {
+        this(clock, mediaLoops, DEFAULT_PTIME);
+    }
+    
+    /**
+     * Creates new instance of scheduler with shared core thread.
+     */
+    public PriorityQueueScheduler(Clock clock) {
+        this(clock, 0);
+    }
+    
     public PriorityQueueScheduler() {
         this(null);
     }
 
     public int getPoolSize()
     {
+    	if(mediaLoops!=null)
+    		return mediaLoops.length;
+    	
     	return workerThreads.length;
     }
     
+    /**
+     * Gets the number of independent media loops.
+     * 
+     * @return the number of media loops or 1 when running with shared core thread.
+     */
+    public int getMediaLoops()
+    {
+    	return mediaLoops==null ? 1 : mediaLoops.length;
+    }
+    
+    /**
+     * Gets the packetization period.
+     * 
+     * @return the packetization period in milliseconds.
+     */
+    public int getPtime()
+    {
+    	return (int) (period / 1000000L);
+    }
+    
+    /**
+     * Gets the media tick, the duration of media frames produced in one cycle.
+     * 
+     * @return the media tick in nanoseconds.
+     */
+    public long getPeriod()
+    {
+    	return period;
+    }
+    
+    /**
+     * Generates affinity key, consecutive keys are distributed over media loops in round robin fashion.
+     * Components of the same endpoint should share one key so that they are ticked by the same loop.
+     * 
+     * @return the affinity key.
+     */
+    public int nextAffinity()
+    {
+    	return affinityIndex.getAndIncrement() & Integer.MAX_VALUE;
+    }
+    
     /**
      * Sets clock.
      *
@@ -147,7 +253,10 @@ public class PriorityQueueScheduler  {
      */
     public void submit(Task task,Integer index) {
         task.activate(false);
-        taskQueues[index].accept(task);
+        if(mediaLoops!=null && index>=MANAGEMENT_QUEUE)
+        	getMediaLoop(task).taskQueues[index].accept(task);
+        else
+        	taskQueues[index].accept(task);
     }
     
     /**
@@ -157,7 +266,59 @@ public class PriorityQueueScheduler  {
      */
     public void submitHeatbeat(Task task) {
         task.activate(true);
-        heartBeatQueue[coreThread.runIndex].accept(task);
+        if(mediaLoops!=null) {
+        	MediaLoop mediaLoop=getMediaLoop(task);
+        	mediaLoop.heartBeatQueue[mediaLoop.runIndex].accept(task);
+        }
+        else
+        	heartBeatQueue[coreThread.runIndex].accept(task);
+    }
+    
+    /**
+     * Hands task over to the workers, waking up one parked worker if any.
+     * 
+     * @param tasks the queue polled by workers
+     * @param idleWorkers the workers currently parked
+     * @param task the task to be executed
+     */
+    private static void dispatch(MpmcRingQueue<Task> tasks, MpmcRingQueue<PoolWorker> idleWorkers, Task task) {
+    	while(!tasks.offer(task)) {
+    		//queue is full , let the workers catch up
+    		wakeup(idleWorkers);
+    		Thread.yield();
+    	}
+    	wakeup(idleWorkers);
+    }
+    
+    private static void wakeup(MpmcRingQueue<PoolWorker> idleWorkers) {
+    	PoolWorker worker=idleWorkers.poll();
+    	if(worker!=null) {
+    		worker.idle.set(false);
+    		LockSupport.unpark(worker);
+    	}
+    }
+    
+    /**
+     * Resolves media loop of the task.
+     * Task without affinity is pinned to the loop it is submitted from,
+     * or to next loop in round robin fashion when submitted from other thread.
+     * 
+     * @param task the task to be executed
+     * @return the media loop which owns the task
+     */
+    private MediaLoop getMediaLoop(Task task) {
+    	int affinity=task.getAffinity();
+    	if(affinity<0) {
+    		Thread current=Thread.currentThread();
+    		if(current instanceof MediaLoop && mediaLoops[((MediaLoop)current).index]==current)
+    			affinity=((MediaLoop)current).index;
+    		else
+    			affinity=nextAffinity();
+    		
+    		task.setAffinity(affinity);
+    	}
+    	
+    	return mediaLoops[affinity % mediaLoops.length];
     }
     
     /**
@@ -184,7 +345,13 @@ public class PriorityQueueScheduler  {
         
         logger.info("Starting ");
         
-        coreThread.activate();
+        if(mediaLoops!=null) {
+        	for(int i=0;i<mediaLoops.length;i++)
+        		mediaLoops[i].activate();
+        }
+        else
+        	coreThread.activate();
+        
         criticalThread.activate();
         for(int i=0;i<workerThreads.length;i++)
         	workerThreads[i].activate();
@@ -203,7 +370,13 @@ public class PriorityQueueScheduler  {
             return;
         }
 
-        coreThread.shutdown();
+        if(mediaLoops!=null) {
+        	for(int i=0;i<mediaLoops.length;i++)
+        		mediaLoops[i].shutdown();
+        }
+        else
+        	coreThread.shutdown();
+        
         criticalThread.shutdown();
         for(int i=0;i<workerThreads.length;i++)
         	workerThreads[i].shutdown();
@@ -224,19 +397,38 @@ public class PriorityQueueScheduler  {
         
         for(int i=0;i<heartBeatQueue.length;i++)
         	heartBeatQueue[i].clear();
+        
+        if(mediaLoops!=null) {
+        	for(int i=0;i<mediaLoops.length;i++)
+        		mediaLoops[i].clear();
+        }
+    }
+
+    /**
+     * Gets execution statistics of the core queues.
+     * 
+     * @return the statistics object.
+     */
+    public SchedulerStatistics getStatistics() {
+        return statistics;
     }
 
     /**
      * Shows the miss rate.
      * 
-     * @return the miss rate value;
+     * @return the ratio of cycles that took longer than the media tick;
      */
     public double getMissRate() {
-        return 0;
+        return statistics.getMissRate();
     }
 
+    /**
+     * Gets the longest execution time of a single task.
+     * 
+     * @return the execution time in nanoseconds.
+     */
     public long getWorstExecutionTime() {
-        return 0;
+        return statistics.getWorstExecutionTime();
     }
 
     /**
@@ -245,6 +437,8 @@ public class PriorityQueueScheduler  {
     private class CoreThread extends Thread {        
         private volatile boolean active;
         private int currQueue=UDP_MANAGER_QUEUE;        
+        //queue currently executed by workers
+        private volatile int phase=MANAGEMENT_QUEUE;
         private AtomicInteger activeTasksCount=new AtomicInteger();
         private long cycleStart=0;
         private int runIndex=0;
@@ -275,6 +469,7 @@ public class PriorityQueueScheduler  {
         		currQueue=MANAGEMENT_QUEUE;
         		while(currQueue<=OUTPUT_QUEUE)
     			{    		
+        			phase=currQueue;
         			executeQueue(taskQueues[currQueue]);
 					while(activeTasksCount.get()!=0)
 						LockSupport.park();
@@ -282,31 +477,35 @@ public class PriorityQueueScheduler  {
 					currQueue++;															
     			}				        		
         		
+        		phase=MANAGEMENT_QUEUE;
         		executeQueue(taskQueues[MANAGEMENT_QUEUE]);
         		while(activeTasksCount.get()!=0)
 					LockSupport.park();					
         		
         		runIndex=(runIndex+1)%5;        		
+        		phase=HEARTBEAT_QUEUE;
     			executeQueue(heartBeatQueue[runIndex]);
         		while(activeTasksCount.get()!=0)
 					LockSupport.park();
         		
+        		phase=MANAGEMENT_QUEUE;
         		executeQueue(taskQueues[MANAGEMENT_QUEUE]);
         		while(activeTasksCount.get()!=0)
 					LockSupport.park();	
         		
         		//sleep till next cycle
         		cycleDuration=clock.getTime() - cycleStart;
-        		if(cycleDuration<20000000L)
+        		statistics.recordCycle(cycleDuration, period);
+        		if(cycleDuration<period)
         			try  {                                               
-        				sleep(20L-cycleDuration/1000000L,(int)((20000000L-cycleDuration)%1000000L));
+        				sleep((period-cycleDuration)/1000000L,(int)((period-cycleDuration)%1000000L));
         			}
                 	catch(InterruptedException e)  {                                               
                 		//lets continue
                 	}
         		
-        		//new cycle starts , updating cycle start time by 4ms
-                cycleStart = cycleStart + 20000000L;                                              
+        		//new cycle starts , updating cycle start time by period
+                cycleStart = cycleStart + period;                                              
         	}
         }
         
@@ -320,7 +519,7 @@ public class PriorityQueueScheduler  {
             while(t!=null)
             {
             	activeTasksCount.incrementAndGet();
-            	waitingTasks.offer(t);
+            	dispatch(waitingTasks, idleWorkers, t);
             	t = currQueue.poll();
             }            
         }
@@ -333,6 +532,103 @@ public class PriorityQueueScheduler  {
         }
     }    
     
+    /**
+     * Independent media loop.
+     * Owns core and heartbeat queues of its shard and executes the tasks itself,
+     * so there is no barrier shared with other loops.
+     */
+    private class MediaLoop extends Thread {
+    	private volatile boolean active;
+    	private final int index;
+    	private final OrderedTaskQueue[] taskQueues = new OrderedTaskQueue[OUTPUT_QUEUE+1];
+    	private final OrderedTaskQueue[] heartBeatQueue = new OrderedTaskQueue[5];
+    	private long cycleStart=0;
+    	private int runIndex=0;
+    	
+    	public MediaLoop(String name, int index) {
+    		super(name);
+    		this.index=index;
+    		
+    		for(int i=MANAGEMENT_QUEUE;i<taskQueues.length;i++) {
+    			taskQueues[i]=new OrderedTaskQueue();
+    		}
+    		
+    		for(int i=0;i<heartBeatQueue.length;i++) {
+    			heartBeatQueue[i]=new OrderedTaskQueue();
+    		}
+    	}
+    	
+    	public void activate() {
+    		this.active = true;
+    		this.start();
+    	}
+    	
+    	@Override
+    	public void run() {
+    		long cycleDuration;
+    		
+    		cycleStart = clock.getTime();
+    		while(active)
+    		{
+    			for(int currQueue=MANAGEMENT_QUEUE;currQueue<=OUTPUT_QUEUE;currQueue++)
+    				executeQueue(taskQueues[currQueue], currQueue);
+    			
+    			executeQueue(taskQueues[MANAGEMENT_QUEUE], MANAGEMENT_QUEUE);
+    			
+    			runIndex=(runIndex+1)%5;
+    			executeQueue(heartBeatQueue[runIndex], HEARTBEAT_QUEUE);
+    			
+    			executeQueue(taskQueues[MANAGEMENT_QUEUE], MANAGEMENT_QUEUE);
+    			
+    			//sleep till next cycle
+    			cycleDuration=clock.getTime() - cycleStart;
+    			statistics.recordCycle(cycleDuration, period);
+    			if(cycleDuration<period)
+    				try  {
+    					sleep((period-cycleDuration)/1000000L,(int)((period-cycleDuration)%1000000L));
+    				}
+    				catch(InterruptedException e)  {
+    					//lets continue
+    				}
+    			
+    			//new cycle starts , updating cycle start time by period
+    			cycleStart = cycleStart + period;
+    		}
+    	}
+    	
+    	private void executeQueue(OrderedTaskQueue currQueue, int queueNumber)
+    	{
+    		Task t;
+    		long taskStart;
+    		currQueue.changePool();
+    		t = currQueue.poll();
+    		
+    		//tasks submitted during execution go to other pool and run on next cycle
+    		while(t!=null)
+    		{
+    			taskStart=clock.getTime();
+    			t.run();
+    			statistics.recordTask(queueNumber, t, clock.getTime()-taskStart);
+    			t = currQueue.poll();
+    		}
+    	}
+    	
+    	private void clear() {
+    		for(int i=MANAGEMENT_QUEUE;i<taskQueues.length;i++)
+    			taskQueues[i].clear();
+    		
+    		for(int i=0;i<heartBeatQueue.length;i++)
+    			heartBeatQueue[i].clear();
+    	}
+    	
+    	/**
+    	 * Terminates thread.
+    	 */
+    	private void shutdown() {
+    		this.active = false;
+    	}
+    }
+    
     /**
      * Executor thread.
      */
@@ -396,7 +692,7 @@ public class PriorityQueueScheduler  {
             while(t!=null)
             {
             	activeTasksCount.incrementAndGet();
-            	criticalTasks.offer(t);
+            	dispatch(criticalTasks, idleCriticalWorkers, t);
             	t = currQueue.poll();
             }            
         }
@@ -409,86 +705,89 @@ public class PriorityQueueScheduler  {
         }
     }
     
-    private class WorkerThread extends Thread {
-    	private volatile boolean active;
-    	private Task current;
+    /**
+     * Worker thread polling tasks from shared queue.
+     * Parks when there is nothing to do and registers itself as idle, so that it can be woken up by dispatcher.
+     */
+    private abstract class PoolWorker extends Thread {
+    	protected volatile boolean active;
+    	private final AtomicBoolean idle=new AtomicBoolean(false);
+    	private final MpmcRingQueue<Task> tasks;
+    	private final MpmcRingQueue<PoolWorker> idleWorkers;
     	
-    	public WorkerThread(String name) {
-    	    super(name);
-        }
+    	public PoolWorker(String name, MpmcRingQueue<Task> tasks, MpmcRingQueue<PoolWorker> idleWorkers) {
+    		super(name);
+    		this.tasks=tasks;
+    		this.idleWorkers=idleWorkers;
+    	}
     	
     	public void run() {
+    		Task current;
     		while(active)
     		{
-    			current=null;
-    			while(current==null)
-    			{
-    				try
-    				{
-    					current=waitingTasks.take();
-    				}
-    				catch(Exception ex)
-    				{
-    					logger.warn("Could not poll waiting task in timely fashion. Will keep trying.");
-    				}    				
+    			current=nextTask();
+    			if(current!=null)
+    				execute(current);
+    		}
+    	}
+    	
+    	private Task nextTask() {
+    		Task task=tasks.poll();
+    		while(task==null && active)
+    		{
+    			if(idle.compareAndSet(false, true))
+    				idleWorkers.offer(this);
+    			
+    			//check again since task may be offered before worker was listed as idle
+    			task=tasks.poll();
+    			if(task==null) {
+    				LockSupport.park(this);
+    				task=tasks.poll();
     			}
-    			current.run();
-    			coreThread.notifyCompletion();    			
     		}
+    		return task;
     	}
     	
-    	public void activate() {        	        	
-        	this.active = true;
-        	this.start();
-        }
+    	protected abstract void execute(Task task);
+    	
+    	public void activate() {
+    		this.active = true;
+    		this.start();
+    	}
     	
     	/**
-         * Terminates thread.
-         */
-        private void shutdown() {
-            this.active = false;
+    	 * Terminates thread.
+    	 */
+    	protected void shutdown() {
+    		this.active = false;
+    		LockSupport.unpark(this);
+    	}
+    }
+    
+    private class WorkerThread extends PoolWorker {
+    	private long taskStart;
+    	
+    	public WorkerThread(String name) {
+    	    super(name, waitingTasks, idleWorkers);
         }
+    	
+    	protected void execute(Task current) {
+    		taskStart=clock.getTime();
+    		current.run();
+    		statistics.recordTask(coreThread.phase, current, clock.getTime()-taskStart);
+    		coreThread.notifyCompletion();
+    	}
     }
     
-    private class CriticalWorkerThread extends Thread {
-        
-    	private volatile boolean active;
-        private Task current;
+    private class CriticalWorkerThread extends PoolWorker {
         
         public CriticalWorkerThread(String name) {
-            super(name);
+            super(name, criticalTasks, idleCriticalWorkers);
         }
         
-    	public void run() {
-    		while(active)
-    		{
-    			current=null;
-    			while(current==null)
-    			{
-    				try
-    				{
-    					current=criticalTasks.take();
-    				}
-    				catch(Exception ex)
-    				{
-    					
-    				}    				
-    			}
-    			current.run();
-    			criticalThread.notifyCompletion();
-    		}
+    	protected void execute(Task current) {
+    		current.run();
+    		criticalThread.notifyCompletion();
     	}
-    	
-    	public void activate() {        	        	
-        	this.active = true;
-        	this.start();
-        }
-    	
-    	/**
-         * Terminates thread.
-         */
-        private void shutdown() {
-            this.active = false;
-        }
     }
 }
@@ -0,0 +1,208 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2017, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.scheduler;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects execution statistics of the {@link PriorityQueueScheduler}.
+ * <p>
+ * Keeps one execution time histogram per queue, the histogram of cycle durations, the number of cycles that missed their
+ * deadline and the task that took the longest to execute.
+ * </p>
+ */
+public class SchedulerStatistics implements SchedulerStatisticsMBean {
+
+    public static final String[] QUEUE_NAMES = { "RECEIVER_QUEUE", "SENDER_QUEUE", "MANAGEMENT_QUEUE", "UDP_MANAGER_QUEUE",
+            "INPUT_QUEUE", "MIXER_MIX_QUEUE", "OUTPUT_QUEUE", "HEARTBEAT_QUEUE" };
+
+    private static final int HEARTBEAT_INDEX = QUEUE_NAMES.length - 1;
+
+    private final ExecutionHistogram cycles;
+    private final ExecutionHistogram[] queues;
+    private final AtomicLong missedDeadlines;
+    private final AtomicLong worstExecutionTime;
+    private volatile String worstTask;
+
+    public SchedulerStatistics() {
+        this.cycles = new ExecutionHistogram();
+        this.queues = new ExecutionHistogram[QUEUE_NAMES.length];
+        for (int i = 0; i < this.queues.length; i++) {
+            this.queues[i] = new ExecutionHistogram();
+        }
+        this.missedDeadlines = new AtomicLong(0);
+        this.worstExecutionTime = new AtomicLong(0);
+    }
+
+    /**
+     * Records the execution time of a task.
+     * 
+     * @param queue The queue the task was executed from.
+     * @param task The executed task.
+     * @param duration The execution time, in nanoseconds.
+     */
+    public void recordTask(int queue, Task task, long duration) {
+        this.queues[queue < 0 ? HEARTBEAT_INDEX : queue].record(duration);
+
+        long worst = this.worstExecutionTime.get();
+        while (duration > worst) {
+            if (this.worstExecutionTime.compareAndSet(worst, duration)) {
+                this.worstTask = task.getClass().getName() + "#" + task.taskId + " (" + QUEUE_NAMES[queue < 0 ? HEARTBEAT_INDEX : queue] + ")";
+                break;
+            }
+            worst = this.worstExecutionTime.get();
+        }
+    }
+
+    /**
+     * Records the time spent executing one scheduling cycle.
+     * 
+     * @param duration The busy time of the cycle, in nanoseconds.
+     * @param period The scheduling period, in nanoseconds.
+     */
+    public void recordCycle(long duration, long period) {
+        this.cycles.record(duration);
+        if (duration > period) {
+            this.missedDeadlines.incrementAndGet();
+        }
+    }
+
+    /**
+     * Gets the histogram of task execution times of a queue.
+     * 
+     * @param queue The queue number, as defined in {@link PriorityQueueScheduler}.
+     * @return The execution time histogram.
+     */
+    public ExecutionHistogram getQueueHistogram(int queue) {
+        return this.queues[queue < 0 ? HEARTBEAT_INDEX : queue];
+    }
+
+    /**
+     * Gets the histogram of cycle durations.
+     * 
+     * @return The cycle duration histogram.
+     */
+    public ExecutionHistogram getCycleHistogram() {
+        return this.cycles;
+    }
+
+    @Override
+    public long getCycles() {
+        return this.cycles.getCount();
+    }
+
+    @Override
+    public long getMissedDeadlines() {
+        return this.missedDeadlines.get();
+    }
+
+    @Override
+    public double getMissRate() {
+        final long count = this.cycles.getCount();
+        return count == 0 ? 0 : (double) this.missedDeadlines.get() / (double) count;
+    }
+
+    @Override
+    public long getCycleTimeMean() {
+        return this.cycles.getMean();
+    }
+
+    @Override
+    public long getCycleTimeP50() {
+        return this.cycles.getPercentile(50);
+    }
+
+    @Override
+    public long getCycleTimeP99() {
+        return this.cycles.getPercentile(99);
+    }
+
+    @Override
+    public long getCycleTimeP999() {
+        return this.cycles.getPercentile(99.9);
+    }
+
+    @Override
+    public long getCycleTimeMax() {
+        return this.cycles.getMax();
+    }
+
+    @Override
+    public long getWorstExecutionTime() {
+        return this.worstExecutionTime.get();
+    }
+
+    @Override
+    public String getWorstTask() {
+        return this.worstTask;
+    }
+
+    @Override
+    public long getQueueExecutionTime(String queue, double percentile) {
+        for (int i = 0; i < QUEUE_NAMES.length; i++) {
+            if (QUEUE_NAMES[i].equalsIgnoreCase(queue)) {
+                return this.queues[i].getPercentile(percentile);
+            }
+        }
+        throw new IllegalArgumentException("Unknown queue " + queue);
+    }
+
+    @Override
+    public String report() {
+        final StringBuilder builder = new StringBuilder();
+        builder.append("cycles=").append(getCycles());
+        builder.append(" missed=").append(getMissedDeadlines());
+        builder.append(" missRate=").append(getMissRate());
+        builder.append(" cycleTime[mean=").append(getCycleTimeMean());
+        builder.append(" p50=").append(getCycleTimeP50());
+        builder.append(" p99=").append(getCycleTimeP99());
+        builder.append(" p999=").append(getCycleTimeP999());
+        builder.append(" max=").append(getCycleTimeMax()).append("]\n");
+        for (int i = 0; i < QUEUE_NAMES.length; i++) {
+            final ExecutionHistogram histogram = this.queues[i];
+            if (histogram.getCount() > 0) {
+                builder.append(QUEUE_NAMES[i]);
+                builder.append("[count=").append(histogram.getCount());
+                builder.append(" mean=").append(histogram.getMean());
+                builder.append(" p50=").append(histogram.getPercentile(50));
+                builder.append(" p99=").append(histogram.getPercentile(99));
+                builder.append(" p999=").append(histogram.getPercentile(99.9));
+                builder.append(" max=").append(histogram.getMax()).append("]\n");
+            }
+        }
+        builder.append("worstTask=").append(getWorstTask());
+        builder.append(" worstExecutionTime=").append(getWorstExecutionTime());
+        return builder.toString();
+    }
+
+    @Override
+    public void reset() {
+        this.cycles.reset();
+        for (int i = 0; i < this.queues.length; i++) {
+            this.queues[i].reset();
+        }
+        this.missedDeadlines.set(0);
+        this.worstExecutionTime.set(0);
+        this.worstTask = null;
+    }
+
+}
@@ -0,0 +1,98 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2017, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.scheduler;
+
+/**
+ * Management interface of the media scheduler statistics.
+ * <p>
+ * All times are expressed in nanoseconds.
+ * </p>
+ */
+public interface SchedulerStatisticsMBean {
+
+    /**
+     * Gets the number of completed scheduling cycles.
+     * 
+     * @return The number of cycles.
+     */
+    long getCycles();
+
+    /**
+     * Gets the number of cycles that took longer than the scheduling period.
+     * 
+     * @return The number of missed deadlines.
+     */
+    long getMissedDeadlines();
+
+    /**
+     * Gets the ratio of cycles that missed their deadline.
+     * 
+     * @return The miss rate, between 0 and 1.
+     */
+    double getMissRate();
+
+    long getCycleTimeMean();
+
+    long getCycleTimeP50();
+
+    long getCycleTimeP99();
+
+    long getCycleTimeP999();
+
+    long getCycleTimeMax();
+
+    /**
+     * Gets the longest execution time of a single task.
+     * 
+     * @return The worst execution time.
+     */
+    long getWorstExecutionTime();
+
+    /**
+     * Gets the description of the task with the longest execution time.
+     * 
+     * @return The task class and identifier, or null if no task was executed yet.
+     */
+    String getWorstTask();
+
+    /**
+     * Gets a percentile of the task execution times of a queue.
+     * 
+     * @param queue The name of the queue, as listed in {@link SchedulerStatistics#QUEUE_NAMES}.
+     * @param percentile The percentile, between 0 and 100.
+     * @return The execution time.
+     */
+    long getQueueExecutionTime(String queue, double percentile);
+
+    /**
+     * Builds a text report with the current values of all statistics.
+     * 
+     * @return The report.
+     */
+    String report();
+
+    /**
+     * Clears all statistics.
+     */
+    void reset();
+
+}
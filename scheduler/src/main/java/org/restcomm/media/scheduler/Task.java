@@ -48,10 +48,35 @@ public abstract class Task implements Runnable {
     
     protected int taskId;
     
+    //media loop this task is pinned to, -1 while unassigned
+    private volatile int affinity=-1;
+    
     public Task() {
     	taskId=id.incrementAndGet();
     }
 
+    /**
+     * Gets the media loop affinity of this task.
+     * 
+     * @return the affinity key or -1 if task was not assigned to any loop yet
+     */
+    public int getAffinity()
+    {
+    	return affinity;
+    }
+    
+    /**
+     * Pins this task to media loop.
+     * Tasks sharing the same affinity key are always executed by the same loop
+     * when scheduler runs in sharded mode, the value is ignored otherwise.
+     * 
+     * @param affinity the affinity key, see PriorityQueueScheduler#nextAffinity()
+     */
+    public void setAffinity(int affinity)
+    {
+    	this.affinity=affinity;
+    }
+
     public void storedInQueue0()
     {
     	inQueue0.set(true);
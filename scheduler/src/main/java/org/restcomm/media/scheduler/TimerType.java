@@ -0,0 +1,45 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2017, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.scheduler;
+
+/**
+ * List of possible implementations of the service {@link Scheduler}.
+ * <p>
+ * <b>EXECUTOR</b> relies on a scheduled thread pool, backed by a binary heap.<br>
+ * <b>WHEEL</b> relies on a {@link HashedWheelScheduler}, which offers O(1) scheduling and cancellation for large numbers of
+ * timers at the cost of tick-bounded precision.
+ * </p>
+ */
+public enum TimerType {
+
+    EXECUTOR, WHEEL;
+
+    public static final TimerType fromName(String name) {
+        for (TimerType timerType : values()) {
+            if (timerType.name().equalsIgnoreCase(name)) {
+                return timerType;
+            }
+        }
+        throw new IllegalArgumentException("Unknown timer type " + name);
+    }
+
+}
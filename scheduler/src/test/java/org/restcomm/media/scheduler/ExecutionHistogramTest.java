@@ -0,0 +1,193 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2017, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.scheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+public class ExecutionHistogramTest {
+
+    @Test
+    public void testLinearBuckets() {
+        for (int micros = 0; micros < 16; micros++) {
+            assertEquals(micros, ExecutionHistogram.indexOf(micros));
+            assertEquals(micros, ExecutionHistogram.lowerBoundOf(micros));
+        }
+    }
+
+    @Test
+    public void testLogarithmicBuckets() {
+        int previous = ExecutionHistogram.indexOf(15);
+        for (long micros = 16; micros < 1 << 24; micros += 1 + micros / 7) {
+            final int index = ExecutionHistogram.indexOf(micros);
+            final long lower = ExecutionHistogram.lowerBoundOf(index);
+            final long upper = ExecutionHistogram.lowerBoundOf(index + 1);
+
+            // buckets are ordered and hold the value
+            assertTrue(index >= previous);
+            assertTrue(lower <= micros);
+            assertTrue(micros < upper);
+
+            // each bucket is at most 12.5% wide
+            assertTrue((upper - lower) * 8 <= lower);
+            previous = index;
+        }
+    }
+
+    @Test
+    public void testBucketEdges() {
+        assertEquals(16, ExecutionHistogram.indexOf(16));
+        assertEquals(16, ExecutionHistogram.indexOf(17));
+        assertEquals(17, ExecutionHistogram.indexOf(18));
+        assertEquals(24, ExecutionHistogram.indexOf(32));
+        assertEquals(32, ExecutionHistogram.lowerBoundOf(24));
+    }
+
+    @Test
+    public void testHugeValuesGoToLastBucket() {
+        final int last = ExecutionHistogram.indexOf(Long.MAX_VALUE / 1000L);
+
+        assertEquals(last, ExecutionHistogram.indexOf(1L << 45));
+        assertTrue(last > ExecutionHistogram.indexOf(1L << 39));
+    }
+
+    @Test
+    public void testEmptyHistogram() {
+        // given
+        final ExecutionHistogram histogram = new ExecutionHistogram();
+
+        // then
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMean());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getPercentile(99));
+    }
+
+    @Test
+    public void testPercentiles() {
+        // given
+        final ExecutionHistogram histogram = new ExecutionHistogram();
+
+        // when - 1us to 1000us
+        for (int micros = 1; micros <= 1000; micros++) {
+            histogram.record(micros * 1000L);
+        }
+
+        // then
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1000000L, histogram.getMax());
+        assertEquals(500500L, histogram.getMean());
+        assertWithinBucket(500000L, histogram.getPercentile(50));
+        assertWithinBucket(990000L, histogram.getPercentile(99));
+        assertEquals(1000000L, histogram.getPercentile(100));
+    }
+
+    @Test
+    public void testPercentileNeverAboveMax() {
+        // given
+        final ExecutionHistogram histogram = new ExecutionHistogram();
+
+        // when
+        histogram.record(20300L);
+
+        // then
+        assertEquals(20300L, histogram.getPercentile(50));
+        assertEquals(20300L, histogram.getPercentile(99.9));
+    }
+
+    @Test
+    public void testNegativeValueIsRecordedAsZero() {
+        // given
+        final ExecutionHistogram histogram = new ExecutionHistogram();
+
+        // when
+        histogram.record(-5000L);
+
+        // then
+        assertEquals(1, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getPercentile(50));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidPercentile() {
+        new ExecutionHistogram().getPercentile(100.1);
+    }
+
+    @Test
+    public void testReset() {
+        // given
+        final ExecutionHistogram histogram = new ExecutionHistogram();
+        histogram.record(5000L);
+        histogram.record(80000L);
+
+        // when
+        histogram.reset();
+
+        // then
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMean());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getPercentile(50));
+    }
+
+    @Test
+    public void testConcurrentRecording() throws InterruptedException {
+        // given
+        final ExecutionHistogram histogram = new ExecutionHistogram();
+        final int threads = 4;
+        final int values = 10000;
+        final CountDownLatch latch = new CountDownLatch(threads);
+
+        // when
+        for (int i = 0; i < threads; i++) {
+            final long offset = i;
+            new Thread(new Runnable() {
+
+                @Override
+                public void run() {
+                    for (int j = 0; j < values; j++) {
+                        histogram.record((j % 100 + offset) * 1000L);
+                    }
+                    latch.countDown();
+                }
+            }).start();
+        }
+        latch.await();
+
+        // then
+        assertEquals(threads * values, histogram.getCount());
+        assertEquals((99 + threads - 1) * 1000L, histogram.getMax());
+        assertEquals(histogram.getMax(), histogram.getPercentile(100));
+    }
+
+    private static void assertWithinBucket(long expected, long actual) {
+        // percentiles report the upper bound of their bucket, at most 12.5% above the actual value
+        assertTrue("Expected " + expected + " but was " + actual, actual >= expected);
+        assertTrue("Expected " + expected + " but was " + actual, actual <= expected + expected / 8);
+    }
+
+}
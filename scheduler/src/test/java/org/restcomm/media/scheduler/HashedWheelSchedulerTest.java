@@ -0,0 +1,216 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2017, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.scheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.After;
+import org.junit.Ignore;
+import org.junit.Test;
+
+public class HashedWheelSchedulerTest {
+
+    private static final int TIMERS = 100000;
+
+    private Scheduler scheduler;
+
+    @After
+    public void after() throws InterruptedException {
+        if (scheduler != null) {
+            scheduler.stop();
+            scheduler.awaitTermination(1, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void testScheduleNotBeforeDelay() throws InterruptedException {
+        // given
+        scheduler = new HashedWheelScheduler();
+        scheduler.start();
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicLong executedAt = new AtomicLong(0L);
+        final long scheduledAt = System.nanoTime();
+
+        // when
+        scheduler.schedule(new Runnable() {
+
+            @Override
+            public void run() {
+                executedAt.set(System.nanoTime());
+                latch.countDown();
+            }
+        }, 50, TimeUnit.MILLISECONDS);
+
+        // then
+        assertTrue(latch.await(1, TimeUnit.SECONDS));
+        assertTrue(executedAt.get() - scheduledAt >= TimeUnit.MILLISECONDS.toNanos(50));
+    }
+
+    @Test
+    public void testCancel() throws InterruptedException {
+        // given
+        scheduler = new HashedWheelScheduler();
+        scheduler.start();
+        final AtomicInteger counter = new AtomicInteger(0);
+        final Runnable task = new Counter(counter);
+
+        // when
+        ScheduledFuture<?> future = scheduler.schedule(task, 50, TimeUnit.MILLISECONDS);
+        assertTrue(future.cancel(false));
+        Thread.sleep(150);
+
+        // then
+        assertTrue(future.isCancelled());
+        assertEquals(0, counter.get());
+    }
+
+    @Test
+    public void testScheduleWithFixedDelay() throws InterruptedException {
+        // given
+        scheduler = new HashedWheelScheduler();
+        scheduler.start();
+        final AtomicInteger counter = new AtomicInteger(0);
+
+        // when
+        ScheduledFuture<?> future = scheduler.scheduleWithFixedDelay(new Counter(counter), 10, 20, TimeUnit.MILLISECONDS);
+        Thread.sleep(250);
+        future.cancel(false);
+        final int executions = counter.get();
+        Thread.sleep(100);
+
+        // then
+        assertTrue(executions >= 5);
+        assertEquals(executions, counter.get());
+    }
+
+    @Test
+    public void testDelayLongerThanWheelRotation() throws InterruptedException {
+        // given
+        scheduler = new HashedWheelScheduler(new WallClock(), 1, TimeUnit.MILLISECONDS, 8);
+        scheduler.start();
+        final CountDownLatch latch = new CountDownLatch(1);
+        final long scheduledAt = System.nanoTime();
+
+        // when
+        scheduler.schedule(new Runnable() {
+
+            @Override
+            public void run() {
+                latch.countDown();
+            }
+        }, 50, TimeUnit.MILLISECONDS);
+
+        // then
+        assertTrue(latch.await(1, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - scheduledAt >= TimeUnit.MILLISECONDS.toNanos(50));
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void testRejectWhenStopped() {
+        scheduler = new HashedWheelScheduler();
+        scheduler.schedule(new Counter(new AtomicInteger(0)), 10, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void testStopCancelsPendingTasks() throws InterruptedException {
+        // given
+        scheduler = new HashedWheelScheduler();
+        scheduler.start();
+        ScheduledFuture<?> future = scheduler.schedule(new Counter(new AtomicInteger(0)), 10, TimeUnit.SECONDS);
+
+        // when
+        scheduler.stop();
+
+        // then
+        assertTrue(scheduler.awaitTermination(1, TimeUnit.SECONDS));
+        assertTrue(future.isCancelled());
+    }
+
+    @Test
+    @Ignore
+    public void testSpeed() throws InterruptedException {
+        speed(new ServiceScheduler(), "executor");
+        speed(new HashedWheelScheduler(), "wheel");
+    }
+
+    private void speed(Scheduler scheduler, String name) throws InterruptedException {
+        this.scheduler = scheduler;
+        scheduler.start();
+        final ScheduledFuture<?>[] futures = new ScheduledFuture<?>[TIMERS];
+        final Runnable noop = new Counter(new AtomicInteger(0));
+
+        // schedule and cancel, as most protocol timers never fire
+        long start = System.nanoTime();
+        for (int i = 0; i < TIMERS; i++) {
+            futures[i] = scheduler.schedule(noop, 30 + (i % 30), TimeUnit.SECONDS);
+        }
+        for (int i = 0; i < TIMERS; i++) {
+            futures[i].cancel(false);
+        }
+        long elapsed = System.nanoTime() - start;
+        System.out.println(name + ": schedule+cancel " + TIMERS + " timers in " + (elapsed / 1000000L) + "ms");
+
+        // expire all timers
+        final CountDownLatch latch = new CountDownLatch(TIMERS);
+        final Runnable countDown = new Runnable() {
+
+            @Override
+            public void run() {
+                latch.countDown();
+            }
+        };
+        start = System.nanoTime();
+        for (int i = 0; i < TIMERS; i++) {
+            scheduler.schedule(countDown, 100 + (i % 100), TimeUnit.MILLISECONDS);
+        }
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        elapsed = System.nanoTime() - start;
+        System.out.println(name + ": expire " + TIMERS + " timers in " + (elapsed / 1000000L) + "ms");
+
+        scheduler.stop();
+        scheduler.awaitTermination(1, TimeUnit.SECONDS);
+    }
+
+    private static final class Counter implements Runnable {
+
+        private final AtomicInteger counter;
+
+        public Counter(AtomicInteger counter) {
+            this.counter = counter;
+        }
+
+        @Override
+        public void run() {
+            counter.incrementAndGet();
+        }
+
+    }
+
+}
@@ -0,0 +1,218 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2017, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.scheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class OrderedTaskQueueTest {
+
+    @Test
+    public void testTasksRunInNextPool() {
+        // given
+        final OrderedTaskQueue queue = new OrderedTaskQueue();
+        final Task task = new SequencedTask(0, 0);
+
+        // when
+        queue.accept(task);
+
+        // then
+        assertNull(queue.poll());
+        queue.changePool();
+        assertEquals(1, queue.size());
+        assertSame(task, queue.poll());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void testTaskIsQueuedOncePerPool() {
+        // given
+        final OrderedTaskQueue queue = new OrderedTaskQueue();
+        final Task task = new SequencedTask(0, 0);
+
+        // when
+        queue.accept(task);
+        queue.accept(task);
+        queue.changePool();
+
+        // then
+        assertSame(task, queue.poll());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void testOverflowKeepsSubmissionOrder() {
+        // given
+        final OrderedTaskQueue queue = new OrderedTaskQueue();
+        final int count = 10000;
+
+        // when - more tasks than the ring can hold
+        for (int i = 0; i < count; i++) {
+            queue.accept(new SequencedTask(0, i));
+        }
+        queue.changePool();
+
+        // then
+        assertEquals(count, queue.size());
+        for (int i = 0; i < count; i++) {
+            assertEquals(i, ((SequencedTask) queue.poll()).sequence);
+        }
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void testOverflowKeepsOrderOnceRingHasRoom() {
+        // given - a pool that spilled over and was partially drained
+        final OrderedTaskQueue queue = new OrderedTaskQueue();
+        final int count = 5000;
+        final int drained = 100;
+        for (int i = 0; i < count; i++) {
+            queue.accept(new SequencedTask(0, i));
+        }
+        queue.changePool();
+        for (int i = 0; i < drained; i++) {
+            assertEquals(i, ((SequencedTask) queue.poll()).sequence);
+        }
+        queue.changePool();
+
+        // when - the ring has free slots again but tasks are still waiting in overflow
+        queue.accept(new SequencedTask(0, count));
+        queue.changePool();
+
+        // then
+        for (int i = drained; i <= count; i++) {
+            assertEquals(i, ((SequencedTask) queue.poll()).sequence);
+        }
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void testOverflowKeepsOrderOfEachProducer() throws InterruptedException {
+        // given
+        final OrderedTaskQueue queue = new OrderedTaskQueue();
+        final int producers = 4;
+        final int count = 3000;
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(producers);
+
+        // when
+        for (int p = 0; p < producers; p++) {
+            final int producer = p;
+            new Thread(new Runnable() {
+
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < count; i++) {
+                        queue.accept(new SequencedTask(producer, i));
+                    }
+                    done.countDown();
+                }
+            }).start();
+        }
+        start.countDown();
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        queue.changePool();
+
+        // then
+        final int[] next = new int[producers];
+        Task task = queue.poll();
+        while (task != null) {
+            final SequencedTask sequenced = (SequencedTask) task;
+            assertEquals(next[sequenced.producer], sequenced.sequence);
+            next[sequenced.producer]++;
+            task = queue.poll();
+        }
+        for (int p = 0; p < producers; p++) {
+            assertEquals(count, next[p]);
+        }
+    }
+
+    @Test
+    public void testPoolsAreIndependent() {
+        // given
+        final OrderedTaskQueue queue = new OrderedTaskQueue();
+        final Task first = new SequencedTask(0, 0);
+        final Task second = new SequencedTask(0, 1);
+
+        // when
+        queue.accept(first);
+        queue.changePool();
+        queue.accept(second);
+
+        // then - task submitted while executing a pool waits for the next cycle
+        assertSame(first, queue.poll());
+        assertNull(queue.poll());
+        queue.changePool();
+        assertSame(second, queue.poll());
+    }
+
+    @Test
+    public void testClear() {
+        // given
+        final OrderedTaskQueue queue = new OrderedTaskQueue();
+        for (int i = 0; i < 5000; i++) {
+            queue.accept(new SequencedTask(0, i));
+        }
+
+        // when
+        queue.clear();
+        queue.changePool();
+
+        // then
+        assertEquals(0, queue.size());
+        assertNull(queue.poll());
+    }
+
+    private static class SequencedTask extends Task {
+
+        private final int producer;
+        private final int sequence;
+
+        public SequencedTask(int producer, int sequence) {
+            this.producer = producer;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int getQueueNumber() {
+            return PriorityQueueScheduler.INPUT_QUEUE;
+        }
+
+        @Override
+        public long perform() {
+            return 0;
+        }
+    }
+
+}
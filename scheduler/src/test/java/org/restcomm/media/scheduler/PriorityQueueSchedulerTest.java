@@ -0,0 +1,309 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2017, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.scheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class PriorityQueueSchedulerTest {
+
+    private PriorityQueueScheduler scheduler;
+
+    @After
+    public void after() {
+        if (scheduler != null) {
+            scheduler.stop();
+        }
+    }
+
+    @Test
+    public void testNextAffinityIsRoundRobin() {
+        // given
+        scheduler = new PriorityQueueScheduler(new WallClock(), 4);
+
+        // when
+        final int first = scheduler.nextAffinity();
+        final int second = scheduler.nextAffinity();
+
+        // then
+        assertEquals(4, scheduler.getMediaLoops());
+        assertEquals(4, scheduler.getPoolSize());
+        assertEquals(first + 1, second);
+    }
+
+    @Test
+    public void testSharedCoreThreadByDefault() throws InterruptedException {
+        // given
+        scheduler = new PriorityQueueScheduler(new WallClock());
+        final TickTask task = new TickTask(PriorityQueueScheduler.MIXER_MIX_QUEUE);
+
+        // when
+        scheduler.start();
+        scheduler.submit(task, task.getQueueNumber());
+        Thread.sleep(200);
+        task.stop();
+
+        // then
+        assertEquals(1, scheduler.getMediaLoops());
+        assertTrue(task.ticks.get() >= 5);
+    }
+
+    @Test
+    public void testPinnedTaskRunsOnItsLoop() throws InterruptedException {
+        // given
+        scheduler = new PriorityQueueScheduler(new WallClock(), 3);
+        final TickTask[] tasks = new TickTask[6];
+        for (int i = 0; i < tasks.length; i++) {
+            tasks[i] = new TickTask(PriorityQueueScheduler.INPUT_QUEUE);
+            tasks[i].setAffinity(i);
+        }
+
+        // when
+        scheduler.start();
+        for (TickTask task : tasks) {
+            scheduler.submit(task, task.getQueueNumber());
+        }
+        Thread.sleep(200);
+        for (TickTask task : tasks) {
+            task.stop();
+        }
+
+        // then
+        for (int i = 0; i < tasks.length; i++) {
+            assertTrue(tasks[i].ticks.get() >= 5);
+            assertEquals(1, tasks[i].threads.size());
+            assertEquals("scheduler-media-loop-" + (i % 3), tasks[i].threads.iterator().next());
+        }
+    }
+
+    @Test
+    public void testUnpinnedTaskSticksToOneLoop() throws InterruptedException {
+        // given
+        scheduler = new PriorityQueueScheduler(new WallClock(), 4);
+        final TickTask first = new TickTask(PriorityQueueScheduler.INPUT_QUEUE);
+        final TickTask second = new TickTask(PriorityQueueScheduler.INPUT_QUEUE);
+
+        // when
+        scheduler.start();
+        scheduler.submit(first, first.getQueueNumber());
+        scheduler.submit(second, second.getQueueNumber());
+        Thread.sleep(200);
+        first.stop();
+        second.stop();
+
+        // then
+        assertTrue(first.getAffinity() >= 0);
+        assertEquals(first.getAffinity() + 1, second.getAffinity());
+        assertEquals(1, first.threads.size());
+        assertEquals(1, second.threads.size());
+        assertNotEquals(first.threads.iterator().next(), second.threads.iterator().next());
+    }
+
+    @Test
+    public void testPinnedChainKeepsTickOrder() throws InterruptedException {
+        // given
+        scheduler = new PriorityQueueScheduler(new WallClock(), 4);
+        final ConcurrentLinkedQueue<Integer> executions = new ConcurrentLinkedQueue<>();
+        final TickTask output = new TickTask(PriorityQueueScheduler.OUTPUT_QUEUE, executions);
+        final TickTask mixer = new TickTask(PriorityQueueScheduler.MIXER_MIX_QUEUE, executions);
+        final TickTask input = new TickTask(PriorityQueueScheduler.INPUT_QUEUE, executions);
+        final int affinity = scheduler.nextAffinity();
+        output.setAffinity(affinity);
+        mixer.setAffinity(affinity);
+        input.setAffinity(affinity);
+
+        // when - queued in reverse order before loops start
+        scheduler.submit(output, output.getQueueNumber());
+        scheduler.submit(mixer, mixer.getQueueNumber());
+        scheduler.submit(input, input.getQueueNumber());
+        scheduler.start();
+        Thread.sleep(200);
+        input.stop();
+        mixer.stop();
+        output.stop();
+        Thread.sleep(50);
+
+        // then - every tick executes input, mixer and output in order
+        final Integer[] order = executions.toArray(new Integer[executions.size()]);
+        assertTrue(order.length >= 15);
+        for (int i = 0; i < order.length - order.length % 3; i++) {
+            assertEquals(PriorityQueueScheduler.INPUT_QUEUE + i % 3, order[i].intValue());
+        }
+        assertEquals(1, input.threads.size());
+        assertEquals(input.threads, mixer.threads);
+        assertEquals(input.threads, output.threads);
+    }
+
+    @Test
+    public void testOverrunDelaysOnlyItsLoop() throws InterruptedException {
+        // given
+        scheduler = new PriorityQueueScheduler(new WallClock(), 2);
+        final TickTask slow = new TickTask(PriorityQueueScheduler.MIXER_MIX_QUEUE, 60);
+        final TickTask fast = new TickTask(PriorityQueueScheduler.MIXER_MIX_QUEUE);
+        slow.setAffinity(0);
+        fast.setAffinity(1);
+
+        // when
+        scheduler.start();
+        scheduler.submit(slow, slow.getQueueNumber());
+        scheduler.submit(fast, fast.getQueueNumber());
+        Thread.sleep(600);
+        slow.stop();
+        fast.stop();
+
+        // then - the loop of the slow task keeps its own 20ms tick
+        assertTrue(fast.ticks.get() >= 20);
+        assertTrue(fast.ticks.get() > 2 * slow.ticks.get());
+    }
+
+    @Test
+    public void testHeartbeatRunsOnPinnedLoop() throws InterruptedException {
+        // given
+        scheduler = new PriorityQueueScheduler(new WallClock(), 2);
+        final TickTask heartbeat = new TickTask(PriorityQueueScheduler.HEARTBEAT_QUEUE);
+        heartbeat.setAffinity(1);
+
+        // when
+        scheduler.start();
+        scheduler.submitHeatbeat(heartbeat);
+        Thread.sleep(600);
+        heartbeat.stop();
+
+        // then - heart beats are executed every fifth tick
+        assertTrue(heartbeat.ticks.get() >= 3);
+        assertEquals(1, heartbeat.threads.size());
+        assertEquals("scheduler-media-loop-1", heartbeat.threads.iterator().next());
+    }
+
+    @Test
+    public void testStatisticsOfMediaLoops() throws InterruptedException {
+        assertOverrunsRecorded(new PriorityQueueScheduler(new WallClock(), 2));
+    }
+
+    @Test
+    public void testStatisticsOfSharedCoreThread() throws InterruptedException {
+        assertOverrunsRecorded(new PriorityQueueScheduler(new WallClock()));
+    }
+
+    private void assertOverrunsRecorded(PriorityQueueScheduler scheduler) throws InterruptedException {
+        // given
+        this.scheduler = scheduler;
+        final TickTask slow = new TickTask(PriorityQueueScheduler.MIXER_MIX_QUEUE, 30);
+
+        // when
+        scheduler.start();
+        scheduler.submit(slow, slow.getQueueNumber());
+        Thread.sleep(300);
+        slow.stop();
+
+        // then
+        final SchedulerStatistics statistics = scheduler.getStatistics();
+        assertTrue(statistics.getCycles() > 0);
+        assertTrue(statistics.getMissedDeadlines() > 0);
+        assertTrue(scheduler.getMissRate() > 0);
+        assertTrue(scheduler.getWorstExecutionTime() >= 30000000L);
+        assertTrue(statistics.getWorstTask().startsWith(TickTask.class.getName() + "#" + slow.taskId));
+        assertTrue(statistics.getQueueHistogram(PriorityQueueScheduler.MIXER_MIX_QUEUE).getCount() >= 3);
+    }
+
+    /**
+     * Task that resubmits itself on every tick, recording where it was executed.
+     */
+    private class TickTask extends Task {
+
+        private final int queue;
+        private final long duration;
+        private final ConcurrentLinkedQueue<Integer> executions;
+        private final AtomicInteger ticks;
+        private final Set<String> threads;
+        private volatile boolean running;
+
+        public TickTask(int queue, long duration, ConcurrentLinkedQueue<Integer> executions) {
+            super();
+            this.queue = queue;
+            this.duration = duration;
+            this.executions = executions;
+            this.ticks = new AtomicInteger(0);
+            this.threads = new CopyOnWriteArraySet<>();
+            this.running = true;
+        }
+
+        public TickTask(int queue, ConcurrentLinkedQueue<Integer> executions) {
+            this(queue, 0, executions);
+        }
+
+        public TickTask(int queue, long duration) {
+            this(queue, duration, null);
+        }
+
+        public TickTask(int queue) {
+            this(queue, 0, null);
+        }
+
+        public void stop() {
+            this.running = false;
+        }
+
+        @Override
+        public int getQueueNumber() {
+            return this.queue;
+        }
+
+        @Override
+        public long perform() {
+            if (!this.running) {
+                return 0;
+            }
+
+            this.ticks.incrementAndGet();
+            this.threads.add(Thread.currentThread().getName());
+            if (this.executions != null) {
+                this.executions.add(this.queue);
+            }
+
+            if (this.duration > 0) {
+                try {
+                    Thread.sleep(this.duration);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            if (this.queue == PriorityQueueScheduler.HEARTBEAT_QUEUE) {
+                scheduler.submitHeatbeat(this);
+            } else {
+                scheduler.submit(this, this.queue);
+            }
+            return 0;
+        }
+    }
+
+}
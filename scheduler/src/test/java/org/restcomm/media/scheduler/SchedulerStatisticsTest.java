@@ -0,0 +1,140 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2017, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.scheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class SchedulerStatisticsTest {
+
+    private static final long PERIOD = 20000000L;
+
+    @Test
+    public void testMissedDeadlines() {
+        // given
+        final SchedulerStatistics statistics = new SchedulerStatistics();
+
+        // when
+        statistics.recordCycle(5000000L, PERIOD);
+        statistics.recordCycle(PERIOD, PERIOD);
+        statistics.recordCycle(PERIOD + 1, PERIOD);
+        statistics.recordCycle(45000000L, PERIOD);
+
+        // then - a cycle taking exactly one period still meets its deadline
+        assertEquals(4, statistics.getCycles());
+        assertEquals(2, statistics.getMissedDeadlines());
+        assertEquals(0.5, statistics.getMissRate(), 0.0);
+        assertEquals(45000000L, statistics.getCycleTimeMax());
+        assertEquals(45000000L, statistics.getCycleTimeP999());
+    }
+
+    @Test
+    public void testNoCycles() {
+        // given
+        final SchedulerStatistics statistics = new SchedulerStatistics();
+
+        // then
+        assertEquals(0, statistics.getCycles());
+        assertEquals(0.0, statistics.getMissRate(), 0.0);
+        assertEquals(0, statistics.getWorstExecutionTime());
+        assertNull(statistics.getWorstTask());
+    }
+
+    @Test
+    public void testWorstTask() {
+        // given
+        final SchedulerStatistics statistics = new SchedulerStatistics();
+        final Task input = new DummyTask();
+        final Task mixer = new DummyTask();
+
+        // when
+        statistics.recordTask(PriorityQueueScheduler.INPUT_QUEUE, input, 100000L);
+        statistics.recordTask(PriorityQueueScheduler.MIXER_MIX_QUEUE, mixer, 900000L);
+        statistics.recordTask(PriorityQueueScheduler.INPUT_QUEUE, input, 300000L);
+
+        // then
+        assertEquals(900000L, statistics.getWorstExecutionTime());
+        assertEquals(DummyTask.class.getName() + "#" + mixer.taskId + " (MIXER_MIX_QUEUE)", statistics.getWorstTask());
+    }
+
+    @Test
+    public void testQueueHistograms() {
+        // given
+        final SchedulerStatistics statistics = new SchedulerStatistics();
+        final Task task = new DummyTask();
+
+        // when
+        statistics.recordTask(PriorityQueueScheduler.INPUT_QUEUE, task, 100000L);
+        statistics.recordTask(PriorityQueueScheduler.INPUT_QUEUE, task, 200000L);
+        statistics.recordTask(PriorityQueueScheduler.OUTPUT_QUEUE, task, 50000L);
+        statistics.recordTask(PriorityQueueScheduler.HEARTBEAT_QUEUE, task, 70000L);
+
+        // then
+        assertEquals(2, statistics.getQueueHistogram(PriorityQueueScheduler.INPUT_QUEUE).getCount());
+        assertEquals(1, statistics.getQueueHistogram(PriorityQueueScheduler.OUTPUT_QUEUE).getCount());
+        assertEquals(0, statistics.getQueueHistogram(PriorityQueueScheduler.MIXER_MIX_QUEUE).getCount());
+        assertEquals(1, statistics.getQueueHistogram(PriorityQueueScheduler.HEARTBEAT_QUEUE).getCount());
+        assertEquals(200000L, statistics.getQueueExecutionTime("input_queue", 100));
+        assertEquals(70000L, statistics.getQueueExecutionTime("HEARTBEAT_QUEUE", 50));
+        assertTrue(statistics.report().contains("INPUT_QUEUE[count=2"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownQueue() {
+        new SchedulerStatistics().getQueueExecutionTime("VIDEO_QUEUE", 99);
+    }
+
+    @Test
+    public void testReset() {
+        // given
+        final SchedulerStatistics statistics = new SchedulerStatistics();
+        statistics.recordCycle(PERIOD * 2, PERIOD);
+        statistics.recordTask(PriorityQueueScheduler.INPUT_QUEUE, new DummyTask(), 100000L);
+
+        // when
+        statistics.reset();
+
+        // then
+        assertEquals(0, statistics.getCycles());
+        assertEquals(0, statistics.getMissedDeadlines());
+        assertEquals(0, statistics.getWorstExecutionTime());
+        assertNull(statistics.getWorstTask());
+        assertEquals(0, statistics.getQueueHistogram(PriorityQueueScheduler.INPUT_QUEUE).getCount());
+    }
+
+    private static class DummyTask extends Task {
+
+        @Override
+        public int getQueueNumber() {
+            return PriorityQueueScheduler.INPUT_QUEUE;
+        }
+
+        @Override
+        public long perform() {
+            return 0;
+        }
+    }
+
+}
@@ -48,10 +48,17 @@ public class AVProfile {
     private final static RTPFormat pcma = new RTPFormat(8, FormatFactory.createAudioFormat("pcma", 8000, 8, 1), 8000);
     private final static RTPFormat gsm = new RTPFormat(3, FormatFactory.createAudioFormat("gsm", 8000), 8000);
     private final static RTPFormat g729 = new RTPFormat(18, FormatFactory.createAudioFormat("g729", 8000), 8000);
+    // G.722 samples at 16kHz but keeps the 8kHz RTP clock of RFC 3551
+    private final static RTPFormat g722 = new RTPFormat(9, FormatFactory.createAudioFormat("g722", 16000), 8000);
     private final static RTPFormat l16 = new RTPFormat(97, FormatFactory.createAudioFormat("l16", 8000, 16, 1), 8000);    
     private final static RTPFormat dtmf = new RTPFormat(telephoneEventsID, telephoneEvent, 8000);
     private final static RTPFormat dtmf126 = new RTPFormat(telephoneEvent126, telephoneEvent, 8000);
     private final static RTPFormat ilbc = new RTPFormat(102, FormatFactory.createAudioFormat("ilbc", 8000, 16, 1), 8000);
+    // Opus is always announced as 2 channels at 48kHz (RFC 7587), its payload type is chosen by each peer
+    private final static RTPFormat opus = new RTPFormat(111, FormatFactory.createAudioFormat("opus", 48000, 16, 2), 48000);
+    static {
+        opus.getFormat().setOptions(new Text(OpusParameters.receiving().toString()));
+    }
     private final static RTPFormat linear = new RTPFormat(150, FormatFactory.createAudioFormat("linear", 8000, 16, 1), 8000);
 
     private final static RTPFormat H261 = new RTPFormat(45, FormatFactory.createVideoFormat("h261"));
@@ -63,8 +70,10 @@ public class AVProfile {
         audio.add(pcmu);
         audio.add(gsm);
         audio.add(g729);
+        audio.add(g722);
         audio.add(l16);
         audio.add(ilbc);
+        audio.add(opus);
         audio.add(dtmf);
         audio.add(dtmf126);
     }
@@ -97,6 +106,43 @@ public class AVProfile {
         return dtmf.getID() == format.getID() || dtmf126.getID() == format.getID();
     }
 
+    public static boolean isG729(RTPFormat format) {
+        if(format == null) {
+            return false;
+        }
+        return g729.getID() == format.getID();
+    }
+
+    public static boolean isG722(RTPFormat format) {
+        if(format == null) {
+            return false;
+        }
+        return g722.getID() == format.getID();
+    }
+
+    public static boolean isOpus(RTPFormat format) {
+        if(format == null) {
+            return false;
+        }
+        return opus.getFormat().getName().equals(format.getFormat().getName());
+    }
+
+    /**
+     * Gets the Opus format bound to the payload type a peer chose for it, such as 111 for Chrome or 109 for Firefox.
+     * 
+     * @param p the payload type of the rtpmap attribute
+     * @param encoding the encoding name of the rtpmap attribute
+     * @return a copy of the Opus format bound to the payload type, or null if the encoding is not Opus
+     */
+    public static RTPFormat getOpus(int p, String encoding) {
+        if(encoding == null || !opus.getFormat().getName().toString().equalsIgnoreCase(encoding.trim())) {
+            return null;
+        }
+        RTPFormat format = opus.clone();
+        format.setID(p);
+        return format;
+    }
+
     public static boolean isDefaultDtmf(RTPFormat format) {
         if(format == null) {
             return false;
@@ -0,0 +1,322 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2017, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.sdp.format;
+
+/**
+ * Format parameters of the Opus payload format, as carried by the <code>fmtp</code> attribute (RFC 7587).
+ * <p>
+ * Unlike most format parameters, they are not a property of the session: each side declares the way it prefers to
+ * <b>receive</b> Opus. The parameters of the remote peer therefore drive the encoder of the media server, while the
+ * media server answers with its own receiving preferences.
+ * </p>
+ * <p>
+ * Unknown parameters and values out of range are ignored, so the defaults of RFC 7587 apply in their place.
+ * </p>
+ */
+public class OpusParameters {
+
+    public static final String MAX_PLAYBACK_RATE = "maxplaybackrate";
+    public static final String SPROP_MAX_CAPTURE_RATE = "sprop-maxcapturerate";
+    public static final String MAX_PTIME = "maxptime";
+    public static final String PTIME = "ptime";
+    public static final String MIN_PTIME = "minptime";
+    public static final String MAX_AVERAGE_BITRATE = "maxaveragebitrate";
+    public static final String STEREO = "stereo";
+    public static final String SPROP_STEREO = "sprop-stereo";
+    public static final String CBR = "cbr";
+    public static final String USE_INBAND_FEC = "useinbandfec";
+    public static final String USE_DTX = "usedtx";
+
+    public static final int MIN_RATE = 8000;
+    public static final int MAX_RATE = 48000;
+    public static final int MIN_BITRATE = 6000;
+    public static final int MAX_BITRATE = 510000;
+
+    // packet times are multiples of the 2.5ms frame, up to 120ms
+    private static final int MIN_PACKET_TIME = 3;
+    private static final int MAX_PACKET_TIME = 120;
+
+    private int maxPlaybackRate = MAX_RATE;
+    private int spropMaxCaptureRate = MAX_RATE;
+    // zero when not specified
+    private int maxPtime;
+    private int ptime;
+    private int minPtime;
+    private int maxAverageBitrate;
+    private boolean stereo;
+    private boolean spropStereo;
+    private boolean cbr;
+    private boolean useInbandFec;
+    private boolean useDtx;
+
+    /**
+     * Parses the parameters of an <code>fmtp</code> attribute.
+     * 
+     * @param params the parameters, such as <code>minptime=10;useinbandfec=1</code>. May be null.
+     * @return the parameters, with defaults in place of the missing ones
+     */
+    public static OpusParameters parse(String params) {
+        final OpusParameters opus = new OpusParameters();
+        if (params == null) {
+            return opus;
+        }
+
+        for (String param : params.split(";")) {
+            final int separator = param.indexOf('=');
+            if (separator <= 0) {
+                continue;
+            }
+            final String name = param.substring(0, separator).trim().toLowerCase();
+            final String value = param.substring(separator + 1).trim();
+            if (MAX_PLAYBACK_RATE.equals(name)) {
+                opus.maxPlaybackRate = parseInt(value, MIN_RATE, MAX_RATE, opus.maxPlaybackRate);
+            } else if (SPROP_MAX_CAPTURE_RATE.equals(name)) {
+                opus.spropMaxCaptureRate = parseInt(value, MIN_RATE, MAX_RATE, opus.spropMaxCaptureRate);
+            } else if (MAX_PTIME.equals(name)) {
+                opus.maxPtime = parseInt(value, MIN_PACKET_TIME, MAX_PACKET_TIME, opus.maxPtime);
+            } else if (PTIME.equals(name)) {
+                opus.ptime = parseInt(value, MIN_PACKET_TIME, MAX_PACKET_TIME, opus.ptime);
+            } else if (MIN_PTIME.equals(name)) {
+                opus.minPtime = parseInt(value, MIN_PACKET_TIME, MAX_PACKET_TIME, opus.minPtime);
+            } else if (MAX_AVERAGE_BITRATE.equals(name)) {
+                opus.maxAverageBitrate = parseInt(value, MIN_BITRATE, MAX_BITRATE, opus.maxAverageBitrate);
+            } else if (STEREO.equals(name)) {
+                opus.stereo = parseFlag(value, opus.stereo);
+            } else if (SPROP_STEREO.equals(name)) {
+                opus.spropStereo = parseFlag(value, opus.spropStereo);
+            } else if (CBR.equals(name)) {
+                opus.cbr = parseFlag(value, opus.cbr);
+            } else if (USE_INBAND_FEC.equals(name)) {
+                opus.useInbandFec = parseFlag(value, opus.useInbandFec);
+            } else if (USE_DTX.equals(name)) {
+                opus.useDtx = parseFlag(value, opus.useDtx);
+            }
+        }
+        return opus;
+    }
+
+    private static int parseInt(String value, int min, int max, int current) {
+        try {
+            final int result = Integer.parseInt(value);
+            return result < min || result > max ? current : result;
+        } catch (NumberFormatException e) {
+            return current;
+        }
+    }
+
+    private static boolean parseFlag(String value, boolean current) {
+        if ("1".equals(value)) {
+            return true;
+        } else if ("0".equals(value)) {
+            return false;
+        }
+        return current;
+    }
+
+    /**
+     * Gets the receiving preferences of the media server: mono audio, which is what the mixer works with, packets
+     * down to 10ms and in-band FEC, which the decoder uses to recover lost packets.
+     * 
+     * @return the parameters to announce in offers and answers
+     */
+    public static OpusParameters receiving() {
+        final OpusParameters opus = new OpusParameters();
+        opus.setMinPtime(10);
+        opus.setUseInbandFec(true);
+        return opus;
+    }
+
+    /**
+     * Gets the maximum sampling rate the receiver is able to render.
+     * 
+     * @return the rate in Hertz, 48000 by default
+     */
+    public int getMaxPlaybackRate() {
+        return maxPlaybackRate;
+    }
+
+    public void setMaxPlaybackRate(int maxPlaybackRate) {
+        this.maxPlaybackRate = maxPlaybackRate;
+    }
+
+    /**
+     * Gets the maximum sampling rate the sender is likely to produce.
+     * 
+     * @return the rate in Hertz, 48000 by default
+     */
+    public int getSpropMaxCaptureRate() {
+        return spropMaxCaptureRate;
+    }
+
+    public void setSpropMaxCaptureRate(int spropMaxCaptureRate) {
+        this.spropMaxCaptureRate = spropMaxCaptureRate;
+    }
+
+    /**
+     * @return the longest packet time the receiver accepts, in milliseconds, zero when not specified
+     */
+    public int getMaxPtime() {
+        return maxPtime;
+    }
+
+    public void setMaxPtime(int maxPtime) {
+        this.maxPtime = maxPtime;
+    }
+
+    /**
+     * @return the packet time the receiver prefers, in milliseconds, zero when not specified
+     */
+    public int getPtime() {
+        return ptime;
+    }
+
+    public void setPtime(int ptime) {
+        this.ptime = ptime;
+    }
+
+    /**
+     * @return the shortest packet time the receiver accepts, in milliseconds, zero when not specified
+     */
+    public int getMinPtime() {
+        return minPtime;
+    }
+
+    public void setMinPtime(int minPtime) {
+        this.minPtime = minPtime;
+    }
+
+    /**
+     * @return the maximum average bitrate the receiver accepts, in bits per second, zero when not specified
+     */
+    public int getMaxAverageBitrate() {
+        return maxAverageBitrate;
+    }
+
+    public void setMaxAverageBitrate(int maxAverageBitrate) {
+        this.maxAverageBitrate = maxAverageBitrate;
+    }
+
+    /**
+     * @return whether the receiver prefers stereo signals
+     */
+    public boolean isStereo() {
+        return stereo;
+    }
+
+    public void setStereo(boolean stereo) {
+        this.stereo = stereo;
+    }
+
+    /**
+     * @return whether the sender is likely to produce stereo signals
+     */
+    public boolean isSpropStereo() {
+        return spropStereo;
+    }
+
+    public void setSpropStereo(boolean spropStereo) {
+        this.spropStereo = spropStereo;
+    }
+
+    /**
+     * @return whether the receiver prefers constant bitrate
+     */
+    public boolean isCbr() {
+        return cbr;
+    }
+
+    public void setCbr(boolean cbr) {
+        this.cbr = cbr;
+    }
+
+    /**
+     * @return whether the receiver is able to take advantage of in-band forward error correction
+     */
+    public boolean isUseInbandFec() {
+        return useInbandFec;
+    }
+
+    public void setUseInbandFec(boolean useInbandFec) {
+        this.useInbandFec = useInbandFec;
+    }
+
+    /**
+     * @return whether the receiver prefers discontinuous transmission
+     */
+    public boolean isUseDtx() {
+        return useDtx;
+    }
+
+    public void setUseDtx(boolean useDtx) {
+        this.useDtx = useDtx;
+    }
+
+    /**
+     * Formats the parameters for an <code>fmtp</code> attribute, leaving out those which keep their default value.
+     */
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        if (maxPlaybackRate != MAX_RATE) {
+            append(builder, MAX_PLAYBACK_RATE, maxPlaybackRate);
+        }
+        if (spropMaxCaptureRate != MAX_RATE) {
+            append(builder, SPROP_MAX_CAPTURE_RATE, spropMaxCaptureRate);
+        }
+        if (maxPtime > 0) {
+            append(builder, MAX_PTIME, maxPtime);
+        }
+        if (ptime > 0) {
+            append(builder, PTIME, ptime);
+        }
+        if (minPtime > 0) {
+            append(builder, MIN_PTIME, minPtime);
+        }
+        if (maxAverageBitrate > 0) {
+            append(builder, MAX_AVERAGE_BITRATE, maxAverageBitrate);
+        }
+        if (stereo) {
+            append(builder, STEREO, 1);
+        }
+        if (spropStereo) {
+            append(builder, SPROP_STEREO, 1);
+        }
+        if (cbr) {
+            append(builder, CBR, 1);
+        }
+        if (useInbandFec) {
+            append(builder, USE_INBAND_FEC, 1);
+        }
+        if (useDtx) {
+            append(builder, USE_DTX, 1);
+        }
+        return builder.toString();
+    }
+
+    private static void append(StringBuilder builder, String name, int value) {
+        if (builder.length() > 0) {
+            builder.append(';');
+        }
+        builder.append(name).append('=').append(value);
+    }
+
+}
@@ -0,0 +1,129 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2017, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.sdp.format;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class OpusParametersTest {
+
+    @Test
+    public void testParseBrowserParameters() {
+        // given
+        String params = "minptime=10;useinbandfec=1";
+
+        // when
+        OpusParameters opus = OpusParameters.parse(params);
+
+        // then
+        assertEquals(10, opus.getMinPtime());
+        assertTrue(opus.isUseInbandFec());
+        assertFalse(opus.isUseDtx());
+        assertFalse(opus.isStereo());
+        assertEquals(48000, opus.getMaxPlaybackRate());
+        assertEquals(0, opus.getMaxAverageBitrate());
+        assertEquals(params, opus.toString());
+    }
+
+    @Test
+    public void testParseAllParameters() {
+        // given
+        String params = " MaxPlaybackRate=16000; sprop-maxcapturerate=16000;maxptime=60;ptime=40;minptime=20;"
+                + "maxaveragebitrate=20000;stereo=1;sprop-stereo=1;cbr=1;useinbandfec=1;usedtx=1";
+
+        // when
+        OpusParameters opus = OpusParameters.parse(params);
+
+        // then
+        assertEquals(16000, opus.getMaxPlaybackRate());
+        assertEquals(16000, opus.getSpropMaxCaptureRate());
+        assertEquals(60, opus.getMaxPtime());
+        assertEquals(40, opus.getPtime());
+        assertEquals(20, opus.getMinPtime());
+        assertEquals(20000, opus.getMaxAverageBitrate());
+        assertTrue(opus.isStereo());
+        assertTrue(opus.isSpropStereo());
+        assertTrue(opus.isCbr());
+        assertTrue(opus.isUseInbandFec());
+        assertTrue(opus.isUseDtx());
+        assertEquals("maxplaybackrate=16000;sprop-maxcapturerate=16000;maxptime=60;ptime=40;minptime=20;"
+                + "maxaveragebitrate=20000;stereo=1;sprop-stereo=1;cbr=1;useinbandfec=1;usedtx=1", opus.toString());
+    }
+
+    @Test
+    public void testIgnoreInvalidParameters() {
+        // given
+        String params = "maxplaybackrate=96000;maxaveragebitrate=1000;ptime=abc;usedtx=yes;x-google-min-bitrate=30;stereo";
+
+        // when
+        OpusParameters opus = OpusParameters.parse(params);
+
+        // then
+        assertEquals(48000, opus.getMaxPlaybackRate());
+        assertEquals(0, opus.getMaxAverageBitrate());
+        assertEquals(0, opus.getPtime());
+        assertFalse(opus.isUseDtx());
+        assertFalse(opus.isStereo());
+        assertEquals("", opus.toString());
+    }
+
+    @Test
+    public void testParseMissingParameters() {
+        // when
+        OpusParameters opus = OpusParameters.parse(null);
+
+        // then
+        assertEquals("", opus.toString());
+    }
+
+    @Test
+    public void testReceivingParameters() {
+        // when
+        OpusParameters opus = OpusParameters.receiving();
+
+        // then
+        assertFalse(opus.isStereo());
+        assertTrue(opus.isUseInbandFec());
+        assertEquals("minptime=10;useinbandfec=1", opus.toString());
+    }
+
+    @Test
+    public void testOpusProfile() {
+        // when
+        RTPFormat opus = AVProfile.audio.find(111);
+        RTPFormat firefox = AVProfile.getOpus(109, "OPUS");
+
+        // then
+        assertTrue(AVProfile.isOpus(opus));
+        assertEquals(48000, opus.getClockRate());
+        assertEquals("minptime=10;useinbandfec=1", opus.getFormat().getOptions().toString());
+        assertEquals(109, firefox.getID());
+        assertTrue(AVProfile.isOpus(firefox));
+        assertTrue(firefox.getFormat().matches(opus.getFormat()));
+        assertEquals(111, opus.getID());
+        assertEquals(null, AVProfile.getOpus(111, "red"));
+    }
+
+}
@@ -23,6 +23,7 @@
 package org.restcomm.media.spi.memory;
 
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.restcomm.media.spi.format.Format;
 
@@ -31,8 +32,16 @@ import org.restcomm.media.spi.format.Format;
  * @author yulian oifa
  */
 public class Frame {
+    private static final byte[] EMPTY = new byte[0];
+    
     private Partition partition;
     private byte[] data;
+    
+    //frame owning the payload when this frame is a shared view
+    private Frame owner;
+    
+    //open while the frame is tracked by the leak detector
+    protected LeakDetector.Leak leak;
 
     private volatile int offset;
     private volatile int length;
@@ -47,6 +56,9 @@ public class Frame {
     
     protected AtomicBoolean inPartition=new AtomicBoolean(false);
     
+    //number of holders of the payload, including the frame itself
+    protected AtomicInteger references=new AtomicInteger(1);
+    
     protected Frame(Partition partition, byte[] data) {
         this.partition = partition;
         this.data = data;
@@ -127,8 +139,65 @@ public class Frame {
         this.format = format;
     }    
 
+    /**
+     * Creates a view of this frame that shares its payload instead of copying it.
+     * <p>
+     * The view carries its own copy of the frame metadata, so it can be timestamped and sequenced independently. The payload
+     * is shared and must be treated as read-only by all holders. It returns to the pool once this frame and all of its views
+     * are recycled.
+     * </p>
+     * 
+     * @return The shared view.
+     * @throws IllegalStateException If the frame was already recycled.
+     */
+    public Frame share() {
+        final Frame source = owner == null ? this : owner;
+        if (source.references.getAndIncrement() <= 0) {
+            source.references.decrementAndGet();
+            throw new IllegalStateException("Cannot share a recycled frame.");
+        }
+        
+        final Frame view = Memory.allocateView();
+        view.owner = source;
+        view.data = source.data;
+        view.offset = offset;
+        view.length = length;
+        view.duration = duration;
+        view.sn = sn;
+        view.eom = eom;
+        view.format = format;
+        view.timestamp = timestamp;
+        view.header = header;
+        return view;
+    }
+
+    /**
+     * Gets whether the payload of this frame is shared with other frames.
+     * 
+     * @return Whether the payload is shared.
+     */
+    public boolean isShared() {
+        return owner != null || references.get() > 1;
+    }
+
     public void recycle() {
-        partition.recycle(this);
+        final Frame source = owner;
+        if (source != null) {
+            //give the view back and release the shared payload
+            owner = null;
+            data = EMPTY;
+            partition.recycle(this);
+            source.release();
+        } else {
+            release();
+        }
+    }
+    
+    private void release() {
+        //frames too large to be pooled are left to garbage collector
+        if (references.decrementAndGet() == 0 && partition != null) {
+            partition.recycle(this);
+        }
     }
 
     @Override
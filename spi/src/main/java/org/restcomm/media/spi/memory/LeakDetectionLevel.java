@@ -0,0 +1,46 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2017, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.spi.memory;
+
+/**
+ * List of possible levels of frame leak detection.
+ * <p>
+ * <b>DISABLED</b> tracks no frame.<br>
+ * <b>SIMPLE</b> tracks a sample of the allocated frames and reports the size of leaked frames.<br>
+ * <b>ADVANCED</b> tracks a sample of the allocated frames and reports where leaked frames were allocated.<br>
+ * <b>PARANOID</b> tracks every allocated frame and reports where leaked frames were allocated. Meant for debugging only.
+ * </p>
+ */
+public enum LeakDetectionLevel {
+
+    DISABLED, SIMPLE, ADVANCED, PARANOID;
+
+    public static final LeakDetectionLevel fromName(String name) {
+        for (LeakDetectionLevel level : values()) {
+            if (level.name().equalsIgnoreCase(name)) {
+                return level;
+            }
+        }
+        throw new IllegalArgumentException("Unknown leak detection level " + name);
+    }
+
+}
@@ -0,0 +1,121 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2017, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.spi.memory;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Reports frames that are garbage collected without being recycled.
+ * <p>
+ * Sampled frames hold a weak reference that is closed when they are recycled. References still open when their frame is
+ * collected are reported as leaks. Each leak is counted, but it is logged only once per allocation site, or once per
+ * frame size when allocation sites are not recorded.
+ * </p>
+ */
+class LeakDetector {
+
+    private static final Logger LOGGER = Logger.getLogger(LeakDetector.class);
+
+    private final MemoryStatistics statistics;
+    private final ReferenceQueue<Frame> queue;
+    private final Set<Leak> leaks;
+    private final ConcurrentMap<String, Boolean> reported;
+
+    LeakDetector(MemoryStatistics statistics) {
+        this.statistics = statistics;
+        this.queue = new ReferenceQueue<>();
+        this.leaks = Collections.newSetFromMap(new ConcurrentHashMap<Leak, Boolean>());
+        this.reported = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Starts tracking a frame.
+     * 
+     * @param frame The frame to track.
+     * @param partition The partition the frame was allocated from.
+     * @param level The current leak detection level.
+     * @return The handle to close once the frame is recycled.
+     */
+    Leak track(Frame frame, Partition partition, LeakDetectionLevel level) {
+        reportLeaks();
+        final Throwable site = level == LeakDetectionLevel.SIMPLE ? null : new Throwable("Frame allocation site");
+        final Leak leak = new Leak(frame, partition, site);
+        this.leaks.add(leak);
+        return leak;
+    }
+
+    private void reportLeaks() {
+        Leak leak;
+        while ((leak = (Leak) this.queue.poll()) != null) {
+            if (this.leaks.remove(leak)) {
+                this.statistics.recordLeak();
+                leak.partition.recordLeak();
+
+                final String key = leak.site == null ? String.valueOf(leak.partition.size) : stackTrace(leak.site);
+                if (this.reported.putIfAbsent(key, Boolean.TRUE) == null) {
+                    if (leak.site == null) {
+                        LOGGER.warn("Frame leak detected: a frame of " + leak.partition.size
+                                + " bytes was garbage collected without being recycled. Set leak detection level to advanced to record allocation sites.");
+                    } else {
+                        LOGGER.warn("Frame leak detected: a frame of " + leak.partition.size
+                                + " bytes was garbage collected without being recycled.", leak.site);
+                    }
+                }
+            }
+        }
+    }
+
+    private static String stackTrace(Throwable site) {
+        final StringBuilder builder = new StringBuilder();
+        for (StackTraceElement element : site.getStackTrace()) {
+            builder.append(element).append('\n');
+        }
+        return builder.toString();
+    }
+
+    final class Leak extends WeakReference<Frame> {
+
+        private final Partition partition;
+        private final Throwable site;
+
+        private Leak(Frame frame, Partition partition, Throwable site) {
+            super(frame, queue);
+            this.partition = partition;
+            this.site = site;
+        }
+
+        void close() {
+            if (leaks.remove(this)) {
+                clear();
+            }
+        }
+
+    }
+
+}
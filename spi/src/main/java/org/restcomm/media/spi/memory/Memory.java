@@ -22,27 +22,85 @@
 
 package org.restcomm.media.spi.memory;
 
-import org.restcomm.media.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.apache.log4j.Logger;
 
 /**
+ * Pool of reusable frames.
+ * <p>
+ * Frames are pooled per exact payload size, since codecs rely on the length of the underlying array. Partitions are looked
+ * up by index, each thread caches a small magazine of free frames per size and the bytes kept by the shared heaps are
+ * bounded. Frames larger than {@link #MAX_POOLED_SIZE} are not pooled.
+ * </p>
  *
  * @author oifa yulian
  */
 public class Memory 
 {
-    private static ConcurrentMap<Partition> partitions = new ConcurrentMap<Partition>();
+    //largest frame size kept by the pool
+    public static final int MAX_POOLED_SIZE = 8192;
+    
+    //default upper bound of bytes kept by the shared partition heaps
+    public static final long MAX_RETAINED_BYTES = 64L * 1024L * 1024L;
+    
+    //system property holding the leak detection level at startup
+    public static final String LEAK_DETECTION = "mms.memory.leak.detection";
+    
+    private static final Logger logger = Logger.getLogger(Memory.class);
+    
+    private static final MemoryStatistics statistics = new MemoryStatistics(MAX_RETAINED_BYTES);
+    private static final LeakDetector leakDetector = new LeakDetector(statistics);
+    private static final AtomicReferenceArray<Partition> partitions = new AtomicReferenceArray<Partition>(MAX_POOLED_SIZE + 1);
+    
+    //headers of shared frames, see Frame#share()
+    private static final Partition views = new Partition(0, statistics, leakDetector);
+    
+    static
+    {
+    	statistics.recordPartition(views);
+    	final String level = System.getProperty(LEAK_DETECTION);
+    	if(level != null)
+    	{
+    		try
+    		{
+    			statistics.setLeakDetectionLevel(level);
+    		}
+    		catch(IllegalArgumentException e)
+    		{
+    			logger.warn("Ignoring " + LEAK_DETECTION + " system property: " + e.getMessage());
+    		}
+    	}
+    }
     
     public static Frame allocate(int size) 
     {
+    	if(size > MAX_POOLED_SIZE)
+    	{
+    		statistics.recordUnpooled();
+    		return new Frame(null, new byte[size]);
+    	}
+    	
     	Partition currPartition=partitions.get(size);
     	if(currPartition==null)
     	{
-    		currPartition=new Partition(size);
-    		Partition oldPartition=partitions.putIfAbsent(size,currPartition);
-    		if(oldPartition!=null)
-    			currPartition=oldPartition;		
+    		currPartition=new Partition(size, statistics, leakDetector);
+    		if(partitions.compareAndSet(size, null, currPartition))
+    			statistics.recordPartition(currPartition);
+    		else
+    			currPartition=partitions.get(size);
     	}
     	
     	return currPartition.allocate();
     }
+    
+    static Frame allocateView()
+    {
+    	return views.allocate();
+    }
+    
+    public static MemoryStatistics getStatistics()
+    {
+    	return statistics;
+    }
 }
@@ -0,0 +1,240 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2017, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.spi.memory;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects usage statistics of the frame pool managed by {@link Memory}.
+ */
+public class MemoryStatistics implements MemoryStatisticsMBean {
+
+    /**
+     * Default number of allocations between two frames tracked by the leak detector.
+     */
+    public static final int LEAK_SAMPLING_INTERVAL = 128;
+
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+    private final AtomicLong dropped;
+    private final AtomicLong unpooled;
+    private final AtomicLong retainedBytes;
+    private final AtomicLong leaks;
+    private final List<Partition> partitions;
+    private volatile long maxRetainedBytes;
+    private volatile LeakDetectionLevel leakDetectionLevel;
+    private volatile int leakSamplingInterval;
+
+    public MemoryStatistics(long maxRetainedBytes) {
+        this.hits = new AtomicLong(0);
+        this.misses = new AtomicLong(0);
+        this.dropped = new AtomicLong(0);
+        this.unpooled = new AtomicLong(0);
+        this.retainedBytes = new AtomicLong(0);
+        this.leaks = new AtomicLong(0);
+        this.partitions = new CopyOnWriteArrayList<>();
+        this.leakDetectionLevel = LeakDetectionLevel.DISABLED;
+        this.leakSamplingInterval = LEAK_SAMPLING_INTERVAL;
+        setMaxRetainedBytes(maxRetainedBytes);
+    }
+
+    void recordAllocations(long hits, long misses) {
+        if (hits > 0) {
+            this.hits.addAndGet(hits);
+        }
+        if (misses > 0) {
+            this.misses.addAndGet(misses);
+        }
+    }
+
+    void recordDropped(long frames) {
+        this.dropped.addAndGet(frames);
+    }
+
+    void recordUnpooled() {
+        this.unpooled.incrementAndGet();
+    }
+
+    void recordLeak() {
+        this.leaks.incrementAndGet();
+    }
+
+    void recordPartition(Partition partition) {
+        this.partitions.add(partition);
+    }
+
+    /**
+     * Checks whether the shared heaps can retain more bytes.
+     * <p>
+     * The check is not atomic with the update of the counter, so the bound may be exceeded by one batch per thread.
+     * </p>
+     * 
+     * @param bytes The number of bytes to retain.
+     * @return Whether the bytes fit below the upper bound.
+     */
+    boolean canRetain(long bytes) {
+        return this.retainedBytes.get() + bytes <= this.maxRetainedBytes;
+    }
+
+    void retain(long bytes) {
+        this.retainedBytes.addAndGet(bytes);
+    }
+
+    void release(long bytes) {
+        this.retainedBytes.addAndGet(-bytes);
+    }
+
+    @Override
+    public long getHits() {
+        return this.hits.get();
+    }
+
+    @Override
+    public long getMisses() {
+        return this.misses.get();
+    }
+
+    @Override
+    public double getHitRate() {
+        final long hits = this.hits.get();
+        final long total = hits + this.misses.get();
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    @Override
+    public long getDropped() {
+        return this.dropped.get();
+    }
+
+    @Override
+    public long getUnpooled() {
+        return this.unpooled.get();
+    }
+
+    @Override
+    public long getRetainedBytes() {
+        return this.retainedBytes.get();
+    }
+
+    @Override
+    public long getMaxRetainedBytes() {
+        return this.maxRetainedBytes;
+    }
+
+    @Override
+    public void setMaxRetainedBytes(long maxRetainedBytes) {
+        if (maxRetainedBytes < 0) {
+            throw new IllegalArgumentException("Maximum retained bytes cannot be negative.");
+        }
+        this.maxRetainedBytes = maxRetainedBytes;
+    }
+
+    @Override
+    public long getLeaks() {
+        return this.leaks.get();
+    }
+
+    LeakDetectionLevel getLeakDetection() {
+        return this.leakDetectionLevel;
+    }
+
+    void setLeakDetection(LeakDetectionLevel level) {
+        if (level == null) {
+            throw new IllegalArgumentException("Leak detection level cannot be null.");
+        }
+        this.leakDetectionLevel = level;
+    }
+
+    @Override
+    public String getLeakDetectionLevel() {
+        return this.leakDetectionLevel.name();
+    }
+
+    @Override
+    public void setLeakDetectionLevel(String level) {
+        setLeakDetection(LeakDetectionLevel.fromName(level));
+    }
+
+    @Override
+    public int getLeakSamplingInterval() {
+        return this.leakSamplingInterval;
+    }
+
+    @Override
+    public void setLeakSamplingInterval(int interval) {
+        if (interval <= 0) {
+            throw new IllegalArgumentException("Leak sampling interval must be positive.");
+        }
+        this.leakSamplingInterval = interval;
+    }
+
+    @Override
+    public int getPartitions() {
+        return this.partitions.size();
+    }
+
+    @Override
+    public String report() {
+        final StringBuilder builder = new StringBuilder();
+        builder.append("hits=").append(getHits());
+        builder.append(" misses=").append(getMisses());
+        builder.append(" hitRate=").append(String.format("%.4f", getHitRate()));
+        builder.append(" dropped=").append(getDropped());
+        builder.append(" unpooled=").append(getUnpooled());
+        builder.append(" retainedBytes=").append(getRetainedBytes());
+        builder.append(" maxRetainedBytes=").append(getMaxRetainedBytes());
+        builder.append(" leaks=").append(getLeaks());
+        builder.append(" partitions=").append(getPartitions());
+        builder.append(" leakDetectionLevel=").append(getLeakDetectionLevel());
+        return builder.toString();
+    }
+
+    @Override
+    public String reportPartitions() {
+        final StringBuilder builder = new StringBuilder();
+        for (Partition partition : this.partitions) {
+            builder.append("size=").append(partition.size);
+            builder.append(" hits=").append(partition.getHits());
+            builder.append(" misses=").append(partition.getMisses());
+            builder.append(" dropped=").append(partition.getDropped());
+            builder.append(" leaks=").append(partition.getLeaks());
+            builder.append(" retainedFrames=").append(partition.getRetainedFrames());
+            builder.append('\n');
+        }
+        return builder.toString();
+    }
+
+    @Override
+    public void reset() {
+        this.hits.set(0);
+        this.misses.set(0);
+        this.dropped.set(0);
+        this.unpooled.set(0);
+        this.leaks.set(0);
+        for (Partition partition : this.partitions) {
+            partition.reset();
+        }
+    }
+
+}
@@ -0,0 +1,134 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2017, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.spi.memory;
+
+/**
+ * Management interface of the frame pool statistics.
+ * <p>
+ * Counters are flushed from the thread magazines in batches, so they may lag slightly behind the real values.
+ * </p>
+ */
+public interface MemoryStatisticsMBean {
+
+    /**
+     * Gets the number of allocations served by a pooled frame.
+     * 
+     * @return The number of hits.
+     */
+    long getHits();
+
+    /**
+     * Gets the number of allocations that required a new frame.
+     * 
+     * @return The number of misses.
+     */
+    long getMisses();
+
+    /**
+     * Gets the ratio of allocations served by a pooled frame.
+     * 
+     * @return The hit rate, between 0 and 1.
+     */
+    double getHitRate();
+
+    /**
+     * Gets the number of recycled frames released to the garbage collector because the pool was full.
+     * 
+     * @return The number of dropped frames.
+     */
+    long getDropped();
+
+    /**
+     * Gets the number of allocations too large to be pooled.
+     * 
+     * @return The number of unpooled allocations.
+     */
+    long getUnpooled();
+
+    /**
+     * Gets the number of bytes held by the shared partition heaps.
+     * 
+     * @return The retained bytes.
+     */
+    long getRetainedBytes();
+
+    /**
+     * Gets the upper bound of bytes held by the shared partition heaps.
+     * 
+     * @return The maximum retained bytes.
+     */
+    long getMaxRetainedBytes();
+
+    void setMaxRetainedBytes(long maxRetainedBytes);
+
+    /**
+     * Gets the number of frames reported by the leak detector.
+     * 
+     * @return The number of leaked frames.
+     */
+    long getLeaks();
+
+    /**
+     * Gets the level of leak detection, as listed in {@link LeakDetectionLevel}.
+     * 
+     * @return The leak detection level.
+     */
+    String getLeakDetectionLevel();
+
+    void setLeakDetectionLevel(String level);
+
+    /**
+     * Gets the number of allocations between two frames tracked by the leak detector, when sampling.
+     * 
+     * @return The sampling interval.
+     */
+    int getLeakSamplingInterval();
+
+    void setLeakSamplingInterval(int interval);
+
+    /**
+     * Gets the number of partitions, including the one holding shared frame views.
+     * 
+     * @return The number of partitions.
+     */
+    int getPartitions();
+
+    /**
+     * Builds a text report with the current values of all statistics.
+     * 
+     * @return The report.
+     */
+    String report();
+
+    /**
+     * Builds a text report with the counters of each partition.
+     * 
+     * @return The report, one line per partition.
+     */
+    String reportPartitions();
+
+    /**
+     * Clears the hit, miss, drop, unpooled and leak counters.
+     */
+    void reset();
+
+}
@@ -22,29 +22,90 @@
 
 package org.restcomm.media.spi.memory;
 
-import org.restcomm.media.concurrent.ConcurrentCyclicFIFO;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.restcomm.media.concurrent.MpmcRingQueue;
 
 /**
+ * Pool of free frames of a given size.
+ * <p>
+ * Each thread keeps a magazine of free frames, so most allocations and recycles do not touch shared state. Magazines are
+ * refilled from and spilled to the shared heap in batches of half a magazine.
+ * </p>
+ * <p>
+ * When leak detection is enabled, a sample of the allocated frames is handed to the {@link LeakDetector}. The sampling
+ * counter lives in the magazine, so it costs no shared write.
+ * </p>
  *
  * @author oifa yulian
  */
 public class Partition {
 
+    //maximum number of free frames kept by the shared heap
+    private static final int CAPACITY = 4096;
+    
+    //bytes of free frames kept by the shared heap, bounds the capacity of large frames
+    private static final int CAPACITY_BYTES = 1024 * 1024;
+    
+    //number of free frames cached by each thread
+    protected static final int MAGAZINE_SIZE = 32;
+    private static final int BATCH_SIZE = MAGAZINE_SIZE / 2;
+
     protected int size;
-    private ConcurrentCyclicFIFO<Frame> heap = new ConcurrentCyclicFIFO<Frame>();
+    private final MpmcRingQueue<Frame> heap;
+    private final MemoryStatistics statistics;
+    private final LeakDetector leakDetector;
+    
+    //counters of this partition, flushed from magazines in batches
+    private final AtomicLong hits = new AtomicLong(0);
+    private final AtomicLong misses = new AtomicLong(0);
+    private final AtomicLong dropped = new AtomicLong(0);
+    private final AtomicLong leaks = new AtomicLong(0);
+    
+    private final ThreadLocal<Magazine> magazines = new ThreadLocal<Magazine>() {
+        
+        @Override
+        protected Magazine initialValue() {
+            return new Magazine();
+        }
+        
+    };
 
-    protected Partition(int size) {
+    protected Partition(int size, MemoryStatistics statistics, LeakDetector leakDetector) {
         this.size = size;
+        this.statistics = statistics;
+        this.leakDetector = leakDetector;
+        this.heap = new MpmcRingQueue<Frame>(Math.max(MAGAZINE_SIZE, Math.min(CAPACITY, CAPACITY_BYTES / Math.max(1, size))));
     }
     
     protected Frame allocate() {
-    	//if (true) return new Frame(this, new byte[size]);
-    	Frame result=heap.poll();    	
-    	
-        if (result==null) {
-            return new Frame(this, new byte[size]);
+        final Magazine magazine = magazines.get();
+        if (magazine.count == 0) {
+            refill(magazine);
+        }
+        
+        Frame result;
+        if (magazine.count > 0) {
+            result = magazine.frames[--magazine.count];
+            magazine.frames[magazine.count] = null;
+            magazine.hits++;
+        } else {
+            result = new Frame(this, new byte[size]);
+            magazine.misses++;
+        }
+        
+        if (magazine.hits + magazine.misses >= MAGAZINE_SIZE) {
+            flush(magazine);
+        }
+        
+        final LeakDetectionLevel level = statistics.getLeakDetection();
+        if (level != LeakDetectionLevel.DISABLED
+                && (level == LeakDetectionLevel.PARANOID || ++magazine.samples >= statistics.getLeakSamplingInterval())) {
+            magazine.samples = 0;
+            result.leak = leakDetector.track(result, this, level);
         }
         
+        result.references.set(1);
         result.inPartition.set(false);
         return result;
     }
@@ -54,11 +115,103 @@ public class Partition {
     		//dont add duplicate,otherwise may be reused in different places
     		return;
     	}
+    	if (frame.leak != null) {
+    	    frame.leak.close();
+    	    frame.leak = null;
+    	}
         frame.setHeader(null);
         frame.setDuration(Long.MAX_VALUE);
-        frame.setEOM(false);        
-        heap.offer(frame);
-        //queue.offer(frame, frame.getDelay(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+        frame.setEOM(false);
+        
+        final Magazine magazine = magazines.get();
+        if (magazine.count == MAGAZINE_SIZE) {
+            spill(magazine);
+        }
+        magazine.frames[magazine.count++] = frame;
+    }
+    
+    private void refill(Magazine magazine) {
+        int moved = 0;
+        Frame frame;
+        while (moved < BATCH_SIZE && (frame = heap.poll()) != null) {
+            magazine.frames[magazine.count++] = frame;
+            moved++;
+        }
+        if (moved > 0) {
+            statistics.release((long) moved * size);
+        }
+    }
+    
+    private void spill(Magazine magazine) {
+        final boolean retain = statistics.canRetain((long) BATCH_SIZE * size);
+        int moved = 0;
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            final Frame frame = magazine.frames[--magazine.count];
+            magazine.frames[magazine.count] = null;
+            //when heap is full the frame is left to garbage collector
+            if (retain && heap.offer(frame)) {
+                moved++;
+            }
+        }
+        if (moved > 0) {
+            statistics.retain((long) moved * size);
+        }
+        if (moved < BATCH_SIZE) {
+            dropped.addAndGet(BATCH_SIZE - moved);
+            statistics.recordDropped(BATCH_SIZE - moved);
+        }
+    }
+    
+    private void flush(Magazine magazine) {
+        hits.addAndGet(magazine.hits);
+        misses.addAndGet(magazine.misses);
+        statistics.recordAllocations(magazine.hits, magazine.misses);
+        magazine.hits = 0;
+        magazine.misses = 0;
+    }
+    
+    void recordLeak() {
+        leaks.incrementAndGet();
+    }
+    
+    long getHits() {
+        return hits.get();
+    }
+    
+    long getMisses() {
+        return misses.get();
+    }
+    
+    long getDropped() {
+        return dropped.get();
+    }
+    
+    long getLeaks() {
+        return leaks.get();
+    }
+    
+    int getRetainedFrames() {
+        return heap.size();
+    }
+    
+    void reset() {
+        hits.set(0);
+        misses.set(0);
+        dropped.set(0);
+        leaks.set(0);
+    }
+    
+    /**
+     * Free frames cached by a single thread.
+     */
+    private static final class Magazine {
+        
+        private final Frame[] frames = new Frame[MAGAZINE_SIZE];
+        private int count;
+        private long hits;
+        private long misses;
+        private int samples;
+        
     }
 
 }